@@ -0,0 +1,104 @@
+/*
+ * Created by Michael Simons, michael-simons.eu
+ * and released under The BSD License
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * Copyright (c) 2010-2026, Michael Simons
+ * All rights reserved.
+ *
+ * Redistribution  and  use  in  source   and  binary  forms,  with  or   without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source   code must retain   the above copyright   notice,
+ *   this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary  form must reproduce  the above copyright  notice,
+ *   this list of conditions  and the following  disclaimer in the  documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name  of  michael-simons.eu   nor the names  of its contributors
+ *   may be used  to endorse   or promote  products derived  from  this  software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE  COPYRIGHT HOLDERS AND  CONTRIBUTORS "AS IS"
+ * AND ANY  EXPRESS OR  IMPLIED WARRANTIES,  INCLUDING, BUT  NOT LIMITED  TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL  THE COPYRIGHT HOLDER OR CONTRIBUTORS  BE LIABLE
+ * FOR ANY  DIRECT, INDIRECT,  INCIDENTAL, SPECIAL,  EXEMPLARY, OR  CONSEQUENTIAL
+ * DAMAGES (INCLUDING,  BUT NOT  LIMITED TO,  PROCUREMENT OF  SUBSTITUTE GOODS OR
+ * SERVICES; LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT  LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE  USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package ac.simons.oembed;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures the startup of a service with a provider registry of 1000 url schemes: loading
+ * the registry and compiling its schemes in a new service. Run with
+ * {@code mvn -Pbenchmarks -DskipTests -Denforcer.skip -Dbenchmark=ProvidersStartupBenchmark test-compile exec:exec}.
+ * The average time should stay well below 100 milliseconds.
+ *
+ * @author Michael J. Simons
+ * @since 2026-10-17
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProvidersStartupBenchmark {
+
+	private static final int NUMBER_OF_PROVIDERS = 250;
+
+	private final OembedProvidersLoader loader = new OembedProvidersLoader();
+
+	private final HttpTransport httpTransport = new InMemoryHttpTransport();
+
+	private byte[] providers;
+
+	@Setup
+	public void setup() {
+		final StringBuilder json = new StringBuilder("[");
+		for (int i = 0; i < NUMBER_OF_PROVIDERS; ++i) {
+			json.append((i == 0) ? "" : ",").append(String.format("""
+					{"provider_name": "Provider %1$d", "provider_url": "https://provider%1$d.example.com",
+					 "endpoints": [{"url": "https://provider%1$d.example.com/oembed.{format}", "schemes": [
+					  "https://*.provider%1$d.example.com/watch/*", "https://provider%1$d.example.com/*/video/*",
+					  "https://p%1$d.example/*", "https://*.provider%1$d.example.com/embed/*"]}]}
+					""", i));
+		}
+		this.providers = json.append("]").toString().getBytes(StandardCharsets.UTF_8);
+	}
+
+	@Benchmark
+	public OembedService startup() {
+		final List<OembedEndpoint> endpoints = this.loader.load(new ByteArrayInputStream(this.providers));
+		return new OembedService(this.httpTransport, null, endpoints, null);
+	}
+
+	public static void main(final String... args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(ProvidersStartupBenchmark.class.getSimpleName()).build()).run();
+	}
+
+}
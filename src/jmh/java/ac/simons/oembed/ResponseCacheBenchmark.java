@@ -0,0 +1,188 @@
+/*
+ * Created by Michael Simons, michael-simons.eu
+ * and released under The BSD License
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * Copyright (c) 2010-2026, Michael Simons
+ * All rights reserved.
+ *
+ * Redistribution  and  use  in  source   and  binary  forms,  with  or   without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source   code must retain   the above copyright   notice,
+ *   this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary  form must reproduce  the above copyright  notice,
+ *   this list of conditions  and the following  disclaimer in the  documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name  of  michael-simons.eu   nor the names  of its contributors
+ *   may be used  to endorse   or promote  products derived  from  this  software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE  COPYRIGHT HOLDERS AND  CONTRIBUTORS "AS IS"
+ * AND ANY  EXPRESS OR  IMPLIED WARRANTIES,  INCLUDING, BUT  NOT LIMITED  TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL  THE COPYRIGHT HOLDER OR CONTRIBUTORS  BE LIABLE
+ * FOR ANY  DIRECT, INDIRECT,  INCIDENTAL, SPECIAL,  EXEMPLARY, OR  CONSEQUENTIAL
+ * DAMAGES (INCLUDING,  BUT NOT  LIMITED TO,  PROCUREMENT OF  SUBSTITUTE GOODS OR
+ * SERVICES; LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT  LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE  USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package ac.simons.oembed;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import net.sf.ehcache.CacheManager;
+import net.sf.ehcache.config.CacheConfiguration;
+import net.sf.ehcache.config.Configuration;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the response caches under a read-through workload with Zipf distributed
+ * urls, as they occur when popular links are embedded over and over again between
+ * one-off links. Run with
+ * {@code mvn -Pbenchmarks -DskipTests -Denforcer.skip test-compile exec:exec}, which
+ * runs the benchmark with 1, 8 and 64 threads. The {@code hits} and {@code misses}
+ * counters show the hit ratio of each cache.
+ *
+ * @author Michael J. Simons
+ * @since 2026-10-17
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResponseCacheBenchmark {
+
+	private static final int MAXIMUM_SIZE = 10_000;
+
+	private static final int NUMBER_OF_URLS = 250_000;
+
+	private static final int NUMBER_OF_REQUESTS = 1 << 20;
+
+	private static final Duration TIME_TO_LIVE = Duration.ofHours(1);
+
+	@Param({ "ehcache", "inMemory" })
+	public String cache;
+
+	private CacheManager cacheManager;
+
+	private ResponseCache responseCache;
+
+	private String[] requests;
+
+	private CachedResponse cachedResponse;
+
+	@Setup
+	public void setup() {
+		if ("ehcache".equals(this.cache)) {
+			this.cacheManager = CacheManager.newInstance(new Configuration().name("benchmark")
+				.defaultCache(new CacheConfiguration().maxEntriesLocalHeap(MAXIMUM_SIZE)));
+			this.responseCache = new EhcacheResponseCache(this.cacheManager, "responses");
+		}
+		else {
+			this.responseCache = new InMemoryResponseCache(MAXIMUM_SIZE);
+		}
+		this.requests = zipfDistributedUrls(new Random(4711));
+		final Instant now = Instant.now();
+		this.cachedResponse = new CachedResponse(new OembedResponse(), now, now.plus(TIME_TO_LIVE));
+	}
+
+	@TearDown
+	public void tearDown() {
+		if (this.cacheManager != null) {
+			this.cacheManager.shutdown();
+		}
+	}
+
+	@Benchmark
+	public Optional<CachedResponse> readThrough(final Requests requests) {
+		final String url = this.requests[requests.next++ & (NUMBER_OF_REQUESTS - 1)];
+		final Optional<CachedResponse> rv = this.responseCache.get(url);
+		if (rv.isPresent()) {
+			++requests.hits;
+		}
+		else {
+			++requests.misses;
+			this.responseCache.put(url, this.cachedResponse, TIME_TO_LIVE);
+		}
+		return rv;
+	}
+
+	/**
+	 * Draws urls with a Zipf distribution with an exponent of 1.
+	 * @param random the source of randomness
+	 * @return the requested urls
+	 */
+	private static String[] zipfDistributedUrls(final Random random) {
+		final double[] cumulative = new double[NUMBER_OF_URLS];
+		double sum = 0.0;
+		for (int i = 0; i < NUMBER_OF_URLS; ++i) {
+			sum += 1.0 / (i + 1);
+			cumulative[i] = sum;
+		}
+		final String[] rv = new String[NUMBER_OF_REQUESTS];
+		for (int i = 0; i < NUMBER_OF_REQUESTS; ++i) {
+			final int rank = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+			rv[i] = "https://example.com/articles/" + ((rank < 0) ? -rank - 1 : rank);
+		}
+		return rv;
+	}
+
+	public static void main(final String... args) throws RunnerException {
+		for (int threads : new int[] { 1, 8, 64 }) {
+			new Runner(new OptionsBuilder().include(ResponseCacheBenchmark.class.getSimpleName())
+				.threads(threads)
+				.build()).run();
+		}
+	}
+
+	/**
+	 * The position of each thread in the requested urls together with its hits and
+	 * misses.
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class Requests {
+
+		int next;
+
+		public long hits;
+
+		public long misses;
+
+		@Setup(Level.Iteration)
+		public void setup() {
+			this.next = ThreadLocalRandom.current().nextInt(NUMBER_OF_REQUESTS);
+		}
+
+	}
+
+}
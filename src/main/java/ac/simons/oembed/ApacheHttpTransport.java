@@ -0,0 +1,213 @@
+/*
+ * Created by Michael Simons, michael-simons.eu
+ * and released under The BSD License
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * Copyright (c) 2010-2026, Michael Simons
+ * All rights reserved.
+ *
+ * Redistribution  and  use  in  source   and  binary  forms,  with  or   without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source   code must retain   the above copyright   notice,
+ *   this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary  form must reproduce  the above copyright  notice,
+ *   this list of conditions  and the following  disclaimer in the  documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name  of  michael-simons.eu   nor the names  of its contributors
+ *   may be used  to endorse   or promote  products derived  from  this  software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE  COPYRIGHT HOLDERS AND  CONTRIBUTORS "AS IS"
+ * AND ANY  EXPRESS OR  IMPLIED WARRANTIES,  INCLUDING, BUT  NOT LIMITED  TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL  THE COPYRIGHT HOLDER OR CONTRIBUTORS  BE LIABLE
+ * FOR ANY  DIRECT, INDIRECT,  INCIDENTAL, SPECIAL,  EXEMPLARY, OR  CONSEQUENTIAL
+ * DAMAGES (INCLUDING,  BUT NOT  LIMITED TO,  PROCUREMENT OF  SUBSTITUTE GOODS OR
+ * SERVICES; LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT  LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE  USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package ac.simons.oembed;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpHead;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.methods.RequestBuilder;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.pool.ConnPoolControl;
+import org.apache.http.pool.PoolStats;
+
+/**
+ * A {@link HttpTransport} executing requests with Apache HttpClient 4.
+ *
+ * @author Michael J. Simons
+ * @since 2026-10-17
+ */
+public class ApacheHttpTransport implements HttpTransport {
+
+	/**
+	 * The client executing the requests.
+	 */
+	private final HttpClient httpClient;
+
+	/**
+	 * The optional connection pool of the client, used for metrics only.
+	 */
+	private final ConnPoolControl<HttpRoute> connectionPool;
+
+	/**
+	 * Creates a new transport.
+	 * @param httpClient the client executing the requests
+	 */
+	public ApacheHttpTransport(final HttpClient httpClient) {
+		this(httpClient, null);
+	}
+
+	/**
+	 * Creates a new transport reporting the metrics of the given connection pool, for
+	 * example a {@code PoolingHttpClientConnectionManager}.
+	 * @param httpClient the client executing the requests
+	 * @param connectionPool the connection pool used by the client
+	 */
+	public ApacheHttpTransport(final HttpClient httpClient, final ConnPoolControl<HttpRoute> connectionPool) {
+		this.httpClient = httpClient;
+		this.connectionPool = connectionPool;
+	}
+
+	/**
+	 * Adapts a request of Apache HttpClient. Executed by this transport, the original
+	 * request including its configuration is executed, other transports use its method,
+	 * uri and headers.
+	 * @param request the request to adapt
+	 * @return a transport request
+	 */
+	public static TransportRequest adapt(final HttpUriRequest request) {
+		final Map<String, String> headers = new LinkedHashMap<>();
+		for (Header header : request.getAllHeaders()) {
+			headers.put(header.getName(), header.getValue());
+		}
+		return new AdaptedRequest(request, headers);
+	}
+
+	@Override
+	public TransportResponse execute(final TransportRequest request) throws IOException {
+		final HttpUriRequest httpRequest;
+		if (request instanceof AdaptedRequest adaptedRequest) {
+			httpRequest = adaptedRequest.original;
+		}
+		else {
+			httpRequest = switch (request.getMethod()) {
+				case "GET" -> new HttpGet(request.getUri());
+				case "HEAD" -> new HttpHead(request.getUri());
+				default -> RequestBuilder.create(request.getMethod()).setUri(request.getUri()).build();
+			};
+			request.getHeaders().forEach(httpRequest::setHeader);
+		}
+		return new Response(this.httpClient.execute(httpRequest));
+	}
+
+	@Override
+	public Optional<ConnectionPoolMetrics> getConnectionPoolMetrics() {
+		return Optional.ofNullable(this.connectionPool).map(ConnPoolControl::getTotalStats).map(this::toMetrics);
+	}
+
+	private ConnectionPoolMetrics toMetrics(final PoolStats stats) {
+		return new ConnectionPoolMetrics(stats.getLeased(), stats.getPending(), stats.getAvailable(), stats.getMax());
+	}
+
+	/**
+	 * A transport request wrapping the original request.
+	 */
+	private static final class AdaptedRequest extends TransportRequest {
+
+		private final HttpUriRequest original;
+
+		AdaptedRequest(final HttpUriRequest original, final Map<String, String> headers) {
+			super(original.getMethod(), original.getURI(), headers);
+			this.original = original;
+		}
+
+	}
+
+	/**
+	 * Response wrapping the response of the client.
+	 */
+	private static final class Response implements TransportResponse {
+
+		private final HttpResponse httpResponse;
+
+		private Streams.DrainingInputStream body;
+
+		Response(final HttpResponse httpResponse) {
+			this.httpResponse = httpResponse;
+		}
+
+		@Override
+		public int getStatusCode() {
+			return this.httpResponse.getStatusLine().getStatusCode();
+		}
+
+		@Override
+		public List<String> getHeaders(final String name) {
+			return Optional.ofNullable(this.httpResponse.getHeaders(name))
+				.map(headers -> Arrays.stream(headers).map(Header::getValue).filter(Objects::nonNull).toList())
+				.orElseGet(List::of);
+		}
+
+		/**
+		 * Returns the body of the response. Closing the body consumes the rest, which
+		 * returns the connection to the pool. If the rest is too large, the connection is
+		 * aborted instead.
+		 * @return the body of the response
+		 * @throws IOException if the body cannot be read
+		 */
+		@Override
+		public InputStream getBody() throws IOException {
+			if (this.body == null) {
+				final HttpEntity entity = this.httpResponse.getEntity();
+				final InputStream content = (entity != null) ? entity.getContent() : null;
+				this.body = Streams.draining((content != null) ? content : InputStream.nullInputStream(),
+						(this.httpResponse instanceof Closeable closeable) ? closeable : null);
+			}
+			return this.body;
+		}
+
+		@Override
+		public void close() throws IOException {
+			try {
+				getBody().close();
+			}
+			finally {
+				if (this.httpResponse instanceof Closeable closeable) {
+					closeable.close();
+				}
+			}
+		}
+
+		@Override
+		public void abort() throws IOException {
+			getBody();
+			this.body.abort();
+		}
+
+	}
+
+}
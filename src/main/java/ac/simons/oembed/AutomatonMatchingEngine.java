@@ -0,0 +1,1094 @@
+/*
+ * Created by Michael Simons, michael-simons.eu
+ * and released under The BSD License
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * Copyright (c) 2010-2026, Michael Simons
+ * All rights reserved.
+ *
+ * Redistribution  and  use  in  source   and  binary  forms,  with  or   without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source   code must retain   the above copyright   notice,
+ *   this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary  form must reproduce  the above copyright  notice,
+ *   this list of conditions  and the following  disclaimer in the  documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name  of  michael-simons.eu   nor the names  of its contributors
+ *   may be used  to endorse   or promote  products derived  from  this  software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE  COPYRIGHT HOLDERS AND  CONTRIBUTORS "AS IS"
+ * AND ANY  EXPRESS OR  IMPLIED WARRANTIES,  INCLUDING, BUT  NOT LIMITED  TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL  THE COPYRIGHT HOLDER OR CONTRIBUTORS  BE LIABLE
+ * FOR ANY  DIRECT, INDIRECT,  INCIDENTAL, SPECIAL,  EXEMPLARY, OR  CONSEQUENTIAL
+ * DAMAGES (INCLUDING,  BUT NOT  LIMITED TO,  PROCUREMENT OF  SUBSTITUTE GOODS OR
+ * SERVICES; LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT  LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE  USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package ac.simons.oembed;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * A matching engine that compiles url schemes into a nondeterministic finite automaton
+ * and simulates all states of that automaton in lockstep. This guarantees a matching time
+ * that is linear in the length of the url, regardless of the url and the scheme, and thus
+ * protects against regular expression denial of service through hostile urls. All schemes
+ * given to {@link #compile(List)} are matched in a single pass.
+ * <p>
+ * The engine supports the subset of the Java regular expression syntax that is reasonable
+ * for url schemes:
+ * <ul>
+ * <li>literals, escaped meta characters, {@code \Q...\E} and the escapes {@code \t},
+ * {@code \n}, {@code \r}, {@code \f}, {@code \a}, {@code \e}, {@code \xhh} and the
+ * unicode escapes</li>
+ * <li>{@code .}, the predefined classes {@code \d}, {@code \D}, {@code \w}, {@code \W},
+ * {@code \s}, {@code \S} and character classes including ranges and negation</li>
+ * <li>groups (capturing, non-capturing and named ones), alternatives and the greedy or
+ * reluctant quantifiers {@code ?}, {@code *}, {@code +} and {@code {n,m}}</li>
+ * <li>the boundaries {@code ^} and {@code $} and the flag {@code i}, either inline or for
+ * a group</li>
+ * </ul>
+ * Everything else, most notably back references, lookarounds and possessive quantifiers,
+ * is rejected with an {@link OembedException}.
+ * <p>
+ * Url rewrite rules are compiled with {@link #compileCapturing(List)}, which also records
+ * the capturing groups in the same single, linear pass. Threads of the automaton are kept
+ * in the order of preference of a backtracking matcher, so that the groups are the same
+ * as those of {@link java.util.regex.Matcher#matches()}, including the final empty
+ * iteration a backtracking matcher records for repetitions that may match the empty
+ * string. Distinguishing such iterations multiplies the threads per state, so patterns
+ * nesting more than three of those repetitions are rejected.
+ *
+ * @author Michael J. Simons
+ * @since 2026-10-17
+ */
+public final class AutomatonMatchingEngine implements UrlMatchingEngine {
+
+	/**
+	 * The maximum number of states a single compiled automaton may have. Large bounded
+	 * repetitions are the only way to get there.
+	 */
+	static final int MAX_STATES = 100_000;
+
+	/**
+	 * Maximum nesting of repetitions whose iterations may be empty inside patterns
+	 * capturing groups. Each level doubles the number of distinct threads per state.
+	 */
+	static final int MAX_NESTED_EMPTY_REPETITIONS = 3;
+
+	static boolean isLineTerminator(final int codePoint) {
+		return codePoint == '\n' || codePoint == '\r' || codePoint == '\u0085' || codePoint == '\u2028'
+				|| codePoint == '\u2029';
+	}
+
+	@Override
+	public UrlMatcher compile(final List<String> urlSchemes) {
+		return compile(urlSchemes, false).automaton;
+	}
+
+	/**
+	 * Compiles regular expressions that must match the whole url into a matcher that also
+	 * captures the groups of the first matching expression.
+	 * @param regexes the regular expressions
+	 * @return a matcher capturing groups
+	 * @throws OembedException if an expression is invalid or not supported
+	 */
+	CapturingMatcher compileCapturing(final List<String> regexes) {
+		return compile(regexes, true);
+	}
+
+	private static CapturingMatcher compile(final List<String> regexes, final boolean capturing) {
+		final Automaton.Builder builder = new Automaton.Builder(capturing);
+		final int[] starts = new int[regexes.size()];
+		final List<Parser> parsers = new ArrayList<>(regexes.size());
+		for (int i = 0; i < starts.length; ++i) {
+			final String scheme = regexes.get(i);
+			final Parser parser = new Parser(scheme, capturing);
+			starts[i] = builder.compile(parser.parse(), builder.add(State.MATCH, null, i), scheme);
+			parsers.add(parser);
+		}
+		return new CapturingMatcher(builder.build(builder.add(State.SPLIT, null, starts)), parsers);
+	}
+
+	/**
+	 * The types of states.
+	 */
+	private enum State {
+
+		/**
+		 * Consumes one code point that satisfies a predicate.
+		 */
+		CHAR,
+		/**
+		 * Continues with all of its successors without consuming anything.
+		 */
+		SPLIT,
+		/**
+		 * Only continues at the beginning of the input.
+		 */
+		BEGIN,
+		/**
+		 * Only continues at the end of the input, the same way {@code $} does in Java.
+		 */
+		END,
+		/**
+		 * Records the current position in a capture slot and continues with its
+		 * successor.
+		 */
+		SAVE,
+		/**
+		 * Ends an iteration of an unbounded repetition: continues with the repetition if
+		 * the iteration started at the position saved in its slot has consumed something,
+		 * otherwise with the successor of the repetition, the same way
+		 * {@link java.util.regex.Pattern} avoids empty iterations.
+		 */
+		LOOP,
+		/**
+		 * Marks a match of the scheme with the given index.
+		 */
+		MATCH
+
+	}
+
+	/**
+	 * The compiled automaton.
+	 */
+	private static final class Automaton implements UrlMatcher {
+
+		private final State[] types;
+
+		private final IntPredicate[] predicates;
+
+		private final int[][] successors;
+
+		/**
+		 * The capture slot of each {@link State#SAVE} state.
+		 */
+		private final int[] slots;
+
+		/**
+		 * The number of capture slots, two per group including group 0 and one per
+		 * repetition whose iterations may be empty.
+		 */
+		private final int numberOfSlots;
+
+		/**
+		 * The slots of the repetitions whose iterations may be empty enclosing each
+		 * state. Whether those iterations started at the current position decides how a
+		 * thread continues, so threads differing in that are kept apart.
+		 */
+		private final int[][] loopsOf;
+
+		/**
+		 * The maximum number of such repetitions enclosing a state.
+		 */
+		private final int depth;
+
+		private final int start;
+
+		/**
+		 * The number of transitions, which bounds the stack needed for computing
+		 * closures.
+		 */
+		private final int transitions;
+
+		private Automaton(final Builder builder, final int start) {
+			this.types = builder.types.toArray(new State[0]);
+			this.predicates = builder.predicates.toArray(new IntPredicate[0]);
+			this.successors = builder.successors.toArray(new int[0][]);
+			final int groupSlots = 2 * (builder.groups + 1);
+			// Slots of repetitions follow the slots of the groups
+			final IntUnaryOperator slotOf = slot -> (slot < -1) ? groupSlots - slot - 2 : slot;
+			this.slots = builder.slots.stream().mapToInt(Integer::intValue).map(slotOf).toArray();
+			this.numberOfSlots = groupSlots + builder.loops;
+			this.loopsOf = builder.enclosingLoops.stream()
+				.map(loops -> Arrays.stream(loops)
+					.map(builder.loopSlots::get)
+					.filter(slot -> slot < -1)
+					.map(slotOf)
+					.toArray())
+				.toArray(int[][]::new);
+			this.depth = Arrays.stream(this.loopsOf).mapToInt(loops -> loops.length).max().orElse(0);
+			if (this.depth > MAX_NESTED_EMPTY_REPETITIONS) {
+				throw new OembedException("Url schemes are too complex, more than " + MAX_NESTED_EMPTY_REPETITIONS
+						+ " nested repetitions that may match the empty string");
+			}
+			this.start = start;
+			this.transitions = 1 + Arrays.stream(this.successors).mapToInt(s -> s.length).sum();
+		}
+
+		@Override
+		public int indexOfFirstMatch(final String url) {
+			StateSet current = new StateSet(this.types.length);
+			StateSet next = new StateSet(this.types.length);
+			final int[] stack = new int[this.transitions];
+
+			addClosure(current, null, this.start, null, url, 0, stack, null);
+			int position = 0;
+			while (position < url.length() && current.size > 0) {
+				final int codePoint = url.codePointAt(position);
+				final int nextPosition = position + Character.charCount(codePoint);
+				for (int i = 0; i < current.size; ++i) {
+					final int state = current.dense[i];
+					if (this.types[state] == State.CHAR && this.predicates[state].test(codePoint)) {
+						addClosure(next, null, this.successors[state][0], null, url, nextPosition, stack, null);
+					}
+				}
+				final StateSet hlp = current;
+				current = next;
+				next = hlp;
+				next.clear();
+				position = nextPosition;
+			}
+
+			int rv = -1;
+			if (position == url.length()) {
+				for (int i = 0; i < current.size; ++i) {
+					final int state = current.dense[i];
+					if (this.types[state] == State.MATCH && (rv < 0 || this.successors[state][0] < rv)) {
+						rv = this.successors[state][0];
+					}
+				}
+			}
+			return rv;
+		}
+
+		/**
+		 * Matches the url like {@link #indexOfFirstMatch(String)} and records the groups
+		 * of the matching scheme. Each state keeps the captures of the most preferred
+		 * thread reaching it, which is the first one, as closures are computed depth
+		 * first in order of preference and the threads of each step are advanced in
+		 * order.
+		 * @param url the url to match
+		 * @return the captures of the first matching scheme, empty if no scheme matches
+		 */
+		Optional<Captures> capturesOfFirstMatch(final String url) {
+			final int capacity = this.types.length << this.depth;
+			StateSet current = new StateSet(capacity);
+			StateSet next = new StateSet(capacity);
+			int[][] currentCaptures = new int[capacity][];
+			int[][] nextCaptures = new int[capacity][];
+			final int[] stack = new int[this.transitions];
+			final int[][] capturesStack = new int[this.transitions][];
+
+			final int[] initial = new int[this.numberOfSlots];
+			Arrays.fill(initial, -1);
+			addClosure(current, currentCaptures, this.start, initial, url, 0, stack, capturesStack);
+			int position = 0;
+			while (position < url.length() && current.size > 0) {
+				final int codePoint = url.codePointAt(position);
+				final int nextPosition = position + Character.charCount(codePoint);
+				for (int i = 0; i < current.size; ++i) {
+					final int key = current.dense[i];
+					final int state = key >> this.depth;
+					if (this.types[state] == State.CHAR && this.predicates[state].test(codePoint)) {
+						addClosure(next, nextCaptures, this.successors[state][0], currentCaptures[key], url,
+								nextPosition, stack, capturesStack);
+					}
+				}
+				final StateSet hlp = current;
+				current = next;
+				next = hlp;
+				next.clear();
+				final int[][] hlpCaptures = currentCaptures;
+				currentCaptures = nextCaptures;
+				nextCaptures = hlpCaptures;
+				position = nextPosition;
+			}
+
+			if (position == url.length()) {
+				for (int i = 0; i < current.size; ++i) {
+					final int key = current.dense[i];
+					final int state = key >> this.depth;
+					if (this.types[state] == State.MATCH) {
+						final int[] groups = currentCaptures[key].clone();
+						groups[0] = 0;
+						groups[1] = url.length();
+						return Optional.of(new Captures(this.successors[state][0], groups));
+					}
+				}
+			}
+			return Optional.empty();
+		}
+
+		/**
+		 * Adds a state and all states reachable without consuming input to a set. The
+		 * successors of a state are visited in order of preference. When capturing
+		 * groups, the set contains the state shifted by {@link #depth}, combined with the
+		 * bits of the enclosing repetitions whose current iteration started at the given
+		 * position.
+		 * @param set the target set
+		 * @param captures receives the captures of each added state, {@literal null} if
+		 * groups are not captured
+		 * @param state the state to add
+		 * @param capturesOfState the captures of the thread reaching the state
+		 * @param input the input
+		 * @param position the current position inside the input
+		 * @param stack a stack large enough to hold all states
+		 * @param capturesStack a stack for the captures, {@literal null} if groups are
+		 * not captured
+		 */
+		private void addClosure(final StateSet set, final int[][] captures, final int state,
+				final int[] capturesOfState, final String input, final int position, final int[] stack,
+				final int[][] capturesStack) {
+			int top = 0;
+			push(stack, capturesStack, top++, state, capturesOfState);
+			while (top > 0) {
+				final int current = stack[--top];
+				int[] currentCaptures = (capturesStack != null) ? capturesStack[top] : null;
+				int key = current;
+				if (currentCaptures != null) {
+					for (final int loop : this.loopsOf[current]) {
+						key = (key << 1) | ((currentCaptures[loop] == position) ? 1 : 0);
+					}
+					key <<= this.depth - this.loopsOf[current].length;
+				}
+				if (!set.add(key)) {
+					continue;
+				}
+				if (captures != null) {
+					captures[key] = currentCaptures;
+				}
+				final boolean follow = switch (this.types[current]) {
+					case SPLIT -> true;
+					case BEGIN -> position == 0;
+					case END -> isEnd(input, position);
+					case SAVE -> {
+						if (currentCaptures != null) {
+							currentCaptures = currentCaptures.clone();
+							currentCaptures[this.slots[current]] = position;
+						}
+						yield true;
+					}
+					case LOOP -> {
+						final boolean progress = currentCaptures == null
+								|| currentCaptures[this.slots[current]] != position;
+						push(stack, capturesStack, top++, this.successors[current][progress ? 0 : 1], currentCaptures);
+						yield false;
+					}
+					default -> false;
+				};
+				if (follow) {
+					final int[] successorsOfState = this.successors[current];
+					for (int i = successorsOfState.length - 1; i >= 0; --i) {
+						push(stack, capturesStack, top++, successorsOfState[i], currentCaptures);
+					}
+				}
+			}
+		}
+
+		private static void push(final int[] stack, final int[][] capturesStack, final int top, final int state,
+				final int[] captures) {
+			stack[top] = state;
+			if (capturesStack != null) {
+				capturesStack[top] = captures;
+			}
+		}
+
+		/**
+		 * Checks if the position is at the end of the input or in front of a final line
+		 * terminator.
+		 * @param input the input
+		 * @param position the position to check
+		 * @return true if {@code $} matches at the given position
+		 */
+		private static boolean isEnd(final String input, final int position) {
+			final int remaining = input.length() - position;
+			if (remaining == 1) {
+				return isLineTerminator(input.charAt(position)) && !input.startsWith("\r\n", position - 1);
+			}
+			return remaining == 0 || (remaining == 2 && input.startsWith("\r\n", position));
+		}
+
+		/**
+		 * Builds an automaton from the syntax tree of one or more schemes. Every node is
+		 * compiled in front of a given successor, so that bounded repetitions can compile
+		 * the same node several times.
+		 */
+		private static final class Builder {
+
+			private final List<State> types = new ArrayList<>();
+
+			private final List<IntPredicate> predicates = new ArrayList<>();
+
+			private final List<int[]> successors = new ArrayList<>();
+
+			private final List<Integer> slots = new ArrayList<>();
+
+			/**
+			 * The repetitions enclosing each state.
+			 */
+			private final List<int[]> enclosingLoops = new ArrayList<>();
+
+			/**
+			 * The slot of each repetition, {@literal -1} if its iterations cannot be
+			 * empty.
+			 */
+			private final List<Integer> loopSlots = new ArrayList<>();
+
+			private final Deque<Integer> enclosing = new ArrayDeque<>();
+
+			/**
+			 * Whether groups are captured.
+			 */
+			private final boolean capturing;
+
+			/**
+			 * The maximum number of groups of any scheme.
+			 */
+			private int groups;
+
+			/**
+			 * The number of unbounded repetitions checking for empty iterations.
+			 */
+			private int loops;
+
+			Builder(final boolean capturing) {
+				this.capturing = capturing;
+			}
+
+			int add(final State type, final IntPredicate predicate, final int... successorsOfState) {
+				if (this.types.size() >= MAX_STATES) {
+					throw new OembedException("Url schemes are too complex, more than " + MAX_STATES + " states");
+				}
+				this.types.add(type);
+				this.predicates.add(predicate);
+				this.successors.add(successorsOfState);
+				this.slots.add(-1);
+				this.enclosingLoops.add(this.enclosing.stream().mapToInt(Integer::intValue).toArray());
+				return this.types.size() - 1;
+			}
+
+			int addSave(final int slot, final int next) {
+				final int rv = add(State.SAVE, null, next);
+				this.slots.set(rv, slot);
+				this.groups = Math.max(this.groups, slot / 2);
+				return rv;
+			}
+
+			/**
+			 * Adds the states checking for empty iterations of an unbounded repetition if
+			 * the repeated node may match the empty string.
+			 * @param head the state deciding about another iteration
+			 * @param next the successor of the repetition
+			 * @param body compiles the repeated node in front of the given state
+			 * @return the state starting an iteration
+			 */
+			int addLoop(final int head, final int next, final IntUnaryOperator body) {
+				final int loop = this.loopSlots.size();
+				this.loopSlots.add(-1);
+				this.enclosing.push(loop);
+				final int end = add(State.LOOP, null, head, next);
+				final int iteration = body.applyAsInt(end);
+				this.enclosing.pop();
+				if (!reachableWithoutInput(iteration, end)) {
+					this.types.set(end, State.SPLIT);
+					this.successors.set(end, new int[] { head });
+					return iteration;
+				}
+				final int slot = -2 - this.loops++;
+				this.loopSlots.set(loop, slot);
+				this.slots.set(end, slot);
+				final int rv = add(State.SAVE, null, iteration);
+				this.slots.set(rv, slot);
+				return rv;
+			}
+
+			private boolean reachableWithoutInput(final int from, final int target) {
+				final BitSet visited = new BitSet();
+				final Deque<Integer> pending = new ArrayDeque<>(List.of(from));
+				while (!pending.isEmpty()) {
+					final int current = pending.pop();
+					if (current == target) {
+						return true;
+					}
+					if (visited.get(current) || this.types.get(current) == State.CHAR
+							|| this.types.get(current) == State.MATCH) {
+						continue;
+					}
+					visited.set(current);
+					Arrays.stream(this.successors.get(current)).forEach(pending::push);
+				}
+				return false;
+			}
+
+			int compile(final Node node, final int next, final String scheme) {
+				try {
+					return node.compile(this, next);
+				}
+				catch (OembedException ex) {
+					throw new OembedException(ex.getMessage() + " in url scheme '" + scheme + "'");
+				}
+			}
+
+			Automaton build(final int start) {
+				return new Automaton(this, start);
+			}
+
+		}
+
+	}
+
+	/**
+	 * A set of states that can be cleared in constant time.
+	 */
+	private static final class StateSet {
+
+		private final int[] dense;
+
+		private final int[] sparse;
+
+		private int size;
+
+		StateSet(final int capacity) {
+			this.dense = new int[capacity];
+			this.sparse = new int[capacity];
+		}
+
+		boolean add(final int state) {
+			final int index = this.sparse[state];
+			if (index < this.size && this.dense[index] == state) {
+				return false;
+			}
+			this.sparse[state] = this.size;
+			this.dense[this.size++] = state;
+			return true;
+		}
+
+		void clear() {
+			this.size = 0;
+		}
+
+	}
+
+	/**
+	 * Nodes of the syntax tree of a scheme.
+	 */
+	private sealed interface Node {
+
+		/**
+		 * Matches the empty string.
+		 */
+		Node EMPTY = new Sequence(List.of());
+
+		/**
+		 * Compiles this node into states of an automaton.
+		 * @param builder the builder of the automaton
+		 * @param next the state following this node
+		 * @return the first state of this node
+		 */
+		int compile(Automaton.Builder builder, int next);
+
+		record Char(IntPredicate predicate) implements Node {
+
+			@Override
+			public int compile(final Automaton.Builder builder, final int next) {
+				return builder.add(State.CHAR, this.predicate, next);
+			}
+
+		}
+
+		record Assertion(boolean begin) implements Node {
+
+			@Override
+			public int compile(final Automaton.Builder builder, final int next) {
+				return builder.add(this.begin ? State.BEGIN : State.END, null, next);
+			}
+
+		}
+
+		record Sequence(List<Node> nodes) implements Node {
+
+			@Override
+			public int compile(final Automaton.Builder builder, final int next) {
+				int rv = next;
+				for (int i = this.nodes.size() - 1; i >= 0; --i) {
+					rv = this.nodes.get(i).compile(builder, rv);
+				}
+				return rv;
+			}
+
+		}
+
+		record Alternatives(List<Node> nodes) implements Node {
+
+			@Override
+			public int compile(final Automaton.Builder builder, final int next) {
+				final int[] starts = new int[this.nodes.size()];
+				for (int i = 0; i < starts.length; ++i) {
+					starts[i] = this.nodes.get(i).compile(builder, next);
+				}
+				return builder.add(State.SPLIT, null, starts);
+			}
+
+		}
+
+		/**
+		 * A capturing group.
+		 */
+		record Group(int number, Node node) implements Node {
+
+			@Override
+			public int compile(final Automaton.Builder builder, final int next) {
+				return builder.addSave(2 * this.number,
+						this.node.compile(builder, builder.addSave(2 * this.number + 1, next)));
+			}
+
+		}
+
+		/**
+		 * A repetition of a node, {@code max} is negative if unbounded. The node is
+		 * compiled once for each mandatory and each optional repetition. A greedy
+		 * repetition prefers another repetition over the successor, a reluctant one the
+		 * other way round.
+		 */
+		record Repetition(Node node, int min, int max, boolean greedy) implements Node {
+
+			@Override
+			public int compile(final Automaton.Builder builder, final int next) {
+				int rv;
+				if (this.max < 0) {
+					rv = builder.add(State.SPLIT, null);
+					final int head = rv;
+					final int iteration = builder.capturing
+							? builder.addLoop(head, next, end -> this.node.compile(builder, end))
+							: this.node.compile(builder, head);
+					builder.successors.set(head, preferred(iteration, next));
+				}
+				else {
+					rv = next;
+					for (int i = this.min; i < this.max; ++i) {
+						rv = builder.add(State.SPLIT, null, preferred(this.node.compile(builder, rv), next));
+					}
+				}
+				for (int i = 0; i < this.min; ++i) {
+					rv = this.node.compile(builder, rv);
+				}
+				return rv;
+			}
+
+			private int[] preferred(final int repeat, final int next) {
+				return this.greedy ? new int[] { repeat, next } : new int[] { next, repeat };
+			}
+
+		}
+
+	}
+
+	/**
+	 * A recursive descent parser for the supported subset of regular expressions.
+	 */
+	private static final class Parser {
+
+		private static final IntPredicate DIGIT = c -> c >= '0' && c <= '9';
+
+		private static final IntPredicate WORD = c -> DIGIT.test(c) || c == '_' || (c >= 'a' && c <= 'z')
+				|| (c >= 'A' && c <= 'Z');
+
+		private static final IntPredicate SPACE = c -> c == ' ' || (c >= '\t' && c <= '\r');
+
+		private static final IntPredicate ANY = c -> !isLineTerminator(c);
+
+		private final String scheme;
+
+		/**
+		 * Whether capturing groups are compiled into {@link State#SAVE} states.
+		 */
+		private final boolean capturing;
+
+		/**
+		 * The number of capturing groups so far.
+		 */
+		private int groupCount;
+
+		/**
+		 * The numbers of the named groups.
+		 */
+		private final Map<String, Integer> groupNames = new HashMap<>();
+
+		private int position;
+
+		/**
+		 * The current state of the case insensitive flag.
+		 */
+		private boolean caseInsensitive;
+
+		Parser(final String scheme, final boolean capturing) {
+			this.scheme = scheme;
+			this.capturing = capturing;
+		}
+
+		Node parse() {
+			final Node rv = parseAlternatives();
+			if (this.position < this.scheme.length()) {
+				throw error("Unmatched closing ')'");
+			}
+			return rv;
+		}
+
+		private OembedException error(final String message) {
+			return new OembedException(
+					String.format("%s near index %d in url scheme '%s'", message, this.position, this.scheme));
+		}
+
+		private boolean hasMore() {
+			return this.position < this.scheme.length();
+		}
+
+		private char peek() {
+			return this.scheme.charAt(this.position);
+		}
+
+		private boolean consume(final String expected) {
+			if (this.scheme.startsWith(expected, this.position)) {
+				this.position += expected.length();
+				return true;
+			}
+			return false;
+		}
+
+		private Node parseAlternatives() {
+			final List<Node> alternatives = new ArrayList<>();
+			alternatives.add(parseSequence());
+			while (consume("|")) {
+				alternatives.add(parseSequence());
+			}
+			return (alternatives.size() == 1) ? alternatives.get(0) : new Node.Alternatives(alternatives);
+		}
+
+		private Node parseSequence() {
+			final List<Node> nodes = new ArrayList<>();
+			while (hasMore() && peek() != '|' && peek() != ')') {
+				nodes.add(parseQuantifier(parseAtom()));
+			}
+			return (nodes.size() == 1) ? nodes.get(0) : new Node.Sequence(nodes);
+		}
+
+		private Node parseAtom() {
+			final int codePoint = this.scheme.codePointAt(this.position);
+			this.position += Character.charCount(codePoint);
+			return switch (codePoint) {
+				case '(' -> parseGroup();
+				case '[' -> new Node.Char(parseClass());
+				case '.' -> new Node.Char(ANY);
+				case '^' -> new Node.Assertion(true);
+				case '$' -> new Node.Assertion(false);
+				case '\\' -> parseEscape();
+				case '*', '+', '?', '{' -> {
+					--this.position;
+					throw error("Dangling meta character '" + (char) codePoint + "'");
+				}
+				default -> literal(codePoint);
+			};
+		}
+
+		private Node literal(final int codePoint) {
+			if (this.caseInsensitive && Character.isLetter(codePoint) && codePoint < 128) {
+				final int lower = Character.toLowerCase(codePoint);
+				return new Node.Char(c -> c == lower || (c < 128 && Character.toLowerCase(c) == lower));
+			}
+			return new Node.Char(c -> c == codePoint);
+		}
+
+		private Node parseGroup() {
+			final boolean outerCaseInsensitive = this.caseInsensitive;
+			int number = 0;
+			if (consume("?")) {
+				if (consume(":")) {
+					// Non capturing group
+				}
+				else if (this.scheme.startsWith("<", this.position) && this.position + 1 < this.scheme.length()
+						&& Character.isLetter(this.scheme.charAt(this.position + 1))) {
+					final int end = this.scheme.indexOf('>', this.position);
+					if (end < 0) {
+						throw error("Named group is not closed");
+					}
+					final String name = this.scheme.substring(this.position + 1, end);
+					number = ++this.groupCount;
+					if (this.groupNames.putIfAbsent(name, number) != null) {
+						throw error("Named capturing group <" + name + "> is already defined");
+					}
+					this.position = end + 1;
+				}
+				else if (parseFlags()) {
+					// Inline flags stay active until the end of the enclosing group
+					return Node.EMPTY;
+				}
+			}
+			else {
+				number = ++this.groupCount;
+			}
+			final Node rv = parseAlternatives();
+			if (!consume(")")) {
+				throw error("Unclosed group");
+			}
+			this.caseInsensitive = outerCaseInsensitive;
+			return (this.capturing && number > 0) ? new Node.Group(number, rv) : rv;
+		}
+
+		/**
+		 * Parses inline flags.
+		 * @return true if the flags are inline flags, false if they only apply to the
+		 * following group
+		 */
+		private boolean parseFlags() {
+			boolean enable = true;
+			while (hasMore() && peek() != ')' && peek() != ':') {
+				final char flag = peek();
+				if (flag == '-' && enable) {
+					enable = false;
+				}
+				else if (flag == 'i') {
+					this.caseInsensitive = enable;
+				}
+				else {
+					throw error("Unsupported group construct or flag '" + flag + "'");
+				}
+				++this.position;
+			}
+			if (consume(")")) {
+				return true;
+			}
+			else if (!consume(":")) {
+				throw error("Unclosed group");
+			}
+			return false;
+		}
+
+		private Node parseEscape() {
+			if (!hasMore()) {
+				throw error("Unexpected internal error");
+			}
+			final char escaped = this.scheme.charAt(this.position++);
+			final IntPredicate predefined = predefinedClass(escaped);
+			if (predefined != null) {
+				return new Node.Char(predefined);
+			}
+			else if (escaped == 'Q') {
+				final int end = this.scheme.indexOf("\\E", this.position);
+				final String quoted = this.scheme.substring(this.position, (end < 0) ? this.scheme.length() : end);
+				this.position = (end < 0) ? this.scheme.length() : end + 2;
+				final List<Node> nodes = new ArrayList<>();
+				quoted.codePoints().forEach(c -> nodes.add(literal(c)));
+				return new Node.Sequence(nodes);
+			}
+			return literal(escapedCharacter(escaped));
+		}
+
+		/**
+		 * {@return the predicate for a predefined class or null}
+		 * @param escaped the escaped character
+		 */
+		private static IntPredicate predefinedClass(final char escaped) {
+			return switch (escaped) {
+				case 'd' -> DIGIT;
+				case 'D' -> DIGIT.negate();
+				case 'w' -> WORD;
+				case 'W' -> WORD.negate();
+				case 's' -> SPACE;
+				case 'S' -> SPACE.negate();
+				default -> null;
+			};
+		}
+
+		/**
+		 * {@return the code point of an escaped character}
+		 * @param escaped the escaped character
+		 */
+		private int escapedCharacter(final char escaped) {
+			return switch (escaped) {
+				case 't' -> '\t';
+				case 'n' -> '\n';
+				case 'r' -> '\r';
+				case 'f' -> '\f';
+				case 'a' -> '\u0007';
+				case 'e' -> '\u001B';
+				case 'x' -> hex(2);
+				case 'u' -> hex(4);
+				default -> {
+					if (Character.isLetterOrDigit(escaped)) {
+						--this.position;
+						throw error("Unsupported escape sequence '\\" + escaped + "'");
+					}
+					yield escaped;
+				}
+			};
+		}
+
+		private int hex(final int length) {
+			if (this.position + length > this.scheme.length()) {
+				throw error("Illegal hexadecimal escape sequence");
+			}
+			try {
+				final int rv = Integer.parseInt(this.scheme.substring(this.position, this.position + length), 16);
+				this.position += length;
+				return rv;
+			}
+			catch (NumberFormatException ex) {
+				throw error("Illegal hexadecimal escape sequence");
+			}
+		}
+
+		private IntPredicate parseClass() {
+			final boolean negated = consume("^");
+			final List<IntPredicate> items = new ArrayList<>();
+			boolean first = true;
+			while (first || !consume("]")) {
+				if (!hasMore()) {
+					throw error("Unclosed character class");
+				}
+				else if (peek() == '[' || this.scheme.startsWith("&&", this.position)) {
+					throw error("Nested classes and intersections are not supported");
+				}
+				first = false;
+
+				final int from = this.scheme.codePointAt(this.position);
+				this.position += Character.charCount(from);
+				if (from == '\\') {
+					if (!hasMore()) {
+						throw error("Unclosed character class");
+					}
+					final IntPredicate predefined = predefinedClass(this.scheme.charAt(this.position));
+					if (predefined != null) {
+						++this.position;
+						items.add(predefined);
+						continue;
+					}
+				}
+				final int lower = (from == '\\') ? escapedCharacter(this.scheme.charAt(this.position++)) : from;
+				if (this.scheme.startsWith("-", this.position) && !this.scheme.startsWith("-]", this.position)
+						&& this.position + 1 < this.scheme.length()) {
+					++this.position;
+					final int to = this.scheme.codePointAt(this.position);
+					this.position += Character.charCount(to);
+					final int upper = (to == '\\') ? escapedCharacter(this.scheme.charAt(this.position++)) : to;
+					if (upper < lower || to == '[') {
+						throw error("Illegal character range");
+					}
+					items.add(c -> c >= lower && c <= upper);
+				}
+				else {
+					items.add(c -> c == lower);
+				}
+			}
+
+			final IntPredicate[] hlp = items.toArray(new IntPredicate[0]);
+			IntPredicate rv = c -> Arrays.stream(hlp).anyMatch(p -> p.test(c));
+			if (this.caseInsensitive) {
+				final IntPredicate caseSensitive = rv;
+				rv = c -> caseSensitive.test(c) || (c < 128 && (caseSensitive.test(Character.toLowerCase(c))
+						|| caseSensitive.test(Character.toUpperCase(c))));
+			}
+			return negated ? rv.negate() : rv;
+		}
+
+		private Node parseQuantifier(final Node atom) {
+			if (!hasMore()) {
+				return atom;
+			}
+			final int min;
+			final int max;
+			final char c = peek();
+			if (c == '?' || c == '*' || c == '+') {
+				++this.position;
+				min = (c == '+') ? 1 : 0;
+				max = (c == '?') ? 1 : -1;
+			}
+			else if (c == '{') {
+				final int end = this.scheme.indexOf('}', this.position);
+				final String bounds = (end < 0) ? "" : this.scheme.substring(this.position + 1, end);
+				if (!bounds.matches("\\d{1,6}(,\\d{0,6})?")) {
+					throw error("Illegal repetition");
+				}
+				this.position = end + 1;
+				final int comma = bounds.indexOf(',');
+				min = Integer.parseInt((comma < 0) ? bounds : bounds.substring(0, comma));
+				max = (comma < 0) ? min
+						: (comma == bounds.length() - 1) ? -1 : Integer.parseInt(bounds.substring(comma + 1));
+				if (max >= 0 && max < min) {
+					throw error("Illegal repetition range");
+				}
+			}
+			else {
+				return atom;
+			}
+
+			if (consume("+")) {
+				throw error("Possessive quantifiers are not supported");
+			}
+			// Reluctant quantifiers only change the captured groups
+			return new Node.Repetition(atom, min, max, !consume("?"));
+		}
+
+	}
+
+	/**
+	 * The groups captured by the first matching expression.
+	 *
+	 * @param index the index of the matching expression
+	 * @param groups the start and end of each group, group 0 being the whole url, -1 for
+	 * groups that did not participate in the match
+	 */
+	record Captures(int index, int[] groups) {
+	}
+
+	/**
+	 * Regular expressions compiled into an automaton capturing their groups, together
+	 * with the groups of each expression.
+	 */
+	static final class CapturingMatcher {
+
+		private final Automaton automaton;
+
+		private final List<Parser> parsers;
+
+		private CapturingMatcher(final Automaton automaton, final List<Parser> parsers) {
+			this.automaton = automaton;
+			this.parsers = parsers;
+		}
+
+		/**
+		 * Matches the url against all expressions.
+		 * @param url the url to match
+		 * @return the captures of the first matching expression, empty if none matches
+		 */
+		Optional<Captures> capturesOfFirstMatch(final String url) {
+			return this.automaton.capturesOfFirstMatch(url);
+		}
+
+		/**
+		 * {@return the number of capturing groups of an expression}
+		 * @param index the index of the expression
+		 */
+		int groupCount(final int index) {
+			return this.parsers.get(index).groupCount;
+		}
+
+		/**
+		 * {@return the numbers of the named groups of an expression}
+		 * @param index the index of the expression
+		 */
+		Map<String, Integer> groupNames(final int index) {
+			return Map.copyOf(this.parsers.get(index).groupNames);
+		}
+
+	}
+
+}
@@ -0,0 +1,146 @@
+/*
+ * Created by Michael Simons, michael-simons.eu
+ * and released under The BSD License
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * Copyright (c) 2010-2026, Michael Simons
+ * All rights reserved.
+ *
+ * Redistribution  and  use  in  source   and  binary  forms,  with  or   without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source   code must retain   the above copyright   notice,
+ *   this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary  form must reproduce  the above copyright  notice,
+ *   this list of conditions  and the following  disclaimer in the  documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name  of  michael-simons.eu   nor the names  of its contributors
+ *   may be used  to endorse   or promote  products derived  from  this  software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE  COPYRIGHT HOLDERS AND  CONTRIBUTORS "AS IS"
+ * AND ANY  EXPRESS OR  IMPLIED WARRANTIES,  INCLUDING, BUT  NOT LIMITED  TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL  THE COPYRIGHT HOLDER OR CONTRIBUTORS  BE LIABLE
+ * FOR ANY  DIRECT, INDIRECT,  INCIDENTAL, SPECIAL,  EXEMPLARY, OR  CONSEQUENTIAL
+ * DAMAGES (INCLUDING,  BUT NOT  LIMITED TO,  PROCUREMENT OF  SUBSTITUTE GOODS OR
+ * SERVICES; LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT  LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE  USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package ac.simons.oembed;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Passes at most a fixed number of tasks at the same time to an executor. Additional
+ * tasks are queued and passed on in the order of submission as soon as running tasks
+ * complete. A task rejected by the executor completes its future exceptionally with the
+ * rejection, regardless whether it is passed on by the submitting thread or by a thread
+ * finishing another task, so no task is ever lost.
+ *
+ * @author Michael J. Simons
+ * @since 2026-10-17
+ */
+final class BoundedExecutor {
+
+	private final Executor delegate;
+
+	private final int limit;
+
+	private final Queue<Task<?>> queue = new ConcurrentLinkedQueue<>();
+
+	private final AtomicInteger active = new AtomicInteger();
+
+	/**
+	 * Creates a new bounded executor.
+	 * @param delegate the executor running the tasks
+	 * @param limit the maximum number of tasks running at the same time
+	 */
+	BoundedExecutor(final Executor delegate, final int limit) {
+		if (limit < 1) {
+			throw new IllegalArgumentException("The limit must be at least 1");
+		}
+		this.delegate = delegate;
+		this.limit = limit;
+	}
+
+	/**
+	 * Runs the supplier as soon as the limit permits.
+	 * @param <T> the type of the result
+	 * @param supplier computes the result
+	 * @return the result of the supplier, completed exceptionally if the supplier throws
+	 * or the executor rejects the task
+	 */
+	<T> CompletableFuture<T> supplyAsync(final Supplier<T> supplier) {
+		final CompletableFuture<T> rv = new CompletableFuture<>();
+		this.queue.add(new Task<>(supplier, rv));
+		startNext();
+		return rv;
+	}
+
+	/**
+	 * Passes queued tasks to the delegate as long as the limit is not reached. Never
+	 * throws, as it is also called after each task by the thread that ran it.
+	 */
+	private void startNext() {
+		while (!this.queue.isEmpty()) {
+			final int current = this.active.get();
+			if (current >= this.limit) {
+				return;
+			}
+			if (!this.active.compareAndSet(current, current + 1)) {
+				continue;
+			}
+			final Task<?> next = this.queue.poll();
+			if (next == null) {
+				this.active.decrementAndGet();
+				continue;
+			}
+			try {
+				this.delegate.execute(() -> {
+					try {
+						next.run();
+					}
+					finally {
+						this.active.decrementAndGet();
+						startNext();
+					}
+				});
+			}
+			catch (RuntimeException ex) {
+				this.active.decrementAndGet();
+				next.future().completeExceptionally(ex);
+			}
+		}
+	}
+
+	/**
+	 * A queued supplier together with the future receiving its result.
+	 *
+	 * @param <T> the type of the result
+	 * @param supplier computes the result
+	 * @param future receives the result
+	 */
+	private record Task<T>(Supplier<T> supplier, CompletableFuture<T> future) {
+
+		void run() {
+			try {
+				this.future.complete(this.supplier.get());
+			}
+			catch (RuntimeException | Error ex) {
+				this.future.completeExceptionally(ex);
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,164 @@
+/*
+ * Created by Michael Simons, michael-simons.eu
+ * and released under The BSD License
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * Copyright (c) 2010-2026, Michael Simons
+ * All rights reserved.
+ *
+ * Redistribution  and  use  in  source   and  binary  forms,  with  or   without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source   code must retain   the above copyright   notice,
+ *   this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary  form must reproduce  the above copyright  notice,
+ *   this list of conditions  and the following  disclaimer in the  documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name  of  michael-simons.eu   nor the names  of its contributors
+ *   may be used  to endorse   or promote  products derived  from  this  software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE  COPYRIGHT HOLDERS AND  CONTRIBUTORS "AS IS"
+ * AND ANY  EXPRESS OR  IMPLIED WARRANTIES,  INCLUDING, BUT  NOT LIMITED  TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL  THE COPYRIGHT HOLDER OR CONTRIBUTORS  BE LIABLE
+ * FOR ANY  DIRECT, INDIRECT,  INCIDENTAL, SPECIAL,  EXEMPLARY, OR  CONSEQUENTIAL
+ * DAMAGES (INCLUDING,  BUT NOT  LIMITED TO,  PROCUREMENT OF  SUBSTITUTE GOODS OR
+ * SERVICES; LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT  LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE  USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package ac.simons.oembed;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * A response stored in a {@link ResponseCache}. Urls for which no response could be
+ * retrieved are cached as well, without response but with the class of the failure, so
+ * that they are not requested over and over again.
+ *
+ * @author Michael J. Simons
+ * @since 2026-10-17
+ */
+public final class CachedResponse implements Serializable {
+
+	private static final long serialVersionUID = 4436711238946117286L;
+
+	/**
+	 * The response, {@literal null} if no response could be retrieved.
+	 */
+	private final OembedResponse response;
+
+	/**
+	 * The class of the failure, {@literal null} for responses and failures cached by
+	 * earlier versions.
+	 */
+	private final FetchFailure failure;
+
+	/**
+	 * The number of consecutive failures of the same class, 0 for responses.
+	 */
+	private final int failures;
+
+	/**
+	 * The time the response has been retrieved.
+	 */
+	private final Instant storedAt;
+
+	/**
+	 * The time the response expires.
+	 */
+	private final Instant expiresAt;
+
+	/**
+	 * Creates a new cached response.
+	 * @param response the response, {@literal null} if no response could be retrieved
+	 * @param storedAt the time the response has been retrieved
+	 * @param expiresAt the time the response expires
+	 */
+	public CachedResponse(final OembedResponse response, final Instant storedAt, final Instant expiresAt) {
+		this(response, null, 0, storedAt, expiresAt);
+	}
+
+	/**
+	 * Creates a new cached failure.
+	 * @param failure the class of the failure
+	 * @param failures the number of consecutive failures of the same class, including
+	 * this one
+	 * @param storedAt the time the failure occurred
+	 * @param expiresAt the time the failure expires
+	 */
+	public CachedResponse(final FetchFailure failure, final int failures, final Instant storedAt,
+			final Instant expiresAt) {
+		this(null, Objects.requireNonNull(failure, "The class of the failure is required"), failures, storedAt,
+				expiresAt);
+		if (failures < 1) {
+			throw new IllegalArgumentException("The number of failures must be at least 1");
+		}
+	}
+
+	private CachedResponse(final OembedResponse response, final FetchFailure failure, final int failures,
+			final Instant storedAt, final Instant expiresAt) {
+		this.response = response;
+		this.failure = failure;
+		this.failures = failures;
+		this.storedAt = Objects.requireNonNull(storedAt, "The time of storage is required");
+		this.expiresAt = Objects.requireNonNull(expiresAt, "The time of expiry is required");
+	}
+
+	/**
+	 * {@return the cached response, empty if no response could be retrieved}
+	 */
+	public Optional<OembedResponse> getResponse() {
+		return Optional.ofNullable(this.response);
+	}
+
+	/**
+	 * {@return the class of the failure, empty for responses and unknown failures}
+	 */
+	public Optional<FetchFailure> getFailure() {
+		return Optional.ofNullable(this.failure);
+	}
+
+	/**
+	 * {@return the number of consecutive failures of the same class, 0 for responses}
+	 */
+	public int getFailures() {
+		return this.failures;
+	}
+
+	/**
+	 * {@return the time the response has been retrieved}
+	 */
+	public Instant getStoredAt() {
+		return this.storedAt;
+	}
+
+	/**
+	 * {@return the time the response expires}
+	 */
+	public Instant getExpiresAt() {
+		return this.expiresAt;
+	}
+
+	/**
+	 * {@return true if the response has not yet expired at the given time}
+	 * @param now the time to check
+	 */
+	public boolean isFresh(final Instant now) {
+		return now.isBefore(this.expiresAt);
+	}
+
+	@Override
+	public String toString() {
+		return "CachedResponse[response=" + this.response + ", failure=" + this.failure + ", failures=" + this.failures
+				+ ", storedAt=" + this.storedAt + ", expiresAt=" + this.expiresAt + "]";
+	}
+
+}
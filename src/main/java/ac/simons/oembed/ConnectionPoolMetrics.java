@@ -0,0 +1,100 @@
+/*
+ * Created by Michael Simons, michael-simons.eu
+ * and released under The BSD License
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * Copyright (c) 2010-2026, Michael Simons
+ * All rights reserved.
+ *
+ * Redistribution  and  use  in  source   and  binary  forms,  with  or   without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source   code must retain   the above copyright   notice,
+ *   this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary  form must reproduce  the above copyright  notice,
+ *   this list of conditions  and the following  disclaimer in the  documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name  of  michael-simons.eu   nor the names  of its contributors
+ *   may be used  to endorse   or promote  products derived  from  this  software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE  COPYRIGHT HOLDERS AND  CONTRIBUTORS "AS IS"
+ * AND ANY  EXPRESS OR  IMPLIED WARRANTIES,  INCLUDING, BUT  NOT LIMITED  TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL  THE COPYRIGHT HOLDER OR CONTRIBUTORS  BE LIABLE
+ * FOR ANY  DIRECT, INDIRECT,  INCIDENTAL, SPECIAL,  EXEMPLARY, OR  CONSEQUENTIAL
+ * DAMAGES (INCLUDING,  BUT NOT  LIMITED TO,  PROCUREMENT OF  SUBSTITUTE GOODS OR
+ * SERVICES; LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT  LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE  USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package ac.simons.oembed;
+
+/**
+ * A snapshot of the connection pool of a {@link HttpTransport}.
+ *
+ * @author Michael J. Simons
+ * @since 2026-10-17
+ */
+public final class ConnectionPoolMetrics {
+
+	/**
+	 * Number of connections currently in use.
+	 */
+	private final int leased;
+
+	/**
+	 * Number of requests waiting for a connection.
+	 */
+	private final int pending;
+
+	/**
+	 * Number of idle connections ready for reuse.
+	 */
+	private final int available;
+
+	/**
+	 * Maximum number of connections.
+	 */
+	private final int max;
+
+	/**
+	 * Creates a new snapshot.
+	 * @param leased number of connections currently in use
+	 * @param pending number of requests waiting for a connection
+	 * @param available number of idle connections ready for reuse
+	 * @param max maximum number of connections
+	 */
+	public ConnectionPoolMetrics(final int leased, final int pending, final int available, final int max) {
+		this.leased = leased;
+		this.pending = pending;
+		this.available = available;
+		this.max = max;
+	}
+
+	public int getLeased() {
+		return this.leased;
+	}
+
+	public int getPending() {
+		return this.pending;
+	}
+
+	public int getAvailable() {
+		return this.available;
+	}
+
+	public int getMax() {
+		return this.max;
+	}
+
+	@Override
+	public String toString() {
+		return "ConnectionPoolMetrics[leased=" + this.leased + ", pending=" + this.pending + ", available="
+				+ this.available + ", max=" + this.max + "]";
+	}
+
+}
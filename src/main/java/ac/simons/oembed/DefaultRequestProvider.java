@@ -34,6 +34,7 @@
 package ac.simons.oembed;
 
 import java.net.URI;
+import java.util.Map;
 import java.util.Optional;
 
 import org.apache.http.client.methods.HttpGet;
@@ -63,9 +64,30 @@ public class DefaultRequestProvider implements RequestProvider {
 		LOGGER.debug("Creating HttpGet for url '{}'", uri.toString());
 
 		final HttpGet request = new HttpGet(uri);
-		request.setHeader("User-Agent",
-				String.format("%s%s", userAgent, Optional.ofNullable(applicationName).map(s -> "; " + s).orElse("")));
+		request.setHeader("User-Agent", formatUserAgent(userAgent, applicationName));
 		return request;
 	}
 
+	/**
+	 * Creates a plain GET request without going through Apache HttpClient, accepting
+	 * compressed responses.
+	 * @param userAgent our user agent
+	 * @param applicationName an optional application name, will be added to the userAgent
+	 * if present
+	 * @param uri the api url of the oembed endpoint
+	 * @return a prepared transport request
+	 */
+	@Override
+	public TransportRequest createTransportRequestFor(final String userAgent, final String applicationName,
+			final URI uri) {
+		LOGGER.debug("Creating GET request for url '{}'", uri.toString());
+
+		return TransportRequest.get(uri, Map.of("User-Agent", formatUserAgent(userAgent, applicationName),
+				"Accept-Encoding", Streams.SUPPORTED_ENCODINGS));
+	}
+
+	private static String formatUserAgent(final String userAgent, final String applicationName) {
+		return String.format("%s%s", userAgent, Optional.ofNullable(applicationName).map(s -> "; " + s).orElse(""));
+	}
+
 }
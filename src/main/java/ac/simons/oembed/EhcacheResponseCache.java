@@ -0,0 +1,165 @@
+/*
+ * Created by Michael Simons, michael-simons.eu
+ * and released under The BSD License
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * Copyright (c) 2010-2026, Michael Simons
+ * All rights reserved.
+ *
+ * Redistribution  and  use  in  source   and  binary  forms,  with  or   without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source   code must retain   the above copyright   notice,
+ *   this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary  form must reproduce  the above copyright  notice,
+ *   this list of conditions  and the following  disclaimer in the  documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name  of  michael-simons.eu   nor the names  of its contributors
+ *   may be used  to endorse   or promote  products derived  from  this  software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE  COPYRIGHT HOLDERS AND  CONTRIBUTORS "AS IS"
+ * AND ANY  EXPRESS OR  IMPLIED WARRANTIES,  INCLUDING, BUT  NOT LIMITED  TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL  THE COPYRIGHT HOLDER OR CONTRIBUTORS  BE LIABLE
+ * FOR ANY  DIRECT, INDIRECT,  INCIDENTAL, SPECIAL,  EXEMPLARY, OR  CONSEQUENTIAL
+ * DAMAGES (INCLUDING,  BUT NOT  LIMITED TO,  PROCUREMENT OF  SUBSTITUTE GOODS OR
+ * SERVICES; LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT  LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE  USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package ac.simons.oembed;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import net.sf.ehcache.CacheManager;
+import net.sf.ehcache.Ehcache;
+import net.sf.ehcache.Element;
+
+/**
+ * A {@link ResponseCache} backed by an Ehcache 2 cache. The cache is added to the cache
+ * manager if absent when it is used for the first time and then reused. Ehcache is an
+ * optional dependency, this is the only class referring to it, so that an
+ * {@link OembedService} can be used without it.
+ *
+ * @author Michael J. Simons
+ * @since 2026-10-17
+ */
+public class EhcacheResponseCache implements ResponseCache {
+
+	/**
+	 * The name of the cache used by {@link #of(CacheManager)}, the fully qualified name
+	 * of {@link OembedService} for compatibility with earlier versions.
+	 */
+	public static final String DEFAULT_CACHE_NAME = "ac.simons.oembed.OembedService";
+
+	private final CacheManager cacheManager;
+
+	private final String cacheName;
+
+	/**
+	 * The resolved cache, {@literal null} until first use.
+	 */
+	private volatile Ehcache cache;
+
+	/**
+	 * Creates a new adapter.
+	 * @param cacheManager the cache manager providing the cache
+	 * @param cacheName the name of the cache
+	 */
+	public EhcacheResponseCache(final CacheManager cacheManager, final String cacheName) {
+		this.cacheManager = cacheManager;
+		this.cacheName = cacheName;
+	}
+
+	/**
+	 * Creates a new adapter for the cache with the {@link #DEFAULT_CACHE_NAME default
+	 * name}.
+	 * @param cacheManager the cache manager providing the cache
+	 * @return the new adapter
+	 */
+	public static EhcacheResponseCache of(final CacheManager cacheManager) {
+		return new EhcacheResponseCache(cacheManager, DEFAULT_CACHE_NAME);
+	}
+
+	/**
+	 * {@return the name of the cache}
+	 */
+	public String getCacheName() {
+		return this.cacheName;
+	}
+
+	/**
+	 * Removes the cache from the cache manager and creates an adapter for the cache with
+	 * the given name.
+	 * @param newCacheName the name of the new cache
+	 * @return the new adapter
+	 */
+	EhcacheResponseCache withCacheName(final String newCacheName) {
+		if (this.cacheManager.cacheExists(this.cacheName)) {
+			this.cacheManager.removeCache(this.cacheName);
+		}
+		return new EhcacheResponseCache(this.cacheManager, newCacheName);
+	}
+
+	@Override
+	public Optional<CachedResponse> get(final String url) {
+		return Optional.ofNullable(getCache().get(url)).map(EhcacheResponseCache::toCachedResponse);
+	}
+
+	@Override
+	public Map<String, CachedResponse> getAll(final Collection<String> urls) {
+		final Map<String, CachedResponse> rv = new LinkedHashMap<>();
+		getCache().getAll(urls).forEach((url, element) -> {
+			if (element != null) {
+				rv.put((String) url, toCachedResponse(element));
+			}
+		});
+		return rv;
+	}
+
+	@Override
+	public void put(final String url, final CachedResponse response, final Duration timeToLive) {
+		// 0 would make the element eternal
+		final int seconds = (int) Math.min(Math.max(1L, timeToLive.toSeconds()), Integer.MAX_VALUE);
+		getCache().put(new Element(url, response, seconds, seconds));
+	}
+
+	@Override
+	public void invalidate(final String url) {
+		getCache().remove(url);
+	}
+
+	private Ehcache getCache() {
+		Ehcache rv = this.cache;
+		if (rv == null) {
+			rv = this.cacheManager.addCacheIfAbsent(this.cacheName);
+			this.cache = rv;
+		}
+		return rv;
+	}
+
+	/**
+	 * Converts the value of an element. Elements stored by previous versions contain the
+	 * plain response or {@literal null}.
+	 * @param element the element
+	 * @return the cached response
+	 */
+	private static CachedResponse toCachedResponse(final Element element) {
+		final Object value = element.getObjectValue();
+		if (value instanceof CachedResponse cachedResponse) {
+			return cachedResponse;
+		}
+		return new CachedResponse((OembedResponse) value, Instant.ofEpochMilli(element.getCreationTime()),
+				Instant.ofEpochMilli(element.getExpirationTime()));
+	}
+
+}
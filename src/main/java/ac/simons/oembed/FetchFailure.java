@@ -0,0 +1,133 @@
+/*
+ * Created by Michael Simons, michael-simons.eu
+ * and released under The BSD License
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * Copyright (c) 2010-2026, Michael Simons
+ * All rights reserved.
+ *
+ * Redistribution  and  use  in  source   and  binary  forms,  with  or   without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source   code must retain   the above copyright   notice,
+ *   this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary  form must reproduce  the above copyright  notice,
+ *   this list of conditions  and the following  disclaimer in the  documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name  of  michael-simons.eu   nor the names  of its contributors
+ *   may be used  to endorse   or promote  products derived  from  this  software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE  COPYRIGHT HOLDERS AND  CONTRIBUTORS "AS IS"
+ * AND ANY  EXPRESS OR  IMPLIED WARRANTIES,  INCLUDING, BUT  NOT LIMITED  TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL  THE COPYRIGHT HOLDER OR CONTRIBUTORS  BE LIABLE
+ * FOR ANY  DIRECT, INDIRECT,  INCIDENTAL, SPECIAL,  EXEMPLARY, OR  CONSEQUENTIAL
+ * DAMAGES (INCLUDING,  BUT NOT  LIMITED TO,  PROCUREMENT OF  SUBSTITUTE GOODS OR
+ * SERVICES; LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT  LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE  USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package ac.simons.oembed;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.http.HttpTimeoutException;
+
+/**
+ * The reasons why no {@link OembedResponse} could be retrieved for an url. Each class of
+ * failure is cached for its own time, see
+ * {@link OembedService#setFailureCacheAges(java.util.Map)}: failures that are unlikely to
+ * go away are remembered long, failures of a provider that is temporarily unavailable
+ * only briefly.
+ *
+ * @author Michael J. Simons
+ * @since 2026-10-17
+ */
+public enum FetchFailure {
+
+	/**
+	 * Neither a configured nor a discovered endpoint exists for the url.
+	 */
+	NO_ENDPOINT(3600),
+	/**
+	 * The provider doesn't know the url, it answered with status 404 or 410.
+	 */
+	NOT_FOUND(3600),
+	/**
+	 * The provider refused to answer, for example with status 401, 403 or 501 for an
+	 * unsupported format, or answered with another unexpected status.
+	 */
+	REJECTED(3600),
+	/**
+	 * The provider is overloaded or down, it answered with status 429 or a server error.
+	 */
+	UNAVAILABLE(60),
+	/**
+	 * The provider didn't answer in time.
+	 */
+	TIMEOUT(30),
+	/**
+	 * The provider could not be reached or the connection broke.
+	 */
+	CONNECTION_FAILED(30),
+	/**
+	 * The answer of the provider was too large or not a valid oembed response.
+	 */
+	INVALID_RESPONSE(600);
+
+	/**
+	 * The default time in seconds failures of this class are cached.
+	 */
+	private final long defaultCacheAge;
+
+	FetchFailure(final long defaultCacheAge) {
+		this.defaultCacheAge = defaultCacheAge;
+	}
+
+	/**
+	 * {@return the default time in seconds failures of this class are cached}
+	 */
+	public long getDefaultCacheAge() {
+		return this.defaultCacheAge;
+	}
+
+	/**
+	 * {@return true if the failure is likely to go away by itself soon}
+	 */
+	boolean isTransient() {
+		return this == UNAVAILABLE || this == TIMEOUT || this == CONNECTION_FAILED;
+	}
+
+	/**
+	 * Classifies a response with a status other than 200.
+	 * @param statusCode the status code of the response
+	 * @return the class of the failure
+	 */
+	static FetchFailure ofStatus(final int statusCode) {
+		if (statusCode == 404 || statusCode == 410) {
+			return NOT_FOUND;
+		}
+		if (statusCode == 429 || (statusCode >= 500 && statusCode != 501)) {
+			return UNAVAILABLE;
+		}
+		return REJECTED;
+	}
+
+	/**
+	 * Classifies an exception thrown while requesting the provider or reading its
+	 * response.
+	 * @param ex the exception
+	 * @return the class of the failure
+	 */
+	static FetchFailure ofException(final IOException ex) {
+		if (ex instanceof InterruptedIOException || ex instanceof HttpTimeoutException) {
+			return TIMEOUT;
+		}
+		return CONNECTION_FAILED;
+	}
+
+}
@@ -0,0 +1,178 @@
+/*
+ * Created by Michael Simons, michael-simons.eu
+ * and released under The BSD License
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * Copyright (c) 2010-2026, Michael Simons
+ * All rights reserved.
+ *
+ * Redistribution  and  use  in  source   and  binary  forms,  with  or   without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source   code must retain   the above copyright   notice,
+ *   this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary  form must reproduce  the above copyright  notice,
+ *   this list of conditions  and the following  disclaimer in the  documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name  of  michael-simons.eu   nor the names  of its contributors
+ *   may be used  to endorse   or promote  products derived  from  this  software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE  COPYRIGHT HOLDERS AND  CONTRIBUTORS "AS IS"
+ * AND ANY  EXPRESS OR  IMPLIED WARRANTIES,  INCLUDING, BUT  NOT LIMITED  TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL  THE COPYRIGHT HOLDER OR CONTRIBUTORS  BE LIABLE
+ * FOR ANY  DIRECT, INDIRECT,  INCIDENTAL, SPECIAL,  EXEMPLARY, OR  CONSEQUENTIAL
+ * DAMAGES (INCLUDING,  BUT NOT  LIMITED TO,  PROCUREMENT OF  SUBSTITUTE GOODS OR
+ * SERVICES; LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT  LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE  USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package ac.simons.oembed;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free Count-Min sketch estimating how often an element has been seen, as used by
+ * the TinyLFU admission policy. Four 4 bit counters are kept per element, so that the
+ * estimate saturates at 15. After a number of increments proportional to the expected
+ * number of elements all counters are halved, so that the sketch favors recent
+ * popularity.
+ *
+ * @author Michael J. Simons
+ * @since 2026-10-17
+ */
+final class FrequencySketch {
+
+	/**
+	 * Odd seeds for the four hash functions.
+	 */
+	private static final long[] SEEDS = { 0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL,
+			0xcbf29ce484222325L };
+
+	/**
+	 * Clears the highest bit of every counter after shifting the words to the right.
+	 */
+	private static final long RESET_MASK = 0x7777777777777777L;
+
+	private static final long MAXIMUM_COUNTER = 0xfL;
+
+	/**
+	 * The maximum number of words, using 128 MiB.
+	 */
+	private static final int MAXIMUM_LENGTH = 1 << 24;
+
+	private final AtomicLongArray table;
+
+	private final int tableMask;
+
+	private final int sampleSize;
+
+	private final AtomicInteger additions = new AtomicInteger();
+
+	/**
+	 * Creates a new sketch.
+	 * @param expectedSize the expected number of distinct elements that are of interest,
+	 * usually the maximum size of the cache using the sketch
+	 */
+	FrequencySketch(final int expectedSize) {
+		if (expectedSize < 1) {
+			throw new IllegalArgumentException("The expected size of the sketch must be at least 1");
+		}
+		final int length = Integer.highestOneBit(Math.max(2, Math.min(expectedSize, MAXIMUM_LENGTH)) - 1) << 1;
+		this.table = new AtomicLongArray(length);
+		this.tableMask = length - 1;
+		this.sampleSize = (int) Math.min(10L * expectedSize, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Estimates how often the element has been seen since it has been halved the last
+	 * time.
+	 * @param element the element
+	 * @return the estimated frequency between 0 and 15
+	 */
+	int frequency(final Object element) {
+		final int hash = spread(element.hashCode());
+		final int start = (hash & 3) << 2;
+		long rv = MAXIMUM_COUNTER;
+		for (int i = 0; i < 4; ++i) {
+			final int offset = (start + i) << 2;
+			rv = Math.min(rv, (this.table.get(indexOf(hash, i)) >>> offset) & MAXIMUM_COUNTER);
+		}
+		return (int) rv;
+	}
+
+	/**
+	 * Increments the estimated frequency of the element, unless it is already saturated.
+	 * @param element the element
+	 */
+	void increment(final Object element) {
+		final int hash = spread(element.hashCode());
+		final int start = (hash & 3) << 2;
+		boolean added = false;
+		for (int i = 0; i < 4; ++i) {
+			added |= incrementAt(indexOf(hash, i), (start + i) << 2);
+		}
+		// Only the thread reaching the sample size resets the sketch
+		if (added && this.additions.incrementAndGet() == this.sampleSize) {
+			reset();
+		}
+	}
+
+	/**
+	 * Increments the counter at the given offset of a word.
+	 * @param index the index of the word
+	 * @param offset the offset of the counter in bits
+	 * @return true if the counter has been incremented
+	 */
+	private boolean incrementAt(final int index, final int offset) {
+		final long mask = MAXIMUM_COUNTER << offset;
+		long word;
+		do {
+			word = this.table.get(index);
+			if ((word & mask) == mask) {
+				return false;
+			}
+		}
+		while (!this.table.compareAndSet(index, word, word + (1L << offset)));
+		return true;
+	}
+
+	/**
+	 * Halves all counters. Increments running concurrently may get lost, which only makes
+	 * the estimate a bit less accurate.
+	 */
+	private void reset() {
+		for (int i = 0; i < this.table.length(); ++i) {
+			long word;
+			do {
+				word = this.table.get(i);
+			}
+			while (!this.table.compareAndSet(i, word, (word >>> 1) & RESET_MASK));
+		}
+		this.additions.addAndGet(-this.sampleSize / 2);
+	}
+
+	/**
+	 * {@return the index of the word holding the counter of the given hash function}
+	 * @param hash the spread hash of the element
+	 * @param i the number of the hash function
+	 */
+	private int indexOf(final int hash, final int i) {
+		long rv = (hash + SEEDS[i]) * SEEDS[i];
+		rv += rv >>> 32;
+		return (int) rv & this.tableMask;
+	}
+
+	private static int spread(final int hashCode) {
+		int rv = hashCode * 0x9e3779b9;
+		rv ^= rv >>> 16;
+		rv *= 0x85ebca6b;
+		return rv ^ (rv >>> 13);
+	}
+
+}
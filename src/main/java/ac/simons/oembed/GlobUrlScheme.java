@@ -0,0 +1,178 @@
+/*
+ * Created by Michael Simons, michael-simons.eu
+ * and released under The BSD License
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * Copyright (c) 2010-2026, Michael Simons
+ * All rights reserved.
+ *
+ * Redistribution  and  use  in  source   and  binary  forms,  with  or   without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source   code must retain   the above copyright   notice,
+ *   this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary  form must reproduce  the above copyright  notice,
+ *   this list of conditions  and the following  disclaimer in the  documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name  of  michael-simons.eu   nor the names  of its contributors
+ *   may be used  to endorse   or promote  products derived  from  this  software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE  COPYRIGHT HOLDERS AND  CONTRIBUTORS "AS IS"
+ * AND ANY  EXPRESS OR  IMPLIED WARRANTIES,  INCLUDING, BUT  NOT LIMITED  TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL  THE COPYRIGHT HOLDER OR CONTRIBUTORS  BE LIABLE
+ * FOR ANY  DIRECT, INDIRECT,  INCIDENTAL, SPECIAL,  EXEMPLARY, OR  CONSEQUENTIAL
+ * DAMAGES (INCLUDING,  BUT NOT  LIMITED TO,  PROCUREMENT OF  SUBSTITUTE GOODS OR
+ * SERVICES; LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT  LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE  USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package ac.simons.oembed;
+
+import java.util.Optional;
+
+/**
+ * An url scheme in the glob syntax used by the
+ * <a href="https://oembed.com/providers.json">oEmbed provider registry</a>, for example
+ * {@code https://*.flickr.com/photos/*}. A {@literal *} inside the host only matches
+ * within the host, a {@literal *} inside the path matches anything. No other characters
+ * are special.
+ * <p>
+ * The glob is split into literal segments once. Matching looks for the segments from left
+ * to right and never revisits a decision, so there's no backtracking involved and the
+ * time spent is linear in the length of the url.
+ *
+ * @author Michael J. Simons
+ * @since 2026-10-17
+ */
+final class GlobUrlScheme {
+
+	/**
+	 * The separator between the scheme and the host of an url.
+	 */
+	private static final String SCHEME_SEPARATOR = "://";
+
+	/**
+	 * The original glob.
+	 */
+	private final String glob;
+
+	/**
+	 * Segments of everything up to and including the scheme separator. If the glob has no
+	 * scheme separator, this contains the segments of the whole glob.
+	 */
+	private final String[] scheme;
+
+	/**
+	 * Segments of the host part, {@literal null} if the glob has no scheme separator.
+	 */
+	private final String[] host;
+
+	/**
+	 * Segments of the path including query and fragment, {@literal null} if the glob has
+	 * no path.
+	 */
+	private final String[] path;
+
+	GlobUrlScheme(final String glob) {
+		this.glob = glob;
+		final int separator = glob.indexOf(SCHEME_SEPARATOR);
+		if (separator < 0) {
+			this.scheme = segments(glob);
+			this.host = null;
+			this.path = null;
+		}
+		else {
+			final int hostStart = separator + SCHEME_SEPARATOR.length();
+			final int hostEnd = glob.indexOf('/', hostStart);
+			this.scheme = segments(glob.substring(0, hostStart));
+			this.host = segments(glob.substring(hostStart, (hostEnd < 0) ? glob.length() : hostEnd));
+			this.path = (hostEnd < 0) ? null : segments(glob.substring(hostEnd));
+		}
+	}
+
+	private static String[] segments(final String part) {
+		return part.split("\\*", -1);
+	}
+
+	/**
+	 * Checks whether the given url matches this scheme.
+	 * @param url the url to check
+	 * @return true, if the url matches
+	 */
+	boolean matches(final String url) {
+		if (this.host == null) {
+			return matches(this.scheme, url, 0, url.length());
+		}
+
+		final int separator = url.indexOf(SCHEME_SEPARATOR);
+		if (separator < 0) {
+			return false;
+		}
+		final int hostStart = separator + SCHEME_SEPARATOR.length();
+		final int hostEnd = url.indexOf('/', hostStart);
+		if (!(matches(this.scheme, url, 0, hostStart)
+				&& matches(this.host, url, hostStart, (hostEnd < 0) ? url.length() : hostEnd))) {
+			return false;
+		}
+		if (this.path == null) {
+			return hostEnd < 0;
+		}
+		return hostEnd >= 0 && matches(this.path, url, hostEnd, url.length());
+	}
+
+	/**
+	 * Matches the region {@code [start, end)} of {@code value} against the given
+	 * segments. The first segment must be a prefix, the last one a suffix, all segments
+	 * in between are searched for greedily from left to right.
+	 * @param segments the literal segments between the wildcards
+	 * @param value the value containing the region to match
+	 * @param start start of the region, inclusive
+	 * @param end end of the region, exclusive
+	 * @return true, if the region matches
+	 */
+	private static boolean matches(final String[] segments, final String value, final int start, final int end) {
+		final String first = segments[0];
+		if (segments.length == 1) {
+			return end - start == first.length() && value.startsWith(first, start);
+		}
+
+		final String last = segments[segments.length - 1];
+		final int lastStart = end - last.length();
+		if (lastStart < start + first.length() || !value.startsWith(first, start)
+				|| !value.startsWith(last, lastStart)) {
+			return false;
+		}
+
+		int position = start + first.length();
+		for (int i = 1; i < segments.length - 1; ++i) {
+			final String segment = segments[i];
+			final int found = value.indexOf(segment, position);
+			if (found < 0 || found + segment.length() > lastStart) {
+				return false;
+			}
+			position = found + segment.length();
+		}
+		return true;
+	}
+
+	/**
+	 * {@return the literal host or host suffix of this glob if any}
+	 */
+	Optional<UrlSchemeIndex.HostKey> getHostKey() {
+		if (this.host == null) {
+			return Optional.empty();
+		}
+		return UrlSchemeIndex.HostKey.of(this.host[this.host.length - 1], this.host.length == 1);
+	}
+
+	@Override
+	public String toString() {
+		return this.glob;
+	}
+
+}
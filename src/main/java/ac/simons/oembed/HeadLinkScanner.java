@@ -0,0 +1,380 @@
+/*
+ * Created by Michael Simons, michael-simons.eu
+ * and released under The BSD License
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * Copyright (c) 2010-2026, Michael Simons
+ * All rights reserved.
+ *
+ * Redistribution  and  use  in  source   and  binary  forms,  with  or   without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source   code must retain   the above copyright   notice,
+ *   this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary  form must reproduce  the above copyright  notice,
+ *   this list of conditions  and the following  disclaimer in the  documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name  of  michael-simons.eu   nor the names  of its contributors
+ *   may be used  to endorse   or promote  products derived  from  this  software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE  COPYRIGHT HOLDERS AND  CONTRIBUTORS "AS IS"
+ * AND ANY  EXPRESS OR  IMPLIED WARRANTIES,  INCLUDING, BUT  NOT LIMITED  TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL  THE COPYRIGHT HOLDER OR CONTRIBUTORS  BE LIABLE
+ * FOR ANY  DIRECT, INDIRECT,  INCIDENTAL, SPECIAL,  EXEMPLARY, OR  CONSEQUENTIAL
+ * DAMAGES (INCLUDING,  BUT NOT  LIMITED TO,  PROCUREMENT OF  SUBSTITUTE GOODS OR
+ * SERVICES; LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT  LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE  USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package ac.simons.oembed;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Scans the head of an HTML document for link elements while reading it. The scanner
+ * stops at the end of the head, that is at the end tag of the head, the start tag of the
+ * body or any other element that cannot be part of the head, so that the rest of the
+ * document is neither read nor parsed.
+ *
+ * @author Michael J. Simons
+ * @since 2026-10-17
+ */
+final class HeadLinkScanner {
+
+	/**
+	 * Elements that may appear before or inside the head, every other start tag ends the
+	 * head.
+	 */
+	private static final Set<String> HEAD_ELEMENTS = Set.of("html", "head", "base", "link", "meta", "title", "style",
+			"script", "noscript", "template");
+
+	/**
+	 * Elements whose content is text and not markup.
+	 */
+	private static final Set<String> RAW_TEXT_ELEMENTS = Set.of("script", "style", "title");
+
+	private final Reader reader;
+
+	private final char[] buffer = new char[1024];
+
+	private int position;
+
+	private int limit;
+
+	private HeadLinkScanner(final Reader reader) {
+		this.reader = reader;
+	}
+
+	/**
+	 * Scans the head of a document for links. Their urls are resolved against the
+	 * {@code <base>} of the document or the url of the document itself.
+	 * @param reader the document
+	 * @param documentUri the url of the document
+	 * @return all links of the head in document order
+	 * @throws IOException if the document cannot be read
+	 */
+	static List<Link> scan(final Reader reader, final URI documentUri) throws IOException {
+		final List<Map<String, String>> links = new ArrayList<>();
+		URI base = documentUri;
+		boolean baseFound = false;
+
+		final HeadLinkScanner scanner = new HeadLinkScanner(reader);
+		int c;
+		scan: while ((c = scanner.read()) != -1) {
+			if (c != '<') {
+				continue;
+			}
+			c = scanner.read();
+			if (c == '!' || c == '?') {
+				scanner.skipDeclarationOrComment(c);
+			}
+			else if (c == '/') {
+				final String name = scanner.readName(scanner.read());
+				scanner.skipTo(">");
+				if (name.equals("head") || name.equals("html")) {
+					break;
+				}
+			}
+			else if (isLetter(c)) {
+				final String name = scanner.readName(c);
+				final Map<String, String> attributes = new HashMap<>();
+				final boolean selfClosing = scanner.readAttributes(attributes);
+				switch (name) {
+					case "base" -> {
+						if (!baseFound && attributes.containsKey("href")) {
+							base = resolve(documentUri, attributes.get("href"));
+							baseFound = true;
+						}
+					}
+					case "link" -> links.add(attributes);
+					default -> {
+						if (!HEAD_ELEMENTS.contains(name)) {
+							break scan;
+						}
+						if (!selfClosing && RAW_TEXT_ELEMENTS.contains(name)) {
+							scanner.skipTo("</" + name);
+						}
+					}
+				}
+			}
+			else if (c != -1) {
+				scanner.unread();
+			}
+		}
+
+		final URI baseUri = Objects.requireNonNullElse(base, documentUri);
+		return links.stream().map(attributes -> {
+			final URI href = attributes.containsKey("href") ? resolve(baseUri, attributes.get("href")) : null;
+			return (href != null)
+					? new Link(attributes.getOrDefault("rel", ""), attributes.getOrDefault("type", ""), href) : null;
+		}).filter(Objects::nonNull).toList();
+	}
+
+	/**
+	 * {@return the resolved url or {@literal null} if the href is not a valid url}
+	 * @param base the base to resolve against
+	 * @param href the possibly relative url
+	 */
+	static URI resolve(final URI base, final String href) {
+		try {
+			return base.resolve(href.trim());
+		}
+		catch (IllegalArgumentException ex) {
+			return null;
+		}
+	}
+
+	private static boolean isLetter(final int c) {
+		return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+	}
+
+	private static boolean isWhitespace(final int c) {
+		return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f';
+	}
+
+	private int read() throws IOException {
+		if (this.position == this.limit) {
+			this.limit = this.reader.read(this.buffer);
+			this.position = 0;
+			if (this.limit <= 0) {
+				this.limit = 0;
+				return -1;
+			}
+		}
+		return this.buffer[this.position++];
+	}
+
+	private void unread() {
+		--this.position;
+	}
+
+	/**
+	 * Reads a tag or attribute name, starting with an already read character.
+	 * @param first the first character
+	 * @return the lower case name
+	 * @throws IOException if the document cannot be read
+	 */
+	private String readName(final int first) throws IOException {
+		final StringBuilder name = new StringBuilder();
+		int c = first;
+		while (c != -1 && !isWhitespace(c) && c != '>' && c != '/' && c != '=') {
+			name.append((char) c);
+			c = read();
+		}
+		if (c != -1) {
+			unread();
+		}
+		return name.toString().toLowerCase(Locale.ROOT);
+	}
+
+	/**
+	 * Reads the attributes of a start tag up to and including the closing {@code >}.
+	 * @param attributes receives the attributes, the first occurrence of an attribute
+	 * wins
+	 * @return true if the tag is self closing
+	 * @throws IOException if the document cannot be read
+	 */
+	private boolean readAttributes(final Map<String, String> attributes) throws IOException {
+		boolean selfClosing = false;
+		while (true) {
+			int c = skipWhitespace();
+			if (c == -1 || c == '>') {
+				return selfClosing;
+			}
+			if (c == '/') {
+				selfClosing = true;
+				continue;
+			}
+			selfClosing = false;
+			final String name = (c == '=') ? "=" : readName(c);
+			c = skipWhitespace();
+			String value = "";
+			if (c == '=') {
+				value = readValue(skipWhitespace());
+			}
+			else if (c != -1) {
+				unread();
+			}
+			attributes.putIfAbsent(name, decode(value));
+		}
+	}
+
+	private String readValue(final int first) throws IOException {
+		final StringBuilder value = new StringBuilder();
+		if (first == '"' || first == '\'') {
+			int c;
+			while ((c = read()) != -1 && c != first) {
+				value.append((char) c);
+			}
+			return value.toString();
+		}
+		int c = first;
+		while (c != -1 && !isWhitespace(c) && c != '>') {
+			value.append((char) c);
+			c = read();
+		}
+		if (c != -1) {
+			unread();
+		}
+		return value.toString();
+	}
+
+	private int skipWhitespace() throws IOException {
+		int c;
+		do {
+			c = read();
+		}
+		while (isWhitespace(c));
+		return c;
+	}
+
+	/**
+	 * Skips comments, doctype declarations, CDATA sections and processing instructions.
+	 * @param first the character after the opening angle bracket
+	 * @throws IOException if the document cannot be read
+	 */
+	private void skipDeclarationOrComment(final int first) throws IOException {
+		if (first == '!') {
+			final int c = read();
+			if (c == '-') {
+				if (read() == '-') {
+					skipTo("-->");
+					return;
+				}
+			}
+			else if (c != -1) {
+				unread();
+			}
+		}
+		skipTo(">");
+	}
+
+	/**
+	 * Skips everything up to and including the given, case insensitive marker.
+	 * @param marker the marker to look for
+	 * @throws IOException if the document cannot be read
+	 */
+	private void skipTo(final String marker) throws IOException {
+		final char[] expected = marker.toLowerCase(Locale.ROOT).toCharArray();
+		final char[] window = new char[expected.length];
+		int count = 0;
+		int c;
+		while ((c = read()) != -1) {
+			System.arraycopy(window, 1, window, 0, window.length - 1);
+			window[window.length - 1] = Character.toLowerCase((char) c);
+			if (++count >= expected.length && Arrays.equals(window, expected)) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Decodes the character references that are relevant in urls and attribute values.
+	 * @param value the raw value
+	 * @return the decoded value
+	 */
+	static String decode(final String value) {
+		if (value.indexOf('&') < 0) {
+			return value;
+		}
+		final StringBuilder rv = new StringBuilder(value.length());
+		int i = 0;
+		while (i < value.length()) {
+			final char c = value.charAt(i);
+			final int end = value.indexOf(';', i);
+			if (c != '&' || end < 0 || end - i > 10) {
+				rv.append(c);
+				++i;
+				continue;
+			}
+			final String reference = value.substring(i + 1, end);
+			final String decoded = switch (reference) {
+				case "amp" -> "&";
+				case "quot" -> "\"";
+				case "apos" -> "'";
+				case "lt" -> "<";
+				case "gt" -> ">";
+				default -> decodeNumeric(reference);
+			};
+			if (decoded == null) {
+				rv.append(c);
+				++i;
+			}
+			else {
+				rv.append(decoded);
+				i = end + 1;
+			}
+		}
+		return rv.toString();
+	}
+
+	private static String decodeNumeric(final String reference) {
+		if (!reference.startsWith("#") || reference.length() < 2) {
+			return null;
+		}
+		try {
+			final boolean hex = reference.charAt(1) == 'x' || reference.charAt(1) == 'X';
+			final int codePoint = hex ? Integer.parseInt(reference.substring(2), 16)
+					: Integer.parseInt(reference.substring(1));
+			return Character.isValidCodePoint(codePoint) ? new String(Character.toChars(codePoint)) : null;
+		}
+		catch (NumberFormatException ex) {
+			return null;
+		}
+	}
+
+	/**
+	 * A link from the head of a document.
+	 *
+	 * @param rel the value of the {@code rel} attribute
+	 * @param type the value of the {@code type} attribute
+	 * @param href the resolved url
+	 */
+	record Link(String rel, String type, URI href) {
+
+		/**
+		 * {@return true if the link has the given relation type}
+		 * @param relationType the relation type to check
+		 */
+		boolean hasRel(final String relationType) {
+			return Arrays.stream(this.rel.trim().split("\\s+")).anyMatch(relationType::equalsIgnoreCase);
+		}
+
+	}
+
+}
@@ -0,0 +1,71 @@
+/*
+ * Created by Michael Simons, michael-simons.eu
+ * and released under The BSD License
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * Copyright (c) 2010-2026, Michael Simons
+ * All rights reserved.
+ *
+ * Redistribution  and  use  in  source   and  binary  forms,  with  or   without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source   code must retain   the above copyright   notice,
+ *   this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary  form must reproduce  the above copyright  notice,
+ *   this list of conditions  and the following  disclaimer in the  documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name  of  michael-simons.eu   nor the names  of its contributors
+ *   may be used  to endorse   or promote  products derived  from  this  software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE  COPYRIGHT HOLDERS AND  CONTRIBUTORS "AS IS"
+ * AND ANY  EXPRESS OR  IMPLIED WARRANTIES,  INCLUDING, BUT  NOT LIMITED  TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL  THE COPYRIGHT HOLDER OR CONTRIBUTORS  BE LIABLE
+ * FOR ANY  DIRECT, INDIRECT,  INCIDENTAL, SPECIAL,  EXEMPLARY, OR  CONSEQUENTIAL
+ * DAMAGES (INCLUDING,  BUT NOT  LIMITED TO,  PROCUREMENT OF  SUBSTITUTE GOODS OR
+ * SERVICES; LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT  LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE  USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package ac.simons.oembed;
+
+import java.io.IOException;
+import java.util.Optional;
+
+/**
+ * The transport used for all HTTP requests made by the {@link OembedService}: Requests to
+ * oembed endpoints as well as the requests for autodiscovery. Implementations are
+ * provided for Apache HttpClient 4 ({@link ApacheHttpTransport}), the HTTP client of the
+ * JDK ({@link JdkHttpTransport}) and for tests ({@link InMemoryHttpTransport}).
+ *
+ * @author Michael J. Simons
+ * @since 2026-10-17
+ */
+@FunctionalInterface
+public interface HttpTransport {
+
+	/**
+	 * Executes the given request. The caller must close the returned response, which
+	 * releases all resources like pooled connections. Closing consumes a small rest of
+	 * unread body so that connections can be reused, connections with more unread bytes
+	 * are aborted.
+	 * @param request the request to execute
+	 * @return the response, regardless of its status code
+	 * @throws IOException if the request could not be executed
+	 */
+	TransportResponse execute(TransportRequest request) throws IOException;
+
+	/**
+	 * Returns the current state of the connection pool used by this transport, if the
+	 * transport has access to it.
+	 * @return the current state of the connection pool
+	 */
+	default Optional<ConnectionPoolMetrics> getConnectionPoolMetrics() {
+		return Optional.empty();
+	}
+
+}
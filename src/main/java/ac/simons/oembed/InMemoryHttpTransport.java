@@ -0,0 +1,138 @@
+/*
+ * Created by Michael Simons, michael-simons.eu
+ * and released under The BSD License
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * Copyright (c) 2010-2026, Michael Simons
+ * All rights reserved.
+ *
+ * Redistribution  and  use  in  source   and  binary  forms,  with  or   without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source   code must retain   the above copyright   notice,
+ *   this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary  form must reproduce  the above copyright  notice,
+ *   this list of conditions  and the following  disclaimer in the  documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name  of  michael-simons.eu   nor the names  of its contributors
+ *   may be used  to endorse   or promote  products derived  from  this  software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE  COPYRIGHT HOLDERS AND  CONTRIBUTORS "AS IS"
+ * AND ANY  EXPRESS OR  IMPLIED WARRANTIES,  INCLUDING, BUT  NOT LIMITED  TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL  THE COPYRIGHT HOLDER OR CONTRIBUTORS  BE LIABLE
+ * FOR ANY  DIRECT, INDIRECT,  INCIDENTAL, SPECIAL,  EXEMPLARY, OR  CONSEQUENTIAL
+ * DAMAGES (INCLUDING,  BUT NOT  LIMITED TO,  PROCUREMENT OF  SUBSTITUTE GOODS OR
+ * SERVICES; LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT  LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE  USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package ac.simons.oembed;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * A {@link HttpTransport} answering requests with predefined responses, meant for tests.
+ * Requests for unknown uris are answered with status 404, all requests are recorded.
+ *
+ * @author Michael J. Simons
+ * @since 2026-10-17
+ */
+public class InMemoryHttpTransport implements HttpTransport {
+
+	/**
+	 * The predefined responses by uri.
+	 */
+	private final Map<URI, Response> responses = new ConcurrentHashMap<>();
+
+	/**
+	 * All executed requests.
+	 */
+	private final List<TransportRequest> requests = new CopyOnWriteArrayList<>();
+
+	/**
+	 * Adds a response for the given uri.
+	 * @param uri the uri to answer
+	 * @param statusCode the status code of the response
+	 * @param body the body of the response, encoded as UTF-8
+	 * @return this transport
+	 */
+	public InMemoryHttpTransport respond(final String uri, final int statusCode, final String body) {
+		return respond(uri, statusCode, Map.of(), body.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Adds a response for the given uri.
+	 * @param uri the uri to answer
+	 * @param statusCode the status code of the response
+	 * @param headers the headers of the response
+	 * @param body the body of the response
+	 * @return this transport
+	 */
+	public InMemoryHttpTransport respond(final String uri, final int statusCode, final Map<String, String> headers,
+			final byte[] body) {
+		final SortedMap<String, String> hlp = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+		hlp.putAll(headers);
+		this.responses.put(URI.create(uri), new Response(statusCode, hlp, body.clone()));
+		return this;
+	}
+
+	/**
+	 * {@return all requests executed so far}
+	 */
+	public List<TransportRequest> getRequests() {
+		return Collections.unmodifiableList(this.requests);
+	}
+
+	@Override
+	public TransportResponse execute(final TransportRequest request) {
+		this.requests.add(request);
+		final Response response = this.responses.getOrDefault(request.getUri(),
+				new Response(404, Collections.emptySortedMap(), new byte[0]));
+		return "HEAD".equals(request.getMethod()) ? new Response(response.statusCode, response.headers, new byte[0])
+				: response;
+	}
+
+	/**
+	 * A predefined response.
+	 */
+	private record Response(int statusCode, SortedMap<String, String> headers,
+			byte[] body) implements TransportResponse {
+
+		@Override
+		public int getStatusCode() {
+			return this.statusCode;
+		}
+
+		@Override
+		public List<String> getHeaders(final String name) {
+			final String value = this.headers.get(name);
+			return (value != null) ? List.of(value) : List.of();
+		}
+
+		@Override
+		public InputStream getBody() {
+			return new ByteArrayInputStream(this.body);
+		}
+
+		@Override
+		public void close() {
+		}
+
+	}
+
+}
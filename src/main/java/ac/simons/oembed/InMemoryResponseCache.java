@@ -0,0 +1,248 @@
+/*
+ * Created by Michael Simons, michael-simons.eu
+ * and released under The BSD License
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * Copyright (c) 2010-2026, Michael Simons
+ * All rights reserved.
+ *
+ * Redistribution  and  use  in  source   and  binary  forms,  with  or   without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source   code must retain   the above copyright   notice,
+ *   this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary  form must reproduce  the above copyright  notice,
+ *   this list of conditions  and the following  disclaimer in the  documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name  of  michael-simons.eu   nor the names  of its contributors
+ *   may be used  to endorse   or promote  products derived  from  this  software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE  COPYRIGHT HOLDERS AND  CONTRIBUTORS "AS IS"
+ * AND ANY  EXPRESS OR  IMPLIED WARRANTIES,  INCLUDING, BUT  NOT LIMITED  TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL  THE COPYRIGHT HOLDER OR CONTRIBUTORS  BE LIABLE
+ * FOR ANY  DIRECT, INDIRECT,  INCIDENTAL, SPECIAL,  EXEMPLARY, OR  CONSEQUENTIAL
+ * DAMAGES (INCLUDING,  BUT NOT  LIMITED TO,  PROCUREMENT OF  SUBSTITUTE GOODS OR
+ * SERVICES; LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT  LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE  USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package ac.simons.oembed;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * A dependency free {@link ResponseCache} keeping at most a given number of responses in
+ * memory.
+ * <p>
+ * The cache is split into independently locked segments, each evicting its least recently
+ * used entry when full. A new entry is only admitted to a full segment if it has been
+ * requested more often than that entry (TinyLFU). Request frequencies are estimated by a
+ * {@link FrequencySketch} recording all lookups, including misses. This way, urls that
+ * are only requested once, for example links in spam comments, don't push out popular
+ * responses.
+ *
+ * @author Michael J. Simons
+ * @since 2026-10-17
+ */
+public class InMemoryResponseCache implements ResponseCache {
+
+	/**
+	 * The minimum number of entries per segment.
+	 */
+	private static final int MINIMUM_SEGMENT_SIZE = 32;
+
+	/**
+	 * The number of least recently used entries checked for expiry before an entry is
+	 * evicted.
+	 */
+	private static final int EXPIRY_SCAN_LENGTH = 4;
+
+	private final LongSupplier nanoTime;
+
+	private final FrequencySketch sketch;
+
+	private final Segment[] segments;
+
+	/**
+	 * Creates a new cache.
+	 * @param maximumSize the maximum number of responses to keep
+	 */
+	public InMemoryResponseCache(final int maximumSize) {
+		this(maximumSize, Runtime.getRuntime().availableProcessors(), System::nanoTime);
+	}
+
+	InMemoryResponseCache(final int maximumSize, final int concurrencyLevel, final LongSupplier nanoTime) {
+		if (maximumSize < 1) {
+			throw new IllegalArgumentException("The maximum size of the response cache must be at least 1");
+		}
+		this.nanoTime = nanoTime;
+		this.sketch = new FrequencySketch(maximumSize);
+		final int numberOfSegments = Integer
+			.highestOneBit(Math.max(1, Math.min(maximumSize / MINIMUM_SEGMENT_SIZE, 4 * concurrencyLevel)));
+		this.segments = new Segment[numberOfSegments];
+		for (int i = 0; i < numberOfSegments; ++i) {
+			this.segments[i] = new Segment(
+					maximumSize / numberOfSegments + ((i < maximumSize % numberOfSegments) ? 1 : 0));
+		}
+	}
+
+	@Override
+	public Optional<CachedResponse> get(final String url) {
+		this.sketch.increment(url);
+		return Optional.ofNullable(segmentFor(url).get(url, this.nanoTime.getAsLong()));
+	}
+
+	/**
+	 * {@inheritDoc} The response is not stored if the cache is full and the url has been
+	 * requested less often than the least recently used response.
+	 */
+	@Override
+	public void put(final String url, final CachedResponse response, final Duration timeToLive) {
+		final long now = this.nanoTime.getAsLong();
+		segmentFor(url).put(url, new Entry(response, now + timeToLive.toNanos()), now);
+	}
+
+	@Override
+	public void invalidate(final String url) {
+		segmentFor(url).remove(url);
+	}
+
+	/**
+	 * {@return the number of responses currently cached, including expired ones}
+	 */
+	public int size() {
+		int rv = 0;
+		for (Segment segment : this.segments) {
+			rv += segment.size();
+		}
+		return rv;
+	}
+
+	private Segment segmentFor(final String url) {
+		final int hash = url.hashCode();
+		return this.segments[(hash ^ (hash >>> 16)) & (this.segments.length - 1)];
+	}
+
+	private record Entry(CachedResponse response, long removeAt) {
+
+		boolean isExpired(final long now) {
+			return this.removeAt - now <= 0;
+		}
+
+	}
+
+	/**
+	 * A part of the cache, keeping its entries in access order.
+	 */
+	private final class Segment {
+
+		private final ReentrantLock lock = new ReentrantLock();
+
+		private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+		private final int maximumSize;
+
+		Segment(final int maximumSize) {
+			this.maximumSize = maximumSize;
+		}
+
+		CachedResponse get(final String url, final long now) {
+			this.lock.lock();
+			try {
+				final Entry entry = this.entries.get(url);
+				if (entry == null) {
+					return null;
+				}
+				if (entry.isExpired(now)) {
+					this.entries.remove(url);
+					return null;
+				}
+				return entry.response();
+			}
+			finally {
+				this.lock.unlock();
+			}
+		}
+
+		void put(final String url, final Entry entry, final long now) {
+			this.lock.lock();
+			try {
+				if (this.entries.size() >= this.maximumSize && !this.entries.containsKey(url) && !removeExpired(now)
+						&& !evictInFavorOf(url)) {
+					return;
+				}
+				this.entries.put(url, entry);
+			}
+			finally {
+				this.lock.unlock();
+			}
+		}
+
+		void remove(final String url) {
+			this.lock.lock();
+			try {
+				this.entries.remove(url);
+			}
+			finally {
+				this.lock.unlock();
+			}
+		}
+
+		int size() {
+			this.lock.lock();
+			try {
+				return this.entries.size();
+			}
+			finally {
+				this.lock.unlock();
+			}
+		}
+
+		/**
+		 * Removes expired entries among the least recently used ones.
+		 * @param now the current time
+		 * @return true if at least one entry has been removed
+		 */
+		private boolean removeExpired(final long now) {
+			boolean rv = false;
+			final Iterator<Entry> values = this.entries.values().iterator();
+			for (int i = 0; i < EXPIRY_SCAN_LENGTH && values.hasNext(); ++i) {
+				if (values.next().isExpired(now)) {
+					values.remove();
+					rv = true;
+				}
+			}
+			return rv;
+		}
+
+		/**
+		 * Evicts the least recently used entry if the candidate has been requested more
+		 * often.
+		 * @param candidate the url to be admitted
+		 * @return true if the least recently used entry has been evicted
+		 */
+		private boolean evictInFavorOf(final String candidate) {
+			final Iterator<String> keys = this.entries.keySet().iterator();
+			final String victim = keys.next();
+			if (InMemoryResponseCache.this.sketch.frequency(candidate) <= InMemoryResponseCache.this.sketch
+				.frequency(victim)) {
+				return false;
+			}
+			keys.remove();
+			return true;
+		}
+
+	}
+
+}
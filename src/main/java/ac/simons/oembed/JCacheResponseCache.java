@@ -0,0 +1,155 @@
+/*
+ * Created by Michael Simons, michael-simons.eu
+ * and released under The BSD License
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * Copyright (c) 2010-2026, Michael Simons
+ * All rights reserved.
+ *
+ * Redistribution  and  use  in  source   and  binary  forms,  with  or   without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source   code must retain   the above copyright   notice,
+ *   this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary  form must reproduce  the above copyright  notice,
+ *   this list of conditions  and the following  disclaimer in the  documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name  of  michael-simons.eu   nor the names  of its contributors
+ *   may be used  to endorse   or promote  products derived  from  this  software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE  COPYRIGHT HOLDERS AND  CONTRIBUTORS "AS IS"
+ * AND ANY  EXPRESS OR  IMPLIED WARRANTIES,  INCLUDING, BUT  NOT LIMITED  TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL  THE COPYRIGHT HOLDER OR CONTRIBUTORS  BE LIABLE
+ * FOR ANY  DIRECT, INDIRECT,  INCIDENTAL, SPECIAL,  EXEMPLARY, OR  CONSEQUENTIAL
+ * DAMAGES (INCLUDING,  BUT NOT  LIMITED TO,  PROCUREMENT OF  SUBSTITUTE GOODS OR
+ * SERVICES; LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT  LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE  USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package ac.simons.oembed;
+
+import java.io.Serializable;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.LongSupplier;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.configuration.MutableConfiguration;
+
+/**
+ * A {@link ResponseCache} backed by a JSR-107 (JCache) cache. As JCache doesn't support a
+ * time to live per entry, the time to live is stored with each entry and checked when the
+ * entry is read. The expiry policy of the cache itself still applies.
+ *
+ * @author Michael J. Simons
+ * @since 2026-10-17
+ */
+public class JCacheResponseCache implements ResponseCache {
+
+	private final Cache<String, Object> cache;
+
+	private final LongSupplier currentTimeMillis;
+
+	/**
+	 * Creates a new adapter.
+	 * @param cache the cache to use
+	 */
+	public JCacheResponseCache(final Cache<String, Object> cache) {
+		this(cache, System::currentTimeMillis);
+	}
+
+	JCacheResponseCache(final Cache<String, Object> cache, final LongSupplier currentTimeMillis) {
+		this.cache = cache;
+		this.currentTimeMillis = currentTimeMillis;
+	}
+
+	/**
+	 * Creates an adapter for the cache with the given name, creating the cache with a
+	 * default configuration if it doesn't exist.
+	 * @param cacheManager the cache manager providing the cache
+	 * @param cacheName the name of the cache
+	 * @return a new adapter
+	 */
+	public static JCacheResponseCache of(final CacheManager cacheManager, final String cacheName) {
+		Cache<String, Object> cache = cacheManager.getCache(cacheName);
+		if (cache == null) {
+			cache = cacheManager.createCache(cacheName, new MutableConfiguration<>());
+		}
+		return new JCacheResponseCache(cache);
+	}
+
+	/**
+	 * {@return the underlying cache}
+	 */
+	Cache<String, Object> getCache() {
+		return this.cache;
+	}
+
+	@Override
+	public Optional<CachedResponse> get(final String url) {
+		return Optional.ofNullable(validResponseOf(url, this.cache.get(url), this.currentTimeMillis.getAsLong()));
+	}
+
+	@Override
+	public Map<String, CachedResponse> getAll(final Collection<String> urls) {
+		final long now = this.currentTimeMillis.getAsLong();
+		final Map<String, CachedResponse> rv = new LinkedHashMap<>();
+		this.cache.getAll(new HashSet<>(urls)).forEach((url, value) -> {
+			final CachedResponse response = validResponseOf(url, value, now);
+			if (response != null) {
+				rv.put(url, response);
+			}
+		});
+		return rv;
+	}
+
+	@Override
+	public void put(final String url, final CachedResponse response, final Duration timeToLive) {
+		this.cache.put(url, new Entry(response, this.currentTimeMillis.getAsLong() + timeToLive.toMillis()));
+	}
+
+	@Override
+	public void invalidate(final String url) {
+		this.cache.remove(url);
+	}
+
+	/**
+	 * Checks whether a value is still valid and removes it otherwise.
+	 * @param url the url of the value
+	 * @param value the value, may be {@literal null}
+	 * @param now the current time
+	 * @return the cached response, {@literal null} if there is none or it is not valid
+	 */
+	private CachedResponse validResponseOf(final String url, final Object value, final long now) {
+		if (!(value instanceof Entry entry)) {
+			return null;
+		}
+		if (entry.removeAt - now > 0) {
+			return entry.response;
+		}
+		// Values may be stored by value, so a conditional remove can't be used.
+		// Removing a response that was just replaced only causes another request.
+		this.cache.remove(url);
+		return null;
+	}
+
+	/**
+	 * The value stored in the cache.
+	 *
+	 * @param response the cached response
+	 * @param removeAt the time in milliseconds the entry is removed
+	 */
+	private record Entry(CachedResponse response, long removeAt) implements Serializable {
+	}
+
+}
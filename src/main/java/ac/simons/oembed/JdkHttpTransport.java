@@ -0,0 +1,237 @@
+/*
+ * Created by Michael Simons, michael-simons.eu
+ * and released under The BSD License
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * Copyright (c) 2010-2026, Michael Simons
+ * All rights reserved.
+ *
+ * Redistribution  and  use  in  source   and  binary  forms,  with  or   without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source   code must retain   the above copyright   notice,
+ *   this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary  form must reproduce  the above copyright  notice,
+ *   this list of conditions  and the following  disclaimer in the  documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name  of  michael-simons.eu   nor the names  of its contributors
+ *   may be used  to endorse   or promote  products derived  from  this  software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE  COPYRIGHT HOLDERS AND  CONTRIBUTORS "AS IS"
+ * AND ANY  EXPRESS OR  IMPLIED WARRANTIES,  INCLUDING, BUT  NOT LIMITED  TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL  THE COPYRIGHT HOLDER OR CONTRIBUTORS  BE LIABLE
+ * FOR ANY  DIRECT, INDIRECT,  INCIDENTAL, SPECIAL,  EXEMPLARY, OR  CONSEQUENTIAL
+ * DAMAGES (INCLUDING,  BUT NOT  LIMITED TO,  PROCUREMENT OF  SUBSTITUTE GOODS OR
+ * SERVICES; LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT  LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE  USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package ac.simons.oembed;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link HttpTransport} executing requests with the {@link HttpClient} of the JDK. The
+ * default client prefers HTTP/2: It is negotiated via ALPN for https and by upgrading
+ * plain http connections, falling back to HTTP/1.1 for servers not supporting it. With
+ * HTTP/2 all concurrent requests to one host are multiplexed as streams over a single
+ * connection. The number of streams opened at the same time per host can be limited with
+ * {@link #setMaxStreamsPerHost(int)}, a stream is in use until its response is closed.
+ *
+ * @author Michael J. Simons
+ * @since 2026-10-17
+ */
+public class JdkHttpTransport implements HttpTransport {
+
+	static final Logger LOGGER = LoggerFactory.getLogger(JdkHttpTransport.class.getPackage().getName());
+
+	/**
+	 * The client executing the requests.
+	 */
+	private final HttpClient httpClient;
+
+	/**
+	 * The maximum number of requests in flight per host, 0 means unlimited.
+	 */
+	private int maxStreamsPerHost = 0;
+
+	/**
+	 * Permits for the requests in flight per host, {@literal null} if
+	 * {@link #maxStreamsPerHost} is not set.
+	 */
+	private volatile PermitsPerKey streams;
+
+	/**
+	 * Creates a new transport with a default client preferring HTTP/2 and following
+	 * redirects.
+	 */
+	public JdkHttpTransport() {
+		this(HttpClient.newBuilder()
+			.version(HttpClient.Version.HTTP_2)
+			.followRedirects(HttpClient.Redirect.NORMAL)
+			.build());
+	}
+
+	/**
+	 * Creates a new transport.
+	 * @param httpClient the client executing the requests
+	 */
+	public JdkHttpTransport(final HttpClient httpClient) {
+		this.httpClient = httpClient;
+	}
+
+	/**
+	 * {@return the maximum number of requests in flight per host, 0 means unlimited}
+	 */
+	public int getMaxStreamsPerHost() {
+		return this.maxStreamsPerHost;
+	}
+
+	/**
+	 * Limits the number of requests in flight per host. Further requests wait until a
+	 * response to the same host is closed.
+	 * @param maxStreamsPerHost the maximum number of requests in flight per host, 0 means
+	 * unlimited
+	 */
+	public void setMaxStreamsPerHost(final int maxStreamsPerHost) {
+		if (maxStreamsPerHost < 0) {
+			throw new IllegalArgumentException("The maximum number of streams per host must not be negative");
+		}
+		this.maxStreamsPerHost = maxStreamsPerHost;
+		this.streams = (maxStreamsPerHost > 0) ? new PermitsPerKey(maxStreamsPerHost) : null;
+	}
+
+	/**
+	 * {@return the number of hosts with requests in flight if streams are limited}
+	 */
+	int getNumberOfHostsInFlight() {
+		final PermitsPerKey permits = this.streams;
+		return (permits != null) ? permits.size() : 0;
+	}
+
+	@Override
+	public TransportResponse execute(final TransportRequest request) throws IOException {
+		final HttpRequest.Builder builder = HttpRequest.newBuilder(request.getUri())
+			.method(request.getMethod(), BodyPublishers.noBody());
+		request.getHeaders().forEach(builder::header);
+
+		final PermitsPerKey permits = this.streams;
+		try {
+			final Runnable release = (permits != null)
+					? permits.acquire(Objects.toString(request.getUri().getAuthority(), "")) : () -> {
+					};
+			try {
+				final HttpResponse<InputStream> httpResponse = this.httpClient.send(builder.build(),
+						BodyHandlers.ofInputStream());
+				LOGGER.debug("Executed {} using {}", request, httpResponse.version());
+				return new Response(httpResponse, release);
+			}
+			catch (IOException | RuntimeException ex) {
+				release.run();
+				throw ex;
+			}
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while executing " + request);
+		}
+	}
+
+	/**
+	 * Response wrapping the response of the client.
+	 */
+	private static final class Response implements TransportResponse {
+
+		private final HttpResponse<InputStream> httpResponse;
+
+		private final Streams.DrainingInputStream content;
+
+		private final InputStream body;
+
+		Response(final HttpResponse<InputStream> httpResponse, final Runnable onClose) {
+			this.httpResponse = httpResponse;
+			this.content = Streams.draining(httpResponse.body(), null);
+			this.body = new ReleasingInputStream(this.content, onClose);
+		}
+
+		@Override
+		public int getStatusCode() {
+			return this.httpResponse.statusCode();
+		}
+
+		@Override
+		public List<String> getHeaders(final String name) {
+			return this.httpResponse.headers().allValues(name);
+		}
+
+		@Override
+		public InputStream getBody() {
+			return this.body;
+		}
+
+		@Override
+		public void close() throws IOException {
+			this.body.close();
+		}
+
+		@Override
+		public void abort() throws IOException {
+			try {
+				this.content.abort();
+			}
+			finally {
+				this.body.close();
+			}
+		}
+
+	}
+
+	/**
+	 * Runs a callback exactly once when closed, so that the stream is released even if
+	 * only the body is closed.
+	 */
+	private static final class ReleasingInputStream extends FilterInputStream {
+
+		private final AtomicBoolean closed = new AtomicBoolean();
+
+		private final Runnable onClose;
+
+		ReleasingInputStream(final InputStream in, final Runnable onClose) {
+			super(in);
+			this.onClose = onClose;
+		}
+
+		@Override
+		public void close() throws IOException {
+			try {
+				super.close();
+			}
+			finally {
+				if (this.closed.compareAndSet(false, true)) {
+					this.onClose.run();
+				}
+			}
+		}
+
+	}
+
+}
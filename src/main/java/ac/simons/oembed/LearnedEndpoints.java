@@ -0,0 +1,202 @@
+/*
+ * Created by Michael Simons, michael-simons.eu
+ * and released under The BSD License
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * Copyright (c) 2010-2026, Michael Simons
+ * All rights reserved.
+ *
+ * Redistribution  and  use  in  source   and  binary  forms,  with  or   without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source   code must retain   the above copyright   notice,
+ *   this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary  form must reproduce  the above copyright  notice,
+ *   this list of conditions  and the following  disclaimer in the  documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name  of  michael-simons.eu   nor the names  of its contributors
+ *   may be used  to endorse   or promote  products derived  from  this  software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE  COPYRIGHT HOLDERS AND  CONTRIBUTORS "AS IS"
+ * AND ANY  EXPRESS OR  IMPLIED WARRANTIES,  INCLUDING, BUT  NOT LIMITED  TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL  THE COPYRIGHT HOLDER OR CONTRIBUTORS  BE LIABLE
+ * FOR ANY  DIRECT, INDIRECT,  INCIDENTAL, SPECIAL,  EXEMPLARY, OR  CONSEQUENTIAL
+ * DAMAGES (INCLUDING,  BUT NOT  LIMITED TO,  PROCUREMENT OF  SUBSTITUTE GOODS OR
+ * SERVICES; LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT  LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE  USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package ac.simons.oembed;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Endpoints learned per host from autodiscovery results. Once an url of a host has been
+ * discovered to point to an endpoint that only differs by the url parameter, further urls
+ * of that host use the learned endpoint directly instead of being discovered, until the
+ * learned endpoint expires. At most a configured number of hosts is remembered, expired
+ * endpoints are forgotten first when that number is exceeded.
+ *
+ * @author Michael J. Simons
+ * @since 2026-10-17
+ */
+final class LearnedEndpoints {
+
+	private final int maximumSize;
+
+	private final long timeToLive;
+
+	private final LongSupplier nanoTime;
+
+	/**
+	 * Hosts mapped to their learned endpoints.
+	 */
+	private final Map<String, Entry> endpoints = new ConcurrentHashMap<>();
+
+	/**
+	 * Creates a new store.
+	 * @param maximumSize the maximum number of hosts to remember, zero disables learning
+	 * @param timeToLive the time to live of learned endpoints, zero disables learning
+	 */
+	LearnedEndpoints(final int maximumSize, final Duration timeToLive) {
+		this(maximumSize, timeToLive, System::nanoTime);
+	}
+
+	LearnedEndpoints(final int maximumSize, final Duration timeToLive, final LongSupplier nanoTime) {
+		if (maximumSize < 0) {
+			throw new IllegalArgumentException("The maximum number of learned endpoints must not be negative");
+		}
+		if (timeToLive.isNegative()) {
+			throw new IllegalArgumentException("The time to live of learned endpoints must not be negative");
+		}
+		this.maximumSize = maximumSize;
+		this.timeToLive = timeToLive.toNanos();
+		this.nanoTime = nanoTime;
+	}
+
+	/**
+	 * Finds the learned endpoint for the host of the given url.
+	 * @param url the URL that should be embedded
+	 * @return the learned endpoint if any and not yet expired
+	 */
+	Optional<ResolvedEndpoint> find(final String url) {
+		final String host = hostOf(url);
+		final Entry entry = (host != null) ? this.endpoints.get(host) : null;
+		if (entry == null) {
+			return Optional.empty();
+		}
+		if (entry.expires - this.nanoTime.getAsLong() > 0) {
+			return Optional.of(entry.endpoint);
+		}
+		this.endpoints.remove(host, entry);
+		return Optional.empty();
+	}
+
+	/**
+	 * Learns from a discovered endpoint, if its api url is a template for the host of the
+	 * url.
+	 * @param url the URL for which the endpoint has been discovered
+	 * @param discovered the discovered endpoint
+	 * @return true if an endpoint has been learned
+	 */
+	boolean learn(final String url, final ResolvedEndpoint discovered) {
+		final String host = hostOf(url);
+		if (this.timeToLive == 0 || this.maximumSize == 0 || host == null) {
+			return false;
+		}
+		final OembedEndpoint endpoint = discovered.getEndpoint();
+		final Optional<LearnedOembedEndpoint> learned = LearnedOembedEndpoint.of(host, url, endpoint.toApiUrl(url),
+				endpoint.getFormat());
+		if (learned.isEmpty()) {
+			return false;
+		}
+		final long now = this.nanoTime.getAsLong();
+		this.endpoints.put(host,
+				new Entry(
+						new ResolvedEndpoint(learned.get(), discovered.getRequestProvider(), discovered.getRenderer()),
+						now + this.timeToLive));
+		if (this.endpoints.size() > this.maximumSize) {
+			purge(now);
+		}
+		return true;
+	}
+
+	/**
+	 * Removes all expired endpoints and then arbitrary endpoints until the store is at
+	 * most 90 percent full.
+	 * @param now the current time
+	 */
+	private void purge(final long now) {
+		this.endpoints.values().removeIf(entry -> entry.expires - now <= 0);
+		final Iterator<String> hosts = this.endpoints.keySet().iterator();
+		final int targetSize = this.maximumSize - this.maximumSize / 10 - 1;
+		while (this.endpoints.size() > targetSize && hosts.hasNext()) {
+			hosts.next();
+			hosts.remove();
+		}
+	}
+
+	/**
+	 * {@return the number of hosts currently remembered}
+	 */
+	int size() {
+		return this.endpoints.size();
+	}
+
+	/**
+	 * {@return all endpoints not yet expired, sorted by host}
+	 */
+	Map<String, OembedEndpoint> snapshot() {
+		final long now = this.nanoTime.getAsLong();
+		final Map<String, OembedEndpoint> rv = new TreeMap<>();
+		this.endpoints.forEach((host, entry) -> {
+			if (entry.expires - now > 0) {
+				rv.put(host, entry.endpoint.getEndpoint());
+			}
+		});
+		return Collections.unmodifiableMap(rv);
+	}
+
+	/**
+	 * Forgets the endpoint learned for a host.
+	 * @param host the host
+	 * @return true if an endpoint has been learned for that host
+	 */
+	boolean evict(final String host) {
+		return this.endpoints.remove(host.toLowerCase(Locale.ROOT)) != null;
+	}
+
+	/**
+	 * Forgets all learned endpoints.
+	 */
+	void clear() {
+		this.endpoints.clear();
+	}
+
+	private static String hostOf(final String url) {
+		return UrlSchemeIndex.hostOf(NegativeMatchCache.normalize(url));
+	}
+
+	/**
+	 * A learned endpoint.
+	 *
+	 * @param endpoint the learned endpoint
+	 * @param expires the time it expires
+	 */
+	private record Entry(ResolvedEndpoint endpoint, long expires) {
+	}
+
+}
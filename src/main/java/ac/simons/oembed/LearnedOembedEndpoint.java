@@ -0,0 +1,126 @@
+/*
+ * Created by Michael Simons, michael-simons.eu
+ * and released under The BSD License
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * Copyright (c) 2010-2026, Michael Simons
+ * All rights reserved.
+ *
+ * Redistribution  and  use  in  source   and  binary  forms,  with  or   without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source   code must retain   the above copyright   notice,
+ *   this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary  form must reproduce  the above copyright  notice,
+ *   this list of conditions  and the following  disclaimer in the  documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name  of  michael-simons.eu   nor the names  of its contributors
+ *   may be used  to endorse   or promote  products derived  from  this  software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE  COPYRIGHT HOLDERS AND  CONTRIBUTORS "AS IS"
+ * AND ANY  EXPRESS OR  IMPLIED WARRANTIES,  INCLUDING, BUT  NOT LIMITED  TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL  THE COPYRIGHT HOLDER OR CONTRIBUTORS  BE LIABLE
+ * FOR ANY  DIRECT, INDIRECT,  INCIDENTAL, SPECIAL,  EXEMPLARY, OR  CONSEQUENTIAL
+ * DAMAGES (INCLUDING,  BUT NOT  LIMITED TO,  PROCUREMENT OF  SUBSTITUTE GOODS OR
+ * SERVICES; LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT  LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE  USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package ac.simons.oembed;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import ac.simons.oembed.OembedResponse.Format;
+import org.apache.http.NameValuePair;
+import org.apache.http.client.utils.URIBuilder;
+import org.apache.http.client.utils.URLEncodedUtils;
+import org.apache.http.message.BasicNameValuePair;
+
+/**
+ * An endpoint learned from an auto-discovered api url, that is the same endpoint plus the
+ * url to embed as {@code url} parameter. Api urls for other urls are generated by
+ * replacing that parameter, all other parameters are kept as discovered.
+ *
+ * @author Michael J. Simons
+ * @since 2026-10-17
+ */
+final class LearnedOembedEndpoint extends OembedEndpoint {
+
+	/**
+	 * The discovered api url without its query.
+	 */
+	private final URI baseUrl;
+
+	/**
+	 * The parameters of the discovered api url, {@code url} marks the position of the url
+	 * to embed.
+	 */
+	private final List<NameValuePair> parameters;
+
+	private LearnedOembedEndpoint(final String host, final URI baseUrl, final List<NameValuePair> parameters,
+			final Format format) {
+		this.baseUrl = baseUrl;
+		this.parameters = List.copyOf(parameters);
+		super.setName("learned:" + host);
+		super.setEndpoint(baseUrl.toString());
+		super.setFormat(format);
+	}
+
+	/**
+	 * Creates a template from an api url discovered for the given url.
+	 * @param host the host the template is learned for
+	 * @param url the url for which the api url has been discovered
+	 * @param apiUrl the discovered api url
+	 * @param format the format of the discovered endpoint
+	 * @return a learned endpoint, empty if the api url doesn't contain the url as
+	 * parameter
+	 */
+	static Optional<LearnedOembedEndpoint> of(final String host, final String url, final URI apiUrl,
+			final Format format) {
+		final List<NameValuePair> parameters = URLEncodedUtils.parse(apiUrl, StandardCharsets.UTF_8);
+		final long urlParameters = parameters.stream().filter(parameter -> "url".equals(parameter.getName())).count();
+		final boolean containsUrl = parameters.stream()
+			.anyMatch(parameter -> "url".equals(parameter.getName()) && parameter.getValue() != null
+					&& NegativeMatchCache.normalize(parameter.getValue()).equals(NegativeMatchCache.normalize(url)));
+		if (urlParameters != 1 || !containsUrl) {
+			return Optional.empty();
+		}
+		try {
+			final URI baseUrl = new URIBuilder(apiUrl).removeQuery().setFragment(null).build();
+			return Optional.of(new LearnedOembedEndpoint(host, baseUrl, parameters, format));
+		}
+		catch (URISyntaxException ex) {
+			return Optional.empty();
+		}
+	}
+
+	@Override
+	public URI toApiUrl(final String url) {
+		final List<NameValuePair> query = new ArrayList<>(this.parameters.size());
+		for (NameValuePair parameter : this.parameters) {
+			query.add("url".equals(parameter.getName()) ? new BasicNameValuePair("url", url) : parameter);
+		}
+		try {
+			return new URIBuilder(this.baseUrl).setParameters(query).build();
+		}
+		catch (URISyntaxException ex) {
+			throw new OembedException(ex);
+		}
+	}
+
+	@Override
+	public void setFormat(final Format format) {
+		// Cannot be changed
+	}
+
+}
@@ -0,0 +1,158 @@
+/*
+ * Created by Michael Simons, michael-simons.eu
+ * and released under The BSD License
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * Copyright (c) 2010-2026, Michael Simons
+ * All rights reserved.
+ *
+ * Redistribution  and  use  in  source   and  binary  forms,  with  or   without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source   code must retain   the above copyright   notice,
+ *   this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary  form must reproduce  the above copyright  notice,
+ *   this list of conditions  and the following  disclaimer in the  documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name  of  michael-simons.eu   nor the names  of its contributors
+ *   may be used  to endorse   or promote  products derived  from  this  software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE  COPYRIGHT HOLDERS AND  CONTRIBUTORS "AS IS"
+ * AND ANY  EXPRESS OR  IMPLIED WARRANTIES,  INCLUDING, BUT  NOT LIMITED  TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL  THE COPYRIGHT HOLDER OR CONTRIBUTORS  BE LIABLE
+ * FOR ANY  DIRECT, INDIRECT,  INCIDENTAL, SPECIAL,  EXEMPLARY, OR  CONSEQUENTIAL
+ * DAMAGES (INCLUDING,  BUT NOT  LIMITED TO,  PROCUREMENT OF  SUBSTITUTE GOODS OR
+ * SERVICES; LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT  LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE  USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package ac.simons.oembed;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Parses HTTP {@code Link} headers as defined in RFC 8288 into the same links the
+ * {@link HeadLinkScanner} finds in the head of a document.
+ *
+ * @author Michael J. Simons
+ * @since 2026-10-17
+ */
+final class LinkHeaderParser {
+
+	private final String value;
+
+	private int position;
+
+	private LinkHeaderParser(final String value) {
+		this.value = value;
+	}
+
+	/**
+	 * Parses all values of the {@code Link} headers of a response. Relative urls are
+	 * resolved against the url of the request, links with invalid urls are ignored, as is
+	 * everything after a malformed link in a header value.
+	 * @param values the values of all {@code Link} headers
+	 * @param requestUri the url of the request
+	 * @return all links in order of appearance
+	 */
+	static List<HeadLinkScanner.Link> parse(final List<String> values, final URI requestUri) {
+		final List<HeadLinkScanner.Link> rv = new ArrayList<>();
+		for (String value : values) {
+			new LinkHeaderParser(value).parseInto(rv, requestUri);
+		}
+		return rv;
+	}
+
+	private void parseInto(final List<HeadLinkScanner.Link> links, final URI requestUri) {
+		while (true) {
+			skipWhitespaceAnd(',');
+			if (!consume('<')) {
+				return;
+			}
+			final int end = this.value.indexOf('>', this.position);
+			if (end < 0) {
+				return;
+			}
+			final String target = this.value.substring(this.position, end);
+			this.position = end + 1;
+
+			final Map<String, String> parameters = new HashMap<>();
+			skipWhitespaceAnd(' ');
+			while (consume(';')) {
+				skipWhitespaceAnd(' ');
+				final String name = readToken().toLowerCase(Locale.ROOT);
+				skipWhitespaceAnd(' ');
+				String parameterValue = "";
+				if (consume('=')) {
+					skipWhitespaceAnd(' ');
+					parameterValue = consume('"') ? readQuotedString() : readToken();
+				}
+				if (!name.isEmpty()) {
+					parameters.putIfAbsent(name, parameterValue);
+				}
+				skipWhitespaceAnd(' ');
+			}
+
+			final URI href = HeadLinkScanner.resolve(requestUri, target);
+			if (href != null) {
+				links.add(new HeadLinkScanner.Link(parameters.getOrDefault("rel", ""),
+						parameters.getOrDefault("type", ""), href));
+			}
+			if (this.position < this.value.length() && this.value.charAt(this.position) != ',') {
+				return;
+			}
+		}
+	}
+
+	private boolean consume(final char expected) {
+		if (this.position < this.value.length() && this.value.charAt(this.position) == expected) {
+			++this.position;
+			return true;
+		}
+		return false;
+	}
+
+	private void skipWhitespaceAnd(final char other) {
+		while (this.position < this.value.length()) {
+			final char c = this.value.charAt(this.position);
+			if (c != ' ' && c != '\t' && c != other) {
+				return;
+			}
+			++this.position;
+		}
+	}
+
+	private String readToken() {
+		final int start = this.position;
+		while (this.position < this.value.length() && "=;,\" \t".indexOf(this.value.charAt(this.position)) < 0) {
+			++this.position;
+		}
+		return this.value.substring(start, this.position);
+	}
+
+	private String readQuotedString() {
+		final StringBuilder rv = new StringBuilder();
+		while (this.position < this.value.length()) {
+			char c = this.value.charAt(this.position++);
+			if (c == '"') {
+				break;
+			}
+			if (c == '\\' && this.position < this.value.length()) {
+				c = this.value.charAt(this.position++);
+			}
+			rv.append(c);
+		}
+		return rv.toString();
+	}
+
+}
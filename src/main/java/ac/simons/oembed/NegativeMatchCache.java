@@ -0,0 +1,299 @@
+/*
+ * Created by Michael Simons, michael-simons.eu
+ * and released under The BSD License
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * Copyright (c) 2010-2026, Michael Simons
+ * All rights reserved.
+ *
+ * Redistribution  and  use  in  source   and  binary  forms,  with  or   without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source   code must retain   the above copyright   notice,
+ *   this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary  form must reproduce  the above copyright  notice,
+ *   this list of conditions  and the following  disclaimer in the  documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name  of  michael-simons.eu   nor the names  of its contributors
+ *   may be used  to endorse   or promote  products derived  from  this  software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE  COPYRIGHT HOLDERS AND  CONTRIBUTORS "AS IS"
+ * AND ANY  EXPRESS OR  IMPLIED WARRANTIES,  INCLUDING, BUT  NOT LIMITED  TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL  THE COPYRIGHT HOLDER OR CONTRIBUTORS  BE LIABLE
+ * FOR ANY  DIRECT, INDIRECT,  INCIDENTAL, SPECIAL,  EXEMPLARY, OR  CONSEQUENTIAL
+ * DAMAGES (INCLUDING,  BUT NOT  LIMITED TO,  PROCUREMENT OF  SUBSTITUTE GOODS OR
+ * SERVICES; LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT  LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE  USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package ac.simons.oembed;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * Remembers urls for which no endpoint could be found, neither configured nor
+ * auto-discovered, so that those urls are neither matched against the url schemes nor
+ * requested again until their entry expires. Urls are remembered exactly as they have
+ * been matched, that is canonicalized if the service canonicalizes urls, as url schemes
+ * may tell apart urls differing only in case or fragment.
+ * <p>
+ * In addition, hosts for which no configured url scheme exists at all can be recorded in
+ * a Bloom filter. Any url of such a host is regarded as not embeddable as well. Hosts are
+ * only recorded without autodiscovery, as a page without an endpoint says nothing about
+ * the other pages of its host. Hosts are recorded in lower case, the filter is only
+ * consulted for hosts without configured url schemes. The filter is rotated in two
+ * generations, so that a host is forgotten after the configured time to live.
+ *
+ * @author Michael J. Simons
+ * @since 2026-10-17
+ */
+final class NegativeMatchCache {
+
+	/**
+	 * The targeted false positive probability of the host filter.
+	 */
+	private static final double FALSE_POSITIVE_PROBABILITY = 0.01;
+
+	private final int maximumSize;
+
+	private final long timeToLive;
+
+	private final LongSupplier nanoTime;
+
+	/**
+	 * Urls as matched mapped to the time their entry expires.
+	 */
+	private final Map<String, Long> urls = new ConcurrentHashMap<>();
+
+	private final AtomicReference<HostFilter> hosts;
+
+	/**
+	 * Creates a new cache.
+	 * @param maximumSize the maximum number of urls to remember, also used for sizing the
+	 * host filter. A size of 0 disables this cache.
+	 * @param timeToLive the time to live of each entry
+	 */
+	NegativeMatchCache(final int maximumSize, final Duration timeToLive) {
+		this(maximumSize, timeToLive, System::nanoTime);
+	}
+
+	NegativeMatchCache(final int maximumSize, final Duration timeToLive, final LongSupplier nanoTime) {
+		if (maximumSize < 0 || timeToLive.isNegative()) {
+			throw new IllegalArgumentException("Size and time to live of the negative match cache must be positive");
+		}
+		this.maximumSize = maximumSize;
+		this.timeToLive = timeToLive.toNanos();
+		this.nanoTime = nanoTime;
+		this.hosts = new AtomicReference<>(new HostFilter(maximumSize, nanoTime.getAsLong(), null));
+	}
+
+	/**
+	 * Checks whether an url is known to be not embeddable.
+	 * @param url the url to check
+	 * @param mayMatchHostOf a predicate testing whether any configured url scheme might
+	 * match the host of the url
+	 * @return true if the url is known to be not embeddable
+	 */
+	boolean contains(final String url, final Predicate<String> mayMatchHostOf) {
+		if (this.maximumSize == 0) {
+			return false;
+		}
+		final long now = this.nanoTime.getAsLong();
+		final Long expires = this.urls.get(url);
+		if (expires != null) {
+			if (expires - now > 0) {
+				return true;
+			}
+			this.urls.remove(url, expires);
+		}
+		final String host = UrlSchemeIndex.hostOf(normalize(url));
+		return host != null && currentHosts(now).mightContain(host, now - this.timeToLive) && !mayMatchHostOf.test(url);
+	}
+
+	/**
+	 * Remembers an url as not embeddable.
+	 * @param url the url for which no endpoint could be found
+	 * @param rememberHost true if all urls of the host are not embeddable, that is if no
+	 * configured url scheme might match the host and the host is not auto-discovered
+	 */
+	void add(final String url, final boolean rememberHost) {
+		if (this.maximumSize == 0) {
+			return;
+		}
+		final long now = this.nanoTime.getAsLong();
+		this.urls.put(url, now + this.timeToLive);
+		if (this.urls.size() > this.maximumSize) {
+			evict(now);
+		}
+		final String host = UrlSchemeIndex.hostOf(normalize(url));
+		if (host != null && rememberHost) {
+			currentHosts(now).put(host);
+		}
+	}
+
+	/**
+	 * {@return the number of urls currently remembered}
+	 */
+	int size() {
+		return this.urls.size();
+	}
+
+	/**
+	 * Removes all expired entries and then arbitrary entries until the cache is at most
+	 * 90 percent full.
+	 * @param now the current time
+	 */
+	private void evict(final long now) {
+		this.urls.values().removeIf(expires -> expires - now <= 0);
+		final Iterator<String> keys = this.urls.keySet().iterator();
+		final int targetSize = this.maximumSize - this.maximumSize / 10 - 1;
+		while (this.urls.size() > targetSize && keys.hasNext()) {
+			keys.next();
+			keys.remove();
+		}
+	}
+
+	/**
+	 * Rotates the host filter if its generation is older than half of the time to live.
+	 * The current generation becomes the previous one and is consulted until it is older
+	 * than the time to live.
+	 * @param now the current time
+	 * @return the current host filter
+	 */
+	private HostFilter currentHosts(final long now) {
+		final HostFilter current = this.hosts.get();
+		if (now - current.created < this.timeToLive / 2) {
+			return current;
+		}
+		final HostFilter next = new HostFilter(this.maximumSize, now, current);
+		return this.hosts.compareAndSet(current, next) ? next : this.hosts.get();
+	}
+
+	/**
+	 * Normalizes an url by removing the fragment and converting the scheme and the host
+	 * to lower case.
+	 * @param url the url to normalize
+	 * @return the normalized url
+	 */
+	static String normalize(final String url) {
+		final int fragment = url.indexOf('#');
+		final String rv = (fragment < 0) ? url.trim() : url.substring(0, fragment).trim();
+		final int hostStart = rv.indexOf("://");
+		if (hostStart < 0) {
+			return rv;
+		}
+		final int pathStart = rv.indexOf('/', hostStart + 3);
+		final int hostEnd = (pathStart < 0) ? rv.length() : pathStart;
+		return rv.substring(0, hostEnd).toLowerCase(Locale.ROOT) + rv.substring(hostEnd);
+	}
+
+	/**
+	 * A concurrent Bloom filter for one generation of hosts, with an optional reference
+	 * to the previous generation.
+	 */
+	private static final class HostFilter {
+
+		private final long created;
+
+		private final AtomicLongArray bits;
+
+		private final int numberOfBits;
+
+		private final int numberOfHashes;
+
+		private final HostFilter previous;
+
+		HostFilter(final int expectedInsertions, final long created, final HostFilter previous) {
+			final int n = Math.max(1, expectedInsertions);
+			this.numberOfBits = (int) Math.min(Integer.MAX_VALUE - 63,
+					Math.max(64, (long) (-n * Math.log(FALSE_POSITIVE_PROBABILITY) / (Math.log(2) * Math.log(2)))));
+			this.numberOfHashes = Math.max(1, (int) Math.round((double) this.numberOfBits / n * Math.log(2)));
+			this.bits = new AtomicLongArray((this.numberOfBits + 63) / 64);
+			this.created = created;
+			this.previous = (previous != null) ? new HostFilter(previous) : null;
+		}
+
+		/**
+		 * Creates a copy of the given filter without its previous generation.
+		 * @param source the source of the copy
+		 */
+		private HostFilter(final HostFilter source) {
+			this.created = source.created;
+			this.bits = source.bits;
+			this.numberOfBits = source.numberOfBits;
+			this.numberOfHashes = source.numberOfHashes;
+			this.previous = null;
+		}
+
+		void put(final String host) {
+			final long hash = hash(host);
+			for (int i = 0; i < this.numberOfHashes; ++i) {
+				final int bit = index(hash, i);
+				final long mask = 1L << bit;
+				final int word = bit >>> 6;
+				long current;
+				do {
+					current = this.bits.get(word);
+				}
+				while ((current & mask) == 0 && !this.bits.compareAndSet(word, current, current | mask));
+			}
+		}
+
+		/**
+		 * Checks whether a host might have been added to this or the previous generation.
+		 * @param host the host to check
+		 * @param notBefore generations created before this time are ignored
+		 * @return false if the host has definitely not been added
+		 */
+		boolean mightContain(final String host, final long notBefore) {
+			if (this.created - notBefore < 0) {
+				return false;
+			}
+			final long hash = hash(host);
+			boolean rv = true;
+			for (int i = 0; i < this.numberOfHashes && rv; ++i) {
+				final int bit = index(hash, i);
+				rv = (this.bits.get(bit >>> 6) & (1L << bit)) != 0;
+			}
+			return rv || (this.previous != null && this.previous.mightContain(host, notBefore));
+		}
+
+		/**
+		 * Double hashing as described by Kirsch and Mitzenmacher.
+		 * @param hash the 64 bit hash of the element
+		 * @param i the number of the hash function
+		 * @return the index of the bit for the given hash function
+		 */
+		private int index(final long hash, final int i) {
+			final int combined = (int) hash + i * (int) (hash >>> 32);
+			return (combined & Integer.MAX_VALUE) % this.numberOfBits;
+		}
+
+		private static long hash(final String host) {
+			long h = 0xcbf29ce484222325L;
+			for (int i = 0; i < host.length(); ++i) {
+				h ^= host.charAt(i);
+				h *= 0x100000001b3L;
+			}
+			h ^= h >>> 33;
+			h *= 0xff51afd7ed558ccdL;
+			h ^= h >>> 33;
+			return h;
+		}
+
+	}
+
+}
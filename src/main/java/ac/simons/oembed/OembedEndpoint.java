@@ -56,6 +56,23 @@ import org.apache.http.message.BasicNameValuePair;
  */
 public class OembedEndpoint {
 
+	/**
+	 * Constants for the supported syntax of url schemes.
+	 */
+	public enum SchemeSyntax {
+
+		/**
+		 * Url schemes are Java regular expressions that must match the whole url.
+		 */
+		regex,
+		/**
+		 * Url schemes are globs as used by the oEmbed provider registry, for example
+		 * {@code https://*.flickr.com/photos/*}, where {@literal *} is the only wildcard.
+		 */
+		glob
+
+	}
+
 	/**
 	 * The name of this provider.
 	 */
@@ -89,6 +106,11 @@ public class OembedEndpoint {
 	 */
 	private List<String> urlSchemes;
 
+	/**
+	 * The syntax of the {@link #urlSchemes}.
+	 */
+	private SchemeSyntax urlSchemeSyntax = SchemeSyntax.regex;
+
 	/**
 	 * The request provider that should be instantiated for this endpoint. Must have
 	 * default constructor.
@@ -110,6 +132,24 @@ public class OembedEndpoint {
 	 */
 	private Map<String, String> responseRendererProperties;
 
+	/**
+	 * Regular expressions matching whole urls mapped to their replacements. Urls are
+	 * rewritten before they are matched against the url schemes of all endpoints.
+	 */
+	private Map<String, String> urlRewrites;
+
+	/**
+	 * The maximum number of responses of this endpoint refreshed ahead of their expiry
+	 * per minute, 0 disables refreshing ahead.
+	 */
+	private int refreshAheadRate = 60;
+
+	/**
+	 * The maximum number of responses of this endpoint refreshed ahead of their expiry at
+	 * the same time.
+	 */
+	private int maxConcurrentRefreshes = 2;
+
 	/**
 	 * {@return the name of this provider}
 	 */
@@ -201,6 +241,21 @@ public class OembedEndpoint {
 		this.urlSchemes = urlSchemes;
 	}
 
+	/**
+	 * {@return the syntax of the recognized url schemes}
+	 */
+	public SchemeSyntax getUrlSchemeSyntax() {
+		return this.urlSchemeSyntax;
+	}
+
+	/**
+	 * Updates the syntax of the recognized url schemes.
+	 * @param urlSchemeSyntax the new syntax
+	 */
+	public void setUrlSchemeSyntax(final SchemeSyntax urlSchemeSyntax) {
+		this.urlSchemeSyntax = urlSchemeSyntax;
+	}
+
 	/**
 	 * {@return the class of the request provider for this endpoint}
 	 */
@@ -261,6 +316,55 @@ public class OembedEndpoint {
 		this.responseRendererProperties = responseRendererProperties;
 	}
 
+	/**
+	 * {@return the url rewrite rules of this endpoint}
+	 */
+	public Map<String, String> getUrlRewrites() {
+		return this.urlRewrites;
+	}
+
+	/**
+	 * Updates the url rewrite rules of this endpoint. Each key is a regular expression
+	 * that must match the whole url, its value is the replacement that may refer to
+	 * groups of the expression, for example {@code https://youtu\.be/([^?]+)} mapped to
+	 * {@code https://www.youtube.com/watch?v=$1}. Urls are canonicalized before and after
+	 * rewriting.
+	 * @param urlRewrites new map of rewrite rules, evaluated in the order of the map
+	 */
+	public void setUrlRewrites(final Map<String, String> urlRewrites) {
+		this.urlRewrites = urlRewrites;
+	}
+
+	/**
+	 * {@return the maximum number of responses refreshed ahead per minute}
+	 */
+	public int getRefreshAheadRate() {
+		return this.refreshAheadRate;
+	}
+
+	/**
+	 * Updates the maximum number of responses refreshed ahead of their expiry per minute.
+	 * @param refreshAheadRate the new rate, 0 disables refreshing ahead for this endpoint
+	 */
+	public void setRefreshAheadRate(final int refreshAheadRate) {
+		this.refreshAheadRate = refreshAheadRate;
+	}
+
+	/**
+	 * {@return the maximum number of responses refreshed ahead at the same time}
+	 */
+	public int getMaxConcurrentRefreshes() {
+		return this.maxConcurrentRefreshes;
+	}
+
+	/**
+	 * Updates the maximum number of responses refreshed ahead at the same time.
+	 * @param maxConcurrentRefreshes the new maximum number
+	 */
+	public void setMaxConcurrentRefreshes(final int maxConcurrentRefreshes) {
+		this.maxConcurrentRefreshes = maxConcurrentRefreshes;
+	}
+
 	/**
 	 * Creates a URI that can be called to retrieve an oembed response for the url
 	 * {@code url}.
@@ -0,0 +1,168 @@
+/*
+ * Created by Michael Simons, michael-simons.eu
+ * and released under The BSD License
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * Copyright (c) 2010-2026, Michael Simons
+ * All rights reserved.
+ *
+ * Redistribution  and  use  in  source   and  binary  forms,  with  or   without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source   code must retain   the above copyright   notice,
+ *   this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary  form must reproduce  the above copyright  notice,
+ *   this list of conditions  and the following  disclaimer in the  documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name  of  michael-simons.eu   nor the names  of its contributors
+ *   may be used  to endorse   or promote  products derived  from  this  software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE  COPYRIGHT HOLDERS AND  CONTRIBUTORS "AS IS"
+ * AND ANY  EXPRESS OR  IMPLIED WARRANTIES,  INCLUDING, BUT  NOT LIMITED  TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL  THE COPYRIGHT HOLDER OR CONTRIBUTORS  BE LIABLE
+ * FOR ANY  DIRECT, INDIRECT,  INCIDENTAL, SPECIAL,  EXEMPLARY, OR  CONSEQUENTIAL
+ * DAMAGES (INCLUDING,  BUT NOT  LIMITED TO,  PROCUREMENT OF  SUBSTITUTE GOODS OR
+ * SERVICES; LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT  LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE  USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package ac.simons.oembed;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Predicate;
+
+import ac.simons.oembed.OembedEndpoint.SchemeSyntax;
+import ac.simons.oembed.OembedResponse.Format;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Loads {@link OembedEndpoint endpoints} from a local copy of the {@code providers.json}
+ * file of the <a href="https://oembed.com/providers.json">oEmbed provider registry</a>.
+ * The url schemes of the registry are globs, so all loaded endpoints use
+ * {@link SchemeSyntax#glob}. Pass the endpoints to an {@link OembedService}, which
+ * compiles all of their schemes into one index.
+ * <p>
+ * Endpoints without schemes or with a wildcard in their url cannot be used for matching
+ * urls and are skipped. A {@code {format}} placeholder in the url of an endpoint is
+ * turned into a {@code %{format}} parameter.
+ *
+ * @author Michael J. Simons
+ * @since 2026-10-17
+ */
+public final class OembedProvidersLoader {
+
+	static final Logger LOGGER = LoggerFactory.getLogger(OembedProvidersLoader.class.getPackage().getName());
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	/**
+	 * Loads all endpoints from a providers file.
+	 * @param providers the providers file
+	 * @return the endpoints of all providers
+	 * @throws OembedException if the file cannot be read or parsed
+	 */
+	public List<OembedEndpoint> load(final Path providers) {
+		return load(providers, providerName -> true);
+	}
+
+	/**
+	 * Loads the endpoints of the selected providers from a providers file.
+	 * @param providers the providers file
+	 * @param providerNameFilter only providers whose name satisfies this filter are
+	 * loaded
+	 * @return the endpoints of the selected providers
+	 * @throws OembedException if the file cannot be read or parsed
+	 */
+	public List<OembedEndpoint> load(final Path providers, final Predicate<String> providerNameFilter) {
+		try (InputStream in = Files.newInputStream(providers)) {
+			return load(in, providerNameFilter);
+		}
+		catch (IOException ex) {
+			throw new OembedException(ex);
+		}
+	}
+
+	/**
+	 * Loads all endpoints from a stream containing the providers. The stream is not
+	 * closed.
+	 * @param providers the providers
+	 * @return the endpoints of all providers
+	 * @throws OembedException if the stream cannot be read or parsed
+	 */
+	public List<OembedEndpoint> load(final InputStream providers) {
+		return load(providers, providerName -> true);
+	}
+
+	/**
+	 * Loads the endpoints of the selected providers from a stream containing the
+	 * providers. The stream is not closed.
+	 * @param providers the providers
+	 * @param providerNameFilter only providers whose name satisfies this filter are
+	 * loaded
+	 * @return the endpoints of the selected providers
+	 * @throws OembedException if the stream cannot be read or parsed
+	 */
+	public List<OembedEndpoint> load(final InputStream providers, final Predicate<String> providerNameFilter) {
+		final JsonNode root;
+		try {
+			root = this.objectMapper.readTree(providers);
+		}
+		catch (IOException ex) {
+			throw new OembedException(ex);
+		}
+		if (root == null || !root.isArray()) {
+			throw new OembedException("Expected an array of providers");
+		}
+
+		final List<OembedEndpoint> rv = new ArrayList<>();
+		for (JsonNode provider : root) {
+			final String providerName = provider.path("provider_name").asText();
+			if (!providerNameFilter.test(providerName)) {
+				continue;
+			}
+			for (JsonNode endpoint : provider.path("endpoints")) {
+				toEndpoint(providerName, endpoint).ifPresent(rv::add);
+			}
+		}
+		LOGGER.debug("Loaded {} endpoints from providers", rv.size());
+		return rv;
+	}
+
+	private static Optional<OembedEndpoint> toEndpoint(final String providerName, final JsonNode node) {
+		final String url = node.path("url").asText();
+		final List<String> schemes = new ArrayList<>();
+		node.path("schemes").forEach(scheme -> schemes.add(scheme.asText()));
+		if (schemes.isEmpty() || url.isEmpty() || url.contains("*")) {
+			LOGGER.debug("Skipping endpoint '{}' of provider {}, it has no schemes or no usable url", url,
+					providerName);
+			return Optional.empty();
+		}
+
+		final OembedEndpoint rv = new OembedEndpoint();
+		rv.setName(providerName);
+		rv.setEndpoint(url.replace("{format}", "%{format}"));
+		rv.setUrlSchemes(schemes);
+		rv.setUrlSchemeSyntax(SchemeSyntax.glob);
+		boolean json = !node.has("formats");
+		for (JsonNode format : node.path("formats")) {
+			json |= Format.json.name().equalsIgnoreCase(format.asText());
+		}
+		rv.setFormat(json ? Format.json : Format.xml);
+		return Optional.of(rv);
+	}
+
+}
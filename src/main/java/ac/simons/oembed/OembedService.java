@@ -35,29 +35,42 @@ package ac.simons.oembed;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
 import java.lang.reflect.InvocationTargetException;
 import java.net.URI;
-import java.net.URISyntaxException;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.EnumMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
 import java.util.function.Function;
-import java.util.stream.Collectors;
+import java.util.function.Supplier;
 
 import ac.simons.oembed.OembedResponse.Format;
-import net.sf.ehcache.CacheManager;
-import net.sf.ehcache.Ehcache;
 import org.apache.commons.beanutils.BeanUtils;
-import org.apache.http.HttpResponse;
 import org.apache.http.HttpStatus;
 import org.apache.http.client.HttpClient;
-import org.apache.http.client.methods.HttpGet;
-import org.apache.http.util.EntityUtils;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
@@ -77,14 +90,14 @@ public class OembedService {
 	static final Logger LOGGER = LoggerFactory.getLogger(OembedService.class.getPackage().getName());
 
 	/**
-	 * This is the http client that will execute all requests.
+	 * This is the transport that will execute all requests.
 	 */
-	private final HttpClient httpClient;
+	private final HttpTransport transport;
 
 	/**
-	 * An optional cache manager used for caching oembed responses.
+	 * The cache for oembed responses, {@literal null} if responses aren't cached.
 	 */
-	private final Optional<CacheManager> cacheManager;
+	private volatile ResponseCache responseCache;
 
 	/**
 	 * The user agent to use. We want to be a goot net citizen and provide some info about
@@ -97,294 +110,1605 @@ public class OembedService {
 	 */
 	private final String applicationName;
 
+	/**
+	 * Used by the synchronous methods to run everything in the calling thread.
+	 */
+	private static final Executor CALLING_THREAD = Runnable::run;
+
+	/**
+	 * The number of distinct urls whose request frequency is tracked for refreshing
+	 * ahead.
+	 */
+	private static final int REFRESH_AHEAD_TRACKED_URLS = 10_000;
+
+	/**
+	 * The minimum time in seconds responses are cached.
+	 */
+	private static final long MIN_CACHE_AGE = 60;
+
+	/**
+	 * The maximum number of bytes of an error response that is logged.
+	 */
+	private static final int MAX_LOGGED_ERROR_BODY_SIZE = 1024;
+
 	/**
 	 * The available parsers. This list isn't changeable.
 	 */
 	private final Map<Format, OembedParser> parsers;
 
 	/**
-	 * All configured endpoints.
+	 * All configured endpoints together with their request providers and renderers,
+	 * indexed by their precompiled url schemes in the order of configuration.
+	 */
+	private final UrlSchemeIndex<ResolvedEndpoint> endpoints;
+
+	/**
+	 * The url rewrite rules of all endpoints in the order of configuration.
 	 */
-	private final Map<OembedEndpoint, RequestProvider> endpoints;
+	private final UrlRewriteRules urlRewriteRules;
 
 	/**
-	 * All configured renderers. The handlers are grouped by URL schemes.
+	 * Brings urls into their canonical form before they are cached or matched,
+	 * {@literal null} if urls are used as given, which is the default.
 	 */
-	private final Map<List<String>, OembedResponseRenderer> renderers;
+	private volatile UrlCanonicalizer urlCanonicalizer;
 
 	/**
 	 * A flag wether autodiscovery of oembed endpoints should be tried. Defaults to false.
 	 */
-	private boolean autodiscovery = false;
+	private boolean autodiscovery = false;
+
+	/**
+	 * A flag whether autodiscovery should probe for {@code Link} headers with a HEAD
+	 * request before getting the document. Defaults to false.
+	 */
+	private boolean headFirstAutodiscovery = false;
+
+	/**
+	 * Time in seconds responses are cached. Used if the response has no cache_age.
+	 */
+	private long defaultCacheAge = 3600;
+
+	/**
+	 * Time in seconds expired responses are still served while they are refreshed in the
+	 * background. Defaults to 0, so that expired responses are refreshed inline.
+	 */
+	private long staleWhileRevalidate = 0;
+
+	/**
+	 * Time in seconds expired responses are still served if they can't be refreshed.
+	 * Defaults to 0, so that a failed refresh replaces the response.
+	 */
+	private long staleIfError = 0;
+
+	/**
+	 * Time in seconds failures are cached in the response cache, by class of failure.
+	 */
+	private volatile Map<FetchFailure, Long> failureCacheAges = withDefaultFailureCacheAges(Map.of());
+
+	/**
+	 * Factor by which the cache age of a failure grows with each consecutive failure of
+	 * the same class. Defaults to 1, so that failures are always cached equally long.
+	 */
+	private double failureCacheAgeMultiplier = 1.0;
+
+	/**
+	 * Time in seconds the growing cache age of failures is capped at. Defaults to one
+	 * day.
+	 */
+	private long maxFailureCacheAge = 86_400;
+
+	/**
+	 * Number of lookups in the response cache that found a fresh response.
+	 */
+	private final LongAdder cacheHits = new LongAdder();
+
+	/**
+	 * Number of lookups in the response cache that served an expired response.
+	 */
+	private final LongAdder staleCacheHits = new LongAdder();
+
+	/**
+	 * Number of lookups in the response cache that found a fresh failure, by class of
+	 * failure.
+	 */
+	private final Map<FetchFailure, LongAdder> negativeCacheHits = new EnumMap<>(FetchFailure.class);
+
+	/**
+	 * Number of lookups in the response cache that had to request the provider.
+	 */
+	private final LongAdder cacheMisses = new LongAdder();
+
+	/**
+	 * Time in seconds urls for which no endpoint could be found are remembered as not
+	 * embeddable. Independent of the response cache.
+	 */
+	private long negativeCacheTtl = 300;
+
+	/**
+	 * The time in seconds endpoints learned from autodiscovery are used for further urls
+	 * of the same host. Defaults to one hour.
+	 */
+	private long learnedEndpointTtl = 3600;
+
+	/**
+	 * Maximum number of hosts endpoints are learned for, 0 disables learning.
+	 */
+	private int maxLearnedEndpoints = 10_000;
+
+	/**
+	 * Maximum number of urls remembered as not embeddable, 0 disables remembering them.
+	 */
+	private int negativeCacheSize = 10_000;
+
+	/**
+	 * The executor used by the asynchronous methods if no executor is passed to them.
+	 * Defaults to the common fork join pool or to virtual threads, if enabled.
+	 */
+	private Executor executor;
+
+	/**
+	 * A flag whether requests are executed on virtual threads. Defaults to false.
+	 */
+	private boolean virtualThreads = false;
+
+	/**
+	 * The executor for outgoing requests, {@literal null} if requests are executed in the
+	 * calling thread.
+	 */
+	private ExecutorService requestExecutor;
+
+	/**
+	 * The maximum number of concurrent requests to one provider (host), only used
+	 * together with {@link #requestExecutor}.
+	 */
+	private int maxConcurrentRequestsPerProvider = 16;
+
+	/**
+	 * The maximum size in bytes of responses from oembed endpoints.
+	 */
+	private long maxResponseSize = 1024L * 1024L;
+
+	/**
+	 * The maximum size in bytes of documents read during autodiscovery.
+	 */
+	private long maxDocumentSize = 4L * 1024L * 1024L;
+
+	/**
+	 * Permits for concurrent requests per host, replaced when the limit changes.
+	 */
+	private volatile PermitsPerKey providerPermits = new PermitsPerKey(this.maxConcurrentRequestsPerProvider);
+
+	/**
+	 * Coalesces concurrent lookups of responses for the same url.
+	 */
+	private final SingleFlight<String, Optional<OembedResponse>> responseLookups = new SingleFlight<>();
+
+	/**
+	 * Decides which hot responses are refreshed ahead of their expiry, {@literal null} if
+	 * responses are not refreshed ahead.
+	 */
+	private volatile RefreshAhead refreshAhead;
+
+	/**
+	 * Urls of cached responses mapped to the time their next refresh may start.
+	 * {@link Instant#MAX} marks a running background refresh.
+	 */
+	private final Map<String, Instant> refreshes = new ConcurrentHashMap<>();
+
+	/**
+	 * Coalesces concurrent autodiscovery requests for the same url.
+	 */
+	private final SingleFlight<String, Discovery> discoveries = new SingleFlight<>();
+
+	/**
+	 * A flag whether the synchronous {@code embedUrls} methods resolve the urls of a
+	 * document concurrently, using the {@link #executor}. Defaults to false.
+	 */
+	private boolean concurrentEmbedding = false;
+
+	/**
+	 * The maximum number of urls of one document that are resolved at the same time.
+	 */
+	private int embedParallelism = 8;
+
+	/**
+	 * Urls and hosts that are known to be not embeddable.
+	 */
+	private volatile NegativeMatchCache negativeMatches = new NegativeMatchCache(this.negativeCacheSize,
+			Duration.ofSeconds(this.negativeCacheTtl));
+
+	/**
+	 * Endpoints learned per host from autodiscovery.
+	 */
+	private volatile LearnedEndpoints learnedEndpoints = new LearnedEndpoints(this.maxLearnedEndpoints,
+			Duration.ofSeconds(this.learnedEndpointTtl));
+
+	/**
+	 * Used for auto-discovered endpoints.
+	 */
+	private final RequestProvider defaultRequestProvider = new DefaultRequestProvider();
+
+	/**
+	 * Used for auto-discovered endpoints.
+	 */
+	private final OembedResponseRenderer defaultRenderer = new DefaultOembedResponseRenderer();
+
+	/**
+	 * Creates a new {@code OembedService}. This service depends on a {@link HttpClient}
+	 * and can use a {@link ResponseCache} for caching requests.
+	 * @param httpClient the mandatory http client
+	 * @param responseCache an optional response cache, for example
+	 * {@link EhcacheResponseCache#of(net.sf.ehcache.CacheManager)}
+	 * @param endpoints the static endpoints
+	 * @param applicationName an optional application name
+	 */
+	public OembedService(final HttpClient httpClient, final ResponseCache responseCache,
+			final List<OembedEndpoint> endpoints, final String applicationName) {
+		this(httpClient, responseCache, endpoints, applicationName, new AutomatonMatchingEngine());
+	}
+
+	/**
+	 * Creates a new {@code OembedService} caching responses in the Ehcache cache named
+	 * {@link EhcacheResponseCache#DEFAULT_CACHE_NAME}, like earlier versions did.
+	 * @param httpClient the mandatory http client
+	 * @param cacheManager the cache manager providing the cache
+	 * @param endpoints the static endpoints
+	 * @param applicationName an optional application name
+	 * @deprecated use {@link #OembedService(HttpClient, ResponseCache, List, String)}
+	 * with {@link EhcacheResponseCache#of(net.sf.ehcache.CacheManager)}
+	 */
+	@Deprecated
+	public OembedService(final HttpClient httpClient, final net.sf.ehcache.CacheManager cacheManager,
+			final List<OembedEndpoint> endpoints, final String applicationName) {
+		this(httpClient, EhcacheResponseCache.of(cacheManager), endpoints, applicationName);
+	}
+
+	/**
+	 * Creates a new {@code OembedService} executing all requests with the given
+	 * {@link HttpTransport}.
+	 * @param transport the mandatory transport
+	 * @param responseCache an optional response cache
+	 * @param endpoints the static endpoints
+	 * @param applicationName an optional application name
+	 */
+	public OembedService(final HttpTransport transport, final ResponseCache responseCache,
+			final List<OembedEndpoint> endpoints, final String applicationName) {
+		this(transport, responseCache, endpoints, applicationName, new AutomatonMatchingEngine());
+	}
+
+	/**
+	 * Creates a new {@code OembedService} that uses the given engine for matching urls
+	 * against the url schemes of the endpoints.
+	 * @param httpClient the mandatory http client
+	 * @param responseCache an optional response cache
+	 * @param endpoints the static endpoints
+	 * @param applicationName an optional application name
+	 * @param urlMatchingEngine the engine used to compile the url schemes
+	 * @throws OembedException if the engine doesn't support one of the url schemes
+	 */
+	public OembedService(final HttpClient httpClient, final ResponseCache responseCache,
+			final List<OembedEndpoint> endpoints, final String applicationName,
+			final UrlMatchingEngine urlMatchingEngine) {
+		this(new ApacheHttpTransport(httpClient), responseCache, endpoints, applicationName, urlMatchingEngine);
+	}
+
+	/**
+	 * Creates a new {@code OembedService} executing all requests with the given
+	 * {@link HttpTransport} and using the given engine for matching urls against the url
+	 * schemes of the endpoints.
+	 * @param transport the mandatory transport
+	 * @param responseCache an optional response cache
+	 * @param endpoints the static endpoints
+	 * @param applicationName an optional application name
+	 * @param urlMatchingEngine the engine used to compile the url schemes
+	 * @throws OembedException if the engine doesn't support one of the url schemes or if
+	 * an url rewrite rule is invalid
+	 */
+	public OembedService(final HttpTransport transport, final ResponseCache responseCache,
+			final List<OembedEndpoint> endpoints, final String applicationName,
+			final UrlMatchingEngine urlMatchingEngine) {
+		for (FetchFailure failure : FetchFailure.values()) {
+			this.negativeCacheHits.put(failure, new LongAdder());
+		}
+		this.transport = Objects.requireNonNull(transport, "A transport is required");
+		this.responseCache = responseCache;
+		final Properties version = new Properties();
+		try {
+			version.load(OembedService.class.getResourceAsStream("/oembed.properties"));
+		}
+		catch (IOException ignored) {
+		}
+		this.userAgent = String.format("Java/%s java-oembed2/%s", System.getProperty("java.version"),
+				version.getProperty("de.dailyfratze.text.oembed.version"));
+		this.applicationName = applicationName;
+
+		final Map<Format, OembedParser> hlp = new EnumMap<>(Format.class);
+		hlp.put(Format.json, new OembedJsonParser());
+		hlp.put(Format.xml, new OembedXmlParser());
+		this.parsers = Collections.unmodifiableMap(hlp);
+
+		final List<ResolvedEndpoint> resolvedEndpoints = new ArrayList<>(endpoints.size());
+		final Map<String, String> rewriteRules = new LinkedHashMap<>();
+		for (OembedEndpoint endpoint : endpoints) {
+			LOGGER.debug("Endpoint {} will match the following patterns: {}", endpoint.getName(),
+					endpoint.getUrlSchemes());
+			LOGGER.debug("Configuring request provider of type {} for endpoint {}...",
+					endpoint.getRequestProviderClass(), endpoint.getName());
+			LOGGER.debug("Using properties: {}", endpoint.getRequestProviderProperties());
+			final RequestProvider requestProvider = instantiate(endpoint.getRequestProviderClass(),
+					endpoint.getRequestProviderProperties());
+
+			LOGGER.debug("Configuring response renderer of type {} for endpoint {}...",
+					endpoint.getResponseRendererClass(), endpoint.getName());
+			LOGGER.debug("Using properties: {}", endpoint.getResponseRendererProperties());
+			final OembedResponseRenderer oembedResponseRenderer = instantiate(endpoint.getResponseRendererClass(),
+					endpoint.getResponseRendererProperties());
+
+			resolvedEndpoints.add(new ResolvedEndpoint(endpoint, requestProvider, oembedResponseRenderer));
+			if (endpoint.getUrlRewrites() != null) {
+				endpoint.getUrlRewrites().forEach((regex, replacement) -> rewriteRules.putIfAbsent(regex, replacement));
+			}
+		}
+		this.urlRewriteRules = new UrlRewriteRules(rewriteRules, urlMatchingEngine);
+		this.endpoints = new UrlSchemeIndex<>(resolvedEndpoints, e -> e.getEndpoint().getUrlSchemes(),
+				e -> e.getEndpoint().getUrlSchemeSyntax(), urlMatchingEngine);
+
+		LOGGER.debug("Oembed has {} endpoints and autodiscovery {} enabled...", resolvedEndpoints.size(),
+				this.autodiscovery ? "is" : "is not");
+		LOGGER.info("Oembed ({}) ready...", this.userAgent);
+	}
+
+	/**
+	 * Creates a new instance of a configured request provider or renderer.
+	 * @param <T> the type of the instance
+	 * @param type the concrete class to instantiate, must have a default constructor
+	 * @param properties the bean properties to populate
+	 * @return the new instance
+	 */
+	private static <T> T instantiate(final Class<? extends T> type, final Map<String, String> properties) {
+		try {
+			final T rv = type.getDeclaredConstructor().newInstance();
+			BeanUtils.populate(rv, properties);
+			return rv;
+		}
+		catch (IllegalAccessException | NoSuchMethodException | InvocationTargetException | InstantiationException ex) {
+			// Assuming everything is neatly configured
+			throw new OembedException(ex);
+		}
+	}
+
+	/**
+	 * {@return the current configuration of oembed autodiscovery}
+	 */
+	public boolean isAutodiscovery() {
+		return this.autodiscovery;
+	}
+
+	/**
+	 * Updates to configuration of oembed autodiscovery. Changing it forgets all urls and
+	 * hosts remembered as not embeddable, as hosts are only remembered without
+	 * autodiscovery.
+	 * @param autodiscovery new flag whether oembed endpoints should be auto-discovered
+	 */
+	public void setAutodiscovery(final boolean autodiscovery) {
+		if (autodiscovery != this.autodiscovery) {
+			this.negativeMatches = new NegativeMatchCache(this.negativeCacheSize,
+					Duration.ofSeconds(this.negativeCacheTtl));
+		}
+		this.autodiscovery = autodiscovery;
+	}
+
+	/**
+	 * {@return true if autodiscovery probes for link headers with a HEAD request first}
+	 */
+	public boolean isHeadFirstAutodiscovery() {
+		return this.headFirstAutodiscovery;
+	}
+
+	/**
+	 * Configures autodiscovery to probe for {@code Link} headers with a HEAD request
+	 * before getting the document. The document is only requested if the HEAD response
+	 * has no link to an oembed endpoint.
+	 * @param headFirstAutodiscovery new flag whether to probe with a HEAD request first
+	 */
+	public void setHeadFirstAutodiscovery(final boolean headFirstAutodiscovery) {
+		this.headFirstAutodiscovery = headFirstAutodiscovery;
+	}
+
+	/**
+	 * {@return the name of the Ehcache cache used by this service}
+	 * @deprecated use {@link EhcacheResponseCache#getCacheName()}
+	 */
+	@Deprecated
+	public String getCacheName() {
+		return (this.responseCache instanceof EhcacheResponseCache ehcacheResponseCache)
+				? ehcacheResponseCache.getCacheName() : EhcacheResponseCache.DEFAULT_CACHE_NAME;
+	}
+
+	/**
+	 * Changes the name of the Ehcache cache used. If the response cache is an
+	 * {@link EhcacheResponseCache}, the old cache is removed from its cache manager and
+	 * the response cache is replaced by one using the new name. Has no effect otherwise.
+	 * @param cacheName the new cache name
+	 * @deprecated pass an {@link EhcacheResponseCache} with the name to the constructor
+	 * or to {@link #setResponseCache(ResponseCache)}
+	 */
+	@Deprecated
+	public void setCacheName(final String cacheName) {
+		if (this.responseCache instanceof EhcacheResponseCache ehcacheResponseCache) {
+			this.responseCache = ehcacheResponseCache.withCacheName(cacheName);
+		}
+	}
+
+	/**
+	 * {@return the cache used for oembed responses, {@literal null} if none is used}
+	 */
+	public ResponseCache getResponseCache() {
+		return this.responseCache;
+	}
+
+	/**
+	 * Changes the cache used for oembed responses. Replaces the cache passed to the
+	 * constructor.
+	 * @param responseCache the new response cache, {@literal null} to disable caching
+	 */
+	public void setResponseCache(final ResponseCache responseCache) {
+		this.responseCache = responseCache;
+	}
+
+	/**
+	 * {@return the default time in seconds responses are cached}
+	 */
+	public long getDefaultCacheAge() {
+		return this.defaultCacheAge;
+	}
+
+	/**
+	 * Changes the default cache age.
+	 * @param defaultCacheAge new default cache age in seconds
+	 */
+	public void setDefaultCacheAge(final long defaultCacheAge) {
+		this.defaultCacheAge = defaultCacheAge;
+	}
+
+	/**
+	 * {@return the time in seconds expired responses are served while being refreshed}
+	 */
+	public long getStaleWhileRevalidate() {
+		return this.staleWhileRevalidate;
+	}
+
+	/**
+	 * Changes the time expired responses are still served after their cache age. During
+	 * that time, the first read of an expired response starts one refresh in the
+	 * background and all reads get the expired response until the refresh is done. Only
+	 * used together with a {@link #setResponseCache(ResponseCache) response cache}.
+	 * @param staleWhileRevalidate new time in seconds, 0 refreshes expired responses
+	 * inline
+	 */
+	public void setStaleWhileRevalidate(final long staleWhileRevalidate) {
+		if (staleWhileRevalidate < 0) {
+			throw new IllegalArgumentException("The stale-while-revalidate time must not be negative");
+		}
+		this.staleWhileRevalidate = staleWhileRevalidate;
+	}
+
+	/**
+	 * {@return the time in seconds expired responses are served if refreshing fails}
+	 */
+	public long getStaleIfError() {
+		return this.staleIfError;
+	}
+
+	/**
+	 * Changes the time expired responses are still served after their cache age if
+	 * refreshing them fails. After a failed refresh, the next one is tried after the
+	 * {@link #setFailureCacheAges(Map) cache age of the failure} at the earliest, but not
+	 * before one second. Only used together with a
+	 * {@link #setResponseCache(ResponseCache) response cache}.
+	 * @param staleIfError new time in seconds, 0 replaces a response if it can't be
+	 * refreshed
+	 */
+	public void setStaleIfError(final long staleIfError) {
+		if (staleIfError < 0) {
+			throw new IllegalArgumentException("The stale-if-error time must not be negative");
+		}
+		this.staleIfError = staleIfError;
+	}
+
+	/**
+	 * {@return the time in seconds failures are cached, by class of failure}
+	 */
+	public Map<FetchFailure, Long> getFailureCacheAges() {
+		return this.failureCacheAges;
+	}
+
+	/**
+	 * Changes the time failures are cached in the response cache, so that their urls are
+	 * not requested again during that time. Classes of failure not contained in the given
+	 * map are cached for their {@link FetchFailure#getDefaultCacheAge() default time}.
+	 * @param failureCacheAges new times in seconds by class of failure, 0 doesn't cache
+	 * failures of that class
+	 */
+	public void setFailureCacheAges(final Map<FetchFailure, Long> failureCacheAges) {
+		this.failureCacheAges = withDefaultFailureCacheAges(failureCacheAges);
+	}
+
+	private static Map<FetchFailure, Long> withDefaultFailureCacheAges(final Map<FetchFailure, Long> cacheAges) {
+		final Map<FetchFailure, Long> rv = new EnumMap<>(FetchFailure.class);
+		for (FetchFailure failure : FetchFailure.values()) {
+			final long cacheAge = cacheAges.getOrDefault(failure, failure.getDefaultCacheAge());
+			if (cacheAge < 0) {
+				throw new IllegalArgumentException("The cache age of failures must not be negative");
+			}
+			rv.put(failure, cacheAge);
+		}
+		return Collections.unmodifiableMap(rv);
+	}
+
+	/**
+	 * {@return the factor by which the cache age of repeated failures grows}
+	 */
+	public double getFailureCacheAgeMultiplier() {
+		return this.failureCacheAgeMultiplier;
+	}
+
+	/**
+	 * Changes the factor by which the cache age of a failure grows with each consecutive
+	 * failure of the same class for the same url, for example 2 to double it. The grown
+	 * cache age is capped at the {@link #setMaxFailureCacheAge(long) maximum}. A failure
+	 * is kept until the next attempt, so that the number of failures is not lost.
+	 * @param failureCacheAgeMultiplier the new factor, 1 disables growing
+	 */
+	public void setFailureCacheAgeMultiplier(final double failureCacheAgeMultiplier) {
+		if (!(failureCacheAgeMultiplier >= 1.0)) {
+			throw new IllegalArgumentException("The failure cache age multiplier must be at least 1");
+		}
+		this.failureCacheAgeMultiplier = failureCacheAgeMultiplier;
+	}
+
+	/**
+	 * {@return the time in seconds the growing cache age of failures is capped at}
+	 */
+	public long getMaxFailureCacheAge() {
+		return this.maxFailureCacheAge;
+	}
+
+	/**
+	 * Changes the time the growing cache age of failures is capped at. Configured cache
+	 * ages longer than the maximum are not shortened, but don't grow any further.
+	 * @param maxFailureCacheAge new maximum time in seconds
+	 */
+	public void setMaxFailureCacheAge(final long maxFailureCacheAge) {
+		if (maxFailureCacheAge < 0) {
+			throw new IllegalArgumentException("The maximum cache age of failures must not be negative");
+		}
+		this.maxFailureCacheAge = maxFailureCacheAge;
+	}
+
+	/**
+	 * Returns the number of lookups in the response cache since this service has been
+	 * created. Lookups that found a cached failure are counted as negative hits, by class
+	 * of failure. Failures cached by earlier versions, without class, are counted as
+	 * {@link FetchFailure#NO_ENDPOINT}.
+	 * @return the current metrics of the response cache
+	 */
+	public ResponseCacheMetrics getResponseCacheMetrics() {
+		final Map<FetchFailure, Long> negativeHits = new EnumMap<>(FetchFailure.class);
+		this.negativeCacheHits.forEach((failure, hits) -> negativeHits.put(failure, hits.sum()));
+		return new ResponseCacheMetrics(this.cacheHits.sum(), this.staleCacheHits.sum(), negativeHits,
+				this.cacheMisses.sum());
+	}
+
+	/**
+	 * {@return the canonicalizer applied to urls, {@literal null} if urls are used as
+	 * given}
+	 */
+	public UrlCanonicalizer getUrlCanonicalizer() {
+		return this.urlCanonicalizer;
+	}
+
+	/**
+	 * Changes the canonicalizer applied to urls before they are used as cache keys and
+	 * matched against the url schemes. The url rewrite rules of the endpoints are applied
+	 * after canonicalization, a rewritten url is canonicalized again. Canonicalization is
+	 * off by default: the canonical url is also the url sent to the provider, and it
+	 * drops fragments and reorders query parameters, which some providers rely on.
+	 * @param urlCanonicalizer the new canonicalizer, {@literal null} to use urls as given
+	 */
+	public void setUrlCanonicalizer(final UrlCanonicalizer urlCanonicalizer) {
+		this.urlCanonicalizer = urlCanonicalizer;
+	}
+
+	/**
+	 * {@return true if hot responses are refreshed ahead of their expiry}
+	 */
+	public boolean isRefreshAhead() {
+		return this.refreshAhead != null;
+	}
+
+	/**
+	 * Changes whether responses of frequently requested urls are refreshed in the
+	 * background shortly before they expire, so that readers don't wait for the provider.
+	 * Refreshes are limited per endpoint by {@link OembedEndpoint#getRefreshAheadRate()}
+	 * and {@link OembedEndpoint#getMaxConcurrentRefreshes()}. Only used together with a
+	 * {@link #setResponseCache(ResponseCache) response cache}.
+	 * @param refreshAhead new flag whether to refresh ahead
+	 */
+	public void setRefreshAhead(final boolean refreshAhead) {
+		this.refreshAhead = refreshAhead ? new RefreshAhead(REFRESH_AHEAD_TRACKED_URLS) : null;
+	}
+
+	/**
+	 * {@return the time in seconds urls without an endpoint are remembered}
+	 */
+	public long getNegativeCacheTtl() {
+		return this.negativeCacheTtl;
+	}
+
+	/**
+	 * Changes the time urls without an endpoint are remembered as not embeddable. All
+	 * remembered urls are forgotten.
+	 * @param negativeCacheTtl new time to live in seconds
+	 */
+	public void setNegativeCacheTtl(final long negativeCacheTtl) {
+		this.negativeMatches = new NegativeMatchCache(this.negativeCacheSize, Duration.ofSeconds(negativeCacheTtl));
+		this.negativeCacheTtl = negativeCacheTtl;
+	}
+
+	/**
+	 * {@return the time in seconds endpoints learned from autodiscovery are used}
+	 */
+	public long getLearnedEndpointTtl() {
+		return this.learnedEndpointTtl;
+	}
+
+	/**
+	 * Changes the time endpoints learned from autodiscovery are used for further urls of
+	 * the same host. All learned endpoints are forgotten.
+	 * @param learnedEndpointTtl new time to live in seconds, 0 disables learning
+	 */
+	public void setLearnedEndpointTtl(final long learnedEndpointTtl) {
+		this.learnedEndpoints = new LearnedEndpoints(this.maxLearnedEndpoints, Duration.ofSeconds(learnedEndpointTtl));
+		this.learnedEndpointTtl = learnedEndpointTtl;
+	}
+
+	/**
+	 * {@return the maximum number of hosts endpoints are learned for}
+	 */
+	public int getMaxLearnedEndpoints() {
+		return this.maxLearnedEndpoints;
+	}
+
+	/**
+	 * Changes the maximum number of hosts endpoints are learned for. All learned
+	 * endpoints are forgotten.
+	 * @param maxLearnedEndpoints new maximum number, 0 disables learning
+	 */
+	public void setMaxLearnedEndpoints(final int maxLearnedEndpoints) {
+		this.learnedEndpoints = new LearnedEndpoints(maxLearnedEndpoints, Duration.ofSeconds(this.learnedEndpointTtl));
+		this.maxLearnedEndpoints = maxLearnedEndpoints;
+	}
+
+	/**
+	 * {@return the endpoints currently learned from autodiscovery by host}
+	 */
+	public Map<String, OembedEndpoint> getLearnedEndpoints() {
+		return this.learnedEndpoints.snapshot();
+	}
+
+	/**
+	 * Forgets the endpoint learned for a host, so that its urls are discovered again.
+	 * @param host the host, including the port if it is not the default port
+	 * @return true if an endpoint has been learned for the host
+	 */
+	public boolean evictLearnedEndpoint(final String host) {
+		return this.learnedEndpoints.evict(host);
+	}
+
+	/**
+	 * Forgets all endpoints learned from autodiscovery.
+	 */
+	public void evictLearnedEndpoints() {
+		this.learnedEndpoints.clear();
+	}
+
+	/**
+	 * {@return the maximum number of urls remembered as not embeddable}
+	 */
+	public int getNegativeCacheSize() {
+		return this.negativeCacheSize;
+	}
+
+	/**
+	 * Changes the maximum number of urls remembered as not embeddable. All remembered
+	 * urls are forgotten.
+	 * @param negativeCacheSize new maximum size, 0 disables the negative cache
+	 */
+	public void setNegativeCacheSize(final int negativeCacheSize) {
+		this.negativeMatches = new NegativeMatchCache(negativeCacheSize, Duration.ofSeconds(this.negativeCacheTtl));
+		this.negativeCacheSize = negativeCacheSize;
+	}
+
+	/**
+	 * {@return the executor used by the asynchronous methods by default}
+	 */
+	public Executor getExecutor() {
+		if (this.executor != null) {
+			return this.executor;
+		}
+		return (this.virtualThreads) ? this.requestExecutor : ForkJoinPool.commonPool();
+	}
+
+	/**
+	 * Changes the executor used by the asynchronous methods if no executor is passed to
+	 * them.
+	 * @param executor the new default executor
+	 */
+	public void setExecutor(final Executor executor) {
+		this.executor = Objects.requireNonNull(executor, "An executor is required");
+	}
+
+	/**
+	 * {@return true if requests are executed on virtual threads}
+	 */
+	public boolean isVirtualThreads() {
+		return this.virtualThreads;
+	}
+
+	/**
+	 * Changes whether each outgoing oembed or autodiscovery request is executed on its
+	 * own virtual thread. At most {@link #getMaxConcurrentRequestsPerProvider()} requests
+	 * are executed concurrently against the same host. If no other
+	 * {@link #setExecutor(Executor) executor} has been set, the asynchronous methods run
+	 * on virtual threads as well. Virtual threads are detected at runtime, if the JDK
+	 * doesn't support them, a warning is logged and requests are executed as before.
+	 * @param virtualThreads new flag whether to use virtual threads
+	 */
+	public void setVirtualThreads(final boolean virtualThreads) {
+		if (virtualThreads == this.virtualThreads) {
+			return;
+		}
+		if (!virtualThreads) {
+			setRequestExecutor(null);
+			this.virtualThreads = false;
+			return;
+		}
+		final Optional<ExecutorService> virtualThreadExecutor = VirtualThreads.newExecutor();
+		if (virtualThreadExecutor.isEmpty()) {
+			LOGGER.warn("Virtual threads are not supported by Java {}, executing requests as before",
+					System.getProperty("java.version"));
+			return;
+		}
+		setRequestExecutor(virtualThreadExecutor.get());
+		this.virtualThreads = true;
+	}
+
+	/**
+	 * Changes the executor for outgoing requests and shuts down the previous one.
+	 * @param requestExecutor the new executor or {@literal null} for executing requests
+	 * in the calling thread
+	 */
+	void setRequestExecutor(final ExecutorService requestExecutor) {
+		if (this.requestExecutor != null) {
+			this.requestExecutor.shutdown();
+		}
+		this.requestExecutor = requestExecutor;
+	}
+
+	/**
+	 * {@return the maximum number of concurrent requests to one provider}
+	 */
+	public int getMaxConcurrentRequestsPerProvider() {
+		return this.maxConcurrentRequestsPerProvider;
+	}
+
+	/**
+	 * Changes the maximum number of concurrent requests to one provider (host) when using
+	 * virtual threads.
+	 * @param maxConcurrentRequestsPerProvider the new limit, must be at least 1
+	 */
+	public void setMaxConcurrentRequestsPerProvider(final int maxConcurrentRequestsPerProvider) {
+		if (maxConcurrentRequestsPerProvider < 1) {
+			throw new IllegalArgumentException("The maximum number of concurrent requests must be at least 1");
+		}
+		this.maxConcurrentRequestsPerProvider = maxConcurrentRequestsPerProvider;
+		this.providerPermits = new PermitsPerKey(maxConcurrentRequestsPerProvider);
+	}
+
+	/**
+	 * {@return the maximum size in bytes of responses from oembed endpoints}
+	 */
+	public long getMaxResponseSize() {
+		return this.maxResponseSize;
+	}
+
+	/**
+	 * Changes the maximum size of responses from oembed endpoints. Larger responses are
+	 * aborted and not embedded.
+	 * @param maxResponseSize the new maximum size in bytes, must be at least 1
+	 */
+	public void setMaxResponseSize(final long maxResponseSize) {
+		if (maxResponseSize < 1) {
+			throw new IllegalArgumentException("The maximum response size must be at least 1");
+		}
+		this.maxResponseSize = maxResponseSize;
+	}
+
+	/**
+	 * {@return the maximum size in bytes of documents read during autodiscovery}
+	 */
+	public long getMaxDocumentSize() {
+		return this.maxDocumentSize;
+	}
+
+	/**
+	 * Changes the maximum size of documents read during autodiscovery. Discovery for
+	 * larger documents is aborted.
+	 * @param maxDocumentSize the new maximum size in bytes, must be at least 1
+	 */
+	public void setMaxDocumentSize(final long maxDocumentSize) {
+		if (maxDocumentSize < 1) {
+			throw new IllegalArgumentException("The maximum document size must be at least 1");
+		}
+		this.maxDocumentSize = maxDocumentSize;
+	}
+
+	/**
+	 * {@return true if the synchronous embedUrls methods resolve urls concurrently}
+	 */
+	public boolean isConcurrentEmbedding() {
+		return this.concurrentEmbedding;
+	}
+
+	/**
+	 * Changes whether the synchronous {@code embedUrls} methods resolve the urls of a
+	 * document concurrently on the {@link #getExecutor() default executor}, instead of
+	 * one after another in the calling thread.
+	 * @param concurrentEmbedding new flag whether to resolve urls concurrently
+	 */
+	public void setConcurrentEmbedding(final boolean concurrentEmbedding) {
+		this.concurrentEmbedding = concurrentEmbedding;
+	}
+
+	/**
+	 * {@return the maximum number of urls of one document resolved at the same time}
+	 */
+	public int getEmbedParallelism() {
+		return this.embedParallelism;
+	}
+
+	/**
+	 * Changes the maximum number of urls of one document that are resolved at the same
+	 * time.
+	 * @param embedParallelism the new limit, must be at least 1
+	 */
+	public void setEmbedParallelism(final int embedParallelism) {
+		if (embedParallelism < 1) {
+			throw new IllegalArgumentException("Embed parallelism must be at least 1");
+		}
+		this.embedParallelism = embedParallelism;
+	}
+
+	/**
+	 * Tries to find an endpoint for the given url. It first tries to find an endpoint
+	 * within the configured endpoints by a matching url scheme, the first configured
+	 * endpoint with a matching scheme wins. If that results in an empty endpoint and auto
+	 * discovery is enabled, a http GET request is made to the given url, checking for
+	 * alternate links with the type {@code application/(json|xml)+oembed}. Concurrent
+	 * autodiscovery requests for the same url are coalesced into one. Urls for which no
+	 * endpoint could be found are remembered for {@link #getNegativeCacheTtl()} seconds.
+	 * @param url the URL that should be embedded
+	 * @return an optional endpoint for this url
+	 */
+	final Optional<OembedEndpoint> findEndpointFor(final String url) {
+		final String canonicalUrl = canonicalize(url);
+		if (isKnownNotEmbeddable(canonicalUrl)) {
+			return Optional.empty();
+		}
+		return resolveEndpointFor(canonicalUrl, this.endpoints.find(canonicalUrl), failure -> {
+		}).map(ResolvedEndpoint::getEndpoint);
+	}
+
+	/**
+	 * Brings an url into its canonical form and applies the first matching url rewrite
+	 * rule.
+	 * @param url the trimmed url
+	 * @return the canonical url
+	 */
+	private String canonicalize(final String url) {
+		if (url.isEmpty()) {
+			return url;
+		}
+		final UrlCanonicalizer canonicalizer = this.urlCanonicalizer;
+		final String rv = (canonicalizer != null) ? canonicalizer.canonicalize(url) : url;
+		final Optional<String> rewritten = this.urlRewriteRules.apply(rv);
+		if (rewritten.isPresent()) {
+			LOGGER.debug("Rewrote '{}' to '{}'...", rv, rewritten.get());
+			return (canonicalizer != null) ? canonicalizer.canonicalize(rewritten.get()) : rewritten.get();
+		}
+		return rv;
+	}
+
+	/**
+	 * Checks the negative cache without evaluating any url scheme.
+	 * @param url the URL that should be embedded
+	 * @return true if the url is known to be not embeddable
+	 */
+	private boolean isKnownNotEmbeddable(final String url) {
+		final boolean rv = this.negativeMatches.contains(url, this.endpoints::mayMatchHostOf);
+		if (rv) {
+			LOGGER.debug("Url '{}' is known to be not embeddable...", url);
+		}
+		return rv;
+	}
+
+	/**
+	 * Resolves the endpoint including request provider and renderer for the given url.
+	 * Without autodiscovery, the url and its host, if no url scheme might match it, are
+	 * remembered as not embeddable.
+	 * @param url the URL that should be embedded
+	 * @param configuredEndpoint the result of looking up the url in the configured
+	 * endpoints
+	 * @param failures receives the class of the failure if autodiscovery failed
+	 * @return an optional, resolved endpoint for this url
+	 * @see #findEndpointFor(String)
+	 */
+	private Optional<ResolvedEndpoint> resolveEndpointFor(final String url,
+			final Optional<ResolvedEndpoint> configuredEndpoint, final Consumer<FetchFailure> failures) {
+		if (configuredEndpoint.isPresent()) {
+			return configuredEndpoint;
+		}
+
+		if (!this.autodiscovery) {
+			this.negativeMatches.add(url, !this.endpoints.mayMatchHostOf(url));
+			return Optional.empty();
+		}
+		final Optional<ResolvedEndpoint> learnedEndpoint = this.learnedEndpoints.find(url);
+		if (learnedEndpoint.isPresent()) {
+			LOGGER.debug("Using endpoint learned for the host of '{}'", url);
+			return learnedEndpoint;
+		}
+		final Discovery discovery = this.discoveries.execute(url, () -> discoverEndpointFor(url));
+		if (discovery.endpoint().isEmpty()) {
+			failures.accept(discovery.failure());
+		}
+		return discovery.endpoint();
+	}
 
 	/**
-	 * The name of the cached used by this service. Defaults to the services fully
-	 * qualified class name.
+	 * Discovers the endpoint for the given url by looking for alternate links in the
+	 * {@code Link} headers of the response or in the head of the document behind the url.
+	 * The document is scanned while being read, reading stops at the end of the head and
+	 * the rest of the document is not transferred. If the headers already contain a link,
+	 * the document is not read at all. If no endpoint is found, only the url is
+	 * remembered as not embeddable, other pages of its host may still have an endpoint.
+	 * Transient failures are not remembered at all.
+	 * @param url the URL that should be embedded
+	 * @return the result of the discovery
 	 */
-	private String cacheName = OembedService.class.getName();
+	private Discovery discoverEndpointFor(final String url) {
+		Optional<OembedEndpoint> rv = Optional.empty();
+		final AtomicReference<FetchFailure> failure = new AtomicReference<>(FetchFailure.NO_ENDPOINT);
+		try {
+			final URI uri = URI.create(url);
+			if (this.headFirstAutodiscovery) {
+				rv = exchange(new TransportRequest("HEAD", uri, Map.of()), response -> {
+					try (response) {
+						if (response.getStatusCode() != HttpStatus.SC_OK) {
+							LOGGER.debug("Probing {} returned {}, getting the document", url, response.getStatusCode());
+							return Optional.empty();
+						}
+						return findOembedLink(LinkHeaderParser.parse(response.getHeaders("Link"), uri));
+					}
+				});
+			}
+			if (rv.isEmpty()) {
+				rv = getAndDiscoverEndpointFor(uri, failure::set);
+			}
+		}
+		catch (ResponseTooLargeException ex) {
+			LOGGER.warn("Autodiscovery for {} failed: {}", url, ex.getMessage());
+			failure.set(FetchFailure.INVALID_RESPONSE);
+		}
+		catch (IOException ex) {
+			LOGGER.warn("Autodiscovery for {} failed: {}", url, ex.getMessage());
+			failure.set(FetchFailure.ofException(ex));
+		}
+		if (rv.isEmpty()) {
+			if (!failure.get().isTransient()) {
+				this.negativeMatches.add(url, false);
+			}
+			return new Discovery(Optional.empty(), failure.get());
+		}
+		final ResolvedEndpoint discovered = new ResolvedEndpoint(rv.get(), this.defaultRequestProvider,
+				this.defaultRenderer);
+		if (this.learnedEndpoints.learn(url, discovered)) {
+			LOGGER.debug("Learned the endpoint for the host of '{}'", url);
+		}
+		return new Discovery(Optional.of(discovered), null);
+	}
 
 	/**
-	 * Time in seconds responses are cached. Used if the response has no cache_age.
+	 * Gets the document behind the url and looks for alternate links in the headers and
+	 * the head of the document.
+	 * @param uri the URL that should be embedded
+	 * @param failures receives the class of the failure if the server returned an error
+	 * @return an optional, discovered endpoint for this url
+	 * @throws IOException if the document cannot be read
 	 */
-	private long defaultCacheAge = 3600;
+	private Optional<OembedEndpoint> getAndDiscoverEndpointFor(final URI uri, final Consumer<FetchFailure> failures)
+			throws IOException {
+		final TransportRequest request = TransportRequest.get(uri,
+				Map.of("Accept-Encoding", Streams.SUPPORTED_ENCODINGS));
+		return exchange(request, response -> {
+			try (response) {
+				if (response.getStatusCode() != HttpStatus.SC_OK) {
+					LOGGER.warn("Autodiscovery for {} failed, server returned error {}: {}", uri,
+							response.getStatusCode(), getErrorBody(response));
+					failures.accept(FetchFailure.ofStatus(response.getStatusCode()));
+					return Optional.empty();
+				}
+				final Optional<OembedEndpoint> linked = findOembedLink(
+						LinkHeaderParser.parse(response.getHeaders("Link"), uri));
+				if (linked.isPresent()) {
+					// The document is not needed at all
+					response.abort();
+					return linked;
+				}
+				return findOembedLink(readBody(request, response, this.maxDocumentSize, body -> {
+					try {
+						final List<HeadLinkScanner.Link> links = HeadLinkScanner
+							.scan(new InputStreamReader(body, response.getCharset()), uri);
+						// Don't transfer the rest of the document
+						if (response.getBody().read() != -1) {
+							response.abort();
+						}
+						return links;
+					}
+					catch (IOException ex) {
+						throw new UncheckedIOException(ex);
+					}
+				}));
+			}
+		});
+	}
 
 	/**
-	 * Used for auto-discovered endpoints.
+	 * {@return the endpoint of the first alternate link to an oembed endpoint, if any}
+	 * @param links the links of a response
 	 */
-	private final RequestProvider defaultRequestProvider = new DefaultRequestProvider();
+	private static Optional<OembedEndpoint> findOembedLink(final List<HeadLinkScanner.Link> links) {
+		for (HeadLinkScanner.Link link : links) {
+			if (!link.hasRel("alternate")) {
+				continue;
+			}
+			if (link.type().equalsIgnoreCase("application/json+oembed")) {
+				return Optional.of(new AutodiscoveredOembedEndpoint(link.href(), Format.json));
+			}
+			else if (link.type().equalsIgnoreCase("text/xml+oembed")) {
+				return Optional.of(new AutodiscoveredOembedEndpoint(link.href(), Format.xml));
+			}
+		}
+		return Optional.empty();
+	}
 
 	/**
-	 * Used for auto-discovered endpoints.
+	 * Executes the given request {@code request} and reads the responses content if no
+	 * error occurred and the server returned a status code OK. The content is read while
+	 * the response is open, the response is always closed afterwards, so that its
+	 * connection is either reused or aborted. Responses larger than
+	 * {@link #maxResponseSize} are aborted.
+	 * @param <T> the type of the result
+	 * @param request the request to be executed
+	 * @param bodyReader reads the content of the response
+	 * @return the result of the body reader or {@literal null} if the request failed
 	 */
-	private final OembedResponseRenderer defaultRenderer = new DefaultOembedResponseRenderer();
+	final <T> T executeRequest(final TransportRequest request, final Function<InputStream, T> bodyReader) {
+		return executeRequest(request, bodyReader, failure -> {
+		});
+	}
 
 	/**
-	 * Creates a new {@code OembedService}. This service depends on a {@link HttpClient}
-	 * and can use a {@link CacheManager} for caching requests.
-	 * @param httpClient the mandatory http client
-	 * @param cacheManager an optional cache manager
-	 * @param endpoints the static endpoints
-	 * @param applicationName an optional application name
+	 * Executes the given request like {@link #executeRequest(TransportRequest, Function)}
+	 * and reports the class of the failure if the request failed.
+	 * @param <T> the type of the result
+	 * @param request the request to be executed
+	 * @param bodyReader reads the content of the response
+	 * @param failures receives the class of the failure
+	 * @return the result of the body reader or {@literal null} if the request failed
 	 */
-	public OembedService(final HttpClient httpClient, final CacheManager cacheManager,
-			final List<OembedEndpoint> endpoints, final String applicationName) {
-		this.httpClient = httpClient;
-		this.cacheManager = Optional.ofNullable(cacheManager);
-		final Properties version = new Properties();
+	private <T> T executeRequest(final TransportRequest request, final Function<InputStream, T> bodyReader,
+			final Consumer<FetchFailure> failures) {
+		T rv = null;
 		try {
-			version.load(OembedService.class.getResourceAsStream("/oembed.properties"));
+			rv = exchange(request, response -> {
+				try (response) {
+					if (response.getStatusCode() != HttpStatus.SC_OK) {
+						LOGGER.warn("Skipping '{}', server returned error {}: {}", request.getUri().toString(),
+								response.getStatusCode(), getErrorBody(response));
+						failures.accept(FetchFailure.ofStatus(response.getStatusCode()));
+						return null;
+					}
+					return readBody(request, response, this.maxResponseSize, bodyReader);
+				}
+			});
 		}
-		catch (IOException ignored) {
+		catch (ResponseTooLargeException ex) {
+			LOGGER.warn("Skipping '{}': {}", request.getUri().toString(), ex.getMessage());
+			failures.accept(FetchFailure.INVALID_RESPONSE);
 		}
-		this.userAgent = String.format("Java/%s java-oembed2/%s", System.getProperty("java.version"),
-				version.getProperty("de.dailyfratze.text.oembed.version"));
-		this.applicationName = applicationName;
+		catch (OembedException ex) {
+			LOGGER.warn("Server returned an invalid oembed format for '{}': {}", request.getUri().toString(),
+					ex.getMessage());
+			failures.accept(FetchFailure.INVALID_RESPONSE);
+		}
+		catch (IOException ex) {
+			LOGGER.warn("Skipping '{}', could not get a response: {}", request.getUri().toString(), ex.getMessage());
+			failures.accept(FetchFailure.ofException(ex));
+		}
+		return rv;
+	}
 
-		final Map<Format, OembedParser> hlp = new EnumMap<>(Format.class);
-		hlp.put(Format.json, new OembedJsonParser());
-		hlp.put(Format.xml, new OembedXmlParser());
-		this.parsers = Collections.unmodifiableMap(hlp);
+	/**
+	 * Reads the body of a response with a maximum size, decoding it on the fly if it has
+	 * a content encoding. The maximum size applies to the decoded body. The size of
+	 * bodies without content encoding is checked against the {@code Content-Length}
+	 * before reading. In any case it is enforced while reading. If the size is exceeded,
+	 * the response is aborted instead of drained.
+	 * @param <T> the type of the result
+	 * @param request the request that has been executed
+	 * @param response the response to read
+	 * @param maximumSize the maximum size in bytes
+	 * @param bodyReader reads the content of the response
+	 * @return the result of the body reader
+	 * @throws IOException if the body cannot be read or decoded
+	 */
+	private static <T> T readBody(final TransportRequest request, final TransportResponse response,
+			final long maximumSize, final Function<InputStream, T> bodyReader) throws IOException {
+		final Optional<String> contentEncoding = response.getHeader("Content-Encoding")
+			.filter(value -> !(value.isBlank() || "identity".equalsIgnoreCase(value.trim())));
+		if (contentEncoding.isEmpty() && getContentLength(response) > maximumSize) {
+			response.abort();
+			throw new ResponseTooLargeException(request.getUri(), maximumSize);
+		}
 
-		this.endpoints = endpoints.stream().collect(Collectors.toMap(Function.identity(), endpoint -> {
-			LOGGER.debug("Endpoint {} will match the following patterns: {}", endpoint.getName(),
-					endpoint.getUrlSchemes());
-			LOGGER.debug("Configuring request provider of type {} for endpoint {}...",
-					endpoint.getRequestProviderClass(), endpoint.getName());
-			LOGGER.debug("Using properties: {}", endpoint.getRequestProviderProperties());
+		try (Streams.LimitedInputStream body = new Streams.LimitedInputStream(
+				Streams.decoding(response.getBody(), contentEncoding.orElse(null)), maximumSize)) {
+			T rv = null;
+			try {
+				rv = bodyReader.apply(body);
+			}
+			catch (UncheckedIOException ex) {
+				if (!body.isExceeded()) {
+					throw ex.getCause();
+				}
+			}
+			catch (RuntimeException ex) {
+				if (!body.isExceeded()) {
+					throw ex;
+				}
+			}
+			if (body.isExceeded()) {
+				response.abort();
+				throw new ResponseTooLargeException(request.getUri(), maximumSize);
+			}
+			return rv;
+		}
+	}
 
-			RequestProvider requestProvider;
+	/**
+	 * {@return the value of the Content-Length header or -1 if there's none}
+	 * @param response the response to check
+	 */
+	private static long getContentLength(final TransportResponse response) {
+		return response.getHeader("Content-Length").map(value -> {
 			try {
-				requestProvider = endpoint.getRequestProviderClass().getDeclaredConstructor().newInstance();
-				BeanUtils.populate(requestProvider, endpoint.getRequestProviderProperties());
+				return Long.parseLong(value.trim());
 			}
-			catch (IllegalAccessException | NoSuchMethodException | InvocationTargetException
-					| InstantiationException ex) {
-				// Assuming everything is neatly configured
-				throw new OembedException(ex);
+			catch (NumberFormatException ex) {
+				return -1L;
 			}
-			return requestProvider;
-		}));
+		}).orElse(-1L);
+	}
 
-		this.renderers = endpoints.stream().collect(Collectors.toMap(OembedEndpoint::getUrlSchemes, endpoint -> {
-			LOGGER.debug("Configuring response renderer of type {} for endpoint {}...",
-					endpoint.getResponseRendererClass(), endpoint.getName());
-			LOGGER.debug("Using properties: {}", endpoint.getResponseRendererProperties());
+	/**
+	 * Reads the beginning of an error response for logging purposes.
+	 * @param response the response with an error
+	 * @return the first bytes of the decoded body as string
+	 * @throws IOException if the body cannot be read
+	 */
+	private static String getErrorBody(final TransportResponse response) throws IOException {
+		final InputStream body = Streams.decoding(response.getBody(),
+				response.getHeader("Content-Encoding").orElse(null));
+		return new String(body.readNBytes(MAX_LOGGED_ERROR_BODY_SIZE), response.getCharset());
+	}
+
+	/**
+	 * Executes a request and handles its response. If a {@link #requestExecutor} is
+	 * configured, the request is executed by it, holding a permit for the host of the
+	 * request.
+	 * @param <T> the type of the result
+	 * @param request the request to execute
+	 * @param handler handles the response, the result of the exchange
+	 * @return the result of the handler
+	 * @throws IOException if the request fails
+	 */
+	private <T> T exchange(final TransportRequest request, final ResponseHandler<T> handler) throws IOException {
+		final ExecutorService currentRequestExecutor = this.requestExecutor;
+		if (currentRequestExecutor == null) {
+			return handler.handle(this.transport.execute(request));
+		}
 
-			OembedResponseRenderer oembedResponseRenderer = null;
+		final PermitsPerKey permits = this.providerPermits;
+		final Callable<T> exchange = () -> {
+			final Runnable release = permits.acquire(Objects.toString(request.getUri().getHost(), ""));
 			try {
-				oembedResponseRenderer = endpoint.getResponseRendererClass().getDeclaredConstructor().newInstance();
-				BeanUtils.populate(oembedResponseRenderer, endpoint.getResponseRendererProperties());
+				return handler.handle(this.transport.execute(request));
 			}
-			catch (IllegalAccessException | NoSuchMethodException | InvocationTargetException
-					| InstantiationException ex) {
-				// Assuming everything is neatly configured
-				throw new OembedException(ex);
+			finally {
+				release.run();
 			}
-			return oembedResponseRenderer;
-		}));
+		};
+		try {
+			return VirtualThreads.isVirtual(Thread.currentThread()) ? exchange.call()
+					: currentRequestExecutor.submit(exchange).get();
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while executing " + request.getUri());
+		}
+		catch (ExecutionException ex) {
+			throw rethrow(ex.getCause());
+		}
+		catch (Exception ex) {
+			throw rethrow(ex);
+		}
+	}
 
-		LOGGER.debug("Oembed has {} endpoints and autodiscovery {} enabled...", this.endpoints.size(),
-				this.autodiscovery ? "is" : "is not");
-		LOGGER.info("Oembed ({}) ready...", this.userAgent);
+	/**
+	 * Rethrows unchecked exceptions and turns everything else into an {@link IOException}
+	 * to be thrown by the caller.
+	 * @param ex the exception to rethrow
+	 * @return the exception to throw
+	 */
+	private static IOException rethrow(final Throwable ex) {
+		if (ex instanceof IOException ioException) {
+			return ioException;
+		}
+		else if (ex instanceof RuntimeException runtimeException) {
+			throw runtimeException;
+		}
+		else if (ex instanceof InterruptedException) {
+			Thread.currentThread().interrupt();
+			return new InterruptedIOException(ex.getMessage());
+		}
+		throw new OembedException(ex);
 	}
 
 	/**
-	 * {@return the current configuration of oembed autodiscovery}
+	 * Returns the current state of the connection pool of the transport, if the transport
+	 * reports it.
+	 * @return the current state of the connection pool
+	 * @see HttpTransport#getConnectionPoolMetrics()
 	 */
-	public boolean isAutodiscovery() {
-		return this.autodiscovery;
+	public Optional<ConnectionPoolMetrics> getConnectionPoolMetrics() {
+		return this.transport.getConnectionPoolMetrics();
 	}
 
 	/**
-	 * Updates to configuration of oembed autodiscovery.
-	 * @param autodiscovery new flag whether oembed endpoints should be auto-discovered
+	 * Tries to find an {@link OembedResponse} for the URL {@code url}. If a response
+	 * cache is present, it tries that first. If an {@code OembedResponse} can be
+	 * discovered and a response cache is present, that response will be cached.
+	 * Concurrent calls for the same url are coalesced, only one of them requests the
+	 * response from the provider.
+	 * @param url the URL that might be represented by oembed.
+	 * @return an oembed response
 	 */
-	public void setAutodiscovery(final boolean autodiscovery) {
-		this.autodiscovery = autodiscovery;
+	public Optional<OembedResponse> getOembedResponseFor(final String url) {
+		return join(getOembedResponseForAsync(url, CALLING_THREAD));
 	}
 
 	/**
-	 * {@return the name of the cached used by this service}
+	 * Asynchronously tries to find an {@link OembedResponse} for the URL {@code url},
+	 * using the {@link #getExecutor() default executor}.
+	 * @param url the URL that might be represented by oembed.
+	 * @return a future oembed response
+	 * @see #getOembedResponseFor(String)
 	 */
-	public String getCacheName() {
-		return this.cacheName;
+	public CompletableFuture<Optional<OembedResponse>> getOembedResponseForAsync(final String url) {
+		return getOembedResponseForAsync(url, getExecutor());
 	}
 
 	/**
-	 * Changes the name of the cache used. If a cache manager is present, it clears the
-	 * old cache and removes it.
-	 * @param cacheName the new cache name
+	 * Asynchronously tries to find an {@link OembedResponse} for the URL {@code url}.
+	 * Looking up the cache, finding the endpoint, requesting and parsing the response all
+	 * happen in a task run by the given executor.
+	 * @param url the URL that might be represented by oembed.
+	 * @param executor the executor to use
+	 * @return a future oembed response
+	 * @see #getOembedResponseFor(String)
 	 */
-	public void setCacheName(final String cacheName) {
-		if (this.cacheManager.isPresent() && this.cacheManager.get().cacheExists(this.cacheName)) {
-			this.cacheManager.get().removeCache(this.cacheName);
-		}
-		this.cacheName = cacheName;
+	public CompletableFuture<Optional<OembedResponse>> getOembedResponseForAsync(final String url,
+			final Executor executor) {
+		final String trimmedUrl = Optional.ofNullable(url).map(String::trim).orElse("");
+		return CompletableFuture.supplyAsync(() -> {
+			final String canonicalUrl = canonicalize(trimmedUrl);
+			return getOembedResponseFor(canonicalUrl, () -> this.endpoints.find(canonicalUrl));
+		}, executor);
 	}
 
 	/**
-	 * {@return the default time in seconds responses are cached}
+	 * Waits for a future used by one of the synchronous methods and unwraps runtime
+	 * exceptions.
+	 * @param <T> the type of the result
+	 * @param future the future to wait for
+	 * @return the result of the future
 	 */
-	public long getDefaultCacheAge() {
-		return this.defaultCacheAge;
+	private static <T> T join(final CompletableFuture<T> future) {
+		try {
+			return future.join();
+		}
+		catch (CompletionException ex) {
+			throw (ex.getCause() instanceof RuntimeException cause) ? cause : ex;
+		}
 	}
 
 	/**
-	 * Changes the default cache age.
-	 * @param defaultCacheAge new default cache age in seconds
+	 * Tries to find an {@link OembedResponse} for the trimmed URL {@code trimmedUrl}. The
+	 * configured endpoint is only looked up if the response is not cached.
+	 * @param trimmedUrl the URL that might be represented by oembed.
+	 * @param configuredEndpoint a supplier for the result of looking up the url in the
+	 * configured endpoints
+	 * @return an oembed response
 	 */
-	public void setDefaultCacheAge(final long defaultCacheAge) {
-		this.defaultCacheAge = defaultCacheAge;
+	private Optional<OembedResponse> getOembedResponseFor(final String trimmedUrl,
+			final Supplier<Optional<ResolvedEndpoint>> configuredEndpoint) {
+		if (trimmedUrl.isEmpty()) {
+			LOGGER.debug("Ignoring empty url...");
+			return Optional.empty();
+		}
+		if (isKnownNotEmbeddable(trimmedUrl)) {
+			return Optional.empty();
+		}
+		return this.responseLookups.execute(trimmedUrl, () -> loadOembedResponseFor(trimmedUrl, configuredEndpoint));
 	}
 
 	/**
-	 * Tries to find an endpoint for the given url. It first tries to find an endpoint
-	 * within the configured endpoints by a matching url scheme. If that results in an
-	 * empty endpoint and auto discovery is enabled, a http GET request is made to the
-	 * given url, checking for alternate links with the type
-	 * {@code application/(json|xml)+oembed}.
-	 * @param url the URL that should be embedded
-	 * @return an optional endpoint for this url
+	 * Loads the {@link OembedResponse} for the trimmed URL {@code trimmedUrl} from the
+	 * cache or from its endpoint. Only one load per url runs at the same time, concurrent
+	 * callers wait for its result.
+	 * @param trimmedUrl the URL that might be represented by oembed.
+	 * @param configuredEndpoint a supplier for the result of looking up the url in the
+	 * configured endpoints
+	 * @return an oembed response
 	 */
-	final Optional<OembedEndpoint> findEndpointFor(final String url) {
-		Optional<OembedEndpoint> rv = this.endpoints.keySet()
-			.stream()
-			.filter(endpoint -> endpoint.getUrlSchemes().stream().map(String::trim).anyMatch(url::matches))
-			.findFirst();
-		if (rv.isEmpty() && this.autodiscovery) {
-			try {
-				final HttpResponse httpResponse = this.httpClient.execute(new HttpGet(url));
-				if (httpResponse.getStatusLine().getStatusCode() != HttpStatus.SC_OK) {
-					LOGGER.warn("Autodiscovery for {} failed, server returned error {}: {}", url,
-							httpResponse.getStatusLine().getStatusCode(),
-							EntityUtils.toString(httpResponse.getEntity()));
+	private Optional<OembedResponse> loadOembedResponseFor(final String trimmedUrl,
+			final Supplier<Optional<ResolvedEndpoint>> configuredEndpoint) {
+		final ResponseCache cache = this.responseCache;
+		// If there's already an oembed response or failure cached, use that
+		final Optional<CachedResponse> cached = (cache != null) ? cache.get(trimmedUrl) : Optional.empty();
+		if (cached.isPresent()) {
+			final CachedResponse cachedResponse = cached.get();
+			final Instant now = Instant.now();
+			if (cachedResponse.isFresh(now)) {
+				LOGGER.debug("Using {} from cache for '{}'...", cachedResponse, trimmedUrl);
+				if (cachedResponse.getResponse().isPresent()) {
+					this.cacheHits.increment();
 				}
 				else {
-					final Document document = Jsoup.parse(EntityUtils.toString(httpResponse.getEntity(), "UTF-8"), url);
-					rv = document.getElementsByAttributeValue("rel", "alternate").stream().map(alternate -> {
-						OembedEndpoint autodiscoveredEndpoint = null;
-						try {
-							if (alternate.attr("type").equalsIgnoreCase("application/json+oembed")) {
-								autodiscoveredEndpoint = new AutodiscoveredOembedEndpoint(
-										new URI(alternate.absUrl("href")), Format.json);
-							}
-							else if (alternate.attr("type").equalsIgnoreCase("text/xml+oembed")) {
-								autodiscoveredEndpoint = new AutodiscoveredOembedEndpoint(
-										new URI(alternate.absUrl("href")), Format.xml);
-							}
-						}
-						catch (URISyntaxException ex) {
-							// Just ignore them
-						}
-						return autodiscoveredEndpoint;
-					}).filter(Objects::nonNull).findFirst();
+					this.negativeCacheHits.get(cachedResponse.getFailure().orElse(FetchFailure.NO_ENDPOINT))
+						.increment();
 				}
+				refreshAheadIfDue(trimmedUrl, configuredEndpoint, cachedResponse, now);
+				return cachedResponse.getResponse();
 			}
-			catch (IOException ex) {
-				LOGGER.warn("Autodiscovery for {} failed: {}", url, ex.getMessage());
+			if (cachedResponse.getResponse().isPresent()
+					&& isServedWhileStale(trimmedUrl, configuredEndpoint, cachedResponse, now)) {
+				LOGGER.debug("Using expired {} from cache for '{}'...", cachedResponse, trimmedUrl);
+				this.staleCacheHits.increment();
+				return cachedResponse.getResponse();
 			}
 		}
-		return rv;
+		if (cache != null) {
+			this.cacheMisses.increment();
+		}
+		return fetchOembedResponseFor(trimmedUrl, configuredEndpoint, cache, cached);
 	}
 
 	/**
-	 * Executes the given HttpRequest {@code request} and returns an input stream for the
-	 * responses content if no error occurred and the server returned a status code OK.
-	 * @param request the request to be executed
-	 * @return an inputstream to read the response
+	 * Checks whether an expired response can still be served. Starts a background refresh
+	 * if the response is within its stale-while-revalidate time, unless a refresh is
+	 * already running or failed recently.
+	 * @param trimmedUrl the URL of the response
+	 * @param configuredEndpoint a supplier for the result of looking up the url in the
+	 * configured endpoints
+	 * @param cachedResponse the expired response
+	 * @param now the current time
+	 * @return true if the expired response can be served
 	 */
-	final InputStream executeRequest(final HttpGet request) {
-		InputStream rv = null;
-		try {
-			final HttpResponse httpResponse = this.httpClient.execute(request);
-			if (httpResponse.getStatusLine().getStatusCode() != HttpStatus.SC_OK) {
-				LOGGER.warn("Skipping '{}', server returned error {}: {}", request.getURI().toString(),
-						httpResponse.getStatusLine().getStatusCode(), EntityUtils.toString(httpResponse.getEntity()));
-			}
-			else {
-				rv = httpResponse.getEntity().getContent();
-			}
+	private boolean isServedWhileStale(final String trimmedUrl,
+			final Supplier<Optional<ResolvedEndpoint>> configuredEndpoint, final CachedResponse cachedResponse,
+			final Instant now) {
+		final Instant expiresAt = cachedResponse.getExpiresAt();
+		final boolean revalidate = now.isBefore(expiresAt.plusSeconds(this.staleWhileRevalidate));
+		if (!revalidate && !now.isBefore(expiresAt.plusSeconds(this.staleIfError))) {
+			return false;
 		}
-		catch (IOException ex) {
-			LOGGER.warn("Skipping '{}', could not get a response: {}", request.getURI().toString(), ex.getMessage());
+		final Instant nextRefresh = this.refreshes.get(trimmedUrl);
+		if (nextRefresh != null && now.isBefore(nextRefresh)) {
+			return true;
 		}
-		return rv;
+		if (!revalidate) {
+			return false;
+		}
+		final boolean claimed = (nextRefresh != null) ? this.refreshes.replace(trimmedUrl, nextRefresh, Instant.MAX)
+				: this.refreshes.putIfAbsent(trimmedUrl, Instant.MAX) == null;
+		if (!claimed) {
+			return true;
+		}
+		LOGGER.debug("Refreshing expired response for '{}' in the background...", trimmedUrl);
+		// Refresh inline if the executor doesn't accept the refresh
+		return refreshInBackground(trimmedUrl, configuredEndpoint, cachedResponse, () -> {
+		});
 	}
 
 	/**
-	 * Tries to find an {@link OembedResponse} for the URL {@code url}. If a cache manager
-	 * is present, it tries that first. If an {@code OembedResponse} can be discovered and
-	 * a cache manager is present, that response will be cached.
-	 * @param url the URL that might be represented by oembed.
-	 * @return an oembed response
+	 * Starts a refresh of a fresh response in the background if its url is hot, the
+	 * response is close to expiry and the limits of its endpoint allow it.
+	 * @param trimmedUrl the URL of the response
+	 * @param configuredEndpoint a supplier for the result of looking up the url in the
+	 * configured endpoints
+	 * @param cachedResponse the fresh response
+	 * @param now the current time
 	 */
-	public Optional<OembedResponse> getOembedResponseFor(final String url) {
-		final String trimmedUrl = Optional.ofNullable(url).map(String::trim).orElse("");
-		if (trimmedUrl.isEmpty()) {
-			LOGGER.debug("Ignoring empty url...");
-			return Optional.empty();
+	private void refreshAheadIfDue(final String trimmedUrl,
+			final Supplier<Optional<ResolvedEndpoint>> configuredEndpoint, final CachedResponse cachedResponse,
+			final Instant now) {
+		final RefreshAhead currentRefreshAhead = this.refreshAhead;
+		if (currentRefreshAhead == null || !currentRefreshAhead.isDue(trimmedUrl, cachedResponse, now)) {
+			return;
 		}
-
-		var rv = this.cacheManager.map(cm -> cm.addCacheIfAbsent(this.cacheName).get(trimmedUrl))
-			.map(element -> (OembedResponse) element.getObjectValue());
-		// If there's already an oembed response cached, use that
-		if (rv.isPresent()) {
-			LOGGER.debug("Using OembedResponse from cache for '{}'...", trimmedUrl);
-			return rv;
+		final Optional<OembedEndpoint> endpoint = configuredEndpoint.get()
+			.or(() -> this.autodiscovery ? this.learnedEndpoints.find(trimmedUrl) : Optional.empty())
+			.map(ResolvedEndpoint::getEndpoint);
+		if (endpoint.isEmpty() || this.refreshes.putIfAbsent(trimmedUrl, Instant.MAX) != null) {
+			return;
 		}
+		final Optional<Runnable> release = currentRefreshAhead.tryAcquire(endpoint.get());
+		if (release.isEmpty()) {
+			this.refreshes.remove(trimmedUrl, Instant.MAX);
+			return;
+		}
+		LOGGER.debug("Refreshing response for '{}' ahead of its expiry...", trimmedUrl);
+		refreshInBackground(trimmedUrl, configuredEndpoint, cachedResponse, release.get());
+	}
 
-		final Optional<OembedEndpoint> endPoint = this.findEndpointFor(trimmedUrl);
-		LOGGER.debug("Found endpoint {} for '{}'...", endPoint, trimmedUrl);
-		rv = endPoint
-			.map(ep -> this.endpoints.getOrDefault(ep, this.defaultRequestProvider)
-				.createRequestFor(this.userAgent, this.applicationName, ep.toApiUrl(trimmedUrl)))
-			.map(this::executeRequest)
-			.map(content -> {
-				OembedResponse oembedResponse = null;
+	/**
+	 * Refreshes a cached response on the {@link #getExecutor() default executor}. The url
+	 * must have been marked as being refreshed in {@link #refreshes}.
+	 * @param trimmedUrl the URL of the response
+	 * @param configuredEndpoint a supplier for the result of looking up the url in the
+	 * configured endpoints
+	 * @param cachedResponse the cached response, kept if the refresh fails
+	 * @param whenDone called after the refresh or if it could not be started
+	 * @return true if the refresh has been started
+	 */
+	private boolean refreshInBackground(final String trimmedUrl,
+			final Supplier<Optional<ResolvedEndpoint>> configuredEndpoint, final CachedResponse cachedResponse,
+			final Runnable whenDone) {
+		try {
+			getExecutor().execute(() -> {
 				try {
-					oembedResponse = this.parsers.get(endPoint.get().getFormat()).unmarshal(content);
+					fetchOembedResponseFor(trimmedUrl, configuredEndpoint, this.responseCache,
+							Optional.of(cachedResponse));
 				}
-				catch (OembedException ex) {
-					LOGGER.warn("Server returned an invalid oembed format for url '{}': {}", trimmedUrl,
-							ex.getMessage());
+				finally {
+					this.refreshes.remove(trimmedUrl, Instant.MAX);
+					whenDone.run();
 				}
-				return oembedResponse;
 			});
+			return true;
+		}
+		catch (RejectedExecutionException ex) {
+			this.refreshes.remove(trimmedUrl, Instant.MAX);
+			whenDone.run();
+			return false;
+		}
+	}
+
+	/**
+	 * Requests the {@link OembedResponse} for the trimmed URL {@code trimmedUrl} from its
+	 * endpoint and caches the result. If the request fails and the previous response is
+	 * still fresh or within its stale-if-error time, the previous response is kept.
+	 * Otherwise the failure is cached for the cache age of its class, grown by the number
+	 * of consecutive failures of that class.
+	 * @param trimmedUrl the URL that might be represented by oembed.
+	 * @param configuredEndpoint a supplier for the result of looking up the url in the
+	 * configured endpoints
+	 * @param cache the cache to use, may be {@literal null}
+	 * @param previous the expired response, if any
+	 * @return an oembed response
+	 */
+	private Optional<OembedResponse> fetchOembedResponseFor(final String trimmedUrl,
+			final Supplier<Optional<ResolvedEndpoint>> configuredEndpoint, final ResponseCache cache,
+			final Optional<CachedResponse> previous) {
+		final AtomicReference<FetchFailure> failure = new AtomicReference<>(FetchFailure.NO_ENDPOINT);
+		final Optional<ResolvedEndpoint> endPoint = this.resolveEndpointFor(trimmedUrl, configuredEndpoint.get(),
+				failure::set);
+		LOGGER.debug("Found endpoint {} for '{}'...", endPoint.map(ResolvedEndpoint::getEndpoint), trimmedUrl);
+		final Optional<OembedResponse> rv = endPoint
+			.map(ep -> ep.getRequestProvider()
+				.createTransportRequestFor(this.userAgent, this.applicationName, ep.getEndpoint().toApiUrl(trimmedUrl)))
+			.map(request -> {
+				// Requests that fail without a reason didn't get a parsable response
+				failure.set(FetchFailure.INVALID_RESPONSE);
+				return executeRequest(request, this.parsers.get(endPoint.get().getEndpoint().getFormat())::unmarshal,
+						failure::set);
+			});
+		if (cache == null) {
+			return rv;
+		}
+
+		final Instant now = Instant.now();
+		final Optional<OembedResponse> previousResponse = previous.flatMap(CachedResponse::getResponse);
+		if (rv.isEmpty() && previousResponse.isPresent()
+				&& now.isBefore(previous.get().getExpiresAt().plusSeconds(this.staleIfError))) {
+			// Keep the cached response and don't try again for some seconds
+			this.refreshes.values().removeIf(next -> !now.isBefore(next));
+			this.refreshes.put(trimmedUrl, now.plusSeconds(Math.max(1, failureCacheAge(failure.get(), 1))));
+			LOGGER.warn("Could not refresh response for '{}', keeping the cached response", trimmedUrl);
+			return previousResponse;
+		}
+		this.refreshes.computeIfPresent(trimmedUrl, (url, next) -> Instant.MAX.equals(next) ? next : null);
 
-		if (this.cacheManager.isPresent()) {
-			final Ehcache cache = this.cacheManager.get().addCacheIfAbsent(this.cacheName);
+		if (rv.isPresent()) {
 			// Cache at least 60 seconds
-			final int cacheAge = (int) Math.min(
-					Math.max(60L, rv.map(OembedResponse::getCacheAge).orElse(this.defaultCacheAge)), Integer.MAX_VALUE);
-			// We're adding failed urls to the cache as well to prevent them
-			// from being tried again over and over (at least for some seconds)
-			cache.put(new net.sf.ehcache.Element(trimmedUrl, rv.orElse(null), cacheAge, cacheAge));
+			final long cacheAge = Math.max(MIN_CACHE_AGE,
+					rv.map(OembedResponse::getCacheAge).orElse(this.defaultCacheAge));
+			// Responses are kept longer, so that they can be served when expired
+			final long retention = Math.max(this.staleWhileRevalidate, this.staleIfError);
+			cache.put(trimmedUrl, new CachedResponse(rv.get(), now, now.plusSeconds(cacheAge)),
+					Duration.ofSeconds(cacheAge).plusSeconds(retention));
 			LOGGER.debug("Cached {} for {} seconds for url '{}'...", rv, cacheAge, trimmedUrl);
+			return rv;
 		}
 
+		// We're adding failed urls to the cache as well to prevent them
+		// from being tried again over and over
+		final int failures = previous.filter(p -> p.getFailure().equals(Optional.of(failure.get())))
+			.map(CachedResponse::getFailures)
+			.orElse(0) + 1;
+		final long cacheAge = failureCacheAge(failure.get(), failures);
+		if (cacheAge == 0) {
+			cache.invalidate(trimmedUrl);
+			return rv;
+		}
+		// Growing failures are kept until the next attempt, so that their number is known
+		final long retention = (this.failureCacheAgeMultiplier > 1.0) ? failureCacheAge(failure.get(), failures + 1)
+				: 0;
+		cache.put(trimmedUrl, new CachedResponse(failure.get(), failures, now, now.plusSeconds(cacheAge)),
+				Duration.ofSeconds(cacheAge).plusSeconds(retention));
+		LOGGER.debug("Cached failure {} #{} for {} seconds for url '{}'...", failure.get(), failures, cacheAge,
+				trimmedUrl);
 		return rv;
 	}
 
+	/**
+	 * Computes the cache age of a failure. The cache age of its class grows by the
+	 * {@link #failureCacheAgeMultiplier} for each consecutive failure, up to the
+	 * {@link #maxFailureCacheAge}.
+	 * @param failure the class of the failure
+	 * @param failures the number of consecutive failures of that class
+	 * @return the time in seconds the failure is cached
+	 */
+	private long failureCacheAge(final FetchFailure failure, final int failures) {
+		final long cacheAge = this.failureCacheAges.get(failure);
+		final double grownCacheAge = cacheAge * Math.pow(this.failureCacheAgeMultiplier, failures - 1.0);
+		return Math.max(cacheAge, (long) Math.min(this.maxFailureCacheAge, grownCacheAge));
+	}
+
 	/**
 	 * Embed all urls found in the given text for which providers are present.
 	 * @param textWithEmbeddableUrls text that may contain links
@@ -407,9 +1731,40 @@ public class OembedService {
 	 * @param targetClass the concrete class for the document node
 	 * @return the same text with embedded urls if such urls existed
 	 */
-	@SuppressWarnings("unchecked")
 	public <T> T embedUrls(final String textWithEmbeddableUrls, final String baseUrl,
 			final Class<? extends T> targetClass) {
+		return join(embedUrlsAsync(textWithEmbeddableUrls, baseUrl, targetClass, embeddingExecutor()));
+	}
+
+	/**
+	 * Asynchronously embeds all urls found in the given text, using the
+	 * {@link #getExecutor() default executor}.
+	 * @param <T> type of the resulting document with embedded links
+	 * @param textWithEmbeddableUrls text that contains embeddable urls
+	 * @param baseUrl an optional base url for resolving relative urls
+	 * @param targetClass the concrete class for the document node
+	 * @return the same text with embedded urls if such urls existed
+	 * @see #embedUrls(java.lang.String, java.lang.String, java.lang.Class)
+	 */
+	public <T> CompletableFuture<T> embedUrlsAsync(final String textWithEmbeddableUrls, final String baseUrl,
+			final Class<? extends T> targetClass) {
+		return embedUrlsAsync(textWithEmbeddableUrls, baseUrl, targetClass, getExecutor());
+	}
+
+	/**
+	 * Asynchronously embeds all urls found in the given text. The responses for all
+	 * embeddable urls are requested concurrently by the given executor.
+	 * @param <T> type of the resulting document with embedded links
+	 * @param textWithEmbeddableUrls text that contains embeddable urls
+	 * @param baseUrl an optional base url for resolving relative urls
+	 * @param targetClass the concrete class for the document node
+	 * @param executor the executor to use
+	 * @return the same text with embedded urls if such urls existed
+	 * @see #embedUrls(java.lang.String, java.lang.String, java.lang.Class)
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> CompletableFuture<T> embedUrlsAsync(final String textWithEmbeddableUrls, final String baseUrl,
+			final Class<? extends T> targetClass, final Executor executor) {
 		var optionalBaseUrl = Optional.ofNullable(baseUrl);
 		T rv;
 		if (String.class.isAssignableFrom(targetClass)) {
@@ -422,22 +1777,22 @@ public class OembedService {
 			throw new OembedException(String.format("Invalid target class: %s", targetClass.getName()));
 		}
 
-		if (!(textWithEmbeddableUrls == null || textWithEmbeddableUrls.trim().isEmpty())) {
-			// Create a document
-			final Document document = embedUrls(
-					Jsoup.parseBodyFragment(textWithEmbeddableUrls, optionalBaseUrl.orElse("")));
-			if (Document.class.isAssignableFrom(targetClass)) {
-				rv = (T) document;
-			}
-			else {
+		if (textWithEmbeddableUrls == null || textWithEmbeddableUrls.trim().isEmpty()) {
+			return CompletableFuture.completedFuture(rv);
+		}
+
+		// Create a document
+		return embedUrlsAsync(Jsoup.parseBodyFragment(textWithEmbeddableUrls, optionalBaseUrl.orElse("")), executor)
+			.thenApply(document -> {
+				if (Document.class.isAssignableFrom(targetClass)) {
+					return (T) document;
+				}
 				document.outputSettings()
 					.prettyPrint(false)
 					.escapeMode(EscapeMode.xhtml)
 					.charset(StandardCharsets.UTF_8);
-				rv = (T) Parser.unescapeEntities(document.body().html().trim(), true);
-			}
-		}
-		return rv;
+				return (T) Parser.unescapeEntities(document.body().html().trim(), true);
+			});
 	}
 
 	/**
@@ -447,23 +1802,75 @@ public class OembedService {
 	 * @see #embedUrls(java.lang.String, java.lang.String, java.lang.Class)
 	 */
 	public Document embedUrls(final Document document) {
-		for (Element a : document.getElementsByTag("a")) {
-			final String absUrl = a.absUrl("href");
-			final Optional<String> html = this.getOembedResponseFor(absUrl).map(response -> {
-				final OembedResponseRenderer renderer = this.renderers.entrySet()
-					.stream()
-					.filter(entry -> entry.getKey().stream().anyMatch(absUrl::matches))
-					.findFirst()
-					.map(Map.Entry::getValue)
-					.orElse(this.defaultRenderer);
-				return renderer.render(response, a.clone());
-			});
-			if (html.isPresent() && !html.get().trim().isEmpty()) {
-				a.before(html.get().trim());
-				a.remove();
+		return join(embedUrlsAsync(document, embeddingExecutor()));
+	}
+
+	/**
+	 * {@return the executor for the synchronous embedUrls methods}
+	 */
+	private Executor embeddingExecutor() {
+		return this.concurrentEmbedding ? getExecutor() : CALLING_THREAD;
+	}
+
+	/**
+	 * Asynchronously embeds urls in an existing document, using the {@link #getExecutor()
+	 * default executor}.
+	 * @param document an existing document, will be modified when the returned future
+	 * completes
+	 * @return the modified document with embedded urls
+	 * @see #embedUrlsAsync(Document, Executor)
+	 */
+	public CompletableFuture<Document> embedUrlsAsync(final Document document) {
+		return embedUrlsAsync(document, getExecutor());
+	}
+
+	/**
+	 * Asynchronously embeds urls in an existing document. The distinct absolute urls of
+	 * all anchors are collected first, so that each url is requested only once, and are
+	 * then resolved concurrently by the given executor, at most
+	 * {@link #getEmbedParallelism()} at the same time. The document itself is only
+	 * modified after all urls have been resolved, rendering and replacing the anchors in
+	 * a single pass in their original order.
+	 * @param document an existing document, will be modified when the returned future
+	 * completes
+	 * @param executor the executor to use
+	 * @return the modified document with embedded urls
+	 */
+	public CompletableFuture<Document> embedUrlsAsync(final Document document, final Executor executor) {
+		final List<Element> anchors = document.getElementsByTag("a");
+		final List<String> urls = new ArrayList<>(anchors.size());
+		final Map<String, CompletableFuture<Optional<Embedding>>> embeddings = new LinkedHashMap<>();
+		final BoundedExecutor boundedExecutor = new BoundedExecutor(executor, this.embedParallelism);
+		for (Element a : anchors) {
+			final String absUrl = canonicalize(a.absUrl("href").trim());
+			urls.add(absUrl);
+			if (absUrl.isEmpty() || embeddings.containsKey(absUrl) || isKnownNotEmbeddable(absUrl)) {
+				continue;
 			}
+			embeddings.put(absUrl, boundedExecutor.supplyAsync(() -> {
+				// Match the url only once for getting the response and picking the
+				// renderer
+				final Optional<ResolvedEndpoint> configuredEndpoint = this.endpoints.find(absUrl);
+				return this.getOembedResponseFor(absUrl, () -> configuredEndpoint)
+					.map(response -> new Embedding(response,
+							configuredEndpoint.map(ResolvedEndpoint::getRenderer).orElse(this.defaultRenderer)));
+			}));
 		}
-		return document;
+
+		return CompletableFuture.allOf(embeddings.values().toArray(new CompletableFuture<?>[0])).thenApply(ignored -> {
+			for (int i = 0; i < anchors.size(); ++i) {
+				final Element a = anchors.get(i);
+				final Optional<String> html = embeddings
+					.getOrDefault(urls.get(i), CompletableFuture.completedFuture(Optional.empty()))
+					.join()
+					.map(embedding -> embedding.renderer().render(embedding.response(), a.clone()));
+				if (html.isPresent() && !html.get().trim().isEmpty()) {
+					a.before(html.get().trim());
+					a.remove();
+				}
+			}
+			return document;
+		});
 	}
 
 	/**
@@ -476,4 +1883,34 @@ public class OembedService {
 		return this.parsers.get(format);
 	}
 
+	/**
+	 * A resolved response together with the renderer of its endpoint.
+	 *
+	 * @param response the oembed response
+	 * @param renderer the renderer to use
+	 */
+	private record Embedding(OembedResponse response, OembedResponseRenderer renderer) {
+	}
+
+	/**
+	 * The result of an autodiscovery.
+	 *
+	 * @param endpoint the discovered endpoint, if any
+	 * @param failure the class of the failure if no endpoint was discovered
+	 */
+	private record Discovery(Optional<ResolvedEndpoint> endpoint, FetchFailure failure) {
+	}
+
+	/**
+	 * Handles the response of a request.
+	 *
+	 * @param <T> the type of the result
+	 */
+	@FunctionalInterface
+	private interface ResponseHandler<T> {
+
+		T handle(TransportResponse response) throws IOException;
+
+	}
+
 }
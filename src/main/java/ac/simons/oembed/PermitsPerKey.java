@@ -0,0 +1,128 @@
+/*
+ * Created by Michael Simons, michael-simons.eu
+ * and released under The BSD License
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * Copyright (c) 2010-2026, Michael Simons
+ * All rights reserved.
+ *
+ * Redistribution  and  use  in  source   and  binary  forms,  with  or   without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source   code must retain   the above copyright   notice,
+ *   this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary  form must reproduce  the above copyright  notice,
+ *   this list of conditions  and the following  disclaimer in the  documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name  of  michael-simons.eu   nor the names  of its contributors
+ *   may be used  to endorse   or promote  products derived  from  this  software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE  COPYRIGHT HOLDERS AND  CONTRIBUTORS "AS IS"
+ * AND ANY  EXPRESS OR  IMPLIED WARRANTIES,  INCLUDING, BUT  NOT LIMITED  TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL  THE COPYRIGHT HOLDER OR CONTRIBUTORS  BE LIABLE
+ * FOR ANY  DIRECT, INDIRECT,  INCIDENTAL, SPECIAL,  EXEMPLARY, OR  CONSEQUENTIAL
+ * DAMAGES (INCLUDING,  BUT NOT  LIMITED TO,  PROCUREMENT OF  SUBSTITUTE GOODS OR
+ * SERVICES; LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT  LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE  USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package ac.simons.oembed;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Limits the number of concurrent holders of permits per key, for example per host. A key
+ * only occupies memory while its permits are held or awaited: the semaphore of a key is
+ * removed together with its last holder or waiter, so that the number of entries is
+ * bounded by the number of concurrent callers, not by the number of keys ever seen.
+ *
+ * @author Michael J. Simons
+ * @since 2026-10-17
+ */
+final class PermitsPerKey {
+
+	private final int permits;
+
+	private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+	/**
+	 * Creates new permits.
+	 * @param permits the number of permits per key, must be at least 1
+	 */
+	PermitsPerKey(final int permits) {
+		if (permits < 1) {
+			throw new IllegalArgumentException("The number of permits must be at least 1");
+		}
+		this.permits = permits;
+	}
+
+	/**
+	 * Acquires a permit for the given key, waiting in order of arrival until one is
+	 * available.
+	 * @param key the key to acquire a permit for
+	 * @return releases the permit, calling it more than once has no effect
+	 * @throws InterruptedException if the current thread is interrupted while waiting
+	 */
+	Runnable acquire(final String key) throws InterruptedException {
+		final Entry entry = this.entries.compute(key, (k, existing) -> {
+			final Entry rv = (existing != null) ? existing : new Entry(new Semaphore(this.permits, true));
+			++rv.users;
+			return rv;
+		});
+		try {
+			entry.semaphore.acquire();
+		}
+		catch (InterruptedException ex) {
+			leave(key);
+			throw ex;
+		}
+		final AtomicBoolean released = new AtomicBoolean();
+		return () -> {
+			if (released.compareAndSet(false, true)) {
+				entry.semaphore.release();
+				leave(key);
+			}
+		};
+	}
+
+	/**
+	 * Removes a holder or waiter from the entry of the given key, removing the entry once
+	 * it is unused.
+	 * @param key the key of the entry
+	 */
+	private void leave(final String key) {
+		this.entries.computeIfPresent(key, (k, entry) -> (--entry.users == 0) ? null : entry);
+	}
+
+	/**
+	 * {@return the number of keys whose permits are currently held or awaited}
+	 */
+	int size() {
+		return this.entries.size();
+	}
+
+	/**
+	 * The semaphore of a key together with the number of its holders and waiters, which
+	 * is only changed while the map locks the key.
+	 */
+	private static final class Entry {
+
+		private final Semaphore semaphore;
+
+		private int users;
+
+		Entry(final Semaphore semaphore) {
+			this.semaphore = semaphore;
+		}
+
+	}
+
+}
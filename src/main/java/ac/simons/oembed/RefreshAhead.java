@@ -0,0 +1,234 @@
+/*
+ * Created by Michael Simons, michael-simons.eu
+ * and released under The BSD License
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * Copyright (c) 2010-2026, Michael Simons
+ * All rights reserved.
+ *
+ * Redistribution  and  use  in  source   and  binary  forms,  with  or   without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source   code must retain   the above copyright   notice,
+ *   this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary  form must reproduce  the above copyright  notice,
+ *   this list of conditions  and the following  disclaimer in the  documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name  of  michael-simons.eu   nor the names  of its contributors
+ *   may be used  to endorse   or promote  products derived  from  this  software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE  COPYRIGHT HOLDERS AND  CONTRIBUTORS "AS IS"
+ * AND ANY  EXPRESS OR  IMPLIED WARRANTIES,  INCLUDING, BUT  NOT LIMITED  TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL  THE COPYRIGHT HOLDER OR CONTRIBUTORS  BE LIABLE
+ * FOR ANY  DIRECT, INDIRECT,  INCIDENTAL, SPECIAL,  EXEMPLARY, OR  CONSEQUENTIAL
+ * DAMAGES (INCLUDING,  BUT NOT  LIMITED TO,  PROCUREMENT OF  SUBSTITUTE GOODS OR
+ * SERVICES; LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT  LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE  USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package ac.simons.oembed;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Decides which cached responses are refreshed before they expire. A response is due if
+ * its url is hot, that is requested frequently according to a {@link FrequencySketch},
+ * and the response is in the last tenth of its lifetime. Refreshes are limited in rate
+ * and concurrency per endpoint, as configured by
+ * {@link OembedEndpoint#getRefreshAheadRate()} and
+ * {@link OembedEndpoint#getMaxConcurrentRefreshes()}. The limits follow changes of these
+ * properties. They are tracked for at most {@link #MAX_TRACKED_ENDPOINTS} endpoints, idle
+ * endpoints are forgotten first.
+ *
+ * @author Michael J. Simons
+ * @since 2026-10-17
+ */
+final class RefreshAhead {
+
+	/**
+	 * The estimated number of requests that makes an url hot.
+	 */
+	static final int HOT_FREQUENCY = 4;
+
+	/**
+	 * The maximum number of endpoints whose limits are tracked.
+	 */
+	static final int MAX_TRACKED_ENDPOINTS = 1024;
+
+	/**
+	 * Responses are refreshed within this part of their lifetime before they expire.
+	 */
+	private static final int REFRESH_WINDOW_DIVISOR = 10;
+
+	private static final long NANOS_PER_MINUTE = Duration.ofMinutes(1).toNanos();
+
+	private final FrequencySketch sketch;
+
+	private final LongSupplier nanoTime;
+
+	/**
+	 * Limits by endpoint url.
+	 */
+	private final Map<String, Limits> limits = new ConcurrentHashMap<>();
+
+	/**
+	 * Creates a new instance.
+	 * @param expectedSize the expected number of distinct urls, used for sizing the
+	 * sketch
+	 */
+	RefreshAhead(final int expectedSize) {
+		this(expectedSize, System::nanoTime);
+	}
+
+	RefreshAhead(final int expectedSize, final LongSupplier nanoTime) {
+		this.sketch = new FrequencySketch(expectedSize);
+		this.nanoTime = nanoTime;
+	}
+
+	/**
+	 * Records a request of an url whose response is cached and checks whether the
+	 * response is due for refreshing.
+	 * @param url the requested url
+	 * @param cachedResponse the cached response
+	 * @param now the current time
+	 * @return true if the url is hot and the response is close to expiry
+	 */
+	boolean isDue(final String url, final CachedResponse cachedResponse, final Instant now) {
+		this.sketch.increment(url);
+		final Duration lifetime = Duration.between(cachedResponse.getStoredAt(), cachedResponse.getExpiresAt());
+		final Duration remaining = Duration.between(now, cachedResponse.getExpiresAt());
+		return remaining.compareTo(lifetime.dividedBy(REFRESH_WINDOW_DIVISOR)) <= 0
+				&& this.sketch.frequency(url) >= HOT_FREQUENCY;
+	}
+
+	/**
+	 * Tries to acquire a permit for refreshing a response of the endpoint.
+	 * @param endpoint the endpoint of the response
+	 * @return releases the permit after the refresh, empty if the refresh is not within
+	 * the limits of the endpoint
+	 */
+	Optional<Runnable> tryAcquire(final OembedEndpoint endpoint) {
+		final int refreshesPerMinute = endpoint.getRefreshAheadRate();
+		final int maxConcurrentRefreshes = endpoint.getMaxConcurrentRefreshes();
+		if (endpoint.getEndpoint() == null || refreshesPerMinute < 1 || maxConcurrentRefreshes < 1) {
+			return Optional.empty();
+		}
+		final long now = this.nanoTime.getAsLong();
+		if (this.limits.size() >= MAX_TRACKED_ENDPOINTS && !this.limits.containsKey(endpoint.getEndpoint())) {
+			evict(now);
+		}
+		final Limits endpointLimits = this.limits.compute(endpoint.getEndpoint(),
+				(key, existing) -> (existing != null && existing.isFor(refreshesPerMinute, maxConcurrentRefreshes))
+						? existing : new Limits(refreshesPerMinute, maxConcurrentRefreshes, now));
+		if (!endpointLimits.concurrentRefreshes.tryAcquire()) {
+			return Optional.empty();
+		}
+		if (!endpointLimits.tryAcquireRate(now)) {
+			endpointLimits.concurrentRefreshes.release();
+			return Optional.empty();
+		}
+		return Optional.of(endpointLimits.concurrentRefreshes::release);
+	}
+
+	/**
+	 * Forgets idle endpoints, whose limits are in their initial state anyway, and then
+	 * arbitrary endpoints until there is room for another one. Permits of forgotten
+	 * endpoints are still released to their own limits.
+	 * @param now the current time
+	 */
+	private void evict(final long now) {
+		this.limits.values().removeIf(endpointLimits -> endpointLimits.isIdle(now));
+		final Iterator<Limits> iterator = this.limits.values().iterator();
+		while (this.limits.size() >= MAX_TRACKED_ENDPOINTS && iterator.hasNext()) {
+			iterator.next();
+			iterator.remove();
+		}
+	}
+
+	/**
+	 * {@return the number of endpoints whose limits are tracked}
+	 */
+	int size() {
+		return this.limits.size();
+	}
+
+	/**
+	 * The rate and concurrency limits of one endpoint.
+	 */
+	private static final class Limits {
+
+		private final int refreshesPerMinute;
+
+		private final int maxConcurrentRefreshes;
+
+		private final long interval;
+
+		private final Semaphore concurrentRefreshes;
+
+		/**
+		 * The time the next refresh may start.
+		 */
+		private final AtomicLong nextRefresh;
+
+		Limits(final int refreshesPerMinute, final int maxConcurrentRefreshes, final long now) {
+			this.refreshesPerMinute = refreshesPerMinute;
+			this.maxConcurrentRefreshes = maxConcurrentRefreshes;
+			this.interval = NANOS_PER_MINUTE / refreshesPerMinute;
+			this.concurrentRefreshes = new Semaphore(maxConcurrentRefreshes);
+			this.nextRefresh = new AtomicLong(now);
+		}
+
+		/**
+		 * Checks whether these limits have been created for the given configuration.
+		 * @param refreshesPerMinute the configured rate
+		 * @param maxConcurrentRefreshes the configured concurrency
+		 * @return true if the configuration is unchanged
+		 */
+		boolean isFor(final int refreshesPerMinute, final int maxConcurrentRefreshes) {
+			return this.refreshesPerMinute == refreshesPerMinute
+					&& this.maxConcurrentRefreshes == maxConcurrentRefreshes;
+		}
+
+		/**
+		 * Checks whether no refresh is running and the next one may start.
+		 * @param now the current time
+		 * @return true if forgetting these limits changes nothing
+		 */
+		boolean isIdle(final long now) {
+			return this.concurrentRefreshes.availablePermits() == this.maxConcurrentRefreshes
+					&& now - this.nextRefresh.get() >= 0;
+		}
+
+		/**
+		 * Spaces refreshes evenly by the interval of the rate.
+		 * @param now the current time
+		 * @return true if a refresh may start
+		 */
+		boolean tryAcquireRate(final long now) {
+			long next;
+			do {
+				next = this.nextRefresh.get();
+				if (now - next < 0) {
+					return false;
+				}
+			}
+			while (!this.nextRefresh.compareAndSet(next, now + this.interval));
+			return true;
+		}
+
+	}
+
+}
@@ -0,0 +1,149 @@
+/*
+ * Created by Michael Simons, michael-simons.eu
+ * and released under The BSD License
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * Copyright (c) 2010-2026, Michael Simons
+ * All rights reserved.
+ *
+ * Redistribution  and  use  in  source   and  binary  forms,  with  or   without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source   code must retain   the above copyright   notice,
+ *   this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary  form must reproduce  the above copyright  notice,
+ *   this list of conditions  and the following  disclaimer in the  documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name  of  michael-simons.eu   nor the names  of its contributors
+ *   may be used  to endorse   or promote  products derived  from  this  software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE  COPYRIGHT HOLDERS AND  CONTRIBUTORS "AS IS"
+ * AND ANY  EXPRESS OR  IMPLIED WARRANTIES,  INCLUDING, BUT  NOT LIMITED  TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL  THE COPYRIGHT HOLDER OR CONTRIBUTORS  BE LIABLE
+ * FOR ANY  DIRECT, INDIRECT,  INCIDENTAL, SPECIAL,  EXEMPLARY, OR  CONSEQUENTIAL
+ * DAMAGES (INCLUDING,  BUT NOT  LIMITED TO,  PROCUREMENT OF  SUBSTITUTE GOODS OR
+ * SERVICES; LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT  LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE  USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package ac.simons.oembed;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * A matching engine based on {@link java.util.regex.Pattern}. It supports the full Java
+ * regular expression syntax, including back references and lookarounds, but the
+ * backtracking nature of the JDK engine may lead to very long matching times for
+ * unfortunate combinations of schemes and urls. Use this engine only if all schemes are
+ * trusted and can't be expressed for the {@link AutomatonMatchingEngine}.
+ *
+ * @author Michael J. Simons
+ * @since 2026-10-17
+ */
+public final class RegexMatchingEngine implements UrlMatchingEngine {
+
+	/**
+	 * Used to detect numbered or named back references, which cannot be combined into one
+	 * pattern without changing their meaning.
+	 */
+	private static final Pattern BACK_REFERENCE = Pattern.compile("\\\\(?:[1-9]|k<)");
+
+	@Override
+	public UrlMatcher compile(final List<String> urlSchemes) {
+		try {
+			return new CombinedPatternMatcher(urlSchemes);
+		}
+		catch (PatternSyntaxException ex) {
+			throw new OembedException(ex);
+		}
+	}
+
+	/**
+	 * All schemes are compiled into a single pattern in which every scheme owns one
+	 * capturing group.
+	 */
+	private static final class CombinedPatternMatcher implements UrlMatcher {
+
+		/**
+		 * A single pattern made up of all schemes. Is {@literal null} if the schemes
+		 * cannot be combined.
+		 */
+		private final Pattern combinedPattern;
+
+		/**
+		 * The number of the capturing group in {@link #combinedPattern} for each scheme.
+		 */
+		private final int[] groups;
+
+		/**
+		 * One precompiled pattern per scheme, used when the schemes cannot be combined.
+		 */
+		private final List<Pattern> patterns;
+
+		CombinedPatternMatcher(final List<String> urlSchemes) {
+			this.groups = new int[urlSchemes.size()];
+			this.patterns = new ArrayList<>(urlSchemes.size());
+
+			final StringBuilder combined = new StringBuilder();
+			boolean combinable = true;
+			int group = 0;
+			for (int i = 0; i < urlSchemes.size(); ++i) {
+				final String scheme = urlSchemes.get(i);
+				final Pattern pattern = Pattern.compile(scheme);
+				this.patterns.add(pattern);
+				combinable &= !BACK_REFERENCE.matcher(scheme).find();
+
+				if (combined.length() > 0) {
+					combined.append('|');
+				}
+				combined.append('(').append(scheme).append(')');
+				this.groups[i] = ++group;
+				group += pattern.matcher("").groupCount();
+			}
+
+			Pattern hlp = null;
+			if (combinable && urlSchemes.size() > 1) {
+				try {
+					hlp = Pattern.compile(combined.toString());
+				}
+				catch (PatternSyntaxException ex) {
+					// Duplicate group names and the like, falling back to single patterns
+				}
+			}
+			this.combinedPattern = hlp;
+		}
+
+		@Override
+		public int indexOfFirstMatch(final String url) {
+			if (this.combinedPattern != null) {
+				final Matcher matcher = this.combinedPattern.matcher(url);
+				if (matcher.matches()) {
+					for (int i = 0; i < this.groups.length; ++i) {
+						if (matcher.start(this.groups[i]) >= 0) {
+							return i;
+						}
+					}
+				}
+				return -1;
+			}
+
+			for (int i = 0; i < this.patterns.size(); ++i) {
+				if (this.patterns.get(i).matcher(url).matches()) {
+					return i;
+				}
+			}
+			return -1;
+		}
+
+	}
+
+}
@@ -55,4 +55,19 @@ public interface RequestProvider {
 	 */
 	HttpGet createRequestFor(String userAgent, String applicationName, URI uri);
 
+	/**
+	 * Creates the request executed by the {@link HttpTransport} of the service. The
+	 * default implementation adapts the request created by
+	 * {@link #createRequestFor(String, String, URI)}.
+	 * @param userAgent our user agent
+	 * @param applicationName an optional application name, will be added to the userAgent
+	 * if present
+	 * @param uri the api url of the oembed endpoint
+	 * @return the transport request for the url {@code url}
+	 */
+	default TransportRequest createTransportRequestFor(final String userAgent, final String applicationName,
+			final URI uri) {
+		return ApacheHttpTransport.adapt(createRequestFor(userAgent, applicationName, uri));
+	}
+
 }
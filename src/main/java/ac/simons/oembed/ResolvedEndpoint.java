@@ -0,0 +1,80 @@
+/*
+ * Created by Michael Simons, michael-simons.eu
+ * and released under The BSD License
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * Copyright (c) 2010-2026, Michael Simons
+ * All rights reserved.
+ *
+ * Redistribution  and  use  in  source   and  binary  forms,  with  or   without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source   code must retain   the above copyright   notice,
+ *   this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary  form must reproduce  the above copyright  notice,
+ *   this list of conditions  and the following  disclaimer in the  documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name  of  michael-simons.eu   nor the names  of its contributors
+ *   may be used  to endorse   or promote  products derived  from  this  software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE  COPYRIGHT HOLDERS AND  CONTRIBUTORS "AS IS"
+ * AND ANY  EXPRESS OR  IMPLIED WARRANTIES,  INCLUDING, BUT  NOT LIMITED  TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL  THE COPYRIGHT HOLDER OR CONTRIBUTORS  BE LIABLE
+ * FOR ANY  DIRECT, INDIRECT,  INCIDENTAL, SPECIAL,  EXEMPLARY, OR  CONSEQUENTIAL
+ * DAMAGES (INCLUDING,  BUT NOT  LIMITED TO,  PROCUREMENT OF  SUBSTITUTE GOODS OR
+ * SERVICES; LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT  LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE  USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package ac.simons.oembed;
+
+/**
+ * An endpoint together with the request provider and the response renderer to use with
+ * it. Resolving an url to such an instance once is enough to fetch and render an oembed
+ * response.
+ *
+ * @author Michael J. Simons
+ * @since 2026-10-17
+ */
+final class ResolvedEndpoint {
+
+	/**
+	 * The endpoint itself.
+	 */
+	private final OembedEndpoint endpoint;
+
+	/**
+	 * The request provider for the endpoint.
+	 */
+	private final RequestProvider requestProvider;
+
+	/**
+	 * The response renderer for the endpoint.
+	 */
+	private final OembedResponseRenderer renderer;
+
+	ResolvedEndpoint(final OembedEndpoint endpoint, final RequestProvider requestProvider,
+			final OembedResponseRenderer renderer) {
+		this.endpoint = endpoint;
+		this.requestProvider = requestProvider;
+		this.renderer = renderer;
+	}
+
+	OembedEndpoint getEndpoint() {
+		return this.endpoint;
+	}
+
+	RequestProvider getRequestProvider() {
+		return this.requestProvider;
+	}
+
+	OembedResponseRenderer getRenderer() {
+		return this.renderer;
+	}
+
+}
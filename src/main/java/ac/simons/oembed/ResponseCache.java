@@ -0,0 +1,87 @@
+/*
+ * Created by Michael Simons, michael-simons.eu
+ * and released under The BSD License
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * Copyright (c) 2010-2026, Michael Simons
+ * All rights reserved.
+ *
+ * Redistribution  and  use  in  source   and  binary  forms,  with  or   without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source   code must retain   the above copyright   notice,
+ *   this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary  form must reproduce  the above copyright  notice,
+ *   this list of conditions  and the following  disclaimer in the  documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name  of  michael-simons.eu   nor the names  of its contributors
+ *   may be used  to endorse   or promote  products derived  from  this  software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE  COPYRIGHT HOLDERS AND  CONTRIBUTORS "AS IS"
+ * AND ANY  EXPRESS OR  IMPLIED WARRANTIES,  INCLUDING, BUT  NOT LIMITED  TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL  THE COPYRIGHT HOLDER OR CONTRIBUTORS  BE LIABLE
+ * FOR ANY  DIRECT, INDIRECT,  INCIDENTAL, SPECIAL,  EXEMPLARY, OR  CONSEQUENTIAL
+ * DAMAGES (INCLUDING,  BUT NOT  LIMITED TO,  PROCUREMENT OF  SUBSTITUTE GOODS OR
+ * SERVICES; LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT  LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE  USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package ac.simons.oembed;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * A cache for oembed responses by url. Adapters exist for Ehcache 2
+ * ({@link EhcacheResponseCache}), JCache ({@link JCacheResponseCache}) and a dependency
+ * free, in-memory cache ({@link InMemoryResponseCache}).
+ *
+ * @author Michael J. Simons
+ * @since 2026-10-17
+ */
+public interface ResponseCache {
+
+	/**
+	 * Looks up the response for an url.
+	 * @param url the url
+	 * @return the cached response, if any
+	 */
+	Optional<CachedResponse> get(String url);
+
+	/**
+	 * Looks up the responses for several urls. The default implementation looks up each
+	 * url on its own.
+	 * @param urls the urls
+	 * @return the cached responses by url, urls without response are missing
+	 */
+	default Map<String, CachedResponse> getAll(final Collection<String> urls) {
+		final Map<String, CachedResponse> rv = new LinkedHashMap<>();
+		for (String url : urls) {
+			get(url).ifPresent(response -> rv.put(url, response));
+		}
+		return rv;
+	}
+
+	/**
+	 * Stores the response for an url.
+	 * @param url the url
+	 * @param response the response to store
+	 * @param timeToLive the time after which the response is removed from the cache
+	 */
+	void put(String url, CachedResponse response, Duration timeToLive);
+
+	/**
+	 * Removes the response for an url.
+	 * @param url the url
+	 */
+	void invalidate(String url);
+
+}
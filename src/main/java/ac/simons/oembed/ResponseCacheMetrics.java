@@ -0,0 +1,131 @@
+/*
+ * Created by Michael Simons, michael-simons.eu
+ * and released under The BSD License
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * Copyright (c) 2010-2026, Michael Simons
+ * All rights reserved.
+ *
+ * Redistribution  and  use  in  source   and  binary  forms,  with  or   without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source   code must retain   the above copyright   notice,
+ *   this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary  form must reproduce  the above copyright  notice,
+ *   this list of conditions  and the following  disclaimer in the  documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name  of  michael-simons.eu   nor the names  of its contributors
+ *   may be used  to endorse   or promote  products derived  from  this  software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE  COPYRIGHT HOLDERS AND  CONTRIBUTORS "AS IS"
+ * AND ANY  EXPRESS OR  IMPLIED WARRANTIES,  INCLUDING, BUT  NOT LIMITED  TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL  THE COPYRIGHT HOLDER OR CONTRIBUTORS  BE LIABLE
+ * FOR ANY  DIRECT, INDIRECT,  INCIDENTAL, SPECIAL,  EXEMPLARY, OR  CONSEQUENTIAL
+ * DAMAGES (INCLUDING,  BUT NOT  LIMITED TO,  PROCUREMENT OF  SUBSTITUTE GOODS OR
+ * SERVICES; LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT  LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE  USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package ac.simons.oembed;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * A snapshot of the lookups in the response cache of an {@link OembedService}. Lookups
+ * that found a cached failure are counted as negative hits, separately per class of
+ * failure.
+ *
+ * @author Michael J. Simons
+ * @since 2026-10-17
+ */
+public final class ResponseCacheMetrics {
+
+	/**
+	 * Number of lookups that found a fresh response.
+	 */
+	private final long hits;
+
+	/**
+	 * Number of lookups that got an expired response while it was refreshed or could not
+	 * be refreshed.
+	 */
+	private final long staleHits;
+
+	/**
+	 * Number of lookups that found a fresh failure, by class of failure.
+	 */
+	private final Map<FetchFailure, Long> negativeHits;
+
+	/**
+	 * Number of lookups that had to request the provider.
+	 */
+	private final long misses;
+
+	/**
+	 * Creates a new snapshot.
+	 * @param hits number of lookups that found a fresh response
+	 * @param staleHits number of lookups that got an expired response
+	 * @param negativeHits number of lookups that found a fresh failure, by class of
+	 * failure, missing classes are counted as 0
+	 * @param misses number of lookups that had to request the provider
+	 */
+	public ResponseCacheMetrics(final long hits, final long staleHits, final Map<FetchFailure, Long> negativeHits,
+			final long misses) {
+		this.hits = hits;
+		this.staleHits = staleHits;
+		final Map<FetchFailure, Long> allNegativeHits = new EnumMap<>(FetchFailure.class);
+		for (FetchFailure failure : FetchFailure.values()) {
+			allNegativeHits.put(failure, negativeHits.getOrDefault(failure, 0L));
+		}
+		this.negativeHits = Collections.unmodifiableMap(allNegativeHits);
+		this.misses = misses;
+	}
+
+	public long getHits() {
+		return this.hits;
+	}
+
+	public long getStaleHits() {
+		return this.staleHits;
+	}
+
+	/**
+	 * {@return the number of lookups that found a fresh failure of any class}
+	 */
+	public long getNegativeHits() {
+		return this.negativeHits.values().stream().mapToLong(Long::longValue).sum();
+	}
+
+	/**
+	 * {@return the number of lookups that found a fresh failure of the given class}
+	 * @param failure the class of failure
+	 */
+	public long getNegativeHits(final FetchFailure failure) {
+		return this.negativeHits.get(failure);
+	}
+
+	/**
+	 * {@return the number of lookups that found a fresh failure, by class of failure}
+	 */
+	public Map<FetchFailure, Long> getNegativeHitsByFailure() {
+		return this.negativeHits;
+	}
+
+	public long getMisses() {
+		return this.misses;
+	}
+
+	@Override
+	public String toString() {
+		return "ResponseCacheMetrics[hits=" + this.hits + ", staleHits=" + this.staleHits + ", negativeHits="
+				+ this.negativeHits + ", misses=" + this.misses + "]";
+	}
+
+}
@@ -0,0 +1,98 @@
+/*
+ * Created by Michael Simons, michael-simons.eu
+ * and released under The BSD License
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * Copyright (c) 2010-2026, Michael Simons
+ * All rights reserved.
+ *
+ * Redistribution  and  use  in  source   and  binary  forms,  with  or   without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source   code must retain   the above copyright   notice,
+ *   this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary  form must reproduce  the above copyright  notice,
+ *   this list of conditions  and the following  disclaimer in the  documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name  of  michael-simons.eu   nor the names  of its contributors
+ *   may be used  to endorse   or promote  products derived  from  this  software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE  COPYRIGHT HOLDERS AND  CONTRIBUTORS "AS IS"
+ * AND ANY  EXPRESS OR  IMPLIED WARRANTIES,  INCLUDING, BUT  NOT LIMITED  TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL  THE COPYRIGHT HOLDER OR CONTRIBUTORS  BE LIABLE
+ * FOR ANY  DIRECT, INDIRECT,  INCIDENTAL, SPECIAL,  EXEMPLARY, OR  CONSEQUENTIAL
+ * DAMAGES (INCLUDING,  BUT NOT  LIMITED TO,  PROCUREMENT OF  SUBSTITUTE GOODS OR
+ * SERVICES; LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT  LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE  USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package ac.simons.oembed;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent calls for the same key: Only the first caller runs the loader,
+ * callers arriving while it is still running wait for its result instead of running the
+ * loader again. Results are not retained, a call arriving after the loader finished runs
+ * the loader again.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the results
+ * @author Michael J. Simons
+ * @since 2026-10-17
+ */
+final class SingleFlight<K, V> {
+
+	private final Map<K, CompletableFuture<V>> calls = new ConcurrentHashMap<>();
+
+	/**
+	 * Runs the loader for the given key unless a call for the same key is in flight, in
+	 * which case that call is awaited. Runtime exceptions of the loader are thrown to all
+	 * waiting callers.
+	 * @param key the key identifying the call
+	 * @param loader the loader computing the result
+	 * @return the result of the loader
+	 */
+	V execute(final K key, final Supplier<V> loader) {
+		final CompletableFuture<V> call = new CompletableFuture<>();
+		final CompletableFuture<V> inFlight = this.calls.putIfAbsent(key, call);
+		if (inFlight != null) {
+			try {
+				return inFlight.join();
+			}
+			catch (CompletionException ex) {
+				throw (ex.getCause() instanceof RuntimeException cause) ? cause : ex;
+			}
+		}
+
+		try {
+			final V rv = loader.get();
+			call.complete(rv);
+			return rv;
+		}
+		catch (RuntimeException | Error ex) {
+			call.completeExceptionally(ex);
+			throw ex;
+		}
+		finally {
+			this.calls.remove(key, call);
+		}
+	}
+
+	/**
+	 * {@return the number of calls currently in flight}
+	 */
+	int size() {
+		return this.calls.size();
+	}
+
+}
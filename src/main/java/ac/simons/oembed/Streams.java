@@ -0,0 +1,307 @@
+/*
+ * Created by Michael Simons, michael-simons.eu
+ * and released under The BSD License
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * Copyright (c) 2010-2026, Michael Simons
+ * All rights reserved.
+ *
+ * Redistribution  and  use  in  source   and  binary  forms,  with  or   without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source   code must retain   the above copyright   notice,
+ *   this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary  form must reproduce  the above copyright  notice,
+ *   this list of conditions  and the following  disclaimer in the  documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name  of  michael-simons.eu   nor the names  of its contributors
+ *   may be used  to endorse   or promote  products derived  from  this  software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE  COPYRIGHT HOLDERS AND  CONTRIBUTORS "AS IS"
+ * AND ANY  EXPRESS OR  IMPLIED WARRANTIES,  INCLUDING, BUT  NOT LIMITED  TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL  THE COPYRIGHT HOLDER OR CONTRIBUTORS  BE LIABLE
+ * FOR ANY  DIRECT, INDIRECT,  INCIDENTAL, SPECIAL,  EXEMPLARY, OR  CONSEQUENTIAL
+ * DAMAGES (INCLUDING,  BUT NOT  LIMITED TO,  PROCUREMENT OF  SUBSTITUTE GOODS OR
+ * SERVICES; LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT  LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE  USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package ac.simons.oembed;
+
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Utilities for dealing with the bodies of responses.
+ *
+ * @author Michael J. Simons
+ * @since 2026-10-17
+ */
+final class Streams {
+
+	/**
+	 * Maximum number of unread bytes consumed when closing a response, so that its
+	 * connection can be reused. Connections of responses with more unread bytes are
+	 * aborted.
+	 */
+	static final int MAX_DRAIN_SIZE = 64 * 1024;
+
+	/**
+	 * The content codings accepted by requests and decoded by
+	 * {@link #decoding(InputStream, String)}.
+	 */
+	static final String SUPPORTED_ENCODINGS = "gzip, deflate";
+
+	private Streams() {
+	}
+
+	/**
+	 * Reads and discards at most {@code limit} bytes from the given stream.
+	 * @param in the stream to drain, may be null
+	 * @param limit the maximum number of bytes to read
+	 * @return true if the end of the stream has been reached
+	 * @throws IOException if reading fails
+	 */
+	static boolean drain(final InputStream in, final long limit) throws IOException {
+		if (in == null) {
+			return true;
+		}
+		final byte[] buffer = new byte[8192];
+		long remaining = limit;
+		while (remaining >= 0) {
+			final int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining + 1));
+			if (read < 0) {
+				return true;
+			}
+			remaining -= read;
+		}
+		return false;
+	}
+
+	/**
+	 * Wraps the body of a response so that closing it consumes a small rest, allowing the
+	 * connection to be reused. If the rest is larger than {@link #MAX_DRAIN_SIZE},
+	 * {@code abort} is closed before the body. Closing the returned stream more than once
+	 * has no effect.
+	 * @param body the body of a response
+	 * @param abort aborts the connection, may be null
+	 * @return a stream draining the body when closed
+	 */
+	static DrainingInputStream draining(final InputStream body, final Closeable abort) {
+		return new DrainingInputStream(body, abort);
+	}
+
+	/**
+	 * Decodes a body according to the content codings of its {@code Content-Encoding}
+	 * header. The body is decoded while being read and not buffered.
+	 * @param body the body to decode
+	 * @param contentEncoding the value of the {@code Content-Encoding} header, may be
+	 * {@literal null}
+	 * @return a stream returning the decoded body
+	 * @throws IOException if a coding is not supported or the body cannot be decoded
+	 */
+	static InputStream decoding(final InputStream body, final String contentEncoding) throws IOException {
+		if (contentEncoding == null) {
+			return body;
+		}
+		// Codings are listed in the order they have been applied
+		final String[] codings = contentEncoding.split(",");
+		InputStream rv = body;
+		for (int i = codings.length - 1; i >= 0; --i) {
+			final String coding = codings[i].trim().toLowerCase(Locale.ROOT);
+			rv = switch (coding) {
+				case "", "identity" -> rv;
+				case "gzip", "x-gzip" -> new GZIPInputStream(rv);
+				case "deflate" -> inflating(rv);
+				default -> throw new IOException("Unsupported content encoding '" + coding + "'");
+			};
+		}
+		return rv;
+	}
+
+	/**
+	 * Inflates deflate encoded bodies. Some servers send raw deflate data instead of the
+	 * zlib format, so the format is detected from the first two bytes. Empty bodies are
+	 * returned as is.
+	 * @param in the deflated stream
+	 * @return an inflating stream
+	 * @throws IOException if the first bytes cannot be read
+	 */
+	private static InputStream inflating(final InputStream in) throws IOException {
+		final PushbackInputStream pushback = new PushbackInputStream(in, 2);
+		final byte[] header = pushback.readNBytes(2);
+		if (header.length == 0) {
+			return pushback;
+		}
+		pushback.unread(header);
+		final boolean zlib = header.length == 2 && (header[0] & 0x0F) == 8
+				&& (((header[0] & 0xFF) << 8) | (header[1] & 0xFF)) % 31 == 0;
+		return new InflatingInputStream(pushback, new Inflater(!zlib));
+	}
+
+	/**
+	 * See {@link #draining(InputStream, Closeable)}.
+	 */
+	static final class DrainingInputStream extends FilterInputStream {
+
+		private final AtomicBoolean closed = new AtomicBoolean();
+
+		private final Closeable abort;
+
+		DrainingInputStream(final InputStream in, final Closeable abort) {
+			super(in);
+			this.abort = abort;
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (!this.closed.compareAndSet(false, true)) {
+				return;
+			}
+			boolean drained = false;
+			try {
+				drained = drain(this.in, MAX_DRAIN_SIZE);
+			}
+			finally {
+				try {
+					if (!drained && this.abort != null) {
+						this.abort.close();
+					}
+				}
+				finally {
+					this.in.close();
+				}
+			}
+		}
+
+		/**
+		 * Closes the body without consuming the rest, aborting the connection.
+		 * @throws IOException if closing fails
+		 */
+		void abort() throws IOException {
+			if (!this.closed.compareAndSet(false, true)) {
+				return;
+			}
+			try {
+				if (this.abort != null) {
+					this.abort.close();
+				}
+			}
+			finally {
+				this.in.close();
+			}
+		}
+
+	}
+
+	/**
+	 * An {@link InflaterInputStream} releasing its own inflater when being closed.
+	 */
+	private static final class InflatingInputStream extends InflaterInputStream {
+
+		InflatingInputStream(final InputStream in, final Inflater inflater) {
+			super(in, inflater);
+		}
+
+		@Override
+		public void close() throws IOException {
+			try {
+				super.close();
+			}
+			finally {
+				this.inf.end();
+			}
+		}
+
+	}
+
+	/**
+	 * A stream failing as soon as more than a maximum number of bytes has been read.
+	 */
+	static final class LimitedInputStream extends FilterInputStream {
+
+		private final long maximumSize;
+
+		private long count;
+
+		private boolean exceeded;
+
+		LimitedInputStream(final InputStream in, final long maximumSize) {
+			super(in);
+			this.maximumSize = maximumSize;
+		}
+
+		@Override
+		public int read() throws IOException {
+			checkNotExceeded();
+			final int rv = this.in.read();
+			if (rv >= 0) {
+				count(1);
+			}
+			return rv;
+		}
+
+		@Override
+		public int read(final byte[] b, final int off, final int len) throws IOException {
+			checkNotExceeded();
+			// Read at most one byte more than allowed, so that the limit is detected
+			// early
+			final int rv = this.in.read(b, off, (int) Math.min(len, this.maximumSize - this.count + 1));
+			if (rv > 0) {
+				count(rv);
+			}
+			return rv;
+		}
+
+		@Override
+		public long skip(final long n) throws IOException {
+			checkNotExceeded();
+			final long rv = this.in.skip(Math.min(n, this.maximumSize - this.count + 1));
+			if (rv > 0) {
+				count(rv);
+			}
+			return rv;
+		}
+
+		@Override
+		public boolean markSupported() {
+			return false;
+		}
+
+		/**
+		 * {@return true if more than the maximum number of bytes has been read}
+		 */
+		boolean isExceeded() {
+			return this.exceeded;
+		}
+
+		private void count(final long n) throws IOException {
+			this.count += n;
+			if (this.count > this.maximumSize) {
+				this.exceeded = true;
+				checkNotExceeded();
+			}
+		}
+
+		private void checkNotExceeded() throws IOException {
+			if (this.exceeded) {
+				throw new IOException("Maximum size of " + this.maximumSize + " bytes exceeded");
+			}
+		}
+
+	}
+
+}
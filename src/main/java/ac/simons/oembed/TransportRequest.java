@@ -0,0 +1,117 @@
+/*
+ * Created by Michael Simons, michael-simons.eu
+ * and released under The BSD License
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * Copyright (c) 2010-2026, Michael Simons
+ * All rights reserved.
+ *
+ * Redistribution  and  use  in  source   and  binary  forms,  with  or   without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source   code must retain   the above copyright   notice,
+ *   this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary  form must reproduce  the above copyright  notice,
+ *   this list of conditions  and the following  disclaimer in the  documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name  of  michael-simons.eu   nor the names  of its contributors
+ *   may be used  to endorse   or promote  products derived  from  this  software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE  COPYRIGHT HOLDERS AND  CONTRIBUTORS "AS IS"
+ * AND ANY  EXPRESS OR  IMPLIED WARRANTIES,  INCLUDING, BUT  NOT LIMITED  TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL  THE COPYRIGHT HOLDER OR CONTRIBUTORS  BE LIABLE
+ * FOR ANY  DIRECT, INDIRECT,  INCIDENTAL, SPECIAL,  EXEMPLARY, OR  CONSEQUENTIAL
+ * DAMAGES (INCLUDING,  BUT NOT  LIMITED TO,  PROCUREMENT OF  SUBSTITUTE GOODS OR
+ * SERVICES; LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT  LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE  USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package ac.simons.oembed;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * A request to be executed by a {@link HttpTransport}. The names of the headers are case
+ * insensitive.
+ *
+ * @author Michael J. Simons
+ * @since 2026-10-17
+ */
+public class TransportRequest {
+
+	/**
+	 * The HTTP method.
+	 */
+	private final String method;
+
+	/**
+	 * The requested uri.
+	 */
+	private final URI uri;
+
+	/**
+	 * The request headers.
+	 */
+	private final SortedMap<String, String> headers;
+
+	/**
+	 * Creates a new request.
+	 * @param method the HTTP method
+	 * @param uri the requested uri
+	 * @param headers the request headers
+	 */
+	public TransportRequest(final String method, final URI uri, final Map<String, String> headers) {
+		this.method = Objects.requireNonNull(method, "The method is required");
+		this.uri = Objects.requireNonNull(uri, "The uri is required");
+		final SortedMap<String, String> hlp = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+		hlp.putAll(headers);
+		this.headers = Collections.unmodifiableSortedMap(hlp);
+	}
+
+	/**
+	 * Creates a new GET request without headers.
+	 * @param uri the requested uri
+	 * @return a new GET request
+	 */
+	public static TransportRequest get(final URI uri) {
+		return get(uri, Map.of());
+	}
+
+	/**
+	 * Creates a new GET request.
+	 * @param uri the requested uri
+	 * @param headers the request headers
+	 * @return a new GET request
+	 */
+	public static TransportRequest get(final URI uri, final Map<String, String> headers) {
+		return new TransportRequest("GET", uri, headers);
+	}
+
+	public String getMethod() {
+		return this.method;
+	}
+
+	public URI getUri() {
+		return this.uri;
+	}
+
+	public Map<String, String> getHeaders() {
+		return this.headers;
+	}
+
+	@Override
+	public String toString() {
+		return this.method + " " + this.uri;
+	}
+
+}
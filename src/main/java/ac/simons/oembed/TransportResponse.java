@@ -0,0 +1,124 @@
+/*
+ * Created by Michael Simons, michael-simons.eu
+ * and released under The BSD License
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * Copyright (c) 2010-2026, Michael Simons
+ * All rights reserved.
+ *
+ * Redistribution  and  use  in  source   and  binary  forms,  with  or   without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source   code must retain   the above copyright   notice,
+ *   this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary  form must reproduce  the above copyright  notice,
+ *   this list of conditions  and the following  disclaimer in the  documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name  of  michael-simons.eu   nor the names  of its contributors
+ *   may be used  to endorse   or promote  products derived  from  this  software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE  COPYRIGHT HOLDERS AND  CONTRIBUTORS "AS IS"
+ * AND ANY  EXPRESS OR  IMPLIED WARRANTIES,  INCLUDING, BUT  NOT LIMITED  TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL  THE COPYRIGHT HOLDER OR CONTRIBUTORS  BE LIABLE
+ * FOR ANY  DIRECT, INDIRECT,  INCIDENTAL, SPECIAL,  EXEMPLARY, OR  CONSEQUENTIAL
+ * DAMAGES (INCLUDING,  BUT NOT  LIMITED TO,  PROCUREMENT OF  SUBSTITUTE GOODS OR
+ * SERVICES; LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT  LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE  USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package ac.simons.oembed;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
+import java.nio.charset.UnsupportedCharsetException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * A response returned by a {@link HttpTransport}. The body can only be read while the
+ * response is open, closing the response releases all its resources.
+ *
+ * @author Michael J. Simons
+ * @since 2026-10-17
+ */
+public interface TransportResponse extends Closeable {
+
+	/**
+	 * {@return the HTTP status code of the response}
+	 */
+	int getStatusCode();
+
+	/**
+	 * Returns all values of a header.
+	 * @param name the case insensitive name of the header
+	 * @return all values of the header, in the order received
+	 */
+	List<String> getHeaders(String name);
+
+	/**
+	 * Returns the first value of a header.
+	 * @param name the case insensitive name of the header
+	 * @return the first value of the header, if any
+	 */
+	default Optional<String> getHeader(final String name) {
+		return getHeaders(name).stream().findFirst();
+	}
+
+	/**
+	 * Returns the body of the response. The stream is empty for responses without a body.
+	 * @return a stream for reading the body
+	 * @throws IOException if the body cannot be read
+	 */
+	InputStream getBody() throws IOException;
+
+	/**
+	 * Returns the charset of the {@code Content-Type} header.
+	 * @return the charset of the body, defaults to UTF-8
+	 */
+	default Charset getCharset() {
+		final Optional<String> parameter = getHeader("Content-Type").map(v -> v.toLowerCase(Locale.ROOT))
+			.filter(v -> v.contains("charset="))
+			.map(v -> v.substring(v.indexOf("charset=") + 8).split(";", 2)[0].replace("\"", "").trim());
+		if (parameter.isPresent()) {
+			try {
+				return Charset.forName(parameter.get());
+			}
+			catch (IllegalCharsetNameException | UnsupportedCharsetException ex) {
+				// Use the default
+			}
+		}
+		return StandardCharsets.UTF_8;
+	}
+
+	/**
+	 * Reads the whole body into a string, using the charset of the {@code Content-Type}
+	 * header or UTF-8.
+	 * @return the body as string
+	 * @throws IOException if the body cannot be read
+	 */
+	default String getBodyAsString() throws IOException {
+		try (InputStream body = getBody()) {
+			return new String(body.readAllBytes(), getCharset());
+		}
+	}
+
+	/**
+	 * Aborts the response without consuming the rest of the body, so that its connection
+	 * is not reused. The default implementation just closes the response.
+	 * @throws IOException if aborting fails
+	 */
+	default void abort() throws IOException {
+		close();
+	}
+
+}
@@ -0,0 +1,189 @@
+/*
+ * Created by Michael Simons, michael-simons.eu
+ * and released under The BSD License
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * Copyright (c) 2010-2026, Michael Simons
+ * All rights reserved.
+ *
+ * Redistribution  and  use  in  source   and  binary  forms,  with  or   without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source   code must retain   the above copyright   notice,
+ *   this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary  form must reproduce  the above copyright  notice,
+ *   this list of conditions  and the following  disclaimer in the  documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name  of  michael-simons.eu   nor the names  of its contributors
+ *   may be used  to endorse   or promote  products derived  from  this  software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE  COPYRIGHT HOLDERS AND  CONTRIBUTORS "AS IS"
+ * AND ANY  EXPRESS OR  IMPLIED WARRANTIES,  INCLUDING, BUT  NOT LIMITED  TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL  THE COPYRIGHT HOLDER OR CONTRIBUTORS  BE LIABLE
+ * FOR ANY  DIRECT, INDIRECT,  INCIDENTAL, SPECIAL,  EXEMPLARY, OR  CONSEQUENTIAL
+ * DAMAGES (INCLUDING,  BUT NOT  LIMITED TO,  PROCUREMENT OF  SUBSTITUTE GOODS OR
+ * SERVICES; LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT  LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE  USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package ac.simons.oembed;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Brings urls into a canonical form before they are used as cache keys and matched
+ * against the url schemes of the endpoints, so that different spellings of the same url
+ * share one cache entry and one request to the provider. The scheme and host are
+ * converted to lower case, default ports and fragments are removed, tracking parameters
+ * are removed from the query and the remaining query parameters are sorted by name. <br>
+ * This class is implemented as a plain java bean so that it can be configured inside
+ * spring {@code @Configuration}.
+ *
+ * @author Michael J. Simons
+ * @since 2026-10-17
+ */
+public class UrlCanonicalizer {
+
+	/**
+	 * Query parameters used for tracking only. A trailing {@literal *} matches any
+	 * suffix.
+	 */
+	public static final Set<String> DEFAULT_TRACKING_PARAMETERS = Set.of("utm_*", "fbclid", "gclid", "dclid", "gbraid",
+			"wbraid", "msclkid", "yclid", "igshid", "mc_cid", "mc_eid", "_hsenc", "_hsmi", "mkt_tok");
+
+	/**
+	 * Orders query parameters by name, keeping the order of parameters with the same
+	 * name.
+	 */
+	private static final Comparator<String> BY_NAME = Comparator.comparing(UrlCanonicalizer::nameOf);
+
+	/**
+	 * The query parameters that are removed, compared case insensitive.
+	 */
+	private Set<String> trackingParameters = DEFAULT_TRACKING_PARAMETERS;
+
+	/**
+	 * A flag whether query parameters are sorted by name. Defaults to true.
+	 */
+	private boolean sortQueryParameters = true;
+
+	/**
+	 * {@return the query parameters that are removed}
+	 */
+	public Set<String> getTrackingParameters() {
+		return this.trackingParameters;
+	}
+
+	/**
+	 * Changes the query parameters that are removed.
+	 * @param trackingParameters the new parameters, a trailing {@literal *} matches any
+	 * suffix
+	 */
+	public void setTrackingParameters(final Set<String> trackingParameters) {
+		this.trackingParameters = Set.copyOf(trackingParameters);
+	}
+
+	/**
+	 * {@return true if query parameters are sorted by name}
+	 */
+	public boolean isSortQueryParameters() {
+		return this.sortQueryParameters;
+	}
+
+	/**
+	 * Changes whether query parameters are sorted by name.
+	 * @param sortQueryParameters new flag whether to sort query parameters
+	 */
+	public void setSortQueryParameters(final boolean sortQueryParameters) {
+		this.sortQueryParameters = sortQueryParameters;
+	}
+
+	/**
+	 * Brings the given url into its canonical form. Urls that are not absolute,
+	 * hierarchical urls with a host are returned unchanged.
+	 * @param url the url to canonicalize
+	 * @return the canonical form of the url
+	 */
+	public String canonicalize(final String url) {
+		final URI uri;
+		try {
+			uri = new URI(url);
+		}
+		catch (URISyntaxException ex) {
+			return url;
+		}
+		if (uri.isOpaque() || uri.getScheme() == null || uri.getHost() == null) {
+			return url;
+		}
+
+		final String scheme = uri.getScheme().toLowerCase(Locale.ROOT);
+		final StringBuilder rv = new StringBuilder(url.length()).append(scheme).append("://");
+		if (uri.getRawUserInfo() != null) {
+			rv.append(uri.getRawUserInfo()).append('@');
+		}
+		rv.append(uri.getHost().toLowerCase(Locale.ROOT));
+		if (uri.getPort() != -1 && uri.getPort() != defaultPortOf(scheme)) {
+			rv.append(':').append(uri.getPort());
+		}
+		rv.append(uri.getRawPath());
+		final String query = canonicalQueryOf(uri.getRawQuery());
+		if (!query.isEmpty()) {
+			rv.append('?').append(query);
+		}
+		return rv.toString();
+	}
+
+	private String canonicalQueryOf(final String rawQuery) {
+		if (rawQuery == null) {
+			return "";
+		}
+		final List<String> parameters = new ArrayList<>();
+		for (String parameter : rawQuery.split("&")) {
+			if (!parameter.isEmpty() && !isTrackingParameter(nameOf(parameter))) {
+				parameters.add(parameter);
+			}
+		}
+		if (this.sortQueryParameters) {
+			parameters.sort(BY_NAME);
+		}
+		return String.join("&", parameters);
+	}
+
+	private boolean isTrackingParameter(final String name) {
+		final String lowerCaseName = name.toLowerCase(Locale.ROOT);
+		for (String trackingParameter : this.trackingParameters) {
+			final String lowerCaseParameter = trackingParameter.toLowerCase(Locale.ROOT);
+			if (lowerCaseParameter.endsWith("*")
+					? lowerCaseName.startsWith(lowerCaseParameter.substring(0, lowerCaseParameter.length() - 1))
+					: lowerCaseName.equals(lowerCaseParameter)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static String nameOf(final String parameter) {
+		final int separator = parameter.indexOf('=');
+		return (separator < 0) ? parameter : parameter.substring(0, separator);
+	}
+
+	private static int defaultPortOf(final String scheme) {
+		return switch (scheme) {
+			case "http" -> 80;
+			case "https" -> 443;
+			default -> -1;
+		};
+	}
+
+}
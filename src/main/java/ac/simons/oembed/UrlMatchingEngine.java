@@ -0,0 +1,73 @@
+/*
+ * Created by Michael Simons, michael-simons.eu
+ * and released under The BSD License
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * Copyright (c) 2010-2026, Michael Simons
+ * All rights reserved.
+ *
+ * Redistribution  and  use  in  source   and  binary  forms,  with  or   without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source   code must retain   the above copyright   notice,
+ *   this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary  form must reproduce  the above copyright  notice,
+ *   this list of conditions  and the following  disclaimer in the  documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name  of  michael-simons.eu   nor the names  of its contributors
+ *   may be used  to endorse   or promote  products derived  from  this  software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE  COPYRIGHT HOLDERS AND  CONTRIBUTORS "AS IS"
+ * AND ANY  EXPRESS OR  IMPLIED WARRANTIES,  INCLUDING, BUT  NOT LIMITED  TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL  THE COPYRIGHT HOLDER OR CONTRIBUTORS  BE LIABLE
+ * FOR ANY  DIRECT, INDIRECT,  INCIDENTAL, SPECIAL,  EXEMPLARY, OR  CONSEQUENTIAL
+ * DAMAGES (INCLUDING,  BUT NOT  LIMITED TO,  PROCUREMENT OF  SUBSTITUTE GOODS OR
+ * SERVICES; LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT  LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE  USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package ac.simons.oembed;
+
+import java.util.List;
+
+/**
+ * A matching engine compiles the url schemes (regular expressions) of the configured
+ * {@link OembedEndpoint endpoints} into matchers. An engine is free to reject schemes it
+ * doesn't support, but it must do so while compiling, which happens when an
+ * {@link OembedService} is created.
+ *
+ * @author Michael J. Simons
+ * @since 2026-10-17
+ */
+public interface UrlMatchingEngine {
+
+	/**
+	 * Compiles a list of url schemes into one matcher.
+	 * @param urlSchemes the url schemes to compile
+	 * @return a matcher for all schemes
+	 * @throws OembedException if any of the schemes is invalid or not supported by this
+	 * engine
+	 */
+	UrlMatcher compile(List<String> urlSchemes);
+
+	/**
+	 * A compiled list of url schemes.
+	 */
+	interface UrlMatcher {
+
+		/**
+		 * Finds the first url scheme that matches the whole url.
+		 * @param url the url to match
+		 * @return the index of the first matching scheme in the list of compiled schemes
+		 * or -1 if no scheme matches
+		 */
+		int indexOfFirstMatch(String url);
+
+	}
+
+}
@@ -0,0 +1,271 @@
+/*
+ * Created by Michael Simons, michael-simons.eu
+ * and released under The BSD License
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * Copyright (c) 2010-2026, Michael Simons
+ * All rights reserved.
+ *
+ * Redistribution  and  use  in  source   and  binary  forms,  with  or   without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source   code must retain   the above copyright   notice,
+ *   this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary  form must reproduce  the above copyright  notice,
+ *   this list of conditions  and the following  disclaimer in the  documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name  of  michael-simons.eu   nor the names  of its contributors
+ *   may be used  to endorse   or promote  products derived  from  this  software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE  COPYRIGHT HOLDERS AND  CONTRIBUTORS "AS IS"
+ * AND ANY  EXPRESS OR  IMPLIED WARRANTIES,  INCLUDING, BUT  NOT LIMITED  TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL  THE COPYRIGHT HOLDER OR CONTRIBUTORS  BE LIABLE
+ * FOR ANY  DIRECT, INDIRECT,  INCIDENTAL, SPECIAL,  EXEMPLARY, OR  CONSEQUENTIAL
+ * DAMAGES (INCLUDING,  BUT NOT  LIMITED TO,  PROCUREMENT OF  SUBSTITUTE GOODS OR
+ * SERVICES; LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT  LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE  USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package ac.simons.oembed;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import ac.simons.oembed.AutomatonMatchingEngine.Captures;
+import ac.simons.oembed.AutomatonMatchingEngine.CapturingMatcher;
+
+/**
+ * The rules rewriting urls of the endpoints into the form matched by their url schemes,
+ * for example short links into full links. The replacement of a rule may refer to the
+ * groups of its regular expression like {@link Matcher#appendReplacement} does, with
+ * {@code $n} or {@code ${name}}.
+ * <p>
+ * With the default {@link AutomatonMatchingEngine}, the first matching rule and its
+ * groups are determined by the automaton in a single pass that is linear in the length of
+ * the url, so that rewriting is protected the same way matching is. With any other
+ * engine, the engine finds the first matching rule and {@link Pattern} determines its
+ * groups, which is subject to backtracking like the {@link RegexMatchingEngine}.
+ *
+ * @author Michael J. Simons
+ * @since 2026-10-17
+ * @see OembedEndpoint#getUrlRewrites()
+ */
+final class UrlRewriteRules {
+
+	private final Rewriter rewriter;
+
+	/**
+	 * Compiles the given rules.
+	 * @param rules regular expressions that must match the whole url mapped to their
+	 * replacements, which may refer to groups of the expressions, in the order of
+	 * evaluation
+	 * @param urlMatchingEngine the engine used to find the first matching rule
+	 * @throws OembedException if a regular expression is invalid or not supported by the
+	 * engine or if a replacement refers to a group that does not exist
+	 */
+	UrlRewriteRules(final Map<String, String> rules, final UrlMatchingEngine urlMatchingEngine) {
+		final List<String> regexes = new ArrayList<>(rules.keySet());
+		final List<String> replacements = new ArrayList<>(rules.values());
+		this.rewriter = (urlMatchingEngine instanceof AutomatonMatchingEngine automatonMatchingEngine)
+				? new AutomatonRewriter(automatonMatchingEngine.compileCapturing(regexes), replacements)
+				: new PatternRewriter(urlMatchingEngine.compile(regexes), regexes, replacements);
+	}
+
+	/**
+	 * Applies the first rule matching the whole url.
+	 * @param url the url to rewrite
+	 * @return the rewritten url, empty if no rule matches the url
+	 */
+	Optional<String> apply(final String url) {
+		return this.rewriter.apply(url);
+	}
+
+	/**
+	 * Rewrites urls.
+	 */
+	private interface Rewriter {
+
+		Optional<String> apply(String url);
+
+	}
+
+	/**
+	 * Takes the groups from the automaton.
+	 */
+	private static final class AutomatonRewriter implements Rewriter {
+
+		private final CapturingMatcher matcher;
+
+		private final List<List<Part>> replacements;
+
+		AutomatonRewriter(final CapturingMatcher matcher, final List<String> replacements) {
+			this.matcher = matcher;
+			final List<List<Part>> parsedReplacements = new ArrayList<>(replacements.size());
+			for (int i = 0; i < replacements.size(); ++i) {
+				parsedReplacements.add(Part.parse(replacements.get(i), matcher.groupCount(i), matcher.groupNames(i)));
+			}
+			this.replacements = List.copyOf(parsedReplacements);
+		}
+
+		@Override
+		public Optional<String> apply(final String url) {
+			final Optional<Captures> captures = this.matcher.capturesOfFirstMatch(url);
+			if (captures.isEmpty()) {
+				return Optional.empty();
+			}
+			final int[] groups = captures.get().groups();
+			final StringBuilder rv = new StringBuilder();
+			for (Part part : this.replacements.get(captures.get().index())) {
+				if (part.group() < 0) {
+					rv.append(part.literal());
+				}
+				else if (groups[2 * part.group()] >= 0) {
+					rv.append(url, groups[2 * part.group()], groups[2 * part.group() + 1]);
+				}
+			}
+			return Optional.of(rv.toString());
+		}
+
+	}
+
+	/**
+	 * Uses the engine for finding the rule and {@link Pattern} for its groups.
+	 */
+	private static final class PatternRewriter implements Rewriter {
+
+		private final UrlMatchingEngine.UrlMatcher matcher;
+
+		private final List<Pattern> patterns;
+
+		private final List<String> replacements;
+
+		PatternRewriter(final UrlMatchingEngine.UrlMatcher matcher, final List<String> regexes,
+				final List<String> replacements) {
+			this.matcher = matcher;
+			final List<Pattern> compiledPatterns = new ArrayList<>(regexes.size());
+			try {
+				for (String regex : regexes) {
+					compiledPatterns.add(Pattern.compile(regex));
+				}
+			}
+			catch (PatternSyntaxException ex) {
+				throw new OembedException(ex);
+			}
+			this.patterns = List.copyOf(compiledPatterns);
+			this.replacements = List.copyOf(replacements);
+		}
+
+		@Override
+		public Optional<String> apply(final String url) {
+			final int index = this.matcher.indexOfFirstMatch(url);
+			if (index < 0) {
+				return Optional.empty();
+			}
+			final Matcher patternMatcher = this.patterns.get(index).matcher(url);
+			if (!patternMatcher.matches()) {
+				return Optional.empty();
+			}
+			final StringBuilder rv = new StringBuilder();
+			patternMatcher.appendReplacement(rv, this.replacements.get(index));
+			return Optional.of(rv.toString());
+		}
+
+	}
+
+	/**
+	 * A part of a replacement, either a literal or a reference to a group.
+	 *
+	 * @param literal the literal text
+	 * @param group the number of the referenced group, -1 for a literal
+	 */
+	private record Part(String literal, int group) {
+
+		/**
+		 * Parses a replacement the way {@link Matcher#appendReplacement} does.
+		 * @param replacement the replacement
+		 * @param groupCount the number of groups of the regular expression
+		 * @param groupNames the numbers of the named groups
+		 * @return the parts of the replacement
+		 * @throws OembedException if the replacement is invalid
+		 */
+		static List<Part> parse(final String replacement, final int groupCount, final Map<String, Integer> groupNames) {
+			final List<Part> rv = new ArrayList<>();
+			final StringBuilder literal = new StringBuilder();
+			int cursor = 0;
+			while (cursor < replacement.length()) {
+				final char c = replacement.charAt(cursor++);
+				if (c == '\\') {
+					if (cursor == replacement.length()) {
+						throw invalid(replacement, "character to be escaped is missing");
+					}
+					literal.append(replacement.charAt(cursor++));
+					continue;
+				}
+				else if (c != '$') {
+					literal.append(c);
+					continue;
+				}
+				if (cursor == replacement.length()) {
+					throw invalid(replacement, "Illegal group reference: group index is missing");
+				}
+				int group;
+				if (replacement.charAt(cursor) == '{') {
+					final int end = replacement.indexOf('}', cursor);
+					if (end < 0) {
+						throw invalid(replacement, "named capturing group is missing trailing '}'");
+					}
+					final String name = replacement.substring(cursor + 1, end);
+					final Integer number = groupNames.get(name);
+					if (number == null) {
+						throw invalid(replacement, "No group with name {" + name + "}");
+					}
+					group = number;
+					cursor = end + 1;
+				}
+				else {
+					group = replacement.charAt(cursor++) - '0';
+					if (group < 0 || group > 9) {
+						throw invalid(replacement, "Illegal group reference");
+					}
+					// Further digits belong to the reference as long as the group exists
+					while (cursor < replacement.length() && isDigit(replacement.charAt(cursor))
+							&& group * 10 + (replacement.charAt(cursor) - '0') <= groupCount) {
+						group = group * 10 + (replacement.charAt(cursor++) - '0');
+					}
+					if (group > groupCount) {
+						throw invalid(replacement, "No group " + group);
+					}
+				}
+				if (literal.length() > 0) {
+					rv.add(new Part(literal.toString(), -1));
+					literal.setLength(0);
+				}
+				rv.add(new Part(null, group));
+			}
+			if (literal.length() > 0) {
+				rv.add(new Part(literal.toString(), -1));
+			}
+			return List.copyOf(rv);
+		}
+
+		private static boolean isDigit(final char c) {
+			return c >= '0' && c <= '9';
+		}
+
+		private static OembedException invalid(final String replacement, final String message) {
+			return new OembedException(message + " in url rewrite replacement '" + replacement + "'");
+		}
+
+	}
+
+}
@@ -0,0 +1,518 @@
+/*
+ * Created by Michael Simons, michael-simons.eu
+ * and released under The BSD License
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * Copyright (c) 2010-2026, Michael Simons
+ * All rights reserved.
+ *
+ * Redistribution  and  use  in  source   and  binary  forms,  with  or   without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source   code must retain   the above copyright   notice,
+ *   this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary  form must reproduce  the above copyright  notice,
+ *   this list of conditions  and the following  disclaimer in the  documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name  of  michael-simons.eu   nor the names  of its contributors
+ *   may be used  to endorse   or promote  products derived  from  this  software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE  COPYRIGHT HOLDERS AND  CONTRIBUTORS "AS IS"
+ * AND ANY  EXPRESS OR  IMPLIED WARRANTIES,  INCLUDING, BUT  NOT LIMITED  TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL  THE COPYRIGHT HOLDER OR CONTRIBUTORS  BE LIABLE
+ * FOR ANY  DIRECT, INDIRECT,  INCIDENTAL, SPECIAL,  EXEMPLARY, OR  CONSEQUENTIAL
+ * DAMAGES (INCLUDING,  BUT NOT  LIMITED TO,  PROCUREMENT OF  SUBSTITUTE GOODS OR
+ * SERVICES; LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT  LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE  USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package ac.simons.oembed;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+import ac.simons.oembed.OembedEndpoint.SchemeSyntax;
+import ac.simons.oembed.UrlMatchingEngine.UrlMatcher;
+
+/**
+ * An index over a fixed list of entries that each carry a list of url schemes (regular
+ * expressions or globs). All schemes are compiled once when the index is created, so that
+ * a lookup doesn't need to compile and evaluate every single pattern on its own. The
+ * first entry (in the order given) having at least one matching scheme wins.
+ * <p>
+ * Most schemes pin a literal host or at least a literal host suffix. Those literals are
+ * extracted when the index is created and stored in a trie of reversed host labels, so
+ * that a url is only matched against the schemes for its host and against the schemes for
+ * which no host could be determined.
+ *
+ * @param <T> the type of the indexed entries
+ * @author Michael J. Simons
+ * @since 2026-10-17
+ */
+final class UrlSchemeIndex<T> {
+
+	/**
+	 * The separator between the scheme and the host of an url.
+	 */
+	private static final String SCHEME_SEPARATOR = "://";
+
+	/**
+	 * The indexed entries in their original order.
+	 */
+	private final List<T> entries;
+
+	/**
+	 * Root of the trie of reversed host labels.
+	 */
+	private final HostNode hosts;
+
+	/**
+	 * All schemes for which no host could be extracted.
+	 */
+	private final Bucket unkeyed;
+
+	/**
+	 * Creates a new index.
+	 * @param entries the entries to index, the order defines the priority
+	 * @param urlSchemes a function to extract the url schemes of an entry
+	 * @param schemeSyntax a function to extract the syntax of the url schemes of an entry
+	 * @param engine the engine used to compile the regular expressions
+	 * @throws OembedException if any of the schemes is not supported by the engine
+	 */
+	UrlSchemeIndex(final List<T> entries, final Function<T, List<String>> urlSchemes,
+			final Function<T, SchemeSyntax> schemeSyntax, final UrlMatchingEngine engine) {
+		this.entries = List.copyOf(entries);
+
+		final HostNode.Builder hostsBuilder = new HostNode.Builder();
+		final Bucket.Builder unkeyedBuilder = new Bucket.Builder();
+		for (int i = 0; i < this.entries.size(); ++i) {
+			final T entry = this.entries.get(i);
+			final List<String> schemes = Optional.ofNullable(urlSchemes.apply(entry)).orElseGet(List::of);
+			final boolean glob = schemeSyntax.apply(entry) == SchemeSyntax.glob;
+			for (String scheme : schemes) {
+				final String trimmedScheme = scheme.trim();
+				if (glob) {
+					final GlobUrlScheme globUrlScheme = new GlobUrlScheme(trimmedScheme);
+					globUrlScheme.getHostKey()
+						.map(hostsBuilder::bucketFor)
+						.orElse(unkeyedBuilder)
+						.add(i, globUrlScheme);
+				}
+				else {
+					HostKey.of(trimmedScheme).map(hostsBuilder::bucketFor).orElse(unkeyedBuilder).add(i, trimmedScheme);
+				}
+			}
+		}
+		this.hosts = hostsBuilder.build(engine);
+		this.unkeyed = unkeyedBuilder.build(engine);
+	}
+
+	/**
+	 * Finds the first entry with a scheme matching the given url.
+	 * @param url the url to match
+	 * @return an optional entry
+	 */
+	Optional<T> find(final String url) {
+		int rv = this.unkeyed.firstMatch(url, Integer.MAX_VALUE);
+		final String host = hostOf(url);
+		if (host != null) {
+			final String[] labels = host.split("\\.", -1);
+
+			HostNode node = this.hosts;
+			for (int depth = 0; node != null; ++depth) {
+				if (depth == labels.length) {
+					rv = node.exact.firstMatch(url, rv);
+					break;
+				}
+				final String label = labels[labels.length - 1 - depth];
+				rv = node.suffix.firstMatch(url, rv);
+				for (Map.Entry<String, Bucket> partial : node.partials.entrySet()) {
+					if (label.endsWith(partial.getKey())) {
+						rv = partial.getValue().firstMatch(url, rv);
+					}
+				}
+				node = node.children.get(label);
+			}
+		}
+		return (rv == Integer.MAX_VALUE) ? Optional.empty() : Optional.of(this.entries.get(rv));
+	}
+
+	/**
+	 * Checks whether any scheme might match an url with the same host as the given url.
+	 * This doesn't evaluate any scheme, it only looks at the extracted host keys.
+	 * @param url the url whose host should be checked
+	 * @return false if no url with the same host can ever be matched by this index
+	 */
+	boolean mayMatchHostOf(final String url) {
+		if (this.unkeyed != Bucket.EMPTY) {
+			return true;
+		}
+		final String host = hostOf(url);
+		if (host == null) {
+			return false;
+		}
+		final String[] labels = host.split("\\.", -1);
+		HostNode node = this.hosts;
+		for (int depth = 0; node != null; ++depth) {
+			if (depth == labels.length) {
+				return node.exact != Bucket.EMPTY;
+			}
+			final String label = labels[labels.length - 1 - depth];
+			if (node.suffix != Bucket.EMPTY || node.partials.keySet().stream().anyMatch(label::endsWith)) {
+				return true;
+			}
+			node = node.children.get(label);
+		}
+		return false;
+	}
+
+	/**
+	 * Extracts the host (including an optional port) of an url.
+	 * @param url the url
+	 * @return the host or {@literal null} if the url doesn't contain a {@code ://}
+	 */
+	static String hostOf(final String url) {
+		final int start = url.indexOf(SCHEME_SEPARATOR);
+		if (start < 0) {
+			return null;
+		}
+		final int hostStart = start + SCHEME_SEPARATOR.length();
+		final int hostEnd = url.indexOf('/', hostStart);
+		return url.substring(hostStart, (hostEnd < 0) ? url.length() : hostEnd);
+	}
+
+	/**
+	 * The literal part of the host of an url scheme.
+	 *
+	 * @param labels the complete labels of the host in reversed order
+	 * @param partial an optional suffix of the label preceding {@code labels}
+	 * @param exact a flag if the host is completely literal
+	 */
+	record HostKey(List<String> labels, String partial, boolean exact) {
+
+		/**
+		 * Matches prefixes that only consist of letters in front of {@code ://},
+		 * including groups and optional letters, but no inline flags.
+		 */
+		private static final Pattern PREFIX = Pattern.compile("\\^?(?:[a-zA-Z|)]|\\((?:\\?:)?|(?<!\\()\\?)*");
+
+		/**
+		 * Quoting and comments make it impossible to track groups and alternatives
+		 * without a full parser.
+		 */
+		private static final Pattern UNTRACKABLE = Pattern.compile("\\\\Q|\\(\\?[a-zA-Z-]*x");
+
+		/**
+		 * Extracts the literal host or host suffix from a scheme. This is only possible
+		 * if the part in front of {@code ://} only matches letters and if no construct
+		 * inside the host part is able to match a {@literal /}, so that the host part of
+		 * any matching url is well known. All other schemes don't have a host key.
+		 * @param scheme the scheme to analyze
+		 * @return the host key of the scheme if any
+		 */
+		static Optional<HostKey> of(final String scheme) {
+			final int separator = scheme.indexOf(SCHEME_SEPARATOR);
+			if (separator < 0 || !PREFIX.matcher(scheme.substring(0, separator)).matches()
+					|| hasTopLevelAlternation(scheme)) {
+				return Optional.empty();
+			}
+
+			// The literal characters at the end of the host
+			StringBuilder literal = new StringBuilder();
+			boolean exact = true;
+			int depth = 0;
+			int i = separator + SCHEME_SEPARATOR.length();
+			while (i < scheme.length() && !(depth == 0 && scheme.charAt(i) == '/')) {
+				final char c = scheme.charAt(i++);
+				switch (c) {
+					case '\\' -> {
+						final char escaped = (i < scheme.length()) ? scheme.charAt(i++) : '\\';
+						if (escaped == '.' || escaped == '-') {
+							literal.append(escaped);
+							continue;
+						}
+						else if (escaped != 'd' && escaped != 'w') {
+							return Optional.empty();
+						}
+					}
+					case '[' -> {
+						i = endOfClass(scheme, i) + 1;
+						if (i == 0) {
+							return Optional.empty();
+						}
+					}
+					case '(' -> {
+						if (scheme.startsWith("?", i) && !scheme.startsWith("?:", i)) {
+							return Optional.empty();
+						}
+						++depth;
+					}
+					case ')' -> --depth;
+					case '|', '?', '*', '+', '{', '}' -> {
+						// Alternatives inside groups and quantifiers,
+						// both end the current literal
+					}
+					case '.', '^', '$', '/', ']' -> {
+						return Optional.empty();
+					}
+					default -> {
+						literal.append(c);
+						continue;
+					}
+				}
+				literal = new StringBuilder();
+				exact = false;
+			}
+
+			return (depth != 0) ? Optional.empty() : of(literal.toString(), exact);
+		}
+
+		/**
+		 * Creates a host key from the literal end of a host.
+		 * @param literal the literal characters at the end of the host
+		 * @param exact a flag if the literal is the complete host
+		 * @return the host key if the literal is not empty or exact
+		 */
+		static Optional<HostKey> of(final String literal, final boolean exact) {
+			final String labels;
+			String partial = null;
+			if (exact || literal.startsWith(".")) {
+				labels = exact ? literal : literal.substring(1);
+			}
+			else {
+				final int firstDot = literal.indexOf('.');
+				if (literal.isEmpty()) {
+					return Optional.empty();
+				}
+				partial = (firstDot < 0) ? literal : literal.substring(0, firstDot);
+				labels = (firstDot < 0) ? null : literal.substring(firstDot + 1);
+			}
+
+			final List<String> reversedLabels = new ArrayList<>();
+			if (labels != null) {
+				final String[] hlp = labels.split("\\.", -1);
+				for (int j = hlp.length - 1; j >= 0; --j) {
+					reversedLabels.add(hlp[j]);
+				}
+			}
+			return Optional.of(new HostKey(List.copyOf(reversedLabels), partial, exact));
+		}
+
+		private static boolean hasTopLevelAlternation(final String scheme) {
+			if (UNTRACKABLE.matcher(scheme).find()) {
+				return true;
+			}
+			int depth = 0;
+			for (int i = 0; i < scheme.length(); ++i) {
+				final char c = scheme.charAt(i);
+				if (c == '\\') {
+					++i;
+				}
+				else if (c == '[') {
+					// Classes in the host part have been checked separately
+					i = Math.max(i, scheme.indexOf(']', i + 2));
+				}
+				else if (c == '|' && depth == 0) {
+					return true;
+				}
+				else {
+					depth += (c == '(') ? 1 : (c == ')') ? -1 : 0;
+				}
+			}
+			return false;
+		}
+
+		/**
+		 * Finds the end of a character class. Negated classes, nested classes and any
+		 * escape that might match a slash are not supported.
+		 * @param scheme the scheme containing the class
+		 * @param start the index after the opening bracket
+		 * @return the index of the closing bracket or -1 if not supported
+		 */
+		private static int endOfClass(final String scheme, final int start) {
+			if (scheme.startsWith("^", start)) {
+				return -1;
+			}
+			for (int i = start; i < scheme.length(); ++i) {
+				final char c = scheme.charAt(i);
+				if (c == ']') {
+					return i;
+				}
+				else if (c == '\\' && i + 1 < scheme.length() && "-.dw".indexOf(scheme.charAt(i + 1)) >= 0) {
+					++i;
+				}
+				else if (c == '/' || c == '[' || c == '\\' || c == '&') {
+					return -1;
+				}
+			}
+			return -1;
+		}
+
+	}
+
+	/**
+	 * A node in the trie of reversed host labels.
+	 */
+	private static final class HostNode {
+
+		/**
+		 * Schemes for which the host ends exactly at this node.
+		 */
+		private final Bucket exact;
+
+		/**
+		 * Schemes for which the host has at least one more label in front of this node.
+		 */
+		private final Bucket suffix;
+
+		/**
+		 * Schemes for which the label in front of this node must end with a given string.
+		 */
+		private final Map<String, Bucket> partials;
+
+		private final Map<String, HostNode> children;
+
+		private HostNode(final Builder builder, final UrlMatchingEngine engine) {
+			this.exact = builder.exact.build(engine);
+			this.suffix = builder.suffix.build(engine);
+			final Map<String, Bucket> hlp = new HashMap<>();
+			builder.partials.forEach((k, v) -> hlp.put(k, v.build(engine)));
+			this.partials = Map.copyOf(hlp);
+			final Map<String, HostNode> hlp2 = new HashMap<>();
+			builder.children.forEach((k, v) -> hlp2.put(k, v.build(engine)));
+			this.children = Map.copyOf(hlp2);
+		}
+
+		private static final class Builder {
+
+			private final Bucket.Builder exact = new Bucket.Builder();
+
+			private final Bucket.Builder suffix = new Bucket.Builder();
+
+			private final Map<String, Bucket.Builder> partials = new LinkedHashMap<>();
+
+			private final Map<String, Builder> children = new HashMap<>();
+
+			Bucket.Builder bucketFor(final HostKey hostKey) {
+				Builder node = this;
+				for (String label : hostKey.labels()) {
+					node = node.children.computeIfAbsent(label, k -> new Builder());
+				}
+				if (hostKey.exact()) {
+					return node.exact;
+				}
+				else if (hostKey.partial() == null) {
+					return node.suffix;
+				}
+				return node.partials.computeIfAbsent(hostKey.partial(), k -> new Bucket.Builder());
+			}
+
+			HostNode build(final UrlMatchingEngine engine) {
+				return new HostNode(this, engine);
+			}
+
+		}
+
+	}
+
+	/**
+	 * A list of schemes, ordered by the ordinal of the entries they belong to. All
+	 * regular expressions of a bucket are compiled into a single matcher by the
+	 * configured engine. Globs are matched one after another.
+	 */
+	private static final class Bucket {
+
+		private static final Bucket EMPTY = new Bucket(new Builder(), null);
+
+		/**
+		 * The ordinal of the entry for each scheme.
+		 */
+		private final int[] ordinals;
+
+		/**
+		 * The matcher for all regular expressions, {@literal null} if there are none.
+		 */
+		private final UrlMatcher matcher;
+
+		/**
+		 * The ordinal of the entry for each glob.
+		 */
+		private final int[] globOrdinals;
+
+		/**
+		 * All schemes in glob syntax.
+		 */
+		private final List<GlobUrlScheme> globs;
+
+		private Bucket(final Builder builder, final UrlMatchingEngine engine) {
+			this.globOrdinals = builder.globOrdinals.stream().mapToInt(Integer::intValue).toArray();
+			this.globs = List.copyOf(builder.globs);
+			this.ordinals = builder.ordinals.stream().mapToInt(Integer::intValue).toArray();
+			this.matcher = builder.schemes.isEmpty() ? null : engine.compile(List.copyOf(builder.schemes));
+		}
+
+		/**
+		 * Finds the ordinal of the first matching scheme.
+		 * @param url the url to match
+		 * @param limit only schemes with an ordinal lower than this are of interest
+		 * @return the ordinal of the first matching scheme or {@code limit} if no scheme
+		 * with a lower ordinal matches
+		 */
+		int firstMatch(final String url, final int limit) {
+			int rv = limit;
+			if (this.ordinals.length > 0 && this.ordinals[0] < rv) {
+				rv = firstRegexMatch(url, rv);
+			}
+			for (int i = 0; i < this.globOrdinals.length && this.globOrdinals[i] < rv; ++i) {
+				if (this.globs.get(i).matches(url)) {
+					return this.globOrdinals[i];
+				}
+			}
+			return rv;
+		}
+
+		private int firstRegexMatch(final String url, final int limit) {
+			final int index = this.matcher.indexOfFirstMatch(url);
+			return (index < 0) ? limit : Math.min(this.ordinals[index], limit);
+		}
+
+		private static final class Builder {
+
+			private final List<Integer> ordinals = new ArrayList<>();
+
+			private final List<String> schemes = new ArrayList<>();
+
+			private final List<Integer> globOrdinals = new ArrayList<>();
+
+			private final List<GlobUrlScheme> globs = new ArrayList<>();
+
+			void add(final int ordinal, final String scheme) {
+				this.ordinals.add(ordinal);
+				this.schemes.add(scheme);
+			}
+
+			void add(final int ordinal, final GlobUrlScheme glob) {
+				this.globOrdinals.add(ordinal);
+				this.globs.add(glob);
+			}
+
+			Bucket build(final UrlMatchingEngine engine) {
+				return (this.ordinals.isEmpty() && this.globs.isEmpty()) ? EMPTY : new Bucket(this, engine);
+			}
+
+		}
+
+	}
+
+}
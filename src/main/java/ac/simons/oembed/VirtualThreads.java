@@ -0,0 +1,121 @@
+/*
+ * Created by Michael Simons, michael-simons.eu
+ * and released under The BSD License
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * Copyright (c) 2010-2026, Michael Simons
+ * All rights reserved.
+ *
+ * Redistribution  and  use  in  source   and  binary  forms,  with  or   without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source   code must retain   the above copyright   notice,
+ *   this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary  form must reproduce  the above copyright  notice,
+ *   this list of conditions  and the following  disclaimer in the  documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name  of  michael-simons.eu   nor the names  of its contributors
+ *   may be used  to endorse   or promote  products derived  from  this  software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE  COPYRIGHT HOLDERS AND  CONTRIBUTORS "AS IS"
+ * AND ANY  EXPRESS OR  IMPLIED WARRANTIES,  INCLUDING, BUT  NOT LIMITED  TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL  THE COPYRIGHT HOLDER OR CONTRIBUTORS  BE LIABLE
+ * FOR ANY  DIRECT, INDIRECT,  INCIDENTAL, SPECIAL,  EXEMPLARY, OR  CONSEQUENTIAL
+ * DAMAGES (INCLUDING,  BUT NOT  LIMITED TO,  PROCUREMENT OF  SUBSTITUTE GOODS OR
+ * SERVICES; LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT  LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE  USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package ac.simons.oembed;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Access to virtual threads without requiring a JDK that supports them. Virtual threads
+ * are detected once at runtime, on older JDKs this class reports them as not supported.
+ *
+ * @author Michael J. Simons
+ * @since 2026-10-17
+ */
+final class VirtualThreads {
+
+	/**
+	 * {@code Executors.newVirtualThreadPerTaskExecutor()} if available.
+	 */
+	private static final MethodHandle NEW_EXECUTOR;
+
+	/**
+	 * {@code Thread.isVirtual()} if available.
+	 */
+	private static final MethodHandle IS_VIRTUAL;
+
+	static {
+		final MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+		MethodHandle newExecutor = null;
+		MethodHandle isVirtual = null;
+		try {
+			newExecutor = lookup.findStatic(Executors.class, "newVirtualThreadPerTaskExecutor",
+					MethodType.methodType(ExecutorService.class));
+			isVirtual = lookup.findVirtual(Thread.class, "isVirtual", MethodType.methodType(boolean.class));
+		}
+		catch (NoSuchMethodException | IllegalAccessException ex) {
+			OembedService.LOGGER.debug("Virtual threads are not supported on this JDK");
+		}
+		NEW_EXECUTOR = newExecutor;
+		IS_VIRTUAL = isVirtual;
+	}
+
+	private VirtualThreads() {
+	}
+
+	/**
+	 * {@return true if the current JDK supports virtual threads}
+	 */
+	static boolean isSupported() {
+		return NEW_EXECUTOR != null && IS_VIRTUAL != null;
+	}
+
+	/**
+	 * Creates an executor that starts a new virtual thread for each task.
+	 * @return the new executor or an empty optional if virtual threads are not supported
+	 */
+	static Optional<ExecutorService> newExecutor() {
+		if (!isSupported()) {
+			return Optional.empty();
+		}
+		try {
+			return Optional.of((ExecutorService) NEW_EXECUTOR.invokeExact());
+		}
+		catch (Throwable ex) {
+			throw new OembedException(ex);
+		}
+	}
+
+	/**
+	 * Checks whether a thread is a virtual thread.
+	 * @param thread the thread to check
+	 * @return true if the thread is a virtual thread
+	 */
+	static boolean isVirtual(final Thread thread) {
+		if (!isSupported()) {
+			return false;
+		}
+		try {
+			return (boolean) IS_VIRTUAL.invokeExact(thread);
+		}
+		catch (Throwable ex) {
+			throw new OembedException(ex);
+		}
+	}
+
+}
@@ -0,0 +1,130 @@
+/*
+ * Created by Michael Simons, michael-simons.eu
+ * and released under The BSD License
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * Copyright (c) 2010-2026, Michael Simons
+ * All rights reserved.
+ *
+ * Redistribution  and  use  in  source   and  binary  forms,  with  or   without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source   code must retain   the above copyright   notice,
+ *   this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary  form must reproduce  the above copyright  notice,
+ *   this list of conditions  and the following  disclaimer in the  documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name  of  michael-simons.eu   nor the names  of its contributors
+ *   may be used  to endorse   or promote  products derived  from  this  software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE  COPYRIGHT HOLDERS AND  CONTRIBUTORS "AS IS"
+ * AND ANY  EXPRESS OR  IMPLIED WARRANTIES,  INCLUDING, BUT  NOT LIMITED  TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL  THE COPYRIGHT HOLDER OR CONTRIBUTORS  BE LIABLE
+ * FOR ANY  DIRECT, INDIRECT,  INCIDENTAL, SPECIAL,  EXEMPLARY, OR  CONSEQUENTIAL
+ * DAMAGES (INCLUDING,  BUT NOT  LIMITED TO,  PROCUREMENT OF  SUBSTITUTE GOODS OR
+ * SERVICES; LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT  LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE  USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package ac.simons.oembed;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.verify;
+
+/**
+ * @author Michael J. Simons
+ * @since 2026-10-17
+ */
+public class ApacheHttpTransportTests {
+
+	@Test
+	public void requestsShouldBeExecuted() throws IOException {
+		try (LocalHttpServer server = new LocalHttpServer();
+				CloseableHttpClient httpClient = HttpClients.createDefault()) {
+			server.handle("/text",
+					exchange -> LocalHttpServer.respond(exchange, 200,
+							Map.of("Content-Type", "text/plain; charset=ISO-8859-1", "X-Request",
+									String.valueOf(exchange.getRequestHeaders().getFirst("X-Request")), "X-Method",
+									exchange.getRequestMethod()),
+							"Grüße".getBytes(StandardCharsets.ISO_8859_1)));
+
+			final HttpTransport transport = new ApacheHttpTransport(httpClient);
+			final URI uri = URI.create(server.url("/text"));
+			try (TransportResponse response = transport.execute(TransportRequest.get(uri, Map.of("X-Request", "a")))) {
+				assertThat(response.getStatusCode()).isEqualTo(200);
+				assertThat(response.getHeader("x-request")).hasValue("a");
+				assertThat(response.getHeaders("X-Unknown")).isEmpty();
+				assertThat(response.getBodyAsString()).isEqualTo("Grüße");
+			}
+			try (TransportResponse response = transport.execute(new TransportRequest("HEAD", uri, Map.of()))) {
+				assertThat(response.getStatusCode()).isEqualTo(200);
+				assertThat(response.getBody()).isEmpty();
+			}
+			try (TransportResponse response = transport.execute(new TransportRequest("DELETE", uri, Map.of()))) {
+				assertThat(response.getHeader("X-Method")).hasValue("DELETE");
+			}
+			final HttpGet request = new HttpGet(uri);
+			request.setHeader("X-Request", "b");
+			try (TransportResponse response = transport.execute(ApacheHttpTransport.adapt(request))) {
+				assertThat(response.getHeader("X-Request")).hasValue("b");
+			}
+		}
+	}
+
+	@Test
+	public void adaptedRequestsShouldBeExecutedAsIs() throws IOException {
+		final HttpClient httpClient = Mockito.mock(HttpClient.class);
+		final HttpResponse httpResponse = Mockito.mock(HttpResponse.class, Mockito.RETURNS_DEEP_STUBS);
+		final InputStream content = Mockito.spy(new ByteArrayInputStream("Hallo".getBytes()));
+		given(httpResponse.getEntity().getContent()).willReturn(content);
+		given(httpClient.execute(any(HttpUriRequest.class))).willReturn(httpResponse);
+
+		final HttpGet request = new HttpGet("https://example.com");
+		request.setHeader("User-Agent", "test");
+		final TransportRequest transportRequest = ApacheHttpTransport.adapt(request);
+		assertThat(transportRequest.getMethod()).isEqualTo("GET");
+		assertThat(transportRequest.getUri()).hasToString("https://example.com");
+		assertThat(transportRequest.getHeaders()).containsEntry("user-agent", "test");
+		assertThat(transportRequest).hasToString("GET https://example.com");
+
+		final HttpTransport transport = new ApacheHttpTransport(httpClient);
+		transport.execute(transportRequest).close();
+		verify(httpClient).execute(request);
+		verify(content).close();
+
+		final ArgumentCaptor<HttpUriRequest> captor = ArgumentCaptor.forClass(HttpUriRequest.class);
+		given(httpResponse.getEntity()).willReturn(null);
+		try (TransportResponse response = transport
+			.execute(TransportRequest.get(URI.create("https://example.com/a"), Map.of("User-Agent", "test")))) {
+			assertThat(response.getBody()).isEmpty();
+		}
+		verify(httpClient, Mockito.times(2)).execute(captor.capture());
+		assertThat(captor.getValue()).isInstanceOf(HttpGet.class);
+		assertThat(captor.getValue().getFirstHeader("User-Agent").getValue()).isEqualTo("test");
+	}
+
+}
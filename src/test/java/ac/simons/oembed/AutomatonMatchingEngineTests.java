@@ -0,0 +1,194 @@
+/*
+ * Created by Michael Simons, michael-simons.eu
+ * and released under The BSD License
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * Copyright (c) 2010-2026, Michael Simons
+ * All rights reserved.
+ *
+ * Redistribution  and  use  in  source   and  binary  forms,  with  or   without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source   code must retain   the above copyright   notice,
+ *   this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary  form must reproduce  the above copyright  notice,
+ *   this list of conditions  and the following  disclaimer in the  documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name  of  michael-simons.eu   nor the names  of its contributors
+ *   may be used  to endorse   or promote  products derived  from  this  software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE  COPYRIGHT HOLDERS AND  CONTRIBUTORS "AS IS"
+ * AND ANY  EXPRESS OR  IMPLIED WARRANTIES,  INCLUDING, BUT  NOT LIMITED  TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL  THE COPYRIGHT HOLDER OR CONTRIBUTORS  BE LIABLE
+ * FOR ANY  DIRECT, INDIRECT,  INCIDENTAL, SPECIAL,  EXEMPLARY, OR  CONSEQUENTIAL
+ * DAMAGES (INCLUDING,  BUT NOT  LIMITED TO,  PROCUREMENT OF  SUBSTITUTE GOODS OR
+ * SERVICES; LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT  LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE  USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package ac.simons.oembed;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import ac.simons.oembed.UrlMatchingEngine.UrlMatcher;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.entry;
+
+/**
+ * @author Michael J. Simons
+ * @since 2026-10-17
+ */
+public class AutomatonMatchingEngineTests {
+
+	private static final List<String> SCHEMES = List.of("https?://vimeo\\.com/\\d+",
+			"^https?://(www\\.)?youtube\\.com/watch\\?v=.*$", "https?://(?:www|de)\\.youtube\\.com/.*",
+			"https://youtu\\.be/.+?", "https?://.*\\.flickr\\.com/photos/.*", "https?://[a-z]+\\.flickr\\.com/.*",
+			"https?://[^/]+\\.example\\.com:\\d{2,4}/.*", "https://[a-z]{2,3}com/.*", "file:///.*",
+			"https://(?<host>www\\.)?tiktok\\.com/@\\w+", "(?i)https://(VIMEO|player\\.vimeo)\\.com/video/\\d+",
+			"https://(?i:Flic)\\.kr/p/[\\w-]*", "(?i)https://[A-C]+\\.example\\.com(?-i)/A", "https://\\Qa.b\\E/.*",
+			"https://\\Qc.d", "https://e\\x2Ef/\\u0041\\t?", "https://g\\.h/[]x]*[-x-]*", "https://i\\.j/[^\\]\\d]+",
+			"https://k\\.l/\\W\\S\\s\\D", "https://m\\.n/[\\w\\s]{1}[\\W\\S\\D]{0,}", "https://o\\.p/(a|b|)+c*?",
+			"https://q\\.r/a*$", "https://s\\.t/[\\x41-\\x43]", "https://u\\.v/[\\n\\r\\f\\a\\e]", "^\\^\\$\\.\\\\",
+			"https://w\\.x/(ab){2}(cd){1,2}?", "https://y\\.z/\u00e4\uD83D\uDE00.");
+
+	private static final List<String> URLS = List.of("https://vimeo.com/123", "https://VIMEO.com/video/42",
+			"https://Player.Vimeo.com/video/42", "https://vimeo.com/video/42", "https://youtube.com/watch?v=x",
+			"https://www.youtube.com/watch?v=x\n", "https://de.youtube.com/foo", "https://youtu.be/x",
+			"https://youtu.be/", "https://www.flickr.com/photos/1", "https://flickr.com/photos/1",
+			"https://x.example.com:8080/y", "https://x.example.com:8/y", "https://abccom/x", "https://abcdcom/x",
+			"file:///etc/hosts", "https://tiktok.com/@foo", "https://www.tiktok.com/@f-o", "https://flic.kr/p/a-b",
+			"https://FLIC.kr/p/a", "https://flic.KR/p/a", "https://aBc.example.com/A", "https://aBc.example.com/a",
+			"https://a.b/x", "https://aXb/x", "https://c.d", "https://e.f/A\t", "https://e.f/A", "https://g.h/]x-",
+			"https://g.h/y", "https://i.j/abc", "https://i.j/a]", "https://i.j/a1", "https://k.l/+a x",
+			"https://k.l/a a\u00e4", "https://m.n/a+-", "https://m.n/ ", "https://o.p/abbaccc", "https://o.p/",
+			"https://q.r/aaa\r\n", "https://q.r/aaa\n\n", "https://q.r/aaa\u2028", "https://q.r/aaa\r", "https://s.t/B",
+			"https://s.t/D", "https://u.v/\u001B", "https://u.v/\u0007", "^$.\\", "^$.\\\n", "https://w.x/ababcd",
+			"https://w.x/ababcdcd", "https://w.x/abcd", "https://y.z/\u00e4\uD83D\uDE00x",
+			"https://y.z/\u00e4\uD83D\uDE00\n", "", "https://");
+
+	@Test
+	public void shouldBehaveLikeJavaRegex() {
+		final AutomatonMatchingEngine engine = new AutomatonMatchingEngine();
+		for (int i = 0; i < SCHEMES.size(); ++i) {
+			final List<String> schemes = SCHEMES.subList(i, SCHEMES.size());
+			final UrlMatcher matcher = engine.compile(schemes);
+			for (String url : URLS) {
+				int expected = -1;
+				for (int j = 0; j < schemes.size() && expected < 0; ++j) {
+					if (Pattern.matches(schemes.get(j), url)) {
+						expected = j;
+					}
+				}
+				assertThat(matcher.indexOfFirstMatch(url)).as("%s with %s", url, schemes).isEqualTo(expected);
+			}
+		}
+	}
+
+	@Test
+	public void groupsShouldBeCapturedLikeJavaRegex() {
+		final AutomatonMatchingEngine engine = new AutomatonMatchingEngine();
+		final List<String> regexes = new ArrayList<>(SCHEMES);
+		regexes.addAll(List.of("(a+)(a*)", "(a+?)(a*)", "(a|ab)(c|bcd)(d*)", "((a)|b)+", "(a*)*(b?)", "(a?){2,3}?(a*)",
+				"(?:x(y)|xy(z))?(.*)", "((a*)*b)*", "(a|)*?(a*)", "(?:(a)|(b)|)*", "((a?)*)+(b*)", "(a|b|)+?(b*)"));
+		final List<String> urls = new ArrayList<>(URLS);
+		urls.addAll(List.of("aaa", "abcd", "abab", "aab", "b", "xyz", "xy", "a", "abaab", "bab"));
+		for (String regex : regexes) {
+			final AutomatonMatchingEngine.CapturingMatcher matcher = engine.compileCapturing(List.of(regex));
+			final Pattern pattern = Pattern.compile(regex);
+			assertThat(matcher.groupCount(0)).as(regex).isEqualTo(pattern.matcher("").groupCount());
+			for (String url : urls) {
+				final Matcher expected = pattern.matcher(url);
+				final Optional<AutomatonMatchingEngine.Captures> captures = matcher.capturesOfFirstMatch(url);
+				if (!expected.matches()) {
+					assertThat(captures).as("%s with %s", url, regex).isEmpty();
+					continue;
+				}
+				final int[] groups = new int[2 * (expected.groupCount() + 1)];
+				for (int group = 0; group <= expected.groupCount(); ++group) {
+					groups[2 * group] = expected.start(group);
+					groups[2 * group + 1] = expected.end(group);
+				}
+				assertThat(captures).as("%s with %s", url, regex)
+					.hasValueSatisfying(actual -> assertThat(actual.groups()).startsWith(groups));
+			}
+		}
+
+		final AutomatonMatchingEngine.CapturingMatcher matcher = engine
+			.compileCapturing(List.of("x", "(?<a>\\d)(?<b>\\d)?"));
+		assertThat(matcher.groupNames(1)).containsOnly(entry("a", 1), entry("b", 2));
+		assertThat(matcher.capturesOfFirstMatch("1")).map(AutomatonMatchingEngine.Captures::index).hasValue(1);
+		assertThatExceptionOfType(OembedException.class)
+			.isThrownBy(() -> engine.compileCapturing(List.of("(?<a>x)(?<a>y)")))
+			.withMessageStartingWith("Named capturing group <a> is already defined");
+		assertThatExceptionOfType(OembedException.class)
+			.isThrownBy(() -> engine.compileCapturing(List.of("((((a?)*)*)*)*")))
+			.withMessageStartingWith("Url schemes are too complex, more than 3 nested repetitions");
+	}
+
+	@Test
+	public void emptyListShouldNeverMatch() {
+		final UrlMatcher matcher = new AutomatonMatchingEngine().compile(List.of());
+		assertThat(matcher.indexOfFirstMatch("")).isEqualTo(-1);
+		assertThat(matcher.indexOfFirstMatch("https://example.com")).isEqualTo(-1);
+	}
+
+	@Test
+	@Timeout(5)
+	public void shouldMatchInLinearTime() {
+		final UrlMatcher matcher = new AutomatonMatchingEngine()
+			.compile(List.of("https://example\\.com/(a+)+b", "https://example\\.com/(a|aa)*c?b", "(.*a){20}c"));
+		final String url = "https://example.com/" + "a".repeat(50_000) + "c";
+		assertThat(matcher.indexOfFirstMatch(url)).isEqualTo(2);
+		assertThat(matcher.indexOfFirstMatch(url + "b")).isEqualTo(1);
+		assertThat(matcher.indexOfFirstMatch(url + "d")).isEqualTo(-1);
+
+		final AutomatonMatchingEngine.CapturingMatcher capturing = new AutomatonMatchingEngine()
+			.compileCapturing(List.of("https://example\\.com/((a|aa|)*)*c?b"));
+		assertThat(capturing.capturesOfFirstMatch(url + "b")).map(captures -> captures.groups()[3])
+			.hasValue(url.length() - 1);
+		assertThat(capturing.capturesOfFirstMatch(url + "d")).isEmpty();
+	}
+
+	@Test
+	public void unsupportedConstructsShouldBeRejected() {
+		final AutomatonMatchingEngine engine = new AutomatonMatchingEngine();
+		for (String scheme : List.of("https://(\\w+)\\.example\\.com/\\1", "https://(?<x>\\w+)/\\k<x>",
+				"https://(?=a)b", "https://(?!a)b", "https://(?<=a)b", "https://(?<!a)b", "https://(?>a)b",
+				"https://a*+", "https://a++", "https://a?+", "https://a{2}+", "https://\\ba", "https://\\Ba",
+				"\\Ahttps://a", "\\Ghttps://a", "https://a\\Z", "https://a\\z", "https://\\p{L}", "https://\\P{L}",
+				"(?x)https://a", "(?s)https://a", "(?m)https://a$", "https://[a-z&&[^x]]", "https://[a[b]]",
+				"https://\\c", "https://\\xZZ", "https://\\u12", "https://[", "https://[a", "https://[a\\",
+				"https://[z-a]", "https://[a-\\d]", "https://(", "https://(?", "https://(?i", "https://(?<x",
+				"https://a)", "*https://a", "https://a**", "+", "?", "{1}", "https://a{", "https://a{x}",
+				"https://a{3,2}", "https://a\\")) {
+			assertThatExceptionOfType(OembedException.class).as(scheme)
+				.isThrownBy(() -> engine.compile(List.of("https://ok\\.com", scheme)))
+				.withMessageContaining(scheme);
+		}
+	}
+
+	@Test
+	public void tooComplexSchemesShouldBeRejected() {
+		final AutomatonMatchingEngine engine = new AutomatonMatchingEngine();
+		assertThat(engine.compile(List.of("https://a{1000}")).indexOfFirstMatch("https://" + "a".repeat(1000)))
+			.isZero();
+		assertThatExceptionOfType(OembedException.class)
+			.isThrownBy(() -> engine.compile(List.of("https://(a{1000}){1000}")))
+			.withMessage(
+					"Url schemes are too complex, more than 100000 states in url scheme 'https://(a{1000}){1000}'");
+	}
+
+}
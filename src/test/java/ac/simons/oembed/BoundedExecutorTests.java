@@ -0,0 +1,144 @@
+/*
+ * Created by Michael Simons, michael-simons.eu
+ * and released under The BSD License
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * Copyright (c) 2010-2026, Michael Simons
+ * All rights reserved.
+ *
+ * Redistribution  and  use  in  source   and  binary  forms,  with  or   without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source   code must retain   the above copyright   notice,
+ *   this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary  form must reproduce  the above copyright  notice,
+ *   this list of conditions  and the following  disclaimer in the  documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name  of  michael-simons.eu   nor the names  of its contributors
+ *   may be used  to endorse   or promote  products derived  from  this  software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE  COPYRIGHT HOLDERS AND  CONTRIBUTORS "AS IS"
+ * AND ANY  EXPRESS OR  IMPLIED WARRANTIES,  INCLUDING, BUT  NOT LIMITED  TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL  THE COPYRIGHT HOLDER OR CONTRIBUTORS  BE LIABLE
+ * FOR ANY  DIRECT, INDIRECT,  INCIDENTAL, SPECIAL,  EXEMPLARY, OR  CONSEQUENTIAL
+ * DAMAGES (INCLUDING,  BUT NOT  LIMITED TO,  PROCUREMENT OF  SUBSTITUTE GOODS OR
+ * SERVICES; LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT  LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE  USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package ac.simons.oembed;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+/**
+ * @author Michael J. Simons
+ * @since 2026-10-17
+ */
+public class BoundedExecutorTests {
+
+	@Test
+	public void limitShouldBeRespected() throws InterruptedException {
+		final ExecutorService executorService = Executors.newFixedThreadPool(16);
+		try {
+			final BoundedExecutor executor = new BoundedExecutor(executorService, 3);
+			final AtomicInteger active = new AtomicInteger();
+			final AtomicInteger maxActive = new AtomicInteger();
+			final CountDownLatch done = new CountDownLatch(100);
+			for (int i = 0; i < 100; ++i) {
+				executor.supplyAsync(() -> {
+					maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+					try {
+						Thread.sleep(1);
+					}
+					catch (InterruptedException ex) {
+						Thread.currentThread().interrupt();
+					}
+					active.decrementAndGet();
+					done.countDown();
+					return null;
+				});
+			}
+			assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+			assertThat(maxActive.get()).isBetween(1, 3);
+		}
+		finally {
+			executorService.shutdown();
+		}
+	}
+
+	@Test
+	public void tasksShouldRunInOrderOfSubmission() {
+		final List<Integer> order = new CopyOnWriteArrayList<>();
+		final BoundedExecutor executor = new BoundedExecutor(Runnable::run, 1);
+		for (int i = 0; i < 10; ++i) {
+			final int task = i;
+			executor.supplyAsync(() -> order.add(task));
+		}
+		assertThat(order).containsExactly(0, 1, 2, 3, 4, 5, 6, 7, 8, 9);
+	}
+
+	@Test
+	public void rejectionsShouldBePropagated() {
+		final BoundedExecutor executor = new BoundedExecutor(command -> {
+			throw new RejectedExecutionException("nope");
+		}, 1);
+		assertThat(executor.supplyAsync(() -> 1)).failsWithin(Duration.ZERO)
+			.withThrowableOfType(ExecutionException.class)
+			.withCauseInstanceOf(RejectedExecutionException.class);
+		final BoundedExecutor working = new BoundedExecutor(Runnable::run, 1);
+		assertThat(working.supplyAsync(() -> 1)).isCompletedWithValue(1);
+		assertThat(working.supplyAsync(() -> {
+			throw new IllegalStateException("broken");
+		})).isCompletedExceptionally();
+	}
+
+	@Test
+	public void tasksRejectedAfterAnotherTaskShouldNotBeLost() {
+		final List<Runnable> accepted = new ArrayList<>();
+		final BoundedExecutor executor = new BoundedExecutor(command -> {
+			if (!accepted.isEmpty()) {
+				throw new RejectedExecutionException("nope");
+			}
+			accepted.add(command);
+		}, 1);
+		final CompletableFuture<Integer> first = executor.supplyAsync(() -> 1);
+		final CompletableFuture<Integer> second = executor.supplyAsync(() -> 2);
+		final CompletableFuture<Integer> third = executor.supplyAsync(() -> 3);
+		assertThat(second).isNotDone();
+
+		// The second submission happens in the finally block of the first task
+		accepted.get(0).run();
+		assertThat(first).isCompletedWithValue(1);
+		assertThat(second).failsWithin(Duration.ZERO)
+			.withThrowableOfType(ExecutionException.class)
+			.withCauseInstanceOf(RejectedExecutionException.class);
+		assertThat(third).isCompletedExceptionally();
+	}
+
+	@Test
+	public void invalidLimitsShouldBeRejected() {
+		assertThatIllegalArgumentException().isThrownBy(() -> new BoundedExecutor(Runnable::run, 0));
+	}
+
+}
@@ -40,6 +40,7 @@ import org.apache.http.client.methods.HttpGet;
 import org.junit.jupiter.api.Test;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
 
 /**
  * @author Michael J. Simons
@@ -64,4 +65,25 @@ public class DefaultRequestProviderTests {
 		assertThat(request.getFirstHeader("User-Agent").getValue()).isEqualTo("java-oembed2/4711; dailyfratze");
 	}
 
+	@Test
+	public void createTransportRequestForShouldWork() throws URISyntaxException {
+		final DefaultRequestProvider requestProvider = new DefaultRequestProvider();
+
+		TransportRequest request = requestProvider.createTransportRequestFor("java-oembed2/4711", "dailyfratze",
+				new URI("https://dailyfratze.de"));
+		assertThat(request).hasToString("GET https://dailyfratze.de");
+		assertThat(request.getHeaders()).containsExactly(entry("Accept-Encoding", "gzip, deflate"),
+				entry("User-Agent", "java-oembed2/4711; dailyfratze"));
+
+		final RequestProvider customRequestProvider = (userAgent, applicationName, uri) -> {
+			final HttpGet rv = new HttpGet(uri);
+			rv.setHeader("X-Custom", applicationName);
+			return rv;
+		};
+		request = customRequestProvider.createTransportRequestFor("java-oembed2/4711", "dailyfratze",
+				new URI("https://dailyfratze.de"));
+		assertThat(request).hasToString("GET https://dailyfratze.de");
+		assertThat(request.getHeaders()).containsExactly(entry("X-Custom", "dailyfratze"));
+	}
+
 }
@@ -0,0 +1,124 @@
+/*
+ * Created by Michael Simons, michael-simons.eu
+ * and released under The BSD License
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * Copyright (c) 2010-2026, Michael Simons
+ * All rights reserved.
+ *
+ * Redistribution  and  use  in  source   and  binary  forms,  with  or   without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source   code must retain   the above copyright   notice,
+ *   this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary  form must reproduce  the above copyright  notice,
+ *   this list of conditions  and the following  disclaimer in the  documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name  of  michael-simons.eu   nor the names  of its contributors
+ *   may be used  to endorse   or promote  products derived  from  this  software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE  COPYRIGHT HOLDERS AND  CONTRIBUTORS "AS IS"
+ * AND ANY  EXPRESS OR  IMPLIED WARRANTIES,  INCLUDING, BUT  NOT LIMITED  TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL  THE COPYRIGHT HOLDER OR CONTRIBUTORS  BE LIABLE
+ * FOR ANY  DIRECT, INDIRECT,  INCIDENTAL, SPECIAL,  EXEMPLARY, OR  CONSEQUENTIAL
+ * DAMAGES (INCLUDING,  BUT NOT  LIMITED TO,  PROCUREMENT OF  SUBSTITUTE GOODS OR
+ * SERVICES; LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT  LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE  USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package ac.simons.oembed;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.sf.ehcache.CacheManager;
+import net.sf.ehcache.Ehcache;
+import net.sf.ehcache.Element;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.verify;
+
+/**
+ * @author Michael J. Simons
+ * @since 2026-10-17
+ */
+public class EhcacheResponseCacheTests {
+
+	private final CacheManager cacheManager = Mockito.mock(CacheManager.class);
+
+	private final Ehcache cache = Mockito.mock(Ehcache.class);
+
+	@Test
+	public void cacheShouldBeResolvedOnce() {
+		given(this.cacheManager.addCacheIfAbsent("testCache")).willReturn(this.cache);
+		final EhcacheResponseCache responseCache = new EhcacheResponseCache(this.cacheManager, "testCache");
+		assertThat(responseCache.getCacheName()).isEqualTo("testCache");
+		assertThat(EhcacheResponseCache.of(this.cacheManager).getCacheName()).isEqualTo(OembedService.class.getName())
+			.isEqualTo(EhcacheResponseCache.DEFAULT_CACHE_NAME);
+
+		assertThat(responseCache.get("https://example.com/1")).isEmpty();
+		responseCache.invalidate("https://example.com/1");
+		verify(this.cacheManager).addCacheIfAbsent("testCache");
+		verify(this.cache).remove("https://example.com/1");
+	}
+
+	@Test
+	public void responsesShouldBeStoredWithTheirTimeToLive() {
+		given(this.cacheManager.addCacheIfAbsent("testCache")).willReturn(this.cache);
+		final EhcacheResponseCache responseCache = new EhcacheResponseCache(this.cacheManager, "testCache");
+		final Instant now = Instant.now();
+		final CachedResponse cachedResponse = new CachedResponse(new OembedResponse(), now, now.plusSeconds(60));
+
+		responseCache.put("https://example.com/1", cachedResponse, Duration.ofSeconds(60));
+		responseCache.put("https://example.com/2", cachedResponse, Duration.ZERO);
+		responseCache.put("https://example.com/3", cachedResponse, Duration.ofSeconds(Long.MAX_VALUE));
+
+		final ArgumentCaptor<Element> elements = ArgumentCaptor.forClass(Element.class);
+		verify(this.cache, Mockito.times(3)).put(elements.capture());
+		assertThat(elements.getAllValues()).extracting(Element::getObjectValue).containsOnly(cachedResponse);
+		assertThat(elements.getAllValues()).extracting(Element::getTimeToLive)
+			.containsExactly(60, 1, Integer.MAX_VALUE);
+		assertThat(elements.getAllValues()).extracting(Element::getTimeToIdle)
+			.containsExactly(60, 1, Integer.MAX_VALUE);
+	}
+
+	@Test
+	public void responsesShouldBeRead() {
+		given(this.cacheManager.addCacheIfAbsent("testCache")).willReturn(this.cache);
+		final EhcacheResponseCache responseCache = new EhcacheResponseCache(this.cacheManager, "testCache");
+		final Instant now = Instant.now();
+		final OembedResponse response = new OembedResponse();
+		final CachedResponse cachedResponse = new CachedResponse(response, now, now.plusSeconds(60));
+		final Element legacyResponse = new Element("https://example.com/2", response, 60, 60);
+		final Element legacyFailure = new Element("https://example.com/3", null, 60, 60);
+		given(this.cache.get("https://example.com/1")).willReturn(new Element("https://example.com/1", cachedResponse));
+		given(this.cache.get("https://example.com/2")).willReturn(legacyResponse);
+		given(this.cache.get("https://example.com/3")).willReturn(legacyFailure);
+		final Map<Object, Element> elements = new HashMap<>();
+		elements.put("https://example.com/1", new Element("https://example.com/1", cachedResponse));
+		elements.put("https://example.com/4", null);
+		given(this.cache.getAll(List.of("https://example.com/1", "https://example.com/4"))).willReturn(elements);
+
+		assertThat(responseCache.get("https://example.com/1")).hasValue(cachedResponse);
+		final CachedResponse converted = responseCache.get("https://example.com/2").orElseThrow();
+		assertThat(converted.getResponse()).hasValue(response);
+		assertThat(converted.getStoredAt()).isEqualTo(Instant.ofEpochMilli(legacyResponse.getCreationTime()));
+		assertThat(converted.getExpiresAt()).isEqualTo(Instant.ofEpochMilli(legacyResponse.getExpirationTime()));
+		assertThat(responseCache.get("https://example.com/3").orElseThrow().getResponse()).isEmpty();
+		assertThat(responseCache.getAll(List.of("https://example.com/1", "https://example.com/4")))
+			.containsExactly(Map.entry("https://example.com/1", cachedResponse));
+	}
+
+}
@@ -0,0 +1,83 @@
+/*
+ * Created by Michael Simons, michael-simons.eu
+ * and released under The BSD License
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * Copyright (c) 2010-2026, Michael Simons
+ * All rights reserved.
+ *
+ * Redistribution  and  use  in  source   and  binary  forms,  with  or   without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source   code must retain   the above copyright   notice,
+ *   this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary  form must reproduce  the above copyright  notice,
+ *   this list of conditions  and the following  disclaimer in the  documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name  of  michael-simons.eu   nor the names  of its contributors
+ *   may be used  to endorse   or promote  products derived  from  this  software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE  COPYRIGHT HOLDERS AND  CONTRIBUTORS "AS IS"
+ * AND ANY  EXPRESS OR  IMPLIED WARRANTIES,  INCLUDING, BUT  NOT LIMITED  TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL  THE COPYRIGHT HOLDER OR CONTRIBUTORS  BE LIABLE
+ * FOR ANY  DIRECT, INDIRECT,  INCIDENTAL, SPECIAL,  EXEMPLARY, OR  CONSEQUENTIAL
+ * DAMAGES (INCLUDING,  BUT NOT  LIMITED TO,  PROCUREMENT OF  SUBSTITUTE GOODS OR
+ * SERVICES; LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT  LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE  USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package ac.simons.oembed;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.net.http.HttpConnectTimeoutException;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Michael J. Simons
+ * @since 2026-10-17
+ */
+public class FetchFailureTests {
+
+	@Test
+	public void statusCodesShouldBeClassified() {
+		assertThat(FetchFailure.ofStatus(404)).isEqualTo(FetchFailure.NOT_FOUND);
+		assertThat(FetchFailure.ofStatus(410)).isEqualTo(FetchFailure.NOT_FOUND);
+		assertThat(FetchFailure.ofStatus(429)).isEqualTo(FetchFailure.UNAVAILABLE);
+		assertThat(FetchFailure.ofStatus(500)).isEqualTo(FetchFailure.UNAVAILABLE);
+		assertThat(FetchFailure.ofStatus(503)).isEqualTo(FetchFailure.UNAVAILABLE);
+		assertThat(FetchFailure.ofStatus(501)).isEqualTo(FetchFailure.REJECTED);
+		assertThat(FetchFailure.ofStatus(401)).isEqualTo(FetchFailure.REJECTED);
+		assertThat(FetchFailure.ofStatus(403)).isEqualTo(FetchFailure.REJECTED);
+		assertThat(FetchFailure.ofStatus(302)).isEqualTo(FetchFailure.REJECTED);
+	}
+
+	@Test
+	public void exceptionsShouldBeClassified() {
+		assertThat(FetchFailure.ofException(new SocketTimeoutException("Read timed out")))
+			.isEqualTo(FetchFailure.TIMEOUT);
+		assertThat(FetchFailure.ofException(new InterruptedIOException())).isEqualTo(FetchFailure.TIMEOUT);
+		assertThat(FetchFailure.ofException(new HttpConnectTimeoutException("HTTP connect timed out")))
+			.isEqualTo(FetchFailure.TIMEOUT);
+		assertThat(FetchFailure.ofException(new IOException("Connection reset")))
+			.isEqualTo(FetchFailure.CONNECTION_FAILED);
+	}
+
+	@Test
+	public void transientFailuresShouldBeCachedBriefly() {
+		assertThat(FetchFailure.NOT_FOUND.getDefaultCacheAge()).isEqualTo(3600);
+		assertThat(FetchFailure.UNAVAILABLE.getDefaultCacheAge()).isEqualTo(60);
+		assertThat(FetchFailure.TIMEOUT.getDefaultCacheAge()).isEqualTo(30);
+		assertThat(FetchFailure.CONNECTION_FAILED.getDefaultCacheAge()).isEqualTo(30);
+	}
+
+}
@@ -0,0 +1,86 @@
+/*
+ * Created by Michael Simons, michael-simons.eu
+ * and released under The BSD License
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * Copyright (c) 2010-2026, Michael Simons
+ * All rights reserved.
+ *
+ * Redistribution  and  use  in  source   and  binary  forms,  with  or   without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source   code must retain   the above copyright   notice,
+ *   this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary  form must reproduce  the above copyright  notice,
+ *   this list of conditions  and the following  disclaimer in the  documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name  of  michael-simons.eu   nor the names  of its contributors
+ *   may be used  to endorse   or promote  products derived  from  this  software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE  COPYRIGHT HOLDERS AND  CONTRIBUTORS "AS IS"
+ * AND ANY  EXPRESS OR  IMPLIED WARRANTIES,  INCLUDING, BUT  NOT LIMITED  TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL  THE COPYRIGHT HOLDER OR CONTRIBUTORS  BE LIABLE
+ * FOR ANY  DIRECT, INDIRECT,  INCIDENTAL, SPECIAL,  EXEMPLARY, OR  CONSEQUENTIAL
+ * DAMAGES (INCLUDING,  BUT NOT  LIMITED TO,  PROCUREMENT OF  SUBSTITUTE GOODS OR
+ * SERVICES; LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT  LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE  USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package ac.simons.oembed;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+/**
+ * @author Michael J. Simons
+ * @since 2026-10-17
+ */
+public class FrequencySketchTests {
+
+	@Test
+	public void frequenciesShouldBeEstimated() {
+		final FrequencySketch sketch = new FrequencySketch(512);
+		for (int i = 0; i < 5; ++i) {
+			sketch.increment("https://example.com/popular");
+		}
+		sketch.increment("https://example.com/once");
+
+		assertThat(sketch.frequency("https://example.com/popular")).isEqualTo(5);
+		assertThat(sketch.frequency("https://example.com/once")).isEqualTo(1);
+		assertThat(sketch.frequency("https://example.com/never")).isZero();
+	}
+
+	@Test
+	public void frequenciesShouldSaturate() {
+		final FrequencySketch sketch = new FrequencySketch(512);
+		for (int i = 0; i < 20; ++i) {
+			sketch.increment("https://example.com/popular");
+		}
+		assertThat(sketch.frequency("https://example.com/popular")).isEqualTo(15);
+	}
+
+	@Test
+	public void frequenciesShouldBeHalvedPeriodically() {
+		final FrequencySketch sketch = new FrequencySketch(1);
+		for (int i = 0; i < 9; ++i) {
+			sketch.increment("https://example.com/popular");
+		}
+		assertThat(sketch.frequency("https://example.com/popular")).isEqualTo(9);
+		sketch.increment("https://example.com/popular");
+		assertThat(sketch.frequency("https://example.com/popular")).isEqualTo(5);
+	}
+
+	@Test
+	public void expectedSizeShouldBeValidated() {
+		assertThatIllegalArgumentException().isThrownBy(() -> new FrequencySketch(0))
+			.withMessage("The expected size of the sketch must be at least 1");
+	}
+
+}
@@ -0,0 +1,106 @@
+/*
+ * Created by Michael Simons, michael-simons.eu
+ * and released under The BSD License
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * Copyright (c) 2010-2026, Michael Simons
+ * All rights reserved.
+ *
+ * Redistribution  and  use  in  source   and  binary  forms,  with  or   without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source   code must retain   the above copyright   notice,
+ *   this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary  form must reproduce  the above copyright  notice,
+ *   this list of conditions  and the following  disclaimer in the  documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name  of  michael-simons.eu   nor the names  of its contributors
+ *   may be used  to endorse   or promote  products derived  from  this  software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE  COPYRIGHT HOLDERS AND  CONTRIBUTORS "AS IS"
+ * AND ANY  EXPRESS OR  IMPLIED WARRANTIES,  INCLUDING, BUT  NOT LIMITED  TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL  THE COPYRIGHT HOLDER OR CONTRIBUTORS  BE LIABLE
+ * FOR ANY  DIRECT, INDIRECT,  INCIDENTAL, SPECIAL,  EXEMPLARY, OR  CONSEQUENTIAL
+ * DAMAGES (INCLUDING,  BUT NOT  LIMITED TO,  PROCUREMENT OF  SUBSTITUTE GOODS OR
+ * SERVICES; LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT  LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE  USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package ac.simons.oembed;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Michael J. Simons
+ * @since 2026-10-17
+ */
+public class GlobUrlSchemeTests {
+
+	@Test
+	public void wildcardsShouldWork() {
+		GlobUrlScheme glob = new GlobUrlScheme("https://*.flickr.com/photos/*");
+		assertThat(glob).hasToString("https://*.flickr.com/photos/*");
+		assertThat(glob.matches("https://www.flickr.com/photos/123")).isTrue();
+		assertThat(glob.matches("https://a.b.flickr.com/photos/")).isTrue();
+		assertThat(glob.matches("https://.flickr.com/photos/1")).isTrue();
+		assertThat(glob.matches("https://flickr.com/photos/1")).isFalse();
+		assertThat(glob.matches("http://www.flickr.com/photos/1")).isFalse();
+		assertThat(glob.matches("https://evil.com/?.flickr.com/photos/1")).isFalse();
+		assertThat(glob.matches("https://www.flickr.com")).isFalse();
+		assertThat(glob.matches("www.flickr.com/photos/1")).isFalse();
+
+		glob = new GlobUrlScheme("https://www.youtube.com/watch*");
+		assertThat(glob.matches("https://www.youtube.com/watch?v=x")).isTrue();
+		assertThat(glob.matches("https://www.youtube.com/watch")).isTrue();
+		assertThat(glob.matches("https://www.youtube.com/wat")).isFalse();
+		assertThat(glob.matches("https://m.youtube.com/watch")).isFalse();
+
+		glob = new GlobUrlScheme("https://*.example.com/*/status/*/photo/*");
+		assertThat(glob.matches("https://a.example.com/x/status/1/photo/2")).isTrue();
+		assertThat(glob.matches("https://a.example.com/status/photo/")).isFalse();
+		assertThat(glob.matches("https://a.example.com//status//photo/")).isTrue();
+		assertThat(glob.matches("https://a.example.com/x/status/1/photo")).isFalse();
+		assertThat(glob.matches("https://a.example.com/x/photo/1/status/2")).isFalse();
+	}
+
+	@Test
+	public void globsWithoutPathShouldWork() {
+		final GlobUrlScheme glob = new GlobUrlScheme("https://*.example.com");
+		assertThat(glob.matches("https://www.example.com")).isTrue();
+		assertThat(glob.matches("https://www.example.com/")).isFalse();
+		assertThat(glob.matches("https://www.example.org")).isFalse();
+	}
+
+	@Test
+	public void globsWithoutSchemeSeparatorShouldWork() {
+		final GlobUrlScheme glob = new GlobUrlScheme("spotify:*");
+		assertThat(glob.matches("spotify:track:4711")).isTrue();
+		assertThat(glob.matches("https://open.spotify.com")).isFalse();
+		assertThat(glob.getHostKey()).isEmpty();
+
+		assertThat(new GlobUrlScheme("spotify:track").matches("spotify:track")).isTrue();
+		assertThat(new GlobUrlScheme("spotify:track").matches("spotify:tracks")).isFalse();
+	}
+
+	@Test
+	public void hostKeysShouldBeDerived() {
+		assertThat(new GlobUrlScheme("https://*.flickr.com/photos/*").getHostKey())
+			.hasValue(new UrlSchemeIndex.HostKey(List.of("com", "flickr"), null, false));
+		assertThat(new GlobUrlScheme("https://flickr.com/photos/*").getHostKey())
+			.hasValue(new UrlSchemeIndex.HostKey(List.of("com", "flickr"), null, true));
+		assertThat(new GlobUrlScheme("https://*flickr.com/photos/*").getHostKey())
+			.hasValue(new UrlSchemeIndex.HostKey(List.of("com"), "flickr", false));
+		assertThat(new GlobUrlScheme("https://*/photos/*").getHostKey()).isEqualTo(Optional.empty());
+	}
+
+}
@@ -0,0 +1,173 @@
+/*
+ * Created by Michael Simons, michael-simons.eu
+ * and released under The BSD License
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * Copyright (c) 2010-2026, Michael Simons
+ * All rights reserved.
+ *
+ * Redistribution  and  use  in  source   and  binary  forms,  with  or   without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source   code must retain   the above copyright   notice,
+ *   this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary  form must reproduce  the above copyright  notice,
+ *   this list of conditions  and the following  disclaimer in the  documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name  of  michael-simons.eu   nor the names  of its contributors
+ *   may be used  to endorse   or promote  products derived  from  this  software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE  COPYRIGHT HOLDERS AND  CONTRIBUTORS "AS IS"
+ * AND ANY  EXPRESS OR  IMPLIED WARRANTIES,  INCLUDING, BUT  NOT LIMITED  TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL  THE COPYRIGHT HOLDER OR CONTRIBUTORS  BE LIABLE
+ * FOR ANY  DIRECT, INDIRECT,  INCIDENTAL, SPECIAL,  EXEMPLARY, OR  CONSEQUENTIAL
+ * DAMAGES (INCLUDING,  BUT NOT  LIMITED TO,  PROCUREMENT OF  SUBSTITUTE GOODS OR
+ * SERVICES; LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT  LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE  USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package ac.simons.oembed;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.net.URI;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Michael J. Simons
+ * @since 2026-10-17
+ */
+public class HeadLinkScannerTests {
+
+	private static final URI DOCUMENT_URI = URI.create("https://example.com/articles/1");
+
+	@Test
+	public void linksOfTheHeadShouldBeFound() throws IOException {
+		final String html = """
+				<!DOCTYPE html>
+				<?xml-stylesheet href="ignored"?>
+				<HTML lang=en>
+				<head>
+				<!-- <link rel="alternate" type="application/json+oembed" href="/commented"> -->
+				<meta charset=utf-8>
+				<title>Links <link rel="alternate" href="/title"></title>
+				<script>document.write('<link rel="alternate" href="/script">');</script>
+				<style type="text/css"/>
+				<LINK REL="Alternate Stylesheet" Type='application/json+oembed'
+				      href="/oembed?format=json&amp;url=https%3A%2F%2Fexample.com&#x2F;articles&#47;1" href="/second">
+				<link rel=alternate type=text/xml+oembed href=http://other.example.com/oembed.xml/>
+				<link rel="icon" href="/favicon.ico" / >
+				<link rel="alternate" type="application/json+oembed">
+				<link rel="broken" href="https://exa mple.com">
+				<link href="/without-rel" disabled>
+				<link rel="entities" href="/a?b&unknown;c&amp">
+				</head>
+				<body>
+				<link rel="alternate" href="/body">
+				</body>
+				</html>
+				""";
+		assertThat(HeadLinkScanner.scan(new StringReader(html), DOCUMENT_URI))
+			.containsExactly(
+					new HeadLinkScanner.Link("Alternate Stylesheet", "application/json+oembed",
+							URI.create(
+									"https://example.com/oembed?format=json&url=https%3A%2F%2Fexample.com/articles/1")),
+					new HeadLinkScanner.Link("alternate", "text/xml+oembed",
+							URI.create("http://other.example.com/oembed.xml/")),
+					new HeadLinkScanner.Link("icon", "", URI.create("https://example.com/favicon.ico")),
+					new HeadLinkScanner.Link("", "", URI.create("https://example.com/without-rel")),
+					new HeadLinkScanner.Link("entities", "", URI.create("https://example.com/a?b&unknown;c&amp")));
+	}
+
+	@Test
+	public void relationTypesShouldBeMatched() {
+		final HeadLinkScanner.Link link = new HeadLinkScanner.Link(" Alternate\tstylesheet ", "", DOCUMENT_URI);
+		assertThat(link.hasRel("alternate")).isTrue();
+		assertThat(link.hasRel("STYLESHEET")).isTrue();
+		assertThat(link.hasRel("icon")).isFalse();
+	}
+
+	@Test
+	public void linksShouldBeResolvedAgainstBase() throws IOException {
+		final String html = """
+				<html><head>
+				<link rel="alternate" href="oembed.json">
+				<base href="/api/"><base href="/ignored/">
+				<link rel="alternate" href="oembed.xml">
+				""";
+		assertThat(HeadLinkScanner.scan(new StringReader(html), DOCUMENT_URI)).extracting(HeadLinkScanner.Link::href)
+			.containsExactly(URI.create("https://example.com/api/oembed.json"),
+					URI.create("https://example.com/api/oembed.xml"));
+
+		assertThat(HeadLinkScanner.scan(new StringReader("<base href=\"https://exa mple.com\"><link href=a>"),
+				DOCUMENT_URI))
+			.extracting(HeadLinkScanner.Link::href)
+			.containsExactly(URI.create("https://example.com/articles/a"));
+	}
+
+	@Test
+	public void scanningShouldStopAtTheEndOfTheHead() throws IOException {
+		for (String end : List.of("</head>", "<body class=\"article\">", "<div>", "</html>", "<p>")) {
+			final CountingReader reader = new CountingReader(
+					"<head><link href=a>" + end + "<link href=b>" + "x".repeat(1_000_000));
+			assertThat(HeadLinkScanner.scan(reader, DOCUMENT_URI)).hasSize(1);
+			assertThat(reader.getCount()).isLessThan(4096);
+		}
+	}
+
+	@Test
+	public void incompleteDocumentsShouldBeScanned() throws IOException {
+		for (String html : List.of("", "<", "</", "<!", "<!-", "<!--", "<link", "<link href", "<link href=",
+				"<link href=\"a", "<link href=a", "<link href =a/", "<title>", "a < b << c <1 <link href=a>",
+				"<link =a href=b>")) {
+			assertThat(HeadLinkScanner.scan(new StringReader(html), DOCUMENT_URI))
+				.allSatisfy(link -> assertThat(link.href().toString()).startsWith("https://example.com/articles/"));
+		}
+		assertThat(HeadLinkScanner.scan(new StringReader("<link href =a/"), DOCUMENT_URI))
+			.extracting(HeadLinkScanner.Link::href)
+			.containsExactly(URI.create("https://example.com/articles/a/"));
+		assertThat(HeadLinkScanner.scan(new StringReader("a <<link href=a>"), DOCUMENT_URI)).hasSize(1);
+	}
+
+	@Test
+	public void decodeShouldWork() {
+		assertThat(HeadLinkScanner.decode("a")).isEqualTo("a");
+		assertThat(HeadLinkScanner.decode("&lt;&gt;&quot;&apos;&amp;&#65;&#x42;&#X43;")).isEqualTo("<>\"'&ABC");
+		assertThat(HeadLinkScanner.decode("&a;&#;&#x;&#xZZ;&#-1;&#1114112;&averyveryverylongreference;&"))
+			.isEqualTo("&a;&#;&#x;&#xZZ;&#-1;&#1114112;&averyveryverylongreference;&");
+	}
+
+	/**
+	 * A reader counting the characters read.
+	 */
+	private static final class CountingReader extends StringReader {
+
+		private int count;
+
+		CountingReader(final String s) {
+			super(s);
+		}
+
+		@Override
+		public int read(final char[] cbuf, final int off, final int len) throws IOException {
+			final int rv = super.read(cbuf, off, len);
+			this.count += Math.max(rv, 0);
+			return rv;
+		}
+
+		int getCount() {
+			return this.count;
+		}
+
+	}
+
+}
@@ -0,0 +1,87 @@
+/*
+ * Created by Michael Simons, michael-simons.eu
+ * and released under The BSD License
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * Copyright (c) 2010-2026, Michael Simons
+ * All rights reserved.
+ *
+ * Redistribution  and  use  in  source   and  binary  forms,  with  or   without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source   code must retain   the above copyright   notice,
+ *   this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary  form must reproduce  the above copyright  notice,
+ *   this list of conditions  and the following  disclaimer in the  documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name  of  michael-simons.eu   nor the names  of its contributors
+ *   may be used  to endorse   or promote  products derived  from  this  software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE  COPYRIGHT HOLDERS AND  CONTRIBUTORS "AS IS"
+ * AND ANY  EXPRESS OR  IMPLIED WARRANTIES,  INCLUDING, BUT  NOT LIMITED  TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL  THE COPYRIGHT HOLDER OR CONTRIBUTORS  BE LIABLE
+ * FOR ANY  DIRECT, INDIRECT,  INCIDENTAL, SPECIAL,  EXEMPLARY, OR  CONSEQUENTIAL
+ * DAMAGES (INCLUDING,  BUT NOT  LIMITED TO,  PROCUREMENT OF  SUBSTITUTE GOODS OR
+ * SERVICES; LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT  LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE  USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package ac.simons.oembed;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Michael J. Simons
+ * @since 2026-10-17
+ */
+public class InMemoryHttpTransportTests {
+
+	@Test
+	public void predefinedResponsesShouldBeReturned() throws IOException {
+		final InMemoryHttpTransport transport = new InMemoryHttpTransport().respond("https://example.com", 200, "Hallo")
+			.respond("https://example.com/latin", 200, Map.of("Content-Type", "text/plain; charset=\"ISO-8859-1\""),
+					"Grüße".getBytes(StandardCharsets.ISO_8859_1))
+			.respond("https://example.com/broken", 200, Map.of("Content-Type", "text/plain; charset=nope"),
+					"Hallo".getBytes(StandardCharsets.UTF_8));
+
+		try (TransportResponse response = transport.execute(TransportRequest.get(URI.create("https://example.com")))) {
+			assertThat(response.getStatusCode()).isEqualTo(200);
+			assertThat(response.getBodyAsString()).isEqualTo("Hallo");
+			assertThat(response.getHeader("Content-Type")).isEmpty();
+		}
+		try (TransportResponse response = transport
+			.execute(TransportRequest.get(URI.create("https://example.com/latin")))) {
+			assertThat(response.getHeaders("content-type")).containsExactly("text/plain; charset=\"ISO-8859-1\"");
+			assertThat(response.getBodyAsString()).isEqualTo("Grüße");
+		}
+		try (TransportResponse response = transport
+			.execute(TransportRequest.get(URI.create("https://example.com/broken")))) {
+			assertThat(response.getBodyAsString()).isEqualTo("Hallo");
+		}
+		try (TransportResponse response = transport
+			.execute(new TransportRequest("HEAD", URI.create("https://example.com"), Map.of()))) {
+			assertThat(response.getStatusCode()).isEqualTo(200);
+			assertThat(response.getBody()).isEmpty();
+		}
+		try (TransportResponse response = transport
+			.execute(TransportRequest.get(URI.create("https://example.com/unknown")))) {
+			assertThat(response.getStatusCode()).isEqualTo(404);
+		}
+		assertThat(transport.getRequests()).extracting(TransportRequest::toString)
+			.containsExactly("GET https://example.com", "GET https://example.com/latin",
+					"GET https://example.com/broken", "HEAD https://example.com", "GET https://example.com/unknown");
+	}
+
+}
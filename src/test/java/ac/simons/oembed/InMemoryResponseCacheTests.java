@@ -0,0 +1,176 @@
+/*
+ * Created by Michael Simons, michael-simons.eu
+ * and released under The BSD License
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * Copyright (c) 2010-2026, Michael Simons
+ * All rights reserved.
+ *
+ * Redistribution  and  use  in  source   and  binary  forms,  with  or   without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source   code must retain   the above copyright   notice,
+ *   this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary  form must reproduce  the above copyright  notice,
+ *   this list of conditions  and the following  disclaimer in the  documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name  of  michael-simons.eu   nor the names  of its contributors
+ *   may be used  to endorse   or promote  products derived  from  this  software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE  COPYRIGHT HOLDERS AND  CONTRIBUTORS "AS IS"
+ * AND ANY  EXPRESS OR  IMPLIED WARRANTIES,  INCLUDING, BUT  NOT LIMITED  TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL  THE COPYRIGHT HOLDER OR CONTRIBUTORS  BE LIABLE
+ * FOR ANY  DIRECT, INDIRECT,  INCIDENTAL, SPECIAL,  EXEMPLARY, OR  CONSEQUENTIAL
+ * DAMAGES (INCLUDING,  BUT NOT  LIMITED TO,  PROCUREMENT OF  SUBSTITUTE GOODS OR
+ * SERVICES; LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT  LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE  USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package ac.simons.oembed;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.assertThatNullPointerException;
+
+/**
+ * @author Michael J. Simons
+ * @since 2026-10-17
+ */
+public class InMemoryResponseCacheTests {
+
+	private static final Instant NOW = Instant.parse("2026-10-17T12:00:00Z");
+
+	@Test
+	public void responsesShouldBeCachedUntilTheyExpire() {
+		final AtomicLong now = new AtomicLong(-42);
+		final InMemoryResponseCache cache = new InMemoryResponseCache(10, 1, now::get);
+		final OembedResponse response = new OembedResponse();
+		final CachedResponse cachedResponse = new CachedResponse(response, NOW, NOW.plusSeconds(60));
+		final CachedResponse cachedFailure = new CachedResponse(null, NOW, NOW.plusSeconds(60));
+
+		assertThat(cache.get("https://example.com/1")).isEmpty();
+		cache.put("https://example.com/1", cachedResponse, Duration.ofSeconds(60));
+		cache.put("https://example.com/2", cachedFailure, Duration.ofSeconds(120));
+		assertThat(cache.get("https://example.com/1")).hasValue(cachedResponse);
+		assertThat(cache.get("https://example.com/1").flatMap(CachedResponse::getResponse)).hasValue(response);
+		assertThat(cache.get("https://example.com/2").flatMap(CachedResponse::getResponse)).isEmpty();
+		assertThat(cache.getAll(List.of("https://example.com/1", "https://example.com/2", "https://example.com/3")))
+			.containsOnlyKeys("https://example.com/1", "https://example.com/2");
+
+		now.addAndGet(Duration.ofSeconds(60).toNanos());
+		assertThat(cache.get("https://example.com/1")).isEmpty();
+		assertThat(cache.get("https://example.com/2")).hasValue(cachedFailure);
+		assertThat(cache.size()).isEqualTo(1);
+
+		cache.invalidate("https://example.com/2");
+		assertThat(cache.get("https://example.com/2")).isEmpty();
+		assertThat(cache.size()).isZero();
+	}
+
+	@Test
+	public void expiredEntriesShouldBeEvictedFirst() {
+		final AtomicLong now = new AtomicLong();
+		final InMemoryResponseCache cache = new InMemoryResponseCache(4, 1, now::get);
+		final CachedResponse cachedResponse = new CachedResponse(null, NOW, NOW.plusSeconds(60));
+		cache.put("https://example.com/expired", cachedResponse, Duration.ofSeconds(1));
+		for (int i = 0; i < 3; ++i) {
+			cache.put("https://example.com/" + i, cachedResponse, Duration.ofSeconds(60));
+		}
+		now.addAndGet(Duration.ofSeconds(1).toNanos());
+		cache.put("https://example.com/3", cachedResponse, Duration.ofSeconds(60));
+		assertThat(cache.size()).isEqualTo(4);
+		assertThat(cache.get("https://example.com/expired")).isEmpty();
+		assertThat(cache.get("https://example.com/3")).isPresent();
+	}
+
+	@Test
+	public void onlyFrequentlyRequestedUrlsShouldBeAdmitted() {
+		final InMemoryResponseCache cache = new InMemoryResponseCache(4, 1, () -> 0L);
+		final CachedResponse cachedResponse = new CachedResponse(null, NOW, NOW.plusSeconds(60));
+		for (int i = 0; i < 4; ++i) {
+			final String url = "https://example.com/popular/" + i;
+			for (int j = 0; j < 3; ++j) {
+				cache.get(url);
+			}
+			cache.put(url, cachedResponse, Duration.ofSeconds(60));
+		}
+
+		// A one-off url doesn't replace the least recently used response
+		assertThat(cache.get("https://example.com/spam")).isEmpty();
+		cache.put("https://example.com/spam", cachedResponse, Duration.ofSeconds(60));
+		assertThat(cache.get("https://example.com/spam")).isEmpty();
+		assertThat(cache.size()).isEqualTo(4);
+
+		// Existing entries are always updated
+		cache.put("https://example.com/popular/0", cachedResponse, Duration.ofSeconds(60));
+		assertThat(cache.get("https://example.com/popular/0")).isPresent();
+
+		// An url requested more often than the least recently used one replaces it
+		for (int j = 0; j < 4; ++j) {
+			cache.get("https://example.com/new");
+		}
+		cache.put("https://example.com/new", cachedResponse, Duration.ofSeconds(60));
+		assertThat(cache.get("https://example.com/new")).isPresent();
+		assertThat(cache.get("https://example.com/popular/1")).isEmpty();
+		assertThat(cache.size()).isEqualTo(4);
+	}
+
+	@Test
+	public void cacheShouldBeSegmented() {
+		final InMemoryResponseCache cache = new InMemoryResponseCache(1000, 8, () -> 0L);
+		final CachedResponse cachedResponse = new CachedResponse(null, NOW, NOW.plusSeconds(60));
+		for (int i = 0; i < 2000; ++i) {
+			cache.put("https://example.com/" + i, cachedResponse, Duration.ofSeconds(60));
+		}
+		assertThat(cache.size()).isEqualTo(1000);
+		cache.invalidate("https://example.com/0");
+		assertThat(cache.get("https://example.com/0")).isEmpty();
+	}
+
+	@Test
+	public void maximumSizeShouldBeValidated() {
+		assertThatIllegalArgumentException().isThrownBy(() -> new InMemoryResponseCache(0))
+			.withMessage("The maximum size of the response cache must be at least 1");
+		assertThat(new InMemoryResponseCache(1).size()).isZero();
+	}
+
+	@Test
+	public void cachedResponsesShouldKnowWhetherTheyAreFresh() {
+		final CachedResponse cachedResponse = new CachedResponse(null, NOW, NOW.plusSeconds(60));
+		assertThat(cachedResponse.getStoredAt()).isEqualTo(NOW);
+		assertThat(cachedResponse.getExpiresAt()).isEqualTo(NOW.plusSeconds(60));
+		assertThat(cachedResponse.isFresh(NOW.plusSeconds(59))).isTrue();
+		assertThat(cachedResponse.isFresh(NOW.plusSeconds(60))).isFalse();
+		assertThat(cachedResponse)
+			.hasToString("CachedResponse[response=null, failure=null, failures=0, storedAt=2026-10-17T12:00:00Z, "
+					+ "expiresAt=2026-10-17T12:01:00Z]");
+		assertThatNullPointerException().isThrownBy(() -> new CachedResponse(null, null, NOW))
+			.withMessage("The time of storage is required");
+		assertThatNullPointerException().isThrownBy(() -> new CachedResponse(null, NOW, null))
+			.withMessage("The time of expiry is required");
+
+		final CachedResponse cachedFailure = new CachedResponse(FetchFailure.TIMEOUT, 2, NOW, NOW.plusSeconds(60));
+		assertThat(cachedFailure.getResponse()).isEmpty();
+		assertThat(cachedFailure.getFailure()).hasValue(FetchFailure.TIMEOUT);
+		assertThat(cachedFailure.getFailures()).isEqualTo(2);
+		assertThat(cachedResponse.getFailure()).isEmpty();
+		assertThat(cachedResponse.getFailures()).isZero();
+		assertThatNullPointerException().isThrownBy(() -> new CachedResponse((FetchFailure) null, 1, NOW, NOW))
+			.withMessage("The class of the failure is required");
+		assertThatIllegalArgumentException().isThrownBy(() -> new CachedResponse(FetchFailure.TIMEOUT, 0, NOW, NOW))
+			.withMessage("The number of failures must be at least 1");
+	}
+
+}
@@ -0,0 +1,118 @@
+/*
+ * Created by Michael Simons, michael-simons.eu
+ * and released under The BSD License
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * Copyright (c) 2010-2026, Michael Simons
+ * All rights reserved.
+ *
+ * Redistribution  and  use  in  source   and  binary  forms,  with  or   without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source   code must retain   the above copyright   notice,
+ *   this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary  form must reproduce  the above copyright  notice,
+ *   this list of conditions  and the following  disclaimer in the  documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name  of  michael-simons.eu   nor the names  of its contributors
+ *   may be used  to endorse   or promote  products derived  from  this  software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE  COPYRIGHT HOLDERS AND  CONTRIBUTORS "AS IS"
+ * AND ANY  EXPRESS OR  IMPLIED WARRANTIES,  INCLUDING, BUT  NOT LIMITED  TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL  THE COPYRIGHT HOLDER OR CONTRIBUTORS  BE LIABLE
+ * FOR ANY  DIRECT, INDIRECT,  INCIDENTAL, SPECIAL,  EXEMPLARY, OR  CONSEQUENTIAL
+ * DAMAGES (INCLUDING,  BUT NOT  LIMITED TO,  PROCUREMENT OF  SUBSTITUTE GOODS OR
+ * SERVICES; LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT  LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE  USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package ac.simons.oembed;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Michael J. Simons
+ * @since 2026-10-17
+ */
+public class JCacheResponseCacheTests {
+
+	private CacheManager cacheManager;
+
+	@BeforeEach
+	public void createCacheManager() {
+		final CachingProvider cachingProvider = Caching
+			.getCachingProvider("com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider");
+		this.cacheManager = cachingProvider.getCacheManager();
+	}
+
+	@AfterEach
+	public void closeCacheManager() {
+		this.cacheManager.close();
+	}
+
+	@Test
+	public void cacheShouldBeCreatedOnce() {
+		final JCacheResponseCache responseCache = JCacheResponseCache.of(this.cacheManager, "testCache");
+		final Instant now = Instant.now();
+		final CachedResponse cachedResponse = new CachedResponse(new OembedResponse(), now, now.plusSeconds(60));
+		responseCache.put("https://example.com/1", cachedResponse, Duration.ofSeconds(60));
+
+		assertThat(JCacheResponseCache.of(this.cacheManager, "testCache").get("https://example.com/1"))
+			.hasValueSatisfying(value -> assertThat(value).usingRecursiveComparison().isEqualTo(cachedResponse));
+	}
+
+	@Test
+	public void responsesShouldBeCachedUntilTheyExpire() {
+		final AtomicLong now = new AtomicLong(1_000);
+		final JCacheResponseCache responseCache = new JCacheResponseCache(
+				JCacheResponseCache.of(this.cacheManager, "testCache2").getCache(), now::get);
+		final Instant storedAt = Instant.now();
+		final CachedResponse cachedResponse = new CachedResponse(new OembedResponse(), storedAt,
+				storedAt.plusSeconds(60));
+		final CachedResponse cachedFailure = new CachedResponse(null, storedAt, storedAt.plusSeconds(120));
+
+		responseCache.put("https://example.com/1", cachedResponse, Duration.ofSeconds(60));
+		responseCache.put("https://example.com/2", cachedFailure, Duration.ofSeconds(120));
+		assertThat(responseCache.get("https://example.com/1"))
+			.hasValueSatisfying(value -> assertThat(value.getExpiresAt()).isEqualTo(cachedResponse.getExpiresAt()));
+		assertThat(responseCache.get("https://example.com/3")).isEmpty();
+		assertThat(responseCache
+			.getAll(List.of("https://example.com/1", "https://example.com/2", "https://example.com/3")))
+			.containsOnlyKeys("https://example.com/1", "https://example.com/2");
+
+		now.addAndGet(60_000);
+		assertThat(responseCache.getAll(List.of("https://example.com/1", "https://example.com/2")))
+			.containsOnlyKeys("https://example.com/2");
+		assertThat(responseCache.get("https://example.com/1")).isEmpty();
+		assertThat(responseCache.getCache().containsKey("https://example.com/1")).isFalse();
+
+		responseCache.invalidate("https://example.com/2");
+		assertThat(responseCache.get("https://example.com/2")).isEmpty();
+	}
+
+	@Test
+	public void foreignValuesShouldBeIgnored() {
+		final JCacheResponseCache responseCache = JCacheResponseCache.of(this.cacheManager, "testCache3");
+		responseCache.getCache().put("https://example.com/1", "foreign");
+		assertThat(responseCache.get("https://example.com/1")).isEmpty();
+	}
+
+}
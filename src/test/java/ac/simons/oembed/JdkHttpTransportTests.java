@@ -0,0 +1,242 @@
+/*
+ * Created by Michael Simons, michael-simons.eu
+ * and released under The BSD License
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * Copyright (c) 2010-2026, Michael Simons
+ * All rights reserved.
+ *
+ * Redistribution  and  use  in  source   and  binary  forms,  with  or   without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source   code must retain   the above copyright   notice,
+ *   this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary  form must reproduce  the above copyright  notice,
+ *   this list of conditions  and the following  disclaimer in the  documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name  of  michael-simons.eu   nor the names  of its contributors
+ *   may be used  to endorse   or promote  products derived  from  this  software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE  COPYRIGHT HOLDERS AND  CONTRIBUTORS "AS IS"
+ * AND ANY  EXPRESS OR  IMPLIED WARRANTIES,  INCLUDING, BUT  NOT LIMITED  TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL  THE COPYRIGHT HOLDER OR CONTRIBUTORS  BE LIABLE
+ * FOR ANY  DIRECT, INDIRECT,  INCIDENTAL, SPECIAL,  EXEMPLARY, OR  CONSEQUENTIAL
+ * DAMAGES (INCLUDING,  BUT NOT  LIMITED TO,  PROCUREMENT OF  SUBSTITUTE GOODS OR
+ * SERVICES; LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT  LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE  USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package ac.simons.oembed;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hc.core5.http.HttpVersion;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+/**
+ * @author Michael J. Simons
+ * @since 2026-10-17
+ */
+public class JdkHttpTransportTests {
+
+	@Test
+	public void requestsShouldBeExecuted() throws IOException {
+		try (LocalHttpServer server = new LocalHttpServer()) {
+			server.handle("/text",
+					exchange -> LocalHttpServer.respond(exchange, 200,
+							Map.of("Content-Type", "text/plain; charset=ISO-8859-1", "X-Request",
+									String.valueOf(exchange.getRequestHeaders().getFirst("X-Request"))),
+							"Grüße".getBytes(StandardCharsets.ISO_8859_1)));
+
+			final HttpTransport transport = new JdkHttpTransport();
+			final URI uri = URI.create(server.url("/text"));
+			try (TransportResponse response = transport.execute(TransportRequest.get(uri, Map.of("X-Request", "a")))) {
+				assertThat(response.getStatusCode()).isEqualTo(200);
+				assertThat(response.getHeader("x-request")).hasValue("a");
+				assertThat(response.getHeaders("X-Unknown")).isEmpty();
+				assertThat(response.getBodyAsString()).isEqualTo("Grüße");
+			}
+			try (TransportResponse response = transport.execute(new TransportRequest("HEAD", uri, Map.of()))) {
+				assertThat(response.getStatusCode()).isEqualTo(200);
+				assertThat(response.getBody()).isEmpty();
+			}
+			try (TransportResponse response = transport
+				.execute(TransportRequest.get(URI.create(server.url("/unknown"))))) {
+				assertThat(response.getStatusCode()).isEqualTo(404);
+			}
+		}
+	}
+
+	/**
+	 * Compares HTTP/2 with HTTP/1.1 using a single connection each against a server
+	 * delaying every response. HTTP/1.1 has to execute the requests one after another,
+	 * HTTP/2 multiplexes them.
+	 * @throws Exception all of them
+	 */
+	@Test
+	public void http2ShouldMultiplexRequestsOverOneConnection() throws Exception {
+		try (LocalHttp2Server server = new LocalHttp2Server(50);
+				CloseableHttpClient http11Client = HttpClients.custom()
+					.setSSLContext(LocalHttp2Server.trustingSslContext())
+					.setMaxConnTotal(1)
+					.setMaxConnPerRoute(1)
+					.build()) {
+			final URI uri = URI.create(server.url("/oembed"));
+
+			final long http2Duration = executeConcurrently(server, new JdkHttpTransport(newHttp2Client()), uri, 16);
+			assertThat(server.getVersions()).containsExactly(HttpVersion.HTTP_2);
+			assertThat(server.getConnections()).hasSize(1);
+			assertThat(server.getMaxActive()).isGreaterThan(1);
+
+			final long http11Duration = executeConcurrently(server, new ApacheHttpTransport(http11Client), uri, 16);
+			assertThat(server.getVersions()).containsExactly(HttpVersion.HTTP_1_1);
+			assertThat(server.getConnections()).hasSize(1);
+			assertThat(server.getMaxActive()).isOne();
+
+			assertThat(http2Duration).isLessThan(http11Duration / 2);
+		}
+	}
+
+	@Test
+	public void streamsPerHostShouldBeLimited() throws Exception {
+		try (LocalHttp2Server server = new LocalHttp2Server(20)) {
+			final JdkHttpTransport transport = new JdkHttpTransport(newHttp2Client());
+			assertThat(transport.getMaxStreamsPerHost()).isZero();
+			assertThatIllegalArgumentException().isThrownBy(() -> transport.setMaxStreamsPerHost(-1));
+			transport.setMaxStreamsPerHost(4);
+			assertThat(transport.getMaxStreamsPerHost()).isEqualTo(4);
+
+			executeConcurrently(server, transport, URI.create(server.url("/oembed")), 32);
+			assertThat(server.getVersions()).containsExactly(HttpVersion.HTTP_2);
+			assertThat(server.getConnections()).hasSize(1);
+			assertThat(server.getMaxActive()).isBetween(1, 4);
+			assertThat(transport.getNumberOfHostsInFlight()).isZero();
+
+			// Failed requests must not keep their stream
+			transport.setMaxStreamsPerHost(1);
+			final TransportRequest unreachable = TransportRequest.get(URI.create("https://127.0.0.1:1/oembed"));
+			for (int i = 0; i < 2; ++i) {
+				assertThatExceptionOfType(IOException.class).isThrownBy(() -> transport.execute(unreachable));
+			}
+			assertThat(transport.getNumberOfHostsInFlight()).isZero();
+			transport.setMaxStreamsPerHost(0);
+			assertThat(transport.getNumberOfHostsInFlight()).isZero();
+		}
+	}
+
+	@Test
+	public void abortedResponsesShouldReleaseTheirStream() throws IOException {
+		try (LocalHttpServer server = new LocalHttpServer()) {
+			server.handle("/large", exchange -> {
+				try {
+					LocalHttpServer.respond(exchange, 200, Map.of(), new byte[16 * Streams.MAX_DRAIN_SIZE]);
+				}
+				catch (IOException ex) {
+					// Aborted by the client
+				}
+			});
+			final JdkHttpTransport transport = new JdkHttpTransport();
+			transport.setMaxStreamsPerHost(1);
+			final TransportRequest request = TransportRequest.get(URI.create(server.url("/large")));
+			for (int i = 0; i < 2; ++i) {
+				final TransportResponse response = transport.execute(request);
+				assertThat(response.getBody().read()).isZero();
+				response.abort();
+				response.close();
+			}
+			assertThat(transport.getNumberOfHostsInFlight()).isZero();
+		}
+	}
+
+	@Test
+	public void interruptsShouldBeHandled() throws IOException {
+		try (LocalHttpServer server = new LocalHttpServer()) {
+			server.handle("/slow", exchange -> {
+				try {
+					Thread.sleep(2000);
+				}
+				catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+				}
+			});
+			final HttpTransport transport = new JdkHttpTransport();
+			Thread.currentThread().interrupt();
+			try {
+				assertThatExceptionOfType(InterruptedIOException.class)
+					.isThrownBy(() -> transport.execute(TransportRequest.get(URI.create(server.url("/slow")))));
+				assertThat(Thread.currentThread().isInterrupted()).isTrue();
+			}
+			finally {
+				Thread.interrupted();
+			}
+		}
+	}
+
+	private static HttpClient newHttp2Client() throws Exception {
+		return HttpClient.newBuilder()
+			.version(HttpClient.Version.HTTP_2)
+			.sslContext(LocalHttp2Server.trustingSslContext())
+			.build();
+	}
+
+	/**
+	 * Warms up the connection, resets the server statistics and executes {@code n}
+	 * requests concurrently.
+	 * @param server the server to use
+	 * @param transport the transport to use
+	 * @param uri the uri to request
+	 * @param n the number of requests
+	 * @return the time in nanoseconds it took to execute all requests
+	 * @throws Exception all of them
+	 */
+	private static long executeConcurrently(final LocalHttp2Server server, final HttpTransport transport, final URI uri,
+			final int n) throws Exception {
+		try (TransportResponse response = transport.execute(TransportRequest.get(uri))) {
+			assertThat(response.getBodyAsString()).isEqualTo("Hallo");
+		}
+		server.reset();
+
+		final ExecutorService executorService = Executors.newFixedThreadPool(n);
+		try {
+			final long start = System.nanoTime();
+			final List<Future<String>> bodies = new ArrayList<>();
+			for (int i = 0; i < n; ++i) {
+				bodies.add(executorService.submit(() -> {
+					try (TransportResponse response = transport.execute(TransportRequest.get(uri))) {
+						return response.getBodyAsString();
+					}
+				}));
+			}
+			for (Future<String> body : bodies) {
+				assertThat(body.get(30, TimeUnit.SECONDS)).isEqualTo("Hallo");
+			}
+			return System.nanoTime() - start;
+		}
+		finally {
+			executorService.shutdown();
+		}
+	}
+
+}
@@ -0,0 +1,149 @@
+/*
+ * Created by Michael Simons, michael-simons.eu
+ * and released under The BSD License
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * Copyright (c) 2010-2026, Michael Simons
+ * All rights reserved.
+ *
+ * Redistribution  and  use  in  source   and  binary  forms,  with  or   without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source   code must retain   the above copyright   notice,
+ *   this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary  form must reproduce  the above copyright  notice,
+ *   this list of conditions  and the following  disclaimer in the  documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name  of  michael-simons.eu   nor the names  of its contributors
+ *   may be used  to endorse   or promote  products derived  from  this  software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE  COPYRIGHT HOLDERS AND  CONTRIBUTORS "AS IS"
+ * AND ANY  EXPRESS OR  IMPLIED WARRANTIES,  INCLUDING, BUT  NOT LIMITED  TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL  THE COPYRIGHT HOLDER OR CONTRIBUTORS  BE LIABLE
+ * FOR ANY  DIRECT, INDIRECT,  INCIDENTAL, SPECIAL,  EXEMPLARY, OR  CONSEQUENTIAL
+ * DAMAGES (INCLUDING,  BUT NOT  LIMITED TO,  PROCUREMENT OF  SUBSTITUTE GOODS OR
+ * SERVICES; LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT  LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE  USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package ac.simons.oembed;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import ac.simons.oembed.OembedResponse.Format;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+/**
+ * @author Michael J. Simons
+ * @since 2026-10-17
+ */
+public class LearnedEndpointsTests {
+
+	private static final String URL = "https://Example.com/articles/1";
+
+	private final RequestProvider requestProvider = new DefaultRequestProvider();
+
+	private final OembedResponseRenderer renderer = new DefaultOembedResponseRenderer();
+
+	@Test
+	public void endpointsShouldBeLearned() {
+		final AtomicLong now = new AtomicLong(-23);
+		final LearnedEndpoints learnedEndpoints = new LearnedEndpoints(10, Duration.ofSeconds(10), now::get);
+
+		assertThat(learnedEndpoints.learn(URL, discovered(
+				"https://api.example.com/oembed.xml?maxwidth=480&url=https%3A%2F%2Fexample.com%2Farticles%2F1&format=xml")))
+			.isTrue();
+		assertThat(learnedEndpoints.find("https://other.example.com/articles/2")).isEmpty();
+		assertThat(learnedEndpoints.find("no-url")).isEmpty();
+		final ResolvedEndpoint learned = learnedEndpoints.find("https://EXAMPLE.com/articles/2").orElseThrow();
+		assertThat(learned.getRequestProvider()).isSameAs(this.requestProvider);
+		assertThat(learned.getRenderer()).isSameAs(this.renderer);
+		assertThat(learned.getEndpoint().getFormat()).isEqualTo(Format.xml);
+		assertThat(learned.getEndpoint().getName()).isEqualTo("learned:example.com");
+		assertThat(learned.getEndpoint().getEndpoint()).isEqualTo("https://api.example.com/oembed.xml");
+		assertThat(learned.getEndpoint().toApiUrl("https://example.com/articles/2")).isEqualTo(URI.create(
+				"https://api.example.com/oembed.xml?maxwidth=480&url=https%3A%2F%2Fexample.com%2Farticles%2F2&format=xml"));
+		learned.getEndpoint().setFormat(Format.json);
+		assertThat(learned.getEndpoint().getFormat()).isEqualTo(Format.xml);
+
+		assertThat(learnedEndpoints.snapshot()).containsOnlyKeys("example.com");
+		now.addAndGet(Duration.ofSeconds(10).toNanos());
+		assertThat(learnedEndpoints.snapshot()).isEmpty();
+		assertThat(learnedEndpoints.find("https://example.com/articles/2")).isEmpty();
+		assertThat(learnedEndpoints.evict("example.com")).isFalse();
+	}
+
+	@Test
+	public void onlyTemplatesShouldBeLearned() {
+		final LearnedEndpoints learnedEndpoints = new LearnedEndpoints(10, Duration.ofSeconds(10));
+		assertThat(learnedEndpoints.learn(URL, discovered("https://example.com/oembed/articles/1"))).isFalse();
+		assertThat(learnedEndpoints.learn(URL, discovered("https://example.com/oembed?url=https://example.com/2")))
+			.isFalse();
+		assertThat(learnedEndpoints.learn(URL, discovered("https://example.com/oembed?url"))).isFalse();
+		assertThat(learnedEndpoints.learn(URL,
+				discovered("https://example.com/oembed?url=" + URL + "&url=https://example.com/2")))
+			.isFalse();
+		assertThat(learnedEndpoints.learn("example.com/articles/1",
+				discovered("https://example.com/oembed?url=example.com/articles/1")))
+			.isFalse();
+		assertThat(learnedEndpoints.snapshot()).isEmpty();
+
+		assertThat(learnedEndpoints.learn(URL, discovered("https://example.com/oembed?url=" + URL + "#top"))).isTrue();
+		assertThat(learnedEndpoints.find(URL)).map(ResolvedEndpoint::getEndpoint)
+			.map(OembedEndpoint::getEndpoint)
+			.hasValue("https://example.com/oembed");
+		assertThat(learnedEndpoints.evict("EXAMPLE.com")).isTrue();
+		assertThat(learnedEndpoints.find(URL)).isEmpty();
+
+		learnedEndpoints.learn(URL, discovered("https://example.com/oembed?url=" + URL));
+		learnedEndpoints.clear();
+		assertThat(learnedEndpoints.snapshot()).isEmpty();
+	}
+
+	@Test
+	public void learningShouldBeConfigurable() {
+		final LearnedEndpoints learnedEndpoints = new LearnedEndpoints(10, Duration.ZERO);
+		assertThat(learnedEndpoints.learn(URL, discovered("https://example.com/oembed?url=" + URL))).isFalse();
+		assertThat(learnedEndpoints.find(URL)).isEmpty();
+		final LearnedEndpoints withoutHosts = new LearnedEndpoints(0, Duration.ofSeconds(10));
+		assertThat(withoutHosts.learn(URL, discovered("https://example.com/oembed?url=" + URL))).isFalse();
+
+		assertThatIllegalArgumentException().isThrownBy(() -> new LearnedEndpoints(10, Duration.ofSeconds(-1)))
+			.withMessage("The time to live of learned endpoints must not be negative");
+		assertThatIllegalArgumentException().isThrownBy(() -> new LearnedEndpoints(-1, Duration.ofSeconds(10)))
+			.withMessage("The maximum number of learned endpoints must not be negative");
+	}
+
+	@Test
+	public void sizeShouldBeBounded() {
+		final AtomicLong now = new AtomicLong();
+		final LearnedEndpoints learnedEndpoints = new LearnedEndpoints(10, Duration.ofSeconds(10), now::get);
+		for (int i = 0; i < 5; ++i) {
+			final String url = "https://old" + i + ".example.com/articles/1";
+			assertThat(learnedEndpoints.learn(url, discovered("https://api.example.com/oembed?url=" + url))).isTrue();
+		}
+		now.addAndGet(Duration.ofSeconds(10).toNanos());
+		for (int i = 0; i < 100; ++i) {
+			final String url = "https://host" + i + ".example.com/articles/1";
+			assertThat(learnedEndpoints.learn(url, discovered("https://api.example.com/oembed?url=" + url))).isTrue();
+			assertThat(learnedEndpoints.size()).isLessThanOrEqualTo(10);
+		}
+		assertThat(learnedEndpoints.snapshot()).isNotEmpty().doesNotContainKey("old0.example.com");
+	}
+
+	private ResolvedEndpoint discovered(final String apiUrl) {
+		return new ResolvedEndpoint(new AutodiscoveredOembedEndpoint(URI.create(apiUrl), Format.xml),
+				this.requestProvider, this.renderer);
+	}
+
+}
@@ -0,0 +1,73 @@
+/*
+ * Created by Michael Simons, michael-simons.eu
+ * and released under The BSD License
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * Copyright (c) 2010-2026, Michael Simons
+ * All rights reserved.
+ *
+ * Redistribution  and  use  in  source   and  binary  forms,  with  or   without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source   code must retain   the above copyright   notice,
+ *   this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary  form must reproduce  the above copyright  notice,
+ *   this list of conditions  and the following  disclaimer in the  documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name  of  michael-simons.eu   nor the names  of its contributors
+ *   may be used  to endorse   or promote  products derived  from  this  software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE  COPYRIGHT HOLDERS AND  CONTRIBUTORS "AS IS"
+ * AND ANY  EXPRESS OR  IMPLIED WARRANTIES,  INCLUDING, BUT  NOT LIMITED  TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL  THE COPYRIGHT HOLDER OR CONTRIBUTORS  BE LIABLE
+ * FOR ANY  DIRECT, INDIRECT,  INCIDENTAL, SPECIAL,  EXEMPLARY, OR  CONSEQUENTIAL
+ * DAMAGES (INCLUDING,  BUT NOT  LIMITED TO,  PROCUREMENT OF  SUBSTITUTE GOODS OR
+ * SERVICES; LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT  LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE  USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package ac.simons.oembed;
+
+import java.net.URI;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Michael J. Simons
+ * @since 2026-10-17
+ */
+public class LinkHeaderParserTests {
+
+	private static final URI REQUEST_URI = URI.create("https://example.com/articles/1");
+
+	@Test
+	public void linkHeadersShouldBeParsed() {
+		final List<String> values = List.of(
+				"<https://example.com/oembed?url=a,b&format=json>; rel=\"alternate\"; type=\"application/json+oembed\"; title=\"A \\\"quoted\\\", title\", </oembed.xml> ;REL=alternate;type=text/xml+oembed ;type=ignored",
+				" , <next>; rel=next; crossorigin, <https://exa mple.com>; rel=broken",
+				"<first>; rel=first <second>; rel=second", "<unclosed; rel=alternate", "no link", "<empty>;; =a; rel");
+		assertThat(LinkHeaderParser.parse(values, REQUEST_URI)).containsExactly(
+				new HeadLinkScanner.Link("alternate", "application/json+oembed",
+						URI.create("https://example.com/oembed?url=a,b&format=json")),
+				new HeadLinkScanner.Link("alternate", "text/xml+oembed", URI.create("https://example.com/oembed.xml")),
+				new HeadLinkScanner.Link("next", "", URI.create("https://example.com/articles/next")),
+				new HeadLinkScanner.Link("first", "", URI.create("https://example.com/articles/first")),
+				new HeadLinkScanner.Link("", "", URI.create("https://example.com/articles/empty")));
+	}
+
+	@Test
+	public void unterminatedQuotedStringsShouldBeRead() {
+		assertThat(LinkHeaderParser.parse(List.of("<a>; rel=\"alternate\\"), REQUEST_URI))
+			.extracting(HeadLinkScanner.Link::rel)
+			.containsExactly("alternate\\");
+	}
+
+}
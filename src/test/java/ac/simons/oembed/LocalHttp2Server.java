@@ -0,0 +1,187 @@
+/*
+ * Created by Michael Simons, michael-simons.eu
+ * and released under The BSD License
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * Copyright (c) 2010-2026, Michael Simons
+ * All rights reserved.
+ *
+ * Redistribution  and  use  in  source   and  binary  forms,  with  or   without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source   code must retain   the above copyright   notice,
+ *   this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary  form must reproduce  the above copyright  notice,
+ *   this list of conditions  and the following  disclaimer in the  documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name  of  michael-simons.eu   nor the names  of its contributors
+ *   may be used  to endorse   or promote  products derived  from  this  software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE  COPYRIGHT HOLDERS AND  CONTRIBUTORS "AS IS"
+ * AND ANY  EXPRESS OR  IMPLIED WARRANTIES,  INCLUDING, BUT  NOT LIMITED  TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL  THE COPYRIGHT HOLDER OR CONTRIBUTORS  BE LIABLE
+ * FOR ANY  DIRECT, INDIRECT,  INCIDENTAL, SPECIAL,  EXEMPLARY, OR  CONSEQUENTIAL
+ * DAMAGES (INCLUDING,  BUT NOT  LIMITED TO,  PROCUREMENT OF  SUBSTITUTE GOODS OR
+ * SERVICES; LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT  LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE  USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package ac.simons.oembed;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.security.GeneralSecurityException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.net.ssl.SSLContext;
+
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.EntityDetails;
+import org.apache.hc.core5.http.HttpRequest;
+import org.apache.hc.core5.http.Message;
+import org.apache.hc.core5.http.ProtocolVersion;
+import org.apache.hc.core5.http.URIScheme;
+import org.apache.hc.core5.http.impl.bootstrap.HttpAsyncServer;
+import org.apache.hc.core5.http.nio.AsyncRequestConsumer;
+import org.apache.hc.core5.http.nio.AsyncServerRequestHandler;
+import org.apache.hc.core5.http.nio.entity.DiscardingEntityConsumer;
+import org.apache.hc.core5.http.nio.support.BasicRequestConsumer;
+import org.apache.hc.core5.http.nio.support.BasicResponseProducer;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.http.protocol.HttpCoreContext;
+import org.apache.hc.core5.http2.HttpVersionPolicy;
+import org.apache.hc.core5.http2.config.H2Config;
+import org.apache.hc.core5.http2.impl.nio.bootstrap.H2ServerBootstrap;
+import org.apache.hc.core5.http2.ssl.H2ServerTlsStrategy;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.reactor.ListenerEndpoint;
+import org.apache.hc.core5.ssl.SSLContexts;
+
+/**
+ * A HTTPS server on a random local port negotiating HTTP/2 or HTTP/1.1 via ALPN, only
+ * needed for tests. Every request is answered with a short text after a fixed delay. The
+ * certificate is valid for {@code 127.0.0.1} and {@code localhost}.
+ *
+ * @author Michael J. Simons
+ * @since 2026-10-17
+ */
+final class LocalHttp2Server implements AutoCloseable {
+
+	private static final char[] PASSWORD = "changeit".toCharArray();
+
+	private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+	private final AtomicInteger active = new AtomicInteger();
+
+	private final AtomicInteger maxActive = new AtomicInteger();
+
+	private final Set<SocketAddress> connections = ConcurrentHashMap.newKeySet();
+
+	private final Set<ProtocolVersion> versions = ConcurrentHashMap.newKeySet();
+
+	private final HttpAsyncServer server;
+
+	private final int port;
+
+	LocalHttp2Server(final long delayInMillis) throws IOException, GeneralSecurityException, InterruptedException {
+		final SSLContext sslContext = SSLContexts.custom()
+			.loadKeyMaterial(LocalHttp2Server.class.getResource("/ac/simons/oembed/localhost.p12"), PASSWORD, PASSWORD)
+			.build();
+		this.server = H2ServerBootstrap.bootstrap()
+			.setTlsStrategy(new H2ServerTlsStrategy(sslContext))
+			.setVersionPolicy(HttpVersionPolicy.NEGOTIATE)
+			.setH2Config(H2Config.custom().setMaxConcurrentStreams(256).build())
+			.register("*", new AsyncServerRequestHandler<Message<HttpRequest, Void>>() {
+
+				@Override
+				public AsyncRequestConsumer<Message<HttpRequest, Void>> prepare(final HttpRequest request,
+						final EntityDetails entityDetails, final HttpContext context) {
+					return new BasicRequestConsumer<>(
+							(entityDetails != null) ? new DiscardingEntityConsumer<>() : null);
+				}
+
+				@Override
+				public void handle(final Message<HttpRequest, Void> message, final ResponseTrigger responseTrigger,
+						final HttpContext context) {
+					final HttpCoreContext coreContext = HttpCoreContext.adapt(context);
+					LocalHttp2Server.this.connections.add(coreContext.getEndpointDetails().getRemoteAddress());
+					LocalHttp2Server.this.versions.add(coreContext.getProtocolVersion());
+					LocalHttp2Server.this.maxActive.accumulateAndGet(LocalHttp2Server.this.active.incrementAndGet(),
+							Math::max);
+					LocalHttp2Server.this.scheduler.schedule(() -> {
+						LocalHttp2Server.this.active.decrementAndGet();
+						try {
+							responseTrigger.submitResponse(
+									new BasicResponseProducer(200, "Hallo", ContentType.TEXT_PLAIN), context);
+						}
+						catch (Exception ex) {
+							throw new IllegalStateException(ex);
+						}
+					}, delayInMillis, TimeUnit.MILLISECONDS);
+				}
+
+			})
+			.create();
+		this.server.start();
+		try {
+			final ListenerEndpoint endpoint = this.server.listen(new InetSocketAddress("127.0.0.1", 0), URIScheme.HTTPS)
+				.get();
+			this.port = ((InetSocketAddress) endpoint.getAddress()).getPort();
+		}
+		catch (ExecutionException ex) {
+			throw new IOException(ex.getCause());
+		}
+	}
+
+	/**
+	 * {@return a context trusting the certificate of this server}
+	 * @throws IOException if the keystore cannot be read
+	 * @throws GeneralSecurityException if the keystore is invalid
+	 */
+	static SSLContext trustingSslContext() throws IOException, GeneralSecurityException {
+		return SSLContexts.custom()
+			.loadTrustMaterial(LocalHttp2Server.class.getResource("/ac/simons/oembed/localhost.p12"), PASSWORD)
+			.build();
+	}
+
+	String url(final String path) {
+		return "https://127.0.0.1:" + this.port + path;
+	}
+
+	int getMaxActive() {
+		return this.maxActive.get();
+	}
+
+	Set<SocketAddress> getConnections() {
+		return this.connections;
+	}
+
+	Set<ProtocolVersion> getVersions() {
+		return this.versions;
+	}
+
+	void reset() {
+		this.maxActive.set(0);
+		this.connections.clear();
+		this.versions.clear();
+	}
+
+	@Override
+	public void close() {
+		this.server.close(CloseMode.IMMEDIATE);
+		this.scheduler.shutdownNow();
+	}
+
+}
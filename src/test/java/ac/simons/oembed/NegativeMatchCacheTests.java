@@ -0,0 +1,146 @@
+/*
+ * Created by Michael Simons, michael-simons.eu
+ * and released under The BSD License
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * Copyright (c) 2010-2026, Michael Simons
+ * All rights reserved.
+ *
+ * Redistribution  and  use  in  source   and  binary  forms,  with  or   without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source   code must retain   the above copyright   notice,
+ *   this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary  form must reproduce  the above copyright  notice,
+ *   this list of conditions  and the following  disclaimer in the  documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name  of  michael-simons.eu   nor the names  of its contributors
+ *   may be used  to endorse   or promote  products derived  from  this  software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE  COPYRIGHT HOLDERS AND  CONTRIBUTORS "AS IS"
+ * AND ANY  EXPRESS OR  IMPLIED WARRANTIES,  INCLUDING, BUT  NOT LIMITED  TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL  THE COPYRIGHT HOLDER OR CONTRIBUTORS  BE LIABLE
+ * FOR ANY  DIRECT, INDIRECT,  INCIDENTAL, SPECIAL,  EXEMPLARY, OR  CONSEQUENTIAL
+ * DAMAGES (INCLUDING,  BUT NOT  LIMITED TO,  PROCUREMENT OF  SUBSTITUTE GOODS OR
+ * SERVICES; LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT  LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE  USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package ac.simons.oembed;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+/**
+ * @author Michael J. Simons
+ * @since 2026-10-17
+ */
+public class NegativeMatchCacheTests {
+
+	private final AtomicLong now = new AtomicLong(42);
+
+	private NegativeMatchCache newCache(final int maximumSize) {
+		return new NegativeMatchCache(maximumSize, Duration.ofNanos(100), this.now::get);
+	}
+
+	@Test
+	public void urlsShouldBeRememberedUntilTheyExpire() {
+		final NegativeMatchCache cache = newCache(10);
+		cache.add("https://example.com/a", false);
+
+		assertThat(cache.contains("https://example.com/a", url -> true)).isTrue();
+		assertThat(cache.contains("https://example.com/A", url -> true)).isFalse();
+		assertThat(cache.contains("https://example.com/b", url -> false)).isFalse();
+
+		this.now.addAndGet(100);
+		assertThat(cache.contains("https://example.com/a", url -> true)).isFalse();
+		assertThat(cache.size()).isZero();
+	}
+
+	@Test
+	public void spellingsShouldNotShadowEachOther() {
+		final NegativeMatchCache cache = newCache(10);
+		cache.add("https://YOUTUBE.com/watch?v=1", false);
+		cache.add("https://x.com/a#f", false);
+
+		assertThat(cache.contains("https://YOUTUBE.com/watch?v=1", url -> true)).isTrue();
+		assertThat(cache.contains("https://youtube.com/watch?v=1", url -> true)).isFalse();
+		assertThat(cache.contains("https://x.com/a#f", url -> true)).isTrue();
+		assertThat(cache.contains("https://x.com/a", url -> true)).isFalse();
+	}
+
+	@Test
+	public void hostsShouldBeRememberedOnlyIfRequested() {
+		final NegativeMatchCache cache = newCache(10);
+		cache.add("https://news.example.com/1", true);
+		cache.add("https://blog.example.com/1", false);
+		cache.add("example.com", true);
+
+		assertThat(cache.contains("https://NEWS.example.com/2", url -> false)).isTrue();
+		assertThat(cache.contains("https://news.example.com/2", url -> true)).isFalse();
+		assertThat(cache.contains("https://blog.example.com/2", url -> false)).isFalse();
+		assertThat(cache.contains("other.com", url -> false)).isFalse();
+
+		// Still present after the first rotation
+		this.now.addAndGet(60);
+		assertThat(cache.contains("https://news.example.com/3", url -> false)).isTrue();
+		cache.add("https://shop.example.com/1", true);
+		// Gone after the time to live, but the host of the second generation is not
+		this.now.addAndGet(41);
+		assertThat(cache.contains("https://news.example.com/3", url -> false)).isFalse();
+		assertThat(cache.contains("https://shop.example.com/2", url -> false)).isTrue();
+		this.now.addAndGet(100);
+		assertThat(cache.contains("https://shop.example.com/2", url -> false)).isFalse();
+	}
+
+	@Test
+	public void sizeShouldBeBounded() {
+		final NegativeMatchCache cache = newCache(100);
+		IntStream.range(0, 1000).forEach(i -> cache.add("https://example.com/" + i, false));
+		assertThat(cache.size()).isLessThanOrEqualTo(100);
+		assertThat(cache.contains("https://example.com/999", url -> true)).isTrue();
+
+		this.now.addAndGet(100);
+		cache.add("https://example.com/new", false);
+		cache.add("https://example.com/new2", false);
+		assertThat(cache.size()).isEqualTo(2);
+	}
+
+	@Test
+	public void hostFilterShouldHaveFewFalsePositives() {
+		final NegativeMatchCache cache = new NegativeMatchCache(1000, Duration.ofMinutes(5));
+		IntStream.range(0, 1000).forEach(i -> cache.add("https://host" + i + ".example.com/", true));
+		assertThat(IntStream.range(0, 1000)
+			.allMatch(i -> cache.contains("https://host" + i + ".example.com/x", url -> false))).isTrue();
+		final long falsePositives = IntStream.range(1000, 11000)
+			.filter(i -> cache.contains("https://host" + i + ".example.com/x", url -> false))
+			.count();
+		assertThat(falsePositives).isLessThan(300);
+	}
+
+	@Test
+	public void sizeZeroShouldDisableTheCache() {
+		final NegativeMatchCache cache = newCache(0);
+		cache.add("https://example.com/a", true);
+		assertThat(cache.contains("https://example.com/a", url -> false)).isFalse();
+		assertThat(cache.size()).isZero();
+	}
+
+	@Test
+	public void invalidArgumentsShouldBeRejected() {
+		assertThatIllegalArgumentException().isThrownBy(() -> new NegativeMatchCache(-1, Duration.ZERO));
+		assertThatIllegalArgumentException().isThrownBy(() -> new NegativeMatchCache(1, Duration.ofSeconds(-1)));
+	}
+
+}
@@ -36,6 +36,7 @@ package ac.simons.oembed;
 import java.util.ArrayList;
 import java.util.HashMap;
 
+import ac.simons.oembed.OembedEndpoint.SchemeSyntax;
 import ac.simons.oembed.OembedResponse.Format;
 import org.junit.jupiter.api.Test;
 
@@ -58,10 +59,14 @@ public class OembedEndpointTests {
 		assertThat(oembedEndpoint.getMaxWidth()).isNull();
 		assertThat(oembedEndpoint.getMaxHeight()).isNull();
 		assertThat(oembedEndpoint.getUrlSchemes()).isNull();
+		assertThat(oembedEndpoint.getUrlSchemeSyntax()).isEqualTo(SchemeSyntax.regex);
 		assertThat(oembedEndpoint.getRequestProviderClass()).isEqualTo(DefaultRequestProvider.class);
 		assertThat(oembedEndpoint.getRequestProviderProperties()).isNull();
 		assertThat(oembedEndpoint.getResponseRendererClass()).isEqualTo(DefaultOembedResponseRenderer.class);
 		assertThat(oembedEndpoint.getResponseRendererProperties()).isNull();
+		assertThat(oembedEndpoint.getUrlRewrites()).isNull();
+		assertThat(oembedEndpoint.getRefreshAheadRate()).isEqualTo(60);
+		assertThat(oembedEndpoint.getMaxConcurrentRefreshes()).isEqualTo(2);
 
 		oembedEndpoint.setName("name");
 		oembedEndpoint.setEndpoint("endpoint");
@@ -69,10 +74,14 @@ public class OembedEndpointTests {
 		oembedEndpoint.setMaxWidth(4711);
 		oembedEndpoint.setMaxHeight(23);
 		oembedEndpoint.setUrlSchemes(new ArrayList<>());
+		oembedEndpoint.setUrlSchemeSyntax(SchemeSyntax.glob);
 		oembedEndpoint.setRequestProviderClass(DummyRequestProvider.class);
 		oembedEndpoint.setRequestProviderProperties(new HashMap<>());
 		oembedEndpoint.setResponseRendererClass(DummyRenderer.class);
 		oembedEndpoint.setResponseRendererProperties(new HashMap<>());
+		oembedEndpoint.setUrlRewrites(new HashMap<>());
+		oembedEndpoint.setRefreshAheadRate(6);
+		oembedEndpoint.setMaxConcurrentRefreshes(1);
 
 		assertThat(oembedEndpoint.getName()).isEqualTo("name");
 		assertThat(oembedEndpoint.getEndpoint()).isEqualTo("endpoint");
@@ -80,10 +89,14 @@ public class OembedEndpointTests {
 		assertThat(oembedEndpoint.getMaxWidth()).isEqualTo(Integer.valueOf(4711));
 		assertThat(oembedEndpoint.getMaxHeight()).isEqualTo(Integer.valueOf(23));
 		assertThat(oembedEndpoint.getUrlSchemes()).isEqualTo(new ArrayList<>());
+		assertThat(oembedEndpoint.getUrlSchemeSyntax()).isEqualTo(SchemeSyntax.glob);
 		assertThat(oembedEndpoint.getRequestProviderClass()).isEqualTo(DummyRequestProvider.class);
 		assertThat(oembedEndpoint.getRequestProviderProperties()).isEqualTo(new HashMap<>());
 		assertThat(oembedEndpoint.getResponseRendererClass()).isEqualTo(DummyRenderer.class);
 		assertThat(oembedEndpoint.getResponseRendererProperties()).isEqualTo(new HashMap<>());
+		assertThat(oembedEndpoint.getUrlRewrites()).isEqualTo(new HashMap<>());
+		assertThat(oembedEndpoint.getRefreshAheadRate()).isEqualTo(6);
+		assertThat(oembedEndpoint.getMaxConcurrentRefreshes()).isEqualTo(1);
 	}
 
 	@Test
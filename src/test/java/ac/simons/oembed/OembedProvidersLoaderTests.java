@@ -0,0 +1,153 @@
+/*
+ * Created by Michael Simons, michael-simons.eu
+ * and released under The BSD License
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * Copyright (c) 2010-2026, Michael Simons
+ * All rights reserved.
+ *
+ * Redistribution  and  use  in  source   and  binary  forms,  with  or   without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source   code must retain   the above copyright   notice,
+ *   this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary  form must reproduce  the above copyright  notice,
+ *   this list of conditions  and the following  disclaimer in the  documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name  of  michael-simons.eu   nor the names  of its contributors
+ *   may be used  to endorse   or promote  products derived  from  this  software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE  COPYRIGHT HOLDERS AND  CONTRIBUTORS "AS IS"
+ * AND ANY  EXPRESS OR  IMPLIED WARRANTIES,  INCLUDING, BUT  NOT LIMITED  TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL  THE COPYRIGHT HOLDER OR CONTRIBUTORS  BE LIABLE
+ * FOR ANY  DIRECT, INDIRECT,  INCIDENTAL, SPECIAL,  EXEMPLARY, OR  CONSEQUENTIAL
+ * DAMAGES (INCLUDING,  BUT NOT  LIMITED TO,  PROCUREMENT OF  SUBSTITUTE GOODS OR
+ * SERVICES; LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT  LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE  USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package ac.simons.oembed;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import ac.simons.oembed.OembedEndpoint.SchemeSyntax;
+import ac.simons.oembed.OembedResponse.Format;
+import org.apache.http.client.HttpClient;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * @author Michael J. Simons
+ * @since 2026-10-17
+ */
+public class OembedProvidersLoaderTests {
+
+	private List<OembedEndpoint> loadProviders() throws IOException {
+		try (InputStream in = this.getClass().getResourceAsStream("/ac/simons/oembed/providers.json")) {
+			return new OembedProvidersLoader().load(in);
+		}
+	}
+
+	@Test
+	public void shouldLoadUsableEndpoints() throws IOException {
+		final List<OembedEndpoint> endpoints = loadProviders();
+		assertThat(endpoints).extracting(OembedEndpoint::getName).containsExactly("Flickr", "YouTube", "23HQ", "Vimeo");
+		assertThat(endpoints).allMatch(endpoint -> endpoint.getUrlSchemeSyntax() == SchemeSyntax.glob);
+
+		final OembedEndpoint flickr = endpoints.get(0);
+		assertThat(flickr.getEndpoint()).isEqualTo("https://www.flickr.com/services/oembed/");
+		assertThat(flickr.getFormat()).isEqualTo(Format.json);
+		assertThat(flickr.getUrlSchemes()).hasSize(4).contains("https://flic.kr/p/*");
+
+		final OembedEndpoint hq23 = endpoints.get(2);
+		assertThat(hq23.getFormat()).isEqualTo(Format.xml);
+		assertThat(hq23.toApiUrl("http://www.23hq.com/x/photo/1"))
+			.isEqualTo(URI.create("http://www.23hq.com/23/oembed.xml?url=http%3A%2F%2Fwww.23hq.com%2Fx%2Fphoto%2F1"));
+
+		final OembedEndpoint vimeo = endpoints.get(3);
+		assertThat(vimeo.getFormat()).isEqualTo(Format.json);
+		assertThat(vimeo.getEndpoint()).isEqualTo("https://vimeo.com/api/oembed.%{format}");
+	}
+
+	@Test
+	public void shouldFilterByProviderName(@TempDir final Path tempDir) throws IOException {
+		final Path providers = tempDir.resolve("providers.json");
+		try (InputStream in = this.getClass().getResourceAsStream("/ac/simons/oembed/providers.json")) {
+			Files.copy(in, providers);
+		}
+
+		final OembedProvidersLoader loader = new OembedProvidersLoader();
+		assertThat(loader.load(providers)).hasSize(4);
+		assertThat(loader.load(providers, Set.of("YouTube", "Vimeo")::contains)).extracting(OembedEndpoint::getName)
+			.containsExactly("YouTube", "Vimeo");
+		assertThatExceptionOfType(OembedException.class).isThrownBy(() -> loader.load(tempDir.resolve("missing.json")));
+	}
+
+	@Test
+	public void invalidProvidersShouldBeRejected() {
+		final OembedProvidersLoader loader = new OembedProvidersLoader();
+		for (String json : List.of("", "{}", "[")) {
+			assertThatExceptionOfType(OembedException.class).as(json)
+				.isThrownBy(() -> loader.load(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8))));
+		}
+	}
+
+	@Test
+	public void loadedEndpointsShouldBeUsableByService() throws IOException {
+		final OembedService oembedService = new OembedService(Mockito.mock(HttpClient.class), (ResponseCache) null,
+				loadProviders(), null);
+		assertThat(oembedService.findEndpointFor("https://www.youtube.com/watch?v=dgL6ovr3DJM"))
+			.map(OembedEndpoint::getName)
+			.hasValue("YouTube");
+		assertThat(oembedService.findEndpointFor("https://player.vimeo.com/video/42")).map(OembedEndpoint::getName)
+			.hasValue("Vimeo");
+		assertThat(oembedService.findEndpointFor("https://www.wistia.com/medias/1")).isEmpty();
+	}
+
+	/**
+	 * Loads a registry with 1000 schemes into a new service. The time this takes is
+	 * measured by the {@code ProvidersStartupBenchmark} of the benchmarks profile.
+	 */
+	@Test
+	public void registryWithThousandSchemesShouldBeLoaded() {
+		final StringBuilder json = new StringBuilder("[");
+		for (int i = 0; i < 250; ++i) {
+			json.append((i == 0) ? "" : ",").append(String.format("""
+					{"provider_name": "Provider %1$d", "provider_url": "https://provider%1$d.example.com",
+					 "endpoints": [{"url": "https://provider%1$d.example.com/oembed.{format}", "schemes": [
+					  "https://*.provider%1$d.example.com/watch/*", "https://provider%1$d.example.com/*/video/*",
+					  "https://p%1$d.example/*", "https://*.provider%1$d.example.com/embed/*"]}]}
+					""", i));
+		}
+		final byte[] providers = json.append("]").toString().getBytes(StandardCharsets.UTF_8);
+		final List<OembedEndpoint> endpoints = new OembedProvidersLoader().load(new ByteArrayInputStream(providers));
+		assertThat(endpoints).hasSize(250);
+		assertThat(endpoints.stream().mapToInt(endpoint -> endpoint.getUrlSchemes().size()).sum()).isEqualTo(1000);
+
+		final OembedService oembedService = new OembedService(Mockito.mock(HttpClient.class), (ResponseCache) null,
+				endpoints, null);
+		assertThat(oembedService.findEndpointFor("https://www.provider42.example.com/embed/x"))
+			.map(OembedEndpoint::getName)
+			.hasValue("Provider 42");
+		assertThat(oembedService.findEndpointFor("https://p249.example/x")).map(OembedEndpoint::getName)
+			.hasValue("Provider 249");
+	}
+
+}
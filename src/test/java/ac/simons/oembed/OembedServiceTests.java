@@ -35,19 +35,50 @@ package ac.simons.oembed;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import ac.simons.oembed.OembedResponse.Format;
+import com.sun.net.httpserver.HttpHandler;
 import net.sf.ehcache.CacheManager;
 import net.sf.ehcache.Ehcache;
 import net.sf.ehcache.Element;
 import org.apache.http.HttpResponse;
 import org.apache.http.client.HttpClient;
+import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
@@ -58,8 +89,12 @@ import org.mockito.stubbing.Answer;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
@@ -71,6 +106,8 @@ import static org.mockito.Mockito.verifyNoMoreInteractions;
 @ExtendWith(MockitoExtension.class)
 public class OembedServiceTests {
 
+	private static final String BIKING_API_URL = "https://biking.michael-simons.eu/oembed?format=json&url=https%3A%2F%2Fbiking.michael-simons.eu%2Ftracks%2F1";
+
 	@Mock
 	private HttpClient defaultHttpClient;
 
@@ -94,7 +131,8 @@ public class OembedServiceTests {
 
 		given(this.defaultHttpClient.execute(any(HttpGet.class))).willReturn(r);
 
-		OembedService oembedService = new OembedService(this.defaultHttpClient, null, new ArrayList<>(), null);
+		OembedService oembedService = new OembedService(this.defaultHttpClient, (ResponseCache) null, new ArrayList<>(),
+				null);
 		oembedService.setAutodiscovery(true);
 
 		Optional<OembedEndpoint> endpoint = oembedService.findEndpointFor("http://michael-simons.eu");
@@ -105,6 +143,107 @@ public class OembedServiceTests {
 		assertThat(oembedService.isAutodiscovery()).isTrue();
 	}
 
+	@Test
+	public void urlsWithoutEndpointShouldBeRemembered() throws IOException {
+		HttpResponse r = Mockito.mock(HttpResponse.class, Mockito.RETURNS_DEEP_STUBS);
+		given(r.getStatusLine().getStatusCode()).willReturn(404);
+		given(r.getEntity().getContent()).willReturn(null);
+		given(r.getEntity().getContentType()).willReturn(null);
+		given(this.defaultHttpClient.execute(any(HttpGet.class))).willReturn(r);
+
+		OembedEndpoint vimeo = new OembedEndpoint();
+		vimeo.setName("vimeo");
+		vimeo.setEndpoint("https://vimeo.com/api/oembed.json");
+		vimeo.setUrlSchemes(List.of("https://vimeo\\.com/\\d+"));
+
+		OembedService oembedService = new OembedService(this.defaultHttpClient, (ResponseCache) null, List.of(vimeo),
+				null);
+		oembedService.setAutodiscovery(true);
+		assertThat(oembedService.getNegativeCacheTtl()).isEqualTo(300);
+		assertThat(oembedService.getNegativeCacheSize()).isEqualTo(10_000);
+
+		assertThat(oembedService.findEndpointFor("https://example.com/1")).isEmpty();
+		assertThat(oembedService.findEndpointFor("https://example.com/1")).isEmpty();
+		verify(this.defaultHttpClient, times(1)).execute(any(HttpGet.class));
+		// Other pages of the same host are still discovered
+		assertThat(oembedService.getOembedResponseFor("https://example.com/2")).isEmpty();
+		assertThat(oembedService.embedUrls("<a href=\"https://example.com/3\">x</a><a>y</a>", null))
+			.isEqualTo("<a href=\"https://example.com/3\">x</a><a>y</a>");
+		verify(this.defaultHttpClient, times(3)).execute(any(HttpGet.class));
+
+		// Hosts with configured schemes are never skipped as a whole
+		assertThat(oembedService.findEndpointFor("https://vimeo.com/x")).isEmpty();
+		assertThat(oembedService.findEndpointFor("https://vimeo.com/x")).isEmpty();
+		assertThat(oembedService.findEndpointFor("https://vimeo.com/y")).isEmpty();
+		assertThat(oembedService.findEndpointFor("https://vimeo.com/1")).map(OembedEndpoint::getName).hasValue("vimeo");
+		verify(this.defaultHttpClient, times(5)).execute(any(HttpGet.class));
+
+		// Changing the settings forgets everything
+		oembedService.setNegativeCacheTtl(60);
+		assertThat(oembedService.getNegativeCacheTtl()).isEqualTo(60);
+		assertThat(oembedService.findEndpointFor("https://example.com/1")).isEmpty();
+		verify(this.defaultHttpClient, times(6)).execute(any(HttpGet.class));
+
+		oembedService.setNegativeCacheSize(0);
+		assertThat(oembedService.getNegativeCacheSize()).isZero();
+		assertThat(oembedService.findEndpointFor("https://example.com/1")).isEmpty();
+		assertThat(oembedService.findEndpointFor("https://example.com/1")).isEmpty();
+		verify(this.defaultHttpClient, times(8)).execute(any(HttpGet.class));
+	}
+
+	@Test
+	public void urlsWithoutEndpointShouldBeRememberedWithoutAutodiscovery() {
+		InMemoryHttpTransport transport = new InMemoryHttpTransport();
+		OembedService oembedService = new OembedService(transport, null, new ArrayList<>(), null);
+		assertThat(oembedService.findEndpointFor("https://example.com/1")).isEmpty();
+		assertThat(oembedService.findEndpointFor("https://example.com/1")).isEmpty();
+		assertThat(oembedService.findEndpointFor("https://example.com/2")).isEmpty();
+		assertThat(transport.getRequests()).isEmpty();
+
+		// Without autodiscovery, the whole host is remembered, but enabling it forgets it
+		oembedService.setAutodiscovery(true);
+		oembedService.setAutodiscovery(true);
+		assertThat(oembedService.findEndpointFor("https://example.com/2")).isEmpty();
+		assertThat(transport.getRequests()).hasSize(1);
+	}
+
+	@Test
+	public void spellingsWithoutEndpointShouldNotShadowMatchingUrls() {
+		OembedEndpoint endpoint = bikingEndpoint();
+		endpoint.setUrlSchemes(List.of("https://biking\\.michael-simons\\.eu/tracks/1"));
+		OembedService oembedService = new OembedService(new InMemoryHttpTransport(), null, List.of(endpoint), null);
+
+		assertThat(oembedService.findEndpointFor("https://BIKING.michael-simons.eu/tracks/1")).isEmpty();
+		assertThat(oembedService.findEndpointFor("https://biking.michael-simons.eu/tracks/1#top")).isEmpty();
+		assertThat(oembedService.findEndpointFor("https://biking.michael-simons.eu/tracks/1"))
+			.map(OembedEndpoint::getName)
+			.hasValue("biking");
+	}
+
+	@Test
+	public void transientDiscoveryFailuresShouldNotBeRemembered() {
+		InMemoryHttpTransport transport = new InMemoryHttpTransport().respond("https://example.com/1", 503, "Nope");
+		InMemoryResponseCache responseCache = new InMemoryResponseCache(10);
+		OembedService oembedService = new OembedService(transport, null, new ArrayList<>(), null);
+		oembedService.setAutodiscovery(true);
+
+		assertThat(oembedService.findEndpointFor("https://example.com/1")).isEmpty();
+		assertThat(oembedService.findEndpointFor("https://example.com/1")).isEmpty();
+		assertThat(transport.getRequests()).hasSize(2);
+
+		// The response cache keeps the failure for the time of its class instead
+		oembedService.setResponseCache(responseCache);
+		assertThat(oembedService.getOembedResponseFor("https://example.com/1")).isEmpty();
+		assertThat(responseCache.get("https://example.com/1"))
+			.hasValueSatisfying(cached -> assertThat(cached.getFailure()).hasValue(FetchFailure.UNAVAILABLE));
+		// Unknown pages are remembered
+		assertThat(oembedService.getOembedResponseFor("https://example.com/2")).isEmpty();
+		assertThat(oembedService.findEndpointFor("https://example.com/2")).isEmpty();
+		assertThat(responseCache.get("https://example.com/2"))
+			.hasValueSatisfying(cached -> assertThat(cached.getFailure()).hasValue(FetchFailure.NOT_FOUND));
+		assertThat(transport.getRequests()).hasSize(4);
+	}
+
 	@Test
 	public void findEndpointForShouldWorkAutodiscovery2() throws IOException, URISyntaxException {
 		HttpResponse r = Mockito.mock(HttpResponse.class, Mockito.RETURNS_DEEP_STUBS);
@@ -115,7 +254,8 @@ public class OembedServiceTests {
 
 		given(this.defaultHttpClient.execute(any(HttpGet.class))).willReturn(r);
 
-		OembedService oembedService = new OembedService(this.defaultHttpClient, null, new ArrayList<>(), null);
+		OembedService oembedService = new OembedService(this.defaultHttpClient, (ResponseCache) null, new ArrayList<>(),
+				null);
 		oembedService.setAutodiscovery(true);
 		String embeddableUrl = "https://dailyfratze.de/michael/2014/10/13";
 
@@ -140,7 +280,8 @@ public class OembedServiceTests {
 
 		given(this.defaultHttpClient.execute(any(HttpGet.class))).willReturn(r);
 
-		OembedService oembedService = new OembedService(this.defaultHttpClient, null, new ArrayList<>(), null);
+		OembedService oembedService = new OembedService(this.defaultHttpClient, (ResponseCache) null, new ArrayList<>(),
+				null);
 		oembedService.setAutodiscovery(true);
 		String embeddableUrl = "https://dailyfratze.de/michael/2014/10/13";
 
@@ -159,7 +300,8 @@ public class OembedServiceTests {
 	public void findEndpointForShouldWorkAutodiscovery4() throws IOException {
 		given(this.defaultHttpClient.execute(any(HttpGet.class))).willThrow(new IOException("foobar"));
 
-		OembedService oembedService = new OembedService(this.defaultHttpClient, null, new ArrayList<>(), null);
+		OembedService oembedService = new OembedService(this.defaultHttpClient, (ResponseCache) null, new ArrayList<>(),
+				null);
 		oembedService.setAutodiscovery(true);
 
 		Optional<OembedEndpoint> endpoint = oembedService.findEndpointFor("http://michael-simons.eu");
@@ -171,7 +313,8 @@ public class OembedServiceTests {
 
 	@Test
 	public void findEndpointForShouldWorkAutodiscovery5() {
-		OembedService oembedService = new OembedService(this.defaultHttpClient, null, new ArrayList<>(), null);
+		OembedService oembedService = new OembedService(this.defaultHttpClient, (ResponseCache) null, new ArrayList<>(),
+				null);
 		oembedService.setAutodiscovery(false);
 
 		Optional<OembedEndpoint> endpoint = oembedService.findEndpointFor("http://michael-simons.eu");
@@ -189,7 +332,7 @@ public class OembedServiceTests {
 		OembedEndpoint oembedEndpoint = new OembedEndpoint();
 		oembedEndpoint.setUrlSchemes(List.of("https://dailyfratze.de/\\w+/\\d{4}/\\d{2}/\\d{2}"));
 
-		OembedService oembedService = new OembedService(this.defaultHttpClient, null,
+		OembedService oembedService = new OembedService(this.defaultHttpClient, (ResponseCache) null,
 				Arrays.asList(oembedEndpoint, vimeo), null);
 		oembedService.setAutodiscovery(false);
 		String embeddableUrl = "http://vimeo.com/channels/everythinganimated/111627831";
@@ -201,14 +344,69 @@ public class OembedServiceTests {
 		Mockito.verifyNoInteractions(this.defaultHttpClient);
 	}
 
+	@Test
+	public void findEndpointForShouldPreferFirstConfiguredEndpoint() {
+		List<OembedEndpoint> endpoints = new ArrayList<>();
+		for (int i = 0; i < 32; ++i) {
+			OembedEndpoint oembedEndpoint = new OembedEndpoint();
+			oembedEndpoint.setName("endpoint" + i);
+			oembedEndpoint.setUrlSchemes(List.of("https://example\\.com/" + i + "/.*", "https://example\\.com/.*"));
+			endpoints.add(oembedEndpoint);
+		}
+
+		OembedService oembedService = new OembedService(this.defaultHttpClient, (ResponseCache) null, endpoints, null);
+		assertThat(oembedService.findEndpointFor("https://example.com/23/x")).map(OembedEndpoint::getName)
+			.hasValue("endpoint0");
+		assertThat(oembedService.findEndpointFor("https://example.org/23/x")).isEmpty();
+		Mockito.verifyNoInteractions(this.defaultHttpClient);
+	}
+
+	@Test
+	public void findEndpointForShouldSupportGlobs() {
+		OembedEndpoint flickr = new OembedEndpoint();
+		flickr.setName("flickr");
+		flickr.setEndpoint("https://www.flickr.com/services/oembed/");
+		flickr.setUrlSchemeSyntax(OembedEndpoint.SchemeSyntax.glob);
+		flickr.setUrlSchemes(List.of("https://*.flickr.com/photos/*", "https://flic.kr/p/*"));
+
+		OembedService oembedService = new OembedService(this.defaultHttpClient, (ResponseCache) null, List.of(flickr),
+				null);
+		assertThat(oembedService.findEndpointFor("https://www.flickr.com/photos/bees/2341623661/"))
+			.map(OembedEndpoint::getName)
+			.hasValue("flickr");
+		assertThat(oembedService.findEndpointFor("https://flic.kr/p/x")).map(OembedEndpoint::getName)
+			.hasValue("flickr");
+		assertThat(oembedService.findEndpointFor("https://www.flickr.com/people/bees")).isEmpty();
+	}
+
+	@Test
+	public void unsupportedUrlSchemesShouldBeRejected() {
+		OembedEndpoint endpoint = new OembedEndpoint();
+		endpoint.setName("example");
+		endpoint.setEndpoint("https://example.com/oembed");
+		endpoint.setUrlSchemes(List.of("https://(\\w+)\\.example\\.com/\\1"));
+
+		assertThatExceptionOfType(OembedException.class)
+			.isThrownBy(() -> new OembedService(this.defaultHttpClient, (ResponseCache) null, List.of(endpoint), null))
+			.withMessageContaining("near index");
+
+		OembedService oembedService = new OembedService(this.defaultHttpClient, null, List.of(endpoint), null,
+				new RegexMatchingEngine());
+		assertThat(oembedService.findEndpointFor("https://a.example.com/a")).map(OembedEndpoint::getName)
+			.hasValue("example");
+		assertThat(oembedService.findEndpointFor("https://a.example.com/b")).isEmpty();
+	}
+
 	@Test
 	public void executeRequestShouldWork1() throws IOException {
 		HttpGet request = new HttpGet("http://michael-simons.eu");
 		given(this.defaultHttpClient.execute(request)).willThrow(new IOException("foobar"));
 
-		OembedService oembedService = new OembedService(this.defaultHttpClient, null, new ArrayList<>(), null);
+		OembedService oembedService = new OembedService(this.defaultHttpClient, (ResponseCache) null, new ArrayList<>(),
+				null);
 
-		assertThat(oembedService.executeRequest(request)).isNull();
+		assertThat(oembedService.executeRequest(ApacheHttpTransport.adapt(request), OembedServiceTests::readString))
+			.isNull();
 		verify(this.defaultHttpClient).execute(request);
 
 	}
@@ -224,9 +422,11 @@ public class OembedServiceTests {
 
 		given(this.defaultHttpClient.execute(request)).willReturn(r);
 
-		OembedService oembedService = new OembedService(this.defaultHttpClient, null, new ArrayList<>(), null);
+		OembedService oembedService = new OembedService(this.defaultHttpClient, (ResponseCache) null, new ArrayList<>(),
+				null);
 
-		assertThat(oembedService.executeRequest(request)).isNull();
+		assertThat(oembedService.executeRequest(ApacheHttpTransport.adapt(request), OembedServiceTests::readString))
+			.isNull();
 		verify(this.defaultHttpClient).execute(request);
 	}
 
@@ -241,38 +441,90 @@ public class OembedServiceTests {
 
 		given(this.defaultHttpClient.execute(request)).willReturn(r);
 
-		OembedService oembedService = new OembedService(this.defaultHttpClient, null, new ArrayList<>(), null);
+		OembedService oembedService = new OembedService(this.defaultHttpClient, (ResponseCache) null, new ArrayList<>(),
+				null);
 
-		assertThat(oembedService.executeRequest(request)).isNotNull();
+		assertThat(oembedService.executeRequest(ApacheHttpTransport.adapt(request), OembedServiceTests::readString))
+			.isEqualTo("Hallo, Welt");
 		verify(this.defaultHttpClient).execute(request);
 	}
 
 	@Test
-	public void setCacheNameShouldWork() {
-		given(this.cacheManager.cacheExists("ac.simons.oembed.OembedService")).willReturn(false);
-		given(this.cacheManager.cacheExists("x")).willReturn(true);
-
-		OembedService oembedService;
-		oembedService = new OembedService(this.defaultHttpClient, null, new ArrayList<>(), null);
-		oembedService.setCacheName("x");
-		assertThat(oembedService.getCacheName()).isEqualTo("x");
+	public void executeRequestShouldRejectAnnouncedLargeResponses() throws IOException {
+		TransportRequest request = TransportRequest.get(URI.create("http://michael-simons.eu"));
+		TransportResponse response = Mockito.mock(TransportResponse.class);
+		given(response.getStatusCode()).willReturn(200);
+		given(response.getHeader(anyString())).willReturn(Optional.empty());
+		given(response.getHeader("Content-Length")).willReturn(Optional.of("1025"));
+		HttpTransport transport = Mockito.mock(HttpTransport.class);
+		given(transport.execute(request)).willReturn(response);
+
+		OembedService oembedService = new OembedService(transport, null, new ArrayList<>(), null);
+		oembedService.setMaxResponseSize(1024);
+
+		assertThat(oembedService.executeRequest(request, OembedServiceTests::readString)).isNull();
+		verify(response).abort();
+		verify(response, never()).getBody();
+	}
 
-		oembedService = new OembedService(this.defaultHttpClient, this.cacheManager, new ArrayList<>(), null);
-		oembedService.setCacheName("x");
-		assertThat(oembedService.getCacheName()).isEqualTo("x");
+	@Test
+	public void executeRequestShouldAbortLargeResponses() throws IOException {
+		TransportRequest request = TransportRequest.get(URI.create("http://michael-simons.eu"));
+		TransportResponse response = Mockito.mock(TransportResponse.class);
+		given(response.getStatusCode()).willReturn(200);
+		given(response.getHeader(anyString())).willReturn(Optional.empty());
+		given(response.getHeader("Content-Length")).willReturn(Optional.of("n/a"));
+		given(response.getBody()).willAnswer(invocation -> new ByteArrayInputStream(new byte[1025]));
+		HttpTransport transport = Mockito.mock(HttpTransport.class);
+		given(transport.execute(request)).willReturn(response);
+
+		OembedService oembedService = new OembedService(transport, null, new ArrayList<>(), null);
+		oembedService.setMaxResponseSize(1024);
+
+		assertThat(oembedService.<String>executeRequest(request, in -> {
+			readString(in);
+			return "never";
+		})).isNull();
+		// The reader may not notice the violation at all
+		assertThat(oembedService.<String>executeRequest(request, in -> {
+			try {
+				in.readAllBytes();
+			}
+			catch (IOException ex) {
+				// Swallowed on purpose
+			}
+			return "never";
+		})).isNull();
+		verify(response, times(2)).abort();
 
-		oembedService.setCacheName("y");
-		assertThat(oembedService.getCacheName()).isEqualTo("y");
+		oembedService.setMaxResponseSize(1025);
+		assertThat(oembedService.executeRequest(request, OembedServiceTests::readString)).hasSize(1025);
+		verify(response, times(2)).abort();
+	}
 
-		verify(this.cacheManager).cacheExists(OembedService.class.getName());
-		verify(this.cacheManager).cacheExists("x");
-		verify(this.cacheManager).removeCache("x");
-		Mockito.verifyNoMoreInteractions(this.cacheManager);
+	@Test
+	public void maximumSizesShouldBeValidated() {
+		OembedService oembedService = new OembedService(this.defaultHttpClient, (ResponseCache) null, new ArrayList<>(),
+				null);
+		assertThat(oembedService.getMaxResponseSize()).isEqualTo(1024 * 1024);
+		assertThat(oembedService.getMaxDocumentSize()).isEqualTo(4 * 1024 * 1024);
+		assertThatIllegalArgumentException().isThrownBy(() -> oembedService.setMaxResponseSize(0))
+			.withMessage("The maximum response size must be at least 1");
+		assertThatIllegalArgumentException().isThrownBy(() -> oembedService.setMaxDocumentSize(0))
+			.withMessage("The maximum document size must be at least 1");
+		oembedService.setMaxDocumentSize(23);
+		assertThat(oembedService.getMaxDocumentSize()).isEqualTo(23);
+
+		ResponseTooLargeException ex = new ResponseTooLargeException(URI.create("http://michael-simons.eu"), 23);
+		assertThat(ex.getUri()).isEqualTo(URI.create("http://michael-simons.eu"));
+		assertThat(ex.getMaximumSize()).isEqualTo(23);
+		assertThat(ex).hasMessage("Response from 'http://michael-simons.eu' exceeds the maximum size of 23 bytes");
 	}
 
 	@Test
 	public void getOembedResponseForShouldWork1() {
-		OembedService oembedService = new OembedService(this.defaultHttpClient, null, new ArrayList<>(), null);
+		OembedService oembedService = new OembedService(this.defaultHttpClient, (ResponseCache) null, new ArrayList<>(),
+				null);
 		assertThat(oembedService.getOembedResponseFor(null)).isNotPresent();
 		assertThat(oembedService.getOembedResponseFor("	    ")).isNotPresent();
 		assertThat(oembedService.getOembedResponseFor("https://dailyfratze.de/michael/2014/10/13")).isNotPresent();
@@ -288,9 +540,8 @@ public class OembedServiceTests {
 		given(cache.get(embeddableUrl)).willReturn(new Element(embeddableUrl, this.response1));
 		given(this.cacheManager.addCacheIfAbsent("testCache")).willReturn(cache);
 
-		OembedService oembedService = new OembedService(this.defaultHttpClient, this.cacheManager, new ArrayList<>(),
-				null);
-		oembedService.setCacheName("testCache");
+		OembedService oembedService = new OembedService(this.defaultHttpClient,
+				new EhcacheResponseCache(this.cacheManager, "testCache"), new ArrayList<>(), null);
 		assertThat(oembedService.getOembedResponseFor(null)).isNotPresent();
 		assertThat(oembedService.getOembedResponseFor("	    ")).isNotPresent();
 		Optional<OembedResponse> oembedResponse = oembedService.getOembedResponseFor(embeddableUrl);
@@ -306,10 +557,8 @@ public class OembedServiceTests {
 		assertThat(response.getTitle()).isEqualTo("Aachen - Maastricht - Aachen");
 		assertThat(response.getType()).isEqualTo("rich");
 		assertThat(response.getVersion()).isEqualTo("1.0");
-		assertThat(oembedService.getCacheName()).isEqualTo("testCache");
 
 		verify(this.cacheManager).addCacheIfAbsent("testCache");
-		verify(this.cacheManager).cacheExists(OembedService.class.getName());
 		verify(cache).get(embeddableUrl);
 		Mockito.verifyNoMoreInteractions(cache, this.cacheManager);
 		Mockito.verifyNoInteractions(this.defaultHttpClient);
@@ -341,17 +590,15 @@ public class OembedServiceTests {
 		given(cache.get(embeddableUrl)).willReturn(null);
 		given(this.cacheManager.addCacheIfAbsent("testCache")).willReturn(cache);
 
-		OembedService oembedService = new OembedService(this.defaultHttpClient, this.cacheManager,
-				List.of(oembedEndpoint), null);
-		oembedService.setCacheName("testCache");
+		OembedService oembedService = new OembedService(this.defaultHttpClient,
+				new EhcacheResponseCache(this.cacheManager, "testCache"), List.of(oembedEndpoint), null);
 		assertThat(oembedService.getOembedResponseFor(embeddableUrl)).isNotPresent();
 		ArgumentCaptor<HttpGet> argumentCaptor = ArgumentCaptor.forClass(HttpGet.class);
 		verify(this.defaultHttpClient).execute(argumentCaptor.capture());
 		assertThat(argumentCaptor.getValue().getURI()).hasToString(
 				"https://biking.michael-simons.eu/oembed?format=json&url=https%3A%2F%2Fbiking.michael-simons.eu%2Ftracks%2F1&maxwidth=480&maxheight=360");
 
-		verify(this.cacheManager, times(2)).addCacheIfAbsent("testCache");
-		verify(this.cacheManager).cacheExists(OembedService.class.getName());
+		verify(this.cacheManager).addCacheIfAbsent("testCache");
 		verify(cache).get(embeddableUrl);
 		verify(cache).put(any(Element.class));
 
@@ -384,17 +631,15 @@ public class OembedServiceTests {
 		given(cache.get(embeddableUrl)).willReturn(null);
 		given(this.cacheManager.addCacheIfAbsent("testCache")).willReturn(cache);
 
-		OembedService oembedService = new OembedService(this.defaultHttpClient, this.cacheManager,
-				List.of(oembedEndpoint), null);
-		oembedService.setCacheName("testCache");
+		OembedService oembedService = new OembedService(this.defaultHttpClient,
+				new EhcacheResponseCache(this.cacheManager, "testCache"), List.of(oembedEndpoint), null);
 		assertThat(oembedService.getOembedResponseFor(embeddableUrl)).isPresent();
 		ArgumentCaptor<HttpGet> argumentCaptor = ArgumentCaptor.forClass(HttpGet.class);
 		verify(this.defaultHttpClient).execute(argumentCaptor.capture());
 		assertThat(argumentCaptor.getValue().getURI()).hasToString(
 				"https://biking.michael-simons.eu/oembed?format=json&url=https%3A%2F%2Fbiking.michael-simons.eu%2Ftracks%2F1&maxwidth=480&maxheight=360");
 
-		verify(this.cacheManager, times(2)).addCacheIfAbsent("testCache");
-		verify(this.cacheManager).cacheExists(OembedService.class.getName());
+		verify(this.cacheManager).addCacheIfAbsent("testCache");
 		verify(cache).get(embeddableUrl);
 		verify(cache).put(any(Element.class));
 
@@ -432,7 +677,8 @@ public class OembedServiceTests {
 			return rv;
 		});
 
-		OembedService oembedService = new OembedService(this.defaultHttpClient, null, new ArrayList<>(), null);
+		OembedService oembedService = new OembedService(this.defaultHttpClient, (ResponseCache) null, new ArrayList<>(),
+				null);
 		oembedService.setAutodiscovery(true);
 
 		assertThat(oembedService.getOembedResponseFor(embeddableUrl)).isPresent();
@@ -440,9 +686,868 @@ public class OembedServiceTests {
 		verifyNoMoreInteractions(this.cacheManager, this.defaultHttpClient);
 	}
 
+	@Test
+	public void concurrentRequestsForTheSameUrlShouldBeCoalesced() throws Exception {
+		String embeddableUrl = "https://dailyfratze.de/michael/2014/10/13";
+		HttpResponse r1 = Mockito.mock(HttpResponse.class, Mockito.RETURNS_DEEP_STUBS);
+		given(r1.getStatusLine().getStatusCode()).willReturn(200);
+		given(r1.getEntity().getContentType()).willReturn(null);
+		given(r1.getEntity().getContent())
+			.willAnswer(invocation -> this.getClass().getResourceAsStream("/ac/simons/oembed/autodiscovery2.html"));
+
+		HttpResponse r2 = Mockito.mock(HttpResponse.class, Mockito.RETURNS_DEEP_STUBS);
+		given(r2.getStatusLine().getStatusCode()).willReturn(200);
+		given(r2.getEntity().getContent())
+			.willAnswer(invocation -> new ByteArrayInputStream(this.responseString.getBytes()));
+
+		CountDownLatch release = new CountDownLatch(1);
+		given(this.defaultHttpClient.execute(any(HttpGet.class))).willAnswer((Answer<?>) invocation -> {
+			SingleFlightTests.await(release);
+			return embeddableUrl.equals(invocation.<HttpGet>getArgument(0).getURI().toString()) ? r1 : r2;
+		});
+
+		OembedService oembedService = new OembedService(this.defaultHttpClient, (ResponseCache) null, new ArrayList<>(),
+				null);
+		oembedService.setAutodiscovery(true);
+
+		List<FutureTask<Optional<OembedResponse>>> calls = SingleFlightTests.callConcurrently(8, release,
+				() -> oembedService.getOembedResponseFor(" " + embeddableUrl));
+		release.countDown();
+		for (FutureTask<Optional<OembedResponse>> call : calls) {
+			assertThat(call.get(10, TimeUnit.SECONDS)).hasValueSatisfying(
+					response -> assertThat(response.getAuthorName()).isEqualTo(this.response1.getAuthorName()));
+		}
+		verify(this.defaultHttpClient, times(2)).execute(any(HttpGet.class));
+
+		CountDownLatch releaseDiscovery = new CountDownLatch(1);
+		given(this.defaultHttpClient.execute(any(HttpGet.class))).willAnswer((Answer<?>) invocation -> {
+			SingleFlightTests.await(releaseDiscovery);
+			return r1;
+		});
+		OembedService otherOembedService = new OembedService(this.defaultHttpClient, (ResponseCache) null,
+				new ArrayList<>(), null);
+		otherOembedService.setAutodiscovery(true);
+		List<FutureTask<Optional<OembedEndpoint>>> discoveries = SingleFlightTests.callConcurrently(8, releaseDiscovery,
+				() -> otherOembedService.findEndpointFor(embeddableUrl));
+		releaseDiscovery.countDown();
+		for (FutureTask<Optional<OembedEndpoint>> discovery : discoveries) {
+			assertThat(discovery.get(10, TimeUnit.SECONDS))
+				.hasValueSatisfying(endpoint -> assertThat(endpoint.getFormat()).isEqualTo(Format.json));
+		}
+		verify(this.defaultHttpClient, times(3)).execute(any(HttpGet.class));
+	}
+
+	@Test
+	public void getOembedResponseForShouldWorkWithOtherTransports() {
+		String embeddableUrl = "https://dailyfratze.de/michael/2014/10/13";
+		String apiUrl = "https://dailyfratze.de/app/oembed.json?url=https%3A%2F%2Fdailyfratze.de%2Fmichael%2F2014%2F10%2F13";
+		InMemoryHttpTransport transport = new InMemoryHttpTransport()
+			.respond(embeddableUrl, 200,
+					"<html><head><link rel=\"alternate\" type=\"application/json+oembed\" href=\"" + apiUrl
+							+ "\"></head></html>")
+			.respond(apiUrl, 200, this.responseString)
+			.respond("https://example.com/oembed?format=json&url=https%3A%2F%2Fexample.com%2Fa", 500, "Broken");
+
+		OembedEndpoint endpoint = new OembedEndpoint();
+		endpoint.setName("example");
+		endpoint.setEndpoint("https://example.com/oembed");
+		endpoint.setUrlSchemes(List.of("https://example\\.com/.*"));
+		OembedService oembedService = new OembedService(transport, null, List.of(endpoint), "test");
+		oembedService.setAutodiscovery(true);
+
+		assertThat(oembedService.getOembedResponseFor(embeddableUrl)).map(OembedResponse::getTitle)
+			.hasValue(this.response1.getTitle());
+		assertThat(oembedService.getOembedResponseFor("https://example.com/a")).isEmpty();
+		assertThat(transport.getRequests()).extracting(TransportRequest::toString)
+			.containsExactly("GET " + embeddableUrl, "GET " + apiUrl,
+					"GET https://example.com/oembed?format=json&url=https%3A%2F%2Fexample.com%2Fa");
+		assertThat(transport.getRequests().get(1).getHeaders().get("User-Agent")).endsWith("; test");
+		assertThat(oembedService.getConnectionPoolMetrics()).isEmpty();
+	}
+
+	/**
+	 * Executes many concurrent requests through a small connection pool. Some responses
+	 * are invalid, some are errors and some have a large rest after a valid response. All
+	 * connections must be returned to the pool and reused, except the ones with a large
+	 * rest, which are aborted.
+	 * @throws Exception all of them
+	 */
+	@Test
+	public void connectionsShouldBeReleasedAndReused() throws Exception {
+		Set<InetSocketAddress> connections = ConcurrentHashMap.newKeySet();
+		byte[] valid = this.responseString.getBytes(StandardCharsets.UTF_8);
+		byte[] large = (this.responseString + " ".repeat(2 * Streams.MAX_DRAIN_SIZE)).getBytes(StandardCharsets.UTF_8);
+		try (LocalHttpServer server = new LocalHttpServer();
+				PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+				CloseableHttpClient httpClient = HttpClients.custom()
+					.setConnectionManager(connectionManager)
+					.setDefaultRequestConfig(RequestConfig.custom().setConnectionRequestTimeout(5000).build())
+					.build()) {
+			connectionManager.setMaxTotal(4);
+			connectionManager.setDefaultMaxPerRoute(4);
+			server.handle("/oembed", exchange -> {
+				connections.add(exchange.getRemoteAddress());
+				String query = exchange.getRequestURI().getRawQuery();
+				if (query.endsWith("invalid")) {
+					LocalHttpServer.respond(exchange, 200, Map.of(), "{\"type\": ".getBytes(StandardCharsets.UTF_8));
+				}
+				else if (query.endsWith("error")) {
+					LocalHttpServer.respond(exchange, 500, Map.of(), "Broken".getBytes(StandardCharsets.UTF_8));
+				}
+				else {
+					LocalHttpServer.respond(exchange, 200, Map.of(), query.endsWith("large") ? large : valid);
+				}
+			});
+
+			OembedEndpoint endpoint = new OembedEndpoint();
+			endpoint.setName("local");
+			endpoint.setEndpoint(server.url("/oembed"));
+			endpoint.setUrlSchemes(List.of("https://example\\.com/.*"));
+			OembedService oembedService = new OembedService(new ApacheHttpTransport(httpClient, connectionManager),
+					null, List.of(endpoint), null);
+
+			String[] kinds = { "valid", "invalid", "error", "large" };
+			ExecutorService executorService = Executors.newFixedThreadPool(16);
+			try {
+				Map<String, CompletableFuture<Optional<OembedResponse>>> results = new LinkedHashMap<>();
+				for (int i = 0; i < 64; ++i) {
+					String url = "https://example.com/" + i + "/" + kinds[i % kinds.length];
+					results.put(url, oembedService.getOembedResponseForAsync(url, executorService));
+				}
+				results.forEach((url, result) -> {
+					Optional<OembedResponse> response = result.orTimeout(30, TimeUnit.SECONDS).join();
+					if (url.endsWith("/valid") || url.endsWith("/large")) {
+						assertThat(response).map(OembedResponse::getTitle).hasValue(this.response1.getTitle());
+					}
+					else {
+						assertThat(response).isEmpty();
+					}
+				});
+			}
+			finally {
+				executorService.shutdown();
+			}
+
+			assertThat(oembedService.getConnectionPoolMetrics()).hasValueSatisfying(metrics -> {
+				assertThat(metrics.getLeased()).isZero();
+				assertThat(metrics.getPending()).isZero();
+				assertThat(metrics.getAvailable()).isBetween(1, 4);
+				assertThat(metrics.getMax()).isEqualTo(4);
+				assertThat(metrics).hasToString(
+						"ConnectionPoolMetrics[leased=0, pending=0, available=" + metrics.getAvailable() + ", max=4]");
+			});
+			// Every connection with a large rest is aborted, all others are reused
+			assertThat(connections).hasSizeLessThanOrEqualTo(16 + 4);
+		}
+	}
+
+	/**
+	 * Oversized documents and responses, announced or streamed, must be aborted without
+	 * leaking connections.
+	 * @throws Exception all of them
+	 */
+	@Test
+	public void oversizedDocumentsAndResponsesShouldBeAborted() throws Exception {
+		byte[] large = new byte[4 * Streams.MAX_DRAIN_SIZE];
+		HttpHandler streaming = exchange -> {
+			exchange.sendResponseHeaders(200, 0);
+			try (OutputStream out = exchange.getResponseBody()) {
+				for (int i = 0; i < 64; ++i) {
+					out.write(large);
+				}
+			}
+			catch (IOException ex) {
+				// Aborted by the client
+			}
+		};
+		try (LocalHttpServer server = new LocalHttpServer();
+				PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+				CloseableHttpClient httpClient = HttpClients.custom().setConnectionManager(connectionManager).build()) {
+			server.handle("/announced", exchange -> LocalHttpServer.respond(exchange, 200, Map.of(), large));
+			server.handle("/streamed", streaming);
+			server.handle("/oembed", exchange -> {
+				if (exchange.getRequestURI().getRawQuery().endsWith("valid")) {
+					LocalHttpServer.respond(exchange, 200, Map.of(),
+							this.responseString.getBytes(StandardCharsets.UTF_8));
+				}
+				else if (exchange.getRequestURI().getRawQuery().endsWith("announced")) {
+					LocalHttpServer.respond(exchange, 200, Map.of(), large);
+				}
+				else {
+					streaming.handle(exchange);
+				}
+			});
+
+			OembedEndpoint endpoint = new OembedEndpoint();
+			endpoint.setName("local");
+			endpoint.setEndpoint(server.url("/oembed"));
+			endpoint.setUrlSchemes(List.of("https://example\\.com/.*"));
+			OembedService oembedService = new OembedService(new ApacheHttpTransport(httpClient, connectionManager),
+					null, List.of(endpoint), null);
+			oembedService.setAutodiscovery(true);
+			oembedService.setMaxResponseSize(Streams.MAX_DRAIN_SIZE);
+			oembedService.setMaxDocumentSize(Streams.MAX_DRAIN_SIZE);
+
+			assertThat(oembedService.getOembedResponseFor("https://example.com/valid")).isPresent();
+			assertThat(oembedService.getOembedResponseFor("https://example.com/announced")).isEmpty();
+			assertThat(oembedService.getOembedResponseFor("https://example.com/streamed")).isEmpty();
+			assertThat(oembedService.getOembedResponseFor(server.url("/announced"))).isEmpty();
+			assertThat(oembedService.getOembedResponseFor(server.url("/streamed"))).isEmpty();
+			assertThat(oembedService.getConnectionPoolMetrics())
+				.hasValueSatisfying(metrics -> assertThat(metrics.getLeased()).isZero());
+		}
+	}
+
+	/**
+	 * The JDK client does not decompress responses itself, so everything is decoded by
+	 * the service. The maximum size applies to the decoded body.
+	 * @throws Exception all of them
+	 */
+	@Test
+	public void compressedDocumentsAndResponsesShouldBeDecoded() throws Exception {
+		Set<String> acceptedEncodings = ConcurrentHashMap.newKeySet();
+		try (LocalHttpServer server = new LocalHttpServer()) {
+			String apiUrl = server.url("/oembed?format=json&url=page");
+			server.handle("/page", exchange -> {
+				acceptedEncodings.add(exchange.getRequestHeaders().getFirst("Accept-Encoding"));
+				String html = "<html><head><link rel=\"alternate\" type=\"application/json+oembed\" href=\""
+						+ apiUrl.replace("&", "&amp;") + "\"></head></html>";
+				LocalHttpServer.respond(exchange, 200, Map.of("Content-Encoding", "deflate"),
+						StreamsTests.deflate(html.getBytes(StandardCharsets.UTF_8), true));
+			});
+			server.handle("/oembed", exchange -> {
+				acceptedEncodings.add(exchange.getRequestHeaders().getFirst("Accept-Encoding"));
+				String query = exchange.getRequestURI().getRawQuery();
+				if (query.endsWith("error")) {
+					LocalHttpServer.respond(exchange, 500, Map.of("Content-Encoding", "gzip"),
+							StreamsTests.gzip("Broken".getBytes(StandardCharsets.UTF_8)));
+					return;
+				}
+				byte[] body = query.endsWith("large") ? new byte[4 * Streams.MAX_DRAIN_SIZE]
+						: this.responseString.getBytes(StandardCharsets.UTF_8);
+				LocalHttpServer.respond(exchange, 200, Map.of("Content-Encoding", "gzip"), StreamsTests.gzip(body));
+			});
+
+			OembedEndpoint endpoint = new OembedEndpoint();
+			endpoint.setName("local");
+			endpoint.setEndpoint(server.url("/oembed"));
+			endpoint.setUrlSchemes(List.of("https://example\\.com/.*"));
+			OembedService oembedService = new OembedService(new JdkHttpTransport(), null, List.of(endpoint), null);
+			oembedService.setAutodiscovery(true);
+			oembedService.setMaxResponseSize(Streams.MAX_DRAIN_SIZE);
+
+			assertThat(oembedService.getOembedResponseFor("https://example.com/valid")).map(OembedResponse::getTitle)
+				.hasValue(this.response1.getTitle());
+			assertThat(oembedService.getOembedResponseFor(server.url("/page"))).map(OembedResponse::getTitle)
+				.hasValue(this.response1.getTitle());
+			assertThat(oembedService.getOembedResponseFor("https://example.com/error")).isEmpty();
+			// Far less than the maximum size compressed, but larger when decoded
+			assertThat(oembedService.getOembedResponseFor("https://example.com/large")).isEmpty();
+			assertThat(acceptedEncodings).containsExactly("gzip, deflate");
+		}
+	}
+
+	/**
+	 * Only the head of a document is read during autodiscovery, the rest is neither
+	 * transferred nor counted against the maximum document size.
+	 * @throws Exception all of them
+	 */
+	@Test
+	public void autodiscoveryShouldOnlyReadTheHead() throws Exception {
+		CountDownLatch aborted = new CountDownLatch(2);
+		try (LocalHttpServer server = new LocalHttpServer();
+				CloseableHttpClient httpClient = HttpClients.createDefault()) {
+			String apiUrl = server.url("/oembed?format=json&url=page");
+			server.handle("/page", exchange -> {
+				String head = "<html><head><title>Test</title><link rel=\"alternate\" type=\"text/xml+oembed\" href=\""
+						+ apiUrl.replace("&", "&amp;") + "\"></head><body>";
+				exchange.sendResponseHeaders(200, 0);
+				try (OutputStream out = exchange.getResponseBody()) {
+					out.write(head.getBytes(StandardCharsets.UTF_8));
+					byte[] paragraph = "<p>Lorem ipsum</p>".repeat(1024).getBytes(StandardCharsets.UTF_8);
+					for (int i = 0; i < 1024; ++i) {
+						out.write(paragraph);
+					}
+				}
+				catch (IOException ex) {
+					aborted.countDown();
+				}
+			});
+			server.handle("/oembed",
+					exchange -> LocalHttpServer.respond(exchange, 200, Map.of(),
+							"<oembed><type>rich</type><version>1.0</version><title>Head only</title></oembed>"
+								.getBytes(StandardCharsets.UTF_8)));
+
+			for (HttpTransport transport : List.of(new JdkHttpTransport(), new ApacheHttpTransport(httpClient))) {
+				OembedService oembedService = new OembedService(transport, null, List.of(), null);
+				oembedService.setAutodiscovery(true);
+				assertThat(oembedService.getOembedResponseFor(server.url("/page"))).map(OembedResponse::getTitle)
+					.hasValue("Head only");
+			}
+			// The connections have been closed before the whole document was sent
+			assertThat(aborted.await(10, TimeUnit.SECONDS)).isTrue();
+		}
+	}
+
+	@Test
+	public void linkHeadersShouldBeProbedWithHead() {
+		String apiUrl = "https://example.com/oembed?url=a";
+		String linkHeader = "<" + apiUrl + ">; rel=\"alternate\"; type=\"application/json+oembed\"";
+		InMemoryHttpTransport transport = new InMemoryHttpTransport()
+			.respond("https://example.com/a", 200, Map.of("Link", linkHeader),
+					"<html>".getBytes(StandardCharsets.UTF_8))
+			.respond("https://example.com/b", 200,
+					"<html><head><link rel=\"alternate\" type=\"application/json+oembed\" href=\"" + apiUrl
+							+ "\"></head></html>")
+			.respond(apiUrl, 200, this.responseString);
+
+		OembedService oembedService = new OembedService(transport, null, List.of(), null);
+		oembedService.setAutodiscovery(true);
+		assertThat(oembedService.isHeadFirstAutodiscovery()).isFalse();
+		oembedService.setHeadFirstAutodiscovery(true);
+		assertThat(oembedService.isHeadFirstAutodiscovery()).isTrue();
+
+		assertThat(oembedService.getOembedResponseFor("https://example.com/a")).isPresent();
+		assertThat(oembedService.getOembedResponseFor("https://example.com/b")).isPresent();
+		assertThat(oembedService.getOembedResponseFor("https://example.com/c")).isEmpty();
+		assertThat(transport.getRequests()).extracting(TransportRequest::toString)
+			.containsExactly("HEAD https://example.com/a", "GET " + apiUrl, "HEAD https://example.com/b",
+					"GET https://example.com/b", "GET " + apiUrl, "HEAD https://example.com/c",
+					"GET https://example.com/c");
+	}
+
+	/**
+	 * A link header on the response of the GET request is used without reading the
+	 * document.
+	 * @throws Exception all of them
+	 */
+	@Test
+	public void linkHeadersShouldBeUsedWithoutReadingTheDocument() throws Exception {
+		CountDownLatch aborted = new CountDownLatch(1);
+		try (LocalHttpServer server = new LocalHttpServer()) {
+			String apiUrl = server.url("/oembed");
+			server.handle("/page", exchange -> {
+				exchange.getResponseHeaders().add("Link", "</feed>; rel=alternate; type=application/rss+xml");
+				exchange.getResponseHeaders().add("Link", "<" + apiUrl + ">; rel=alternate; type=text/xml+oembed");
+				exchange.sendResponseHeaders(200, 0);
+				try (OutputStream out = exchange.getResponseBody()) {
+					byte[] paragraph = "<p>Lorem ipsum</p>".repeat(1024).getBytes(StandardCharsets.UTF_8);
+					for (int i = 0; i < 1024; ++i) {
+						out.write(paragraph);
+					}
+				}
+				catch (IOException ex) {
+					aborted.countDown();
+				}
+			});
+			server.handle("/oembed",
+					exchange -> LocalHttpServer.respond(exchange, 200, Map.of(),
+							"<oembed><type>rich</type><version>1.0</version><title>Linked</title></oembed>"
+								.getBytes(StandardCharsets.UTF_8)));
+
+			OembedService oembedService = new OembedService(new JdkHttpTransport(), null, List.of(), null);
+			oembedService.setAutodiscovery(true);
+			assertThat(oembedService.getOembedResponseFor(server.url("/page"))).map(OembedResponse::getTitle)
+				.hasValue("Linked");
+			assertThat(aborted.await(10, TimeUnit.SECONDS)).isTrue();
+		}
+	}
+
+	@Test
+	public void endpointsShouldBeLearnedFromAutodiscovery() {
+		InMemoryHttpTransport transport = new InMemoryHttpTransport();
+		for (int i = 1; i <= 3; ++i) {
+			String url = "https://example.com/articles/" + i;
+			String apiUrl = "https://example.com/oembed?format=json&url=https%3A%2F%2Fexample.com%2Farticles%2F" + i;
+			transport.respond(url, 200, Map.of("Link", "<" + apiUrl + ">; rel=alternate; type=application/json+oembed"),
+					new byte[0]);
+			transport.respond(apiUrl, 200, this.responseString);
+		}
+
+		OembedService oembedService = new OembedService(transport, null, List.of(), null);
+		oembedService.setAutodiscovery(true);
+		assertThat(oembedService.getLearnedEndpointTtl()).isEqualTo(3600);
+
+		assertThat(oembedService.getOembedResponseFor("https://example.com/articles/1")).isPresent();
+		assertThat(oembedService.getOembedResponseFor("https://example.com/articles/2")).isPresent();
+		assertThat(oembedService.getLearnedEndpoints()).hasEntrySatisfying("example.com",
+				endpoint -> assertThat(endpoint.getEndpoint()).isEqualTo("https://example.com/oembed"));
+		assertThat(transport.getRequests()).extracting(TransportRequest::toString)
+			.containsExactly("GET https://example.com/articles/1",
+					"GET https://example.com/oembed?format=json&url=https%3A%2F%2Fexample.com%2Farticles%2F1",
+					"GET https://example.com/oembed?format=json&url=https%3A%2F%2Fexample.com%2Farticles%2F2");
+
+		assertThat(oembedService.evictLearnedEndpoint("example.com")).isTrue();
+		assertThat(oembedService.getOembedResponseFor("https://example.com/articles/3")).isPresent();
+		assertThat(transport.getRequests()).hasSize(5);
+		oembedService.evictLearnedEndpoints();
+		assertThat(oembedService.getLearnedEndpoints()).isEmpty();
+
+		assertThat(oembedService.getMaxLearnedEndpoints()).isEqualTo(10_000);
+		oembedService.setMaxLearnedEndpoints(1);
+		assertThat(oembedService.getMaxLearnedEndpoints()).isOne();
+		assertThat(oembedService.getLearnedEndpoints()).isEmpty();
+		oembedService.setLearnedEndpointTtl(0);
+		assertThat(oembedService.getLearnedEndpointTtl()).isZero();
+		assertThat(oembedService.getOembedResponseFor("https://example.com/articles/1")).isPresent();
+		assertThat(oembedService.getLearnedEndpoints()).isEmpty();
+	}
+
+	@Test
+	public void responseCacheShouldBeUsed() {
+		OembedEndpoint oembedEndpoint = new OembedEndpoint();
+		oembedEndpoint.setName("biking");
+		oembedEndpoint.setEndpoint("https://biking.michael-simons.eu/oembed");
+		oembedEndpoint.setUrlSchemes(List.of("https://biking\\.michael-simons\\.eu/tracks/.*"));
+
+		InMemoryHttpTransport transport = new InMemoryHttpTransport();
+		transport.respond(
+				"https://biking.michael-simons.eu/oembed?format=json&url=https%3A%2F%2Fbiking.michael-simons.eu%2Ftracks%2F1",
+				200, this.responseString);
+		transport.respond(
+				"https://biking.michael-simons.eu/oembed?format=json&url=https%3A%2F%2Fbiking.michael-simons.eu%2Ftracks%2F2",
+				500, "Nope");
+
+		OembedService oembedService = new OembedService(transport, null, List.of(oembedEndpoint), null);
+		assertThat(oembedService.getResponseCache()).isNull();
+		InMemoryResponseCache responseCache = new InMemoryResponseCache(10);
+		oembedService.setResponseCache(responseCache);
+		assertThat(oembedService.getResponseCache()).isSameAs(responseCache);
+
+		for (int i = 0; i < 2; ++i) {
+			assertThat(oembedService.getOembedResponseFor("https://biking.michael-simons.eu/tracks/1")).isPresent();
+			assertThat(oembedService.getOembedResponseFor("https://biking.michael-simons.eu/tracks/2")).isEmpty();
+		}
+		assertThat(transport.getRequests()).hasSize(2);
+		assertThat(responseCache.get("https://biking.michael-simons.eu/tracks/1")).hasValueSatisfying(cached -> {
+			assertThat(cached.getResponse()).isPresent();
+			assertThat(Duration.between(cached.getStoredAt(), cached.getExpiresAt())).hasSeconds(86400);
+		});
+		assertThat(responseCache.get("https://biking.michael-simons.eu/tracks/2"))
+			.hasValueSatisfying(cached -> assertThat(cached.getResponse()).isEmpty());
+	}
+
+	@Test
+	public void expiredResponsesShouldBeServedWhileRevalidating() {
+		String url = "https://biking.michael-simons.eu/tracks/1";
+		InMemoryHttpTransport transport = new InMemoryHttpTransport().respond(BIKING_API_URL, 200, this.responseString);
+		InMemoryResponseCache responseCache = new InMemoryResponseCache(10);
+		Instant now = Instant.now();
+		responseCache.put(url, new CachedResponse(this.response1, now.minusSeconds(3600), now.minusSeconds(10)),
+				Duration.ofHours(1));
+
+		List<Runnable> refreshes = new ArrayList<>();
+		OembedService oembedService = new OembedService(transport, null, List.of(bikingEndpoint()), null);
+		oembedService.setResponseCache(responseCache);
+		oembedService.setExecutor(refreshes::add);
+		assertThat(oembedService.getStaleWhileRevalidate()).isZero();
+		oembedService.setStaleWhileRevalidate(60);
+		assertThat(oembedService.getStaleWhileRevalidate()).isEqualTo(60);
+
+		assertThat(oembedService.getOembedResponseFor(url)).containsSame(this.response1);
+		assertThat(oembedService.getOembedResponseFor(url)).containsSame(this.response1);
+		assertThat(transport.getRequests()).isEmpty();
+		assertThat(refreshes).hasSize(1);
+
+		refreshes.get(0).run();
+		assertThat(transport.getRequests()).hasSize(1);
+		assertThat(responseCache.get(url)).hasValueSatisfying(cached -> {
+			assertThat(cached.isFresh(Instant.now())).isTrue();
+			assertThat(cached.getResponse()).get().isNotSameAs(this.response1);
+		});
+		assertThat(oembedService.getOembedResponseFor(url)).get().isNotSameAs(this.response1);
+		assertThat(refreshes).hasSize(1);
+
+		// Outside the window, responses are refreshed inline
+		responseCache.put(url, new CachedResponse(this.response1, now.minusSeconds(3600), now.minusSeconds(61)),
+				Duration.ofHours(1));
+		assertThat(oembedService.getOembedResponseFor(url)).get().isNotSameAs(this.response1);
+		assertThat(transport.getRequests()).hasSize(2);
+
+		// Rejected refreshes are run inline as well
+		responseCache.put(url, new CachedResponse(this.response1, now.minusSeconds(3600), now.minusSeconds(10)),
+				Duration.ofHours(1));
+		oembedService.setExecutor(command -> {
+			throw new RejectedExecutionException();
+		});
+		assertThat(oembedService.getOembedResponseFor(url)).get().isNotSameAs(this.response1);
+		assertThat(transport.getRequests()).hasSize(3);
+	}
+
+	@Test
+	public void expiredResponsesShouldBeServedIfRefreshingFails() {
+		String url = "https://biking.michael-simons.eu/tracks/1";
+		InMemoryHttpTransport transport = new InMemoryHttpTransport().respond(BIKING_API_URL, 503, "Nope");
+		InMemoryResponseCache responseCache = new InMemoryResponseCache(10);
+		Instant now = Instant.now();
+		responseCache.put(url, new CachedResponse(this.response1, now.minusSeconds(3600), now.minusSeconds(10)),
+				Duration.ofHours(1));
+
+		List<Runnable> refreshes = new ArrayList<>();
+		OembedService oembedService = new OembedService(transport, null, List.of(bikingEndpoint()), null);
+		oembedService.setResponseCache(responseCache);
+		oembedService.setExecutor(refreshes::add);
+		assertThat(oembedService.getStaleIfError()).isZero();
+		oembedService.setStaleIfError(300);
+		assertThat(oembedService.getStaleIfError()).isEqualTo(300);
+
+		// Refreshed inline, as stale-while-revalidate is disabled
+		assertThat(oembedService.getOembedResponseFor(url)).containsSame(this.response1);
+		assertThat(transport.getRequests()).hasSize(1);
+		// Not tried again after the failure
+		assertThat(oembedService.getOembedResponseFor(url)).containsSame(this.response1);
+		assertThat(transport.getRequests()).hasSize(1);
+
+		// Failed background refreshes keep the response as well
+		oembedService.setStaleWhileRevalidate(60);
+		String otherUrl = "https://biking.michael-simons.eu/tracks/2";
+		responseCache.put(otherUrl, new CachedResponse(this.response1, now.minusSeconds(3600), now.minusSeconds(10)),
+				Duration.ofHours(1));
+		assertThat(oembedService.getOembedResponseFor(otherUrl)).containsSame(this.response1);
+		assertThat(refreshes).hasSize(1);
+		refreshes.get(0).run();
+		assertThat(transport.getRequests()).hasSize(2);
+		assertThat(oembedService.getOembedResponseFor(otherUrl)).containsSame(this.response1);
+		assertThat(refreshes).hasSize(1);
+
+		// Outside the window, the failure replaces the response
+		responseCache.put(url, new CachedResponse(this.response1, now.minusSeconds(3600), now.minusSeconds(301)),
+				Duration.ofHours(1));
+		assertThat(oembedService.getOembedResponseFor(url)).isEmpty();
+		assertThat(transport.getRequests()).hasSize(3);
+		assertThat(responseCache.get(url)).hasValueSatisfying(cached -> assertThat(cached.getResponse()).isEmpty());
+		assertThat(oembedService.getOembedResponseFor(url)).isEmpty();
+		assertThat(transport.getRequests()).hasSize(3);
+	}
+
+	@Test
+	public void hotResponsesShouldBeRefreshedAhead() {
+		String url = "https://biking.michael-simons.eu/tracks/1";
+		InMemoryHttpTransport transport = new InMemoryHttpTransport().respond(BIKING_API_URL, 200, this.responseString);
+		InMemoryResponseCache responseCache = new InMemoryResponseCache(10);
+		Instant now = Instant.now();
+		responseCache.put(url, new CachedResponse(this.response1, now.minusSeconds(3590), now.plusSeconds(10)),
+				Duration.ofHours(1));
+
+		List<Runnable> refreshes = new ArrayList<>();
+		OembedEndpoint endpoint = bikingEndpoint();
+		endpoint.setRefreshAheadRate(Integer.MAX_VALUE);
+		OembedService oembedService = new OembedService(transport, null, List.of(endpoint), null);
+		oembedService.setResponseCache(responseCache);
+		oembedService.setExecutor(refreshes::add);
+		assertThat(oembedService.isRefreshAhead()).isFalse();
+		oembedService.setRefreshAhead(true);
+		assertThat(oembedService.isRefreshAhead()).isTrue();
+
+		for (int i = 0; i < RefreshAhead.HOT_FREQUENCY + 1; ++i) {
+			assertThat(oembedService.getOembedResponseFor(url)).containsSame(this.response1);
+		}
+		assertThat(refreshes).hasSize(1);
+		assertThat(transport.getRequests()).isEmpty();
+		refreshes.get(0).run();
+		assertThat(transport.getRequests()).hasSize(1);
+		assertThat(oembedService.getOembedResponseFor(url)).get().isNotSameAs(this.response1);
+		assertThat(refreshes).hasSize(1);
+
+		// A failed refresh keeps the fresh response
+		String otherUrl = "https://biking.michael-simons.eu/tracks/2";
+		responseCache.put(otherUrl, new CachedResponse(this.response1, now.minusSeconds(3590), now.plusSeconds(10)),
+				Duration.ofHours(1));
+		for (int i = 0; i < RefreshAhead.HOT_FREQUENCY; ++i) {
+			assertThat(oembedService.getOembedResponseFor(otherUrl)).containsSame(this.response1);
+		}
+		assertThat(refreshes).hasSize(2);
+		refreshes.get(1).run();
+		assertThat(transport.getRequests()).hasSize(2);
+		assertThat(oembedService.getOembedResponseFor(otherUrl)).containsSame(this.response1);
+		assertThat(refreshes).hasSize(2);
+
+		// Urls without a configured endpoint are not refreshed
+		String unknownUrl = "https://example.com/1";
+		responseCache.put(unknownUrl, new CachedResponse(this.response1, now.minusSeconds(3590), now.plusSeconds(10)),
+				Duration.ofHours(1));
+		for (int i = 0; i < RefreshAhead.HOT_FREQUENCY; ++i) {
+			assertThat(oembedService.getOembedResponseFor(unknownUrl)).containsSame(this.response1);
+		}
+		assertThat(refreshes).hasSize(2);
+
+		// Rejected refreshes release their permit
+		oembedService.setRefreshAhead(true);
+		oembedService.setExecutor(command -> {
+			throw new RejectedExecutionException();
+		});
+		endpoint.setMaxConcurrentRefreshes(1);
+		String thirdUrl = "https://biking.michael-simons.eu/tracks/3";
+		responseCache.put(thirdUrl, new CachedResponse(this.response1, now.minusSeconds(3590), now.plusSeconds(10)),
+				Duration.ofHours(1));
+		for (int i = 0; i < RefreshAhead.HOT_FREQUENCY + 1; ++i) {
+			assertThat(oembedService.getOembedResponseFor(thirdUrl)).containsSame(this.response1);
+		}
+		oembedService.setExecutor(refreshes::add);
+		assertThat(oembedService.getOembedResponseFor(thirdUrl)).containsSame(this.response1);
+		assertThat(refreshes).hasSize(3);
+
+		oembedService.setRefreshAhead(false);
+		assertThat(oembedService.isRefreshAhead()).isFalse();
+	}
+
+	@Test
+	public void failuresShouldBeCachedByClass() {
+		InMemoryHttpTransport transport = new InMemoryHttpTransport().respond(BIKING_API_URL, 200, this.responseString)
+			.respond(BIKING_API_URL.replace("%2F1", "%2F3"), 503, "Nope")
+			.respond(BIKING_API_URL.replace("%2F1", "%2F4"), 200, "Nope");
+		InMemoryResponseCache responseCache = new InMemoryResponseCache(10);
+		OembedService oembedService = new OembedService(transport, null, List.of(bikingEndpoint()), null);
+		oembedService.setResponseCache(responseCache);
+		oembedService.setNegativeCacheSize(0);
+		assertThat(oembedService.getFailureCacheAges()).hasSize(FetchFailure.values().length)
+			.containsEntry(FetchFailure.NOT_FOUND, 3600L)
+			.containsEntry(FetchFailure.UNAVAILABLE, 60L);
+		oembedService.setFailureCacheAges(Map.of(FetchFailure.UNAVAILABLE, 10L, FetchFailure.INVALID_RESPONSE, 0L));
+		assertThat(oembedService.getFailureCacheAges()).containsEntry(FetchFailure.NOT_FOUND, 3600L)
+			.containsEntry(FetchFailure.UNAVAILABLE, 10L)
+			.containsEntry(FetchFailure.INVALID_RESPONSE, 0L);
+
+		List<String> urls = List.of("https://biking.michael-simons.eu/tracks/1",
+				"https://biking.michael-simons.eu/tracks/2", "https://biking.michael-simons.eu/tracks/3",
+				"https://biking.michael-simons.eu/tracks/4", "https://example.com/1");
+		for (int i = 0; i < 2; ++i) {
+			urls.forEach(oembedService::getOembedResponseFor);
+		}
+		// Invalid responses are not cached at all
+		assertThat(transport.getRequests()).hasSize(5);
+		assertThat(responseCache.get(urls.get(1))).hasValueSatisfying(cached -> {
+			assertThat(cached.getFailure()).hasValue(FetchFailure.NOT_FOUND);
+			assertThat(cached.getFailures()).isEqualTo(1);
+			assertThat(Duration.between(cached.getStoredAt(), cached.getExpiresAt())).hasSeconds(3600);
+		});
+		assertThat(responseCache.get(urls.get(2))).hasValueSatisfying(cached -> {
+			assertThat(cached.getFailure()).hasValue(FetchFailure.UNAVAILABLE);
+			assertThat(Duration.between(cached.getStoredAt(), cached.getExpiresAt())).hasSeconds(10);
+		});
+		assertThat(responseCache.get(urls.get(3))).isEmpty();
+		assertThat(responseCache.get(urls.get(4)))
+			.hasValueSatisfying(cached -> assertThat(cached.getFailure()).hasValue(FetchFailure.NO_ENDPOINT));
+
+		ResponseCacheMetrics metrics = oembedService.getResponseCacheMetrics();
+		assertThat(metrics.getHits()).isEqualTo(1);
+		assertThat(metrics.getStaleHits()).isZero();
+		assertThat(metrics.getNegativeHits()).isEqualTo(3);
+		assertThat(metrics.getNegativeHits(FetchFailure.NOT_FOUND)).isEqualTo(1);
+		assertThat(metrics.getNegativeHits(FetchFailure.UNAVAILABLE)).isEqualTo(1);
+		assertThat(metrics.getNegativeHits(FetchFailure.NO_ENDPOINT)).isEqualTo(1);
+		assertThat(metrics.getNegativeHits(FetchFailure.TIMEOUT)).isZero();
+		assertThat(metrics.getNegativeHitsByFailure()).hasSize(FetchFailure.values().length);
+		assertThat(metrics.getMisses()).isEqualTo(6);
+		assertThat(metrics).hasToString("ResponseCacheMetrics[hits=1, staleHits=0, negativeHits={NO_ENDPOINT=1, "
+				+ "NOT_FOUND=1, REJECTED=0, UNAVAILABLE=1, TIMEOUT=0, CONNECTION_FAILED=0, INVALID_RESPONSE=0}, "
+				+ "misses=6]");
+
+		// Failures cached by earlier versions count as missing endpoints
+		Instant now = Instant.now();
+		responseCache.put(urls.get(4), new CachedResponse(null, now, now.plusSeconds(60)), Duration.ofMinutes(1));
+		assertThat(oembedService.getOembedResponseFor(urls.get(4))).isEmpty();
+		assertThat(oembedService.getResponseCacheMetrics().getNegativeHits(FetchFailure.NO_ENDPOINT)).isEqualTo(2);
+
+		// Expired responses served while revalidating are stale hits
+		oembedService.setStaleWhileRevalidate(60);
+		oembedService.setExecutor(command -> {
+		});
+		responseCache.put(urls.get(0), new CachedResponse(this.response1, now.minusSeconds(60), now.minusSeconds(1)),
+				Duration.ofMinutes(2));
+		assertThat(oembedService.getOembedResponseFor(urls.get(0))).containsSame(this.response1);
+		assertThat(oembedService.getResponseCacheMetrics().getStaleHits()).isEqualTo(1);
+	}
+
+	@Test
+	public void cacheAgesOfRepeatedFailuresShouldGrow() {
+		String url = "https://biking.michael-simons.eu/tracks/1";
+		InMemoryHttpTransport transport = new InMemoryHttpTransport().respond(BIKING_API_URL, 503, "Nope");
+		InMemoryResponseCache responseCache = new InMemoryResponseCache(10);
+		OembedService oembedService = new OembedService(transport, null, List.of(bikingEndpoint()), null);
+		oembedService.setResponseCache(responseCache);
+		assertThat(oembedService.getFailureCacheAgeMultiplier()).isEqualTo(1.0);
+		assertThat(oembedService.getMaxFailureCacheAge()).isEqualTo(86400);
+		oembedService.setFailureCacheAges(Map.of(FetchFailure.UNAVAILABLE, 10L));
+		oembedService.setFailureCacheAgeMultiplier(2.0);
+		oembedService.setMaxFailureCacheAge(30);
+		assertThat(oembedService.getFailureCacheAgeMultiplier()).isEqualTo(2.0);
+		assertThat(oembedService.getMaxFailureCacheAge()).isEqualTo(30);
+
+		Instant now = Instant.now();
+		for (int failures = 1; failures <= 3; ++failures) {
+			assertThat(oembedService.getOembedResponseFor(url)).isEmpty();
+			assertThat(transport.getRequests()).hasSize(failures);
+			final int expectedFailures = failures;
+			final long expectedCacheAge = Math.min(30, 10L << (failures - 1));
+			CachedResponse cached = responseCache.get(url).orElseThrow();
+			assertThat(cached.getFailure()).hasValue(FetchFailure.UNAVAILABLE);
+			assertThat(cached.getFailures()).isEqualTo(expectedFailures);
+			assertThat(Duration.between(cached.getStoredAt(), cached.getExpiresAt())).hasSeconds(expectedCacheAge);
+			// Expire the failure, keeping its number
+			responseCache.put(url, new CachedResponse(FetchFailure.UNAVAILABLE, expectedFailures, now.minusSeconds(60),
+					now.minusSeconds(1)), Duration.ofMinutes(1));
+		}
+
+		// A failure of another class starts over and configured cache ages are not capped
+		responseCache.put(url, new CachedResponse(FetchFailure.TIMEOUT, 5, now.minusSeconds(60), now.minusSeconds(1)),
+				Duration.ofMinutes(1));
+		oembedService.setFailureCacheAges(Map.of(FetchFailure.UNAVAILABLE, 60L));
+		assertThat(oembedService.getOembedResponseFor(url)).isEmpty();
+		assertThat(responseCache.get(url)).hasValueSatisfying(cached -> {
+			assertThat(cached.getFailures()).isEqualTo(1);
+			assertThat(Duration.between(cached.getStoredAt(), cached.getExpiresAt())).hasSeconds(60);
+		});
+	}
+
+	@Test
+	public void timeoutsShouldBeCachedBriefly() throws IOException {
+		HttpTransport transport = Mockito.mock(HttpTransport.class);
+		given(transport.execute(any())).willThrow(new SocketTimeoutException("Read timed out"));
+		InMemoryResponseCache responseCache = new InMemoryResponseCache(10);
+		OembedService oembedService = new OembedService(transport, null, List.of(bikingEndpoint()), null);
+		oembedService.setResponseCache(responseCache);
+
+		assertThat(oembedService.getOembedResponseFor("https://biking.michael-simons.eu/tracks/1")).isEmpty();
+		assertThat(responseCache.get("https://biking.michael-simons.eu/tracks/1")).hasValueSatisfying(cached -> {
+			assertThat(cached.getFailure()).hasValue(FetchFailure.TIMEOUT);
+			assertThat(Duration.between(cached.getStoredAt(), cached.getExpiresAt())).hasSeconds(30);
+		});
+	}
+
+	@Test
+	public void failureCacheAgesShouldBeValidated() {
+		OembedService oembedService = new OembedService(new InMemoryHttpTransport(), null, List.of(), null);
+		Map<FetchFailure, Long> negativeCacheAges = Map.of(FetchFailure.TIMEOUT, -1L);
+		assertThatIllegalArgumentException().isThrownBy(() -> oembedService.setFailureCacheAges(negativeCacheAges))
+			.withMessage("The cache age of failures must not be negative");
+		assertThatIllegalArgumentException().isThrownBy(() -> oembedService.setFailureCacheAgeMultiplier(0.5))
+			.withMessage("The failure cache age multiplier must be at least 1");
+		assertThatIllegalArgumentException().isThrownBy(() -> oembedService.setFailureCacheAgeMultiplier(Double.NaN))
+			.withMessage("The failure cache age multiplier must be at least 1");
+		assertThatIllegalArgumentException().isThrownBy(() -> oembedService.setMaxFailureCacheAge(-1))
+			.withMessage("The maximum cache age of failures must not be negative");
+	}
+
+	@Test
+	public void urlsShouldBeCanonicalized() {
+		OembedEndpoint endpoint = bikingEndpoint();
+		endpoint.setUrlRewrites(
+				Map.of("http://bike\\.example\\.com/(\\d+)(\\?.*)?", "HTTPS://Biking.michael-simons.eu/tracks/$1$2"));
+		InMemoryHttpTransport transport = new InMemoryHttpTransport().respond(BIKING_API_URL, 200, this.responseString);
+		OembedService oembedService = new OembedService(transport, null, List.of(endpoint), null);
+		oembedService.setResponseCache(new InMemoryResponseCache(10));
+		assertThat(oembedService.getUrlCanonicalizer()).isNull();
+		oembedService.setUrlCanonicalizer(new UrlCanonicalizer());
+
+		assertThat(oembedService.getOembedResponseFor("https://biking.michael-simons.eu/tracks/1")).isPresent();
+		assertThat(oembedService.getOembedResponseFor("HTTPS://Biking.Michael-Simons.EU:443/tracks/1#top")).isPresent();
+		assertThat(oembedService.getOembedResponseFor("https://biking.michael-simons.eu/tracks/1?utm_source=x"))
+			.isPresent();
+		assertThat(oembedService.getOembedResponseFor("http://bike.example.com/1?fbclid=y")).isPresent();
+		assertThat(oembedService.findEndpointFor("http://BIKE.example.com/1")).map(OembedEndpoint::getName)
+			.hasValue("biking");
+		assertThat(transport.getRequests()).extracting(TransportRequest::toString)
+			.containsExactly("GET " + BIKING_API_URL);
+
+		Document document = oembedService.embedUrls(Jsoup
+			.parse("<p><a href=\"https://biking.michael-simons.eu/tracks/1?utm_medium=mail\">Track 1</a></p>"));
+		assertThat(document.getElementsByTag("iframe")).hasSize(1);
+		assertThat(transport.getRequests()).hasSize(1);
+
+		// Without canonicalization, only the rewrite rules apply
+		oembedService.setUrlCanonicalizer(null);
+		assertThat(oembedService.getUrlCanonicalizer()).isNull();
+		assertThat(oembedService.getOembedResponseFor("https://biking.michael-simons.eu/tracks/1#top")).isEmpty();
+		assertThat(oembedService.findEndpointFor("http://bike.example.com/1")).isEmpty();
+		assertThat(transport.getRequests()).extracting(TransportRequest::getUri)
+			.map(URI::toString)
+			.containsExactly(BIKING_API_URL,
+					"https://biking.michael-simons.eu/oembed?format=json&url=https%3A%2F%2Fbiking.michael-simons.eu%2Ftracks%2F1%23top");
+	}
+
+	@Test
+	public void invalidRewriteRulesShouldBeRejected() {
+		OembedEndpoint endpoint = bikingEndpoint();
+		endpoint.setUrlRewrites(Map.of("(", "x"));
+		List<OembedEndpoint> endpoints = List.of(endpoint);
+		assertThatExceptionOfType(OembedException.class)
+			.isThrownBy(() -> new OembedService(new InMemoryHttpTransport(), null, endpoints, null))
+			.withMessageStartingWith("Unclosed group");
+
+		endpoint.setUrlRewrites(Map.of("(a)\\1", "x"));
+		assertThatExceptionOfType(OembedException.class)
+			.isThrownBy(() -> new OembedService(new InMemoryHttpTransport(), null, endpoints, null))
+			.withMessageStartingWith("Unsupported escape sequence");
+	}
+
+	@Test
+	public void rewriteRulesShouldBeMatchedByTheUrlMatchingEngine() {
+		OembedEndpoint endpoint = bikingEndpoint();
+		Map<String, String> rewrites = new LinkedHashMap<>();
+		rewrites.put("http://bike\\.example\\.com/(\\d+)", "https://biking.michael-simons.eu/tracks/$1");
+		rewrites.put("http://bike\\.example\\.com/.*", "https://biking.michael-simons.eu/tracks/2");
+		endpoint.setUrlRewrites(rewrites);
+		InMemoryHttpTransport transport = new InMemoryHttpTransport();
+		OembedService oembedService = new OembedService(transport, null, List.of(endpoint), null);
+		assertThat(oembedService.findEndpointFor("http://bike.example.com/1")).isPresent();
+		assertThat(oembedService.findEndpointFor("http://bike.example.com/x")).isPresent();
+		assertThat(oembedService.findEndpointFor("http://bike.example.com")).isEmpty();
+
+		UrlRewriteRules rules = new UrlRewriteRules(rewrites, new AutomatonMatchingEngine());
+		assertThat(rules.apply("http://bike.example.com/1")).hasValue("https://biking.michael-simons.eu/tracks/1");
+		assertThat(rules.apply("http://bike.example.com/x")).hasValue("https://biking.michael-simons.eu/tracks/2");
+		assertThat(rules.apply("https://bike.example.com/1")).isEmpty();
+
+		// Engines matching more than java.util.regex do are caught
+		UrlRewriteRules lenientRules = new UrlRewriteRules(Map.of("a", "b"), urlSchemes -> url -> 0);
+		assertThat(lenientRules.apply("c")).isEmpty();
+
+		assertThatExceptionOfType(OembedException.class)
+			.isThrownBy(() -> new UrlRewriteRules(Map.of("a{2,1}", "b"), urlSchemes -> url -> -1));
+	}
+
+	@Test
+	public void rewriteReplacementsShouldBeExpandedLikeJavaRegex() {
+		final String regex = "https://(?<host>[a-z.]+)/(a)(b)?(c)(d)(e)(f)(g)(h)(i)(j)(k)?";
+		final String url = "https://example.com/acdefghijk";
+		for (String replacement : List.of("$1$2-$3", "${host}/$11", "$12", "$10$01", "\\$1\\\\", "x", "")) {
+			assertThat(new UrlRewriteRules(Map.of(regex, replacement), new AutomatonMatchingEngine()).apply(url))
+				.as(replacement)
+				.isEqualTo(new UrlRewriteRules(Map.of(regex, replacement), new RegexMatchingEngine()).apply(url));
+		}
+
+		final Map<String, String> invalidReplacements = Map.of("\\", "character to be escaped is missing", "$",
+				"Illegal group reference: group index is missing", "${host",
+				"named capturing group is missing trailing '}'", "${path}", "No group with name {path}", "$x",
+				"Illegal group reference", "$2", "No group 2");
+		invalidReplacements.forEach((replacement, message) -> assertThatExceptionOfType(OembedException.class)
+			.isThrownBy(() -> new UrlRewriteRules(Map.of("https://(?<host>[a-z.]+)/", replacement),
+					new AutomatonMatchingEngine()))
+			.withMessage(message + " in url rewrite replacement '" + replacement + "'"));
+	}
+
+	@Test
+	public void staleTimesShouldBeValidated() {
+		OembedService oembedService = new OembedService(new InMemoryHttpTransport(), null, List.of(), null);
+		assertThatIllegalArgumentException().isThrownBy(() -> oembedService.setStaleWhileRevalidate(-1))
+			.withMessage("The stale-while-revalidate time must not be negative");
+		assertThatIllegalArgumentException().isThrownBy(() -> oembedService.setStaleIfError(-1))
+			.withMessage("The stale-if-error time must not be negative");
+	}
+
+	private static OembedEndpoint bikingEndpoint() {
+		OembedEndpoint oembedEndpoint = new OembedEndpoint();
+		oembedEndpoint.setName("biking");
+		oembedEndpoint.setEndpoint("https://biking.michael-simons.eu/oembed");
+		oembedEndpoint.setUrlSchemes(List.of("https://biking\\.michael-simons\\.eu/tracks/.*"));
+		return oembedEndpoint;
+	}
+
 	@Test
 	public void embedUrlsShouldWork1() {
-		OembedService oembedService = new OembedService(this.defaultHttpClient, null, new ArrayList<>(), null);
+		OembedService oembedService = new OembedService(this.defaultHttpClient, (ResponseCache) null, new ArrayList<>(),
+				null);
 		assertThat(oembedService.embedUrls(null, null)).isNull();
 		assertThat(oembedService.embedUrls("", null)).isEmpty();
 		assertThat(oembedService.embedUrls("	", null)).isEqualTo("	");
@@ -460,9 +1565,8 @@ public class OembedServiceTests {
 		given(cache.get(embeddableUrl)).willReturn(new Element(embeddableUrl, this.response1));
 		given(this.cacheManager.addCacheIfAbsent("testCache")).willReturn(cache);
 
-		OembedService oembedService = new OembedService(this.defaultHttpClient, this.cacheManager, new ArrayList<>(),
-				null);
-		oembedService.setCacheName("testCache");
+		OembedService oembedService = new OembedService(this.defaultHttpClient,
+				new EhcacheResponseCache(this.cacheManager, "testCache"), new ArrayList<>(), null);
 
 		String in = "<p>Vor langer Zeit fuhr ich diesen Weg: <a href=\"https://biking.michael-simons.eu/tracks/1\">von Aachen nach Maastricht und zurück</a>.</p>";
 		String expected = "<p>Vor langer Zeit fuhr ich diesen Weg: <iframe width=\"1024\" height=\"576\" src=\"https://biking.michael-simons.eu/tracks/1/embed?width=1024&height=576\" class=\"bikingTrack\"></iframe>.</p>";
@@ -485,19 +1589,51 @@ public class OembedServiceTests {
 		oembedEndpoint.setUrlSchemes(List.of("https://biking\\.michael-simons\\.eu/tracks/.*"));
 		oembedEndpoint.setResponseRendererClass(BrokenRenderer.class);
 
-		OembedService oembedService = new OembedService(this.defaultHttpClient, this.cacheManager,
-				List.of(oembedEndpoint), null);
-		oembedService.setCacheName("testCache");
+		OembedService oembedService = new OembedService(this.defaultHttpClient,
+				new EhcacheResponseCache(this.cacheManager, "testCache"), List.of(oembedEndpoint), null);
 
 		String in = "<p>Vor langer Zeit fuhr ich diesen Weg: <a href=\"https://biking.michael-simons.eu/tracks/1\">von Aachen nach Maastricht und zurück</a>. Hier der Bericht: <a href=\"http://test.com\">Bericht</a>.</p>";
 
 		assertThat(oembedService.embedUrls(in, null)).isEqualTo(in);
 	}
 
+	/**
+	 * Endpoints with identical url schemes must not be merged, the renderer of the first
+	 * one wins.
+	 */
+	@Test
+	public void embedUrlsShouldUseRendererOfFirstMatchingEndpoint() {
+		Ehcache cache = Mockito.mock(Ehcache.class);
+		String embeddableUrl = "https://biking.michael-simons.eu/tracks/1";
+		given(cache.get(embeddableUrl)).willReturn(new Element(embeddableUrl, this.response1));
+		given(this.cacheManager.addCacheIfAbsent("testCache")).willReturn(cache);
+
+		List<OembedEndpoint> endpoints = new ArrayList<>();
+		for (Class<? extends OembedResponseRenderer> rendererClass : List.of(BrokenRenderer.class,
+				DummyRenderer.class)) {
+			OembedEndpoint oembedEndpoint = new OembedEndpoint();
+			oembedEndpoint.setName(rendererClass.getSimpleName());
+			oembedEndpoint.setEndpoint("https://biking.michael-simons.eu/oembed");
+			oembedEndpoint.setUrlSchemes(List.of("https://biking\\.michael-simons\\.eu/tracks/.*"));
+			oembedEndpoint.setResponseRendererClass(rendererClass);
+			endpoints.add(oembedEndpoint);
+		}
+
+		OembedService oembedService = new OembedService(this.defaultHttpClient,
+				new EhcacheResponseCache(this.cacheManager, "testCache"), endpoints, null);
+
+		String in = "<p><a href=\" https://biking.michael-simons.eu/tracks/1 \">von Aachen nach Maastricht und zurück</a>.</p>";
+
+		assertThat(oembedService.embedUrls(in, null)).isEqualTo(in);
+		verify(cache).get(embeddableUrl);
+		Mockito.verifyNoInteractions(this.defaultHttpClient);
+	}
+
 	@Test
 	public void embedUrlsShouldWork4() {
 
-		OembedService oembedService = new OembedService(this.defaultHttpClient, null, new ArrayList<>(), null);
+		OembedService oembedService = new OembedService(this.defaultHttpClient, (ResponseCache) null, new ArrayList<>(),
+				null);
 		assertThatExceptionOfType(OembedException.class)
 			.isThrownBy(() -> oembedService.embedUrls(null, null, Integer.class))
 			.withMessage("Invalid target class: java.lang.Integer");
@@ -505,11 +1641,299 @@ public class OembedServiceTests {
 
 	@Test
 	public void misc() {
-		OembedService oembedService = new OembedService(this.defaultHttpClient, this.cacheManager, new ArrayList<>(),
+		OembedService oembedService = new OembedService(this.defaultHttpClient, (ResponseCache) null, new ArrayList<>(),
 				null);
 		assertThat(oembedService.getDefaultCacheAge()).isEqualTo(3600);
 		oembedService.setDefaultCacheAge(10);
 		assertThat(oembedService.getDefaultCacheAge()).isEqualTo(10);
 	}
 
+	@Test
+	public void embedUrlsAsyncShouldWork() {
+		Ehcache cache = Mockito.mock(Ehcache.class);
+		for (String embeddableUrl : List.of("https://biking.michael-simons.eu/tracks/1",
+				"https://biking.michael-simons.eu/tracks/2")) {
+			given(cache.get(embeddableUrl)).willReturn(new Element(embeddableUrl, this.response1));
+		}
+		given(cache.get("https://example.com")).willReturn(null);
+		given(this.cacheManager.addCacheIfAbsent("testCache")).willReturn(cache);
+
+		OembedService oembedService = new OembedService(this.defaultHttpClient,
+				new EhcacheResponseCache(this.cacheManager, "testCache"), new ArrayList<>(), null);
+
+		String in = "<p><a href=\"https://biking.michael-simons.eu/tracks/1\">1</a> <a href=\"https://example.com\">x</a> <a href=\"https://biking.michael-simons.eu/tracks/2\">2</a></p>";
+		String iframe = "<iframe width=\"1024\" height=\"576\" src=\"https://biking.michael-simons.eu/tracks/1/embed?width=1024&height=576\" class=\"bikingTrack\"></iframe>";
+		String expected = "<p>" + iframe + " <a href=\"https://example.com\">x</a> " + iframe + "</p>";
+
+		ExecutorService executorService = Executors.newFixedThreadPool(4);
+		try {
+			AtomicInteger tasks = new AtomicInteger();
+			CompletableFuture<String> result = oembedService.embedUrlsAsync(in, null, String.class, task -> {
+				tasks.incrementAndGet();
+				executorService.execute(task);
+			});
+			assertThat(result.join()).isEqualTo(expected);
+			assertThat(tasks).hasValue(3);
+
+			oembedService.setExecutor(executorService);
+			assertThat(oembedService.getExecutor()).isSameAs(executorService);
+			assertThat(oembedService.embedUrlsAsync(in, null, String.class).join()).isEqualTo(expected);
+			assertThat(oembedService.embedUrlsAsync(" ", null, String.class).join()).isEqualTo(" ");
+			Document document = oembedService.embedUrlsAsync(in, "https://example.com", Document.class).join();
+			assertThat(document.getElementsByTag("iframe")).hasSize(2);
+			assertThat(oembedService.getOembedResponseForAsync("https://biking.michael-simons.eu/tracks/2").join())
+				.hasValue(this.response1);
+		}
+		finally {
+			executorService.shutdown();
+		}
+	}
+
+	@Test
+	public void asyncFailuresShouldBePropagated() {
+		Ehcache cache = Mockito.mock(Ehcache.class);
+		given(cache.get(any())).willThrow(new IllegalStateException("broken cache"));
+		given(this.cacheManager.addCacheIfAbsent("testCache")).willReturn(cache);
+
+		OembedService oembedService = new OembedService(this.defaultHttpClient,
+				new EhcacheResponseCache(this.cacheManager, "testCache"), new ArrayList<>(), null);
+		assertThat(oembedService.getExecutor()).isSameAs(ForkJoinPool.commonPool());
+		assertThatExceptionOfType(NullPointerException.class).isThrownBy(() -> oembedService.setExecutor(null));
+
+		assertThatExceptionOfType(CompletionException.class)
+			.isThrownBy(() -> oembedService.getOembedResponseForAsync("https://example.com").join())
+			.withCauseInstanceOf(IllegalStateException.class);
+		assertThatExceptionOfType(IllegalStateException.class)
+			.isThrownBy(() -> oembedService.getOembedResponseFor("https://example.com"))
+			.withMessage("broken cache");
+		assertThatExceptionOfType(IllegalStateException.class)
+			.isThrownBy(() -> oembedService.embedUrls("<a href=\"https://example.com\">x</a>", null))
+			.withMessage("broken cache");
+		assertThatExceptionOfType(CompletionException.class)
+			.isThrownBy(
+					() -> oembedService.embedUrlsAsync("<a href=\"https://example.com\">x</a>", null, Document.class)
+						.join())
+			.withCauseInstanceOf(IllegalStateException.class);
+	}
+
+	@Test
+	public void embedUrlsShouldResolveDistinctUrlsConcurrently() {
+		Ehcache cache = Mockito.mock(Ehcache.class);
+		String embeddableUrl = "https://biking.michael-simons.eu/tracks/1";
+		given(cache.get(embeddableUrl)).willReturn(new Element(embeddableUrl, this.response1));
+		given(this.cacheManager.addCacheIfAbsent("testCache")).willReturn(cache);
+
+		OembedService oembedService = new OembedService(this.defaultHttpClient,
+				new EhcacheResponseCache(this.cacheManager, "testCache"), new ArrayList<>(), null);
+		assertThat(oembedService.isConcurrentEmbedding()).isFalse();
+		assertThat(oembedService.getEmbedParallelism()).isEqualTo(8);
+		assertThatIllegalArgumentException().isThrownBy(() -> oembedService.setEmbedParallelism(0));
+
+		String anchor = "<a href=\"https://biking.michael-simons.eu/tracks/1\">x</a>";
+		String iframe = "<iframe width=\"1024\" height=\"576\" src=\"https://biking.michael-simons.eu/tracks/1/embed?width=1024&height=576\" class=\"bikingTrack\"></iframe>";
+
+		ExecutorService executorService = Executors.newFixedThreadPool(4);
+		try {
+			AtomicInteger tasks = new AtomicInteger();
+			oembedService.setExecutor(task -> {
+				tasks.incrementAndGet();
+				executorService.execute(task);
+			});
+			oembedService.setConcurrentEmbedding(true);
+			oembedService.setEmbedParallelism(2);
+			assertThat(oembedService.isConcurrentEmbedding()).isTrue();
+			assertThat(oembedService.getEmbedParallelism()).isEqualTo(2);
+
+			assertThat(oembedService.embedUrls("<p>" + anchor + " " + anchor + "</p>" + anchor, null))
+				.isEqualTo("<p>" + iframe + " " + iframe + "</p>" + iframe);
+			assertThat(tasks).hasValue(1);
+			verify(cache).get(embeddableUrl);
+
+			oembedService.setConcurrentEmbedding(false);
+			assertThat(oembedService.embedUrls(anchor, null)).isEqualTo(iframe);
+			assertThat(tasks).hasValue(1);
+		}
+		finally {
+			executorService.shutdown();
+		}
+	}
+
+	@Test
+	public void requestsShouldBeExecutedByRequestExecutor() throws IOException {
+		HttpResponse ok = Mockito.mock(HttpResponse.class, Mockito.RETURNS_DEEP_STUBS);
+		given(ok.getStatusLine().getStatusCode()).willReturn(200);
+		given(ok.getEntity().getContent()).willAnswer(invocation -> new ByteArrayInputStream("Hallo".getBytes()));
+		AtomicInteger active = new AtomicInteger();
+		AtomicInteger maxActive = new AtomicInteger();
+		given(this.defaultHttpClient.execute(any(HttpGet.class))).willAnswer(invocation -> {
+			HttpGet request = invocation.getArgument(0);
+			if (request.getURI().getHost().equals("broken.com")) {
+				throw new IOException("broken");
+			}
+			else if (request.getURI().getHost().equals("bug.com")) {
+				throw new IllegalStateException("bug");
+			}
+			maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+			Thread.sleep(5);
+			active.decrementAndGet();
+			return ok;
+		});
+
+		OembedService oembedService = new OembedService(this.defaultHttpClient, (ResponseCache) null, new ArrayList<>(),
+				null);
+		assertThat(oembedService.isVirtualThreads()).isFalse();
+		assertThat(oembedService.getMaxConcurrentRequestsPerProvider()).isEqualTo(16);
+		assertThatIllegalArgumentException().isThrownBy(() -> oembedService.setMaxConcurrentRequestsPerProvider(0));
+		oembedService.setMaxConcurrentRequestsPerProvider(2);
+		assertThat(oembedService.getMaxConcurrentRequestsPerProvider()).isEqualTo(2);
+
+		ExecutorService requestExecutor = Executors.newFixedThreadPool(8);
+		ExecutorService callers = Executors.newFixedThreadPool(8);
+		try {
+			oembedService.setRequestExecutor(requestExecutor);
+			List<CompletableFuture<String>> results = new ArrayList<>();
+			for (int i = 0; i < 16; ++i) {
+				results.add(CompletableFuture.supplyAsync(
+						() -> oembedService.executeRequest(TransportRequest.get(URI.create("https://example.com")),
+								OembedServiceTests::readString),
+						callers));
+			}
+			assertThat(results).allSatisfy(result -> assertThat(result.join()).isEqualTo("Hallo"));
+			assertThat(maxActive.get()).isBetween(1, 2);
+
+			assertThat(oembedService.executeRequest(TransportRequest.get(URI.create("https://broken.com")),
+					OembedServiceTests::readString))
+				.isNull();
+			assertThatIllegalStateException()
+				.isThrownBy(() -> oembedService.executeRequest(TransportRequest.get(URI.create("https://bug.com")),
+						OembedServiceTests::readString))
+				.withMessage("bug");
+		}
+		finally {
+			oembedService.setRequestExecutor(null);
+			callers.shutdown();
+		}
+		assertThat(requestExecutor.isShutdown()).isTrue();
+	}
+
+	@Test
+	public void virtualThreadsShouldBeDetected() {
+		OembedService oembedService = new OembedService(this.defaultHttpClient, (ResponseCache) null, new ArrayList<>(),
+				null);
+		oembedService.setVirtualThreads(false);
+		assertThat(oembedService.isVirtualThreads()).isFalse();
+
+		oembedService.setVirtualThreads(true);
+		assertThat(oembedService.isVirtualThreads()).isEqualTo(VirtualThreads.isSupported());
+		assertThat(oembedService.getExecutor()).isNotNull();
+		oembedService.setVirtualThreads(true);
+		oembedService.setVirtualThreads(false);
+		assertThat(oembedService.isVirtualThreads()).isFalse();
+		assertThat(oembedService.getExecutor()).isSameAs(ForkJoinPool.commonPool());
+	}
+
+	@Test
+	@SuppressWarnings("deprecation")
+	public void cacheManagerConstructorShouldStillBeSupported() {
+		OembedService oembedService = new OembedService(this.defaultHttpClient, this.cacheManager, List.of(), null);
+		assertThat(oembedService.getResponseCache()).isInstanceOf(EhcacheResponseCache.class);
+		assertThat(oembedService.getCacheName()).isEqualTo(EhcacheResponseCache.DEFAULT_CACHE_NAME);
+
+		given(this.cacheManager.cacheExists(EhcacheResponseCache.DEFAULT_CACHE_NAME)).willReturn(true);
+		oembedService.setCacheName("testCache");
+		verify(this.cacheManager).removeCache(EhcacheResponseCache.DEFAULT_CACHE_NAME);
+		assertThat(oembedService.getCacheName()).isEqualTo("testCache");
+		oembedService.setCacheName("anotherCache");
+		verify(this.cacheManager, never()).removeCache("testCache");
+		assertThat(oembedService.getCacheName()).isEqualTo("anotherCache");
+
+		oembedService.setResponseCache(null);
+		oembedService.setCacheName("ignored");
+		assertThat(oembedService.getResponseCache()).isNull();
+		assertThat(oembedService.getCacheName()).isEqualTo(EhcacheResponseCache.DEFAULT_CACHE_NAME);
+	}
+
+	@Test
+	public void serviceShouldWorkWithoutEhcache() throws Exception {
+		ClassLoader classLoader = new WithoutEhcacheClassLoader(OembedServiceTests.class.getClassLoader());
+		assertThatExceptionOfType(ClassNotFoundException.class)
+			.isThrownBy(() -> classLoader.loadClass("net.sf.ehcache.CacheManager"));
+
+		@SuppressWarnings("unchecked")
+		Callable<String> embedding = (Callable<String>) classLoader.loadClass(EmbeddingWithoutEhcache.class.getName())
+			.getDeclaredConstructor()
+			.newInstance();
+		assertThat(embedding.call()).isEqualTo("<p>Track 1</p><p>Track 1</p>1");
+	}
+
+	private static String readString(InputStream in) {
+		try {
+			return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+		}
+		catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+
+	/**
+	 * Defines the classes of this library itself and hides Ehcache and the JCache API, as
+	 * if they were not on the class path.
+	 */
+	static final class WithoutEhcacheClassLoader extends ClassLoader {
+
+		WithoutEhcacheClassLoader(final ClassLoader parent) {
+			super(parent);
+		}
+
+		@Override
+		protected Class<?> loadClass(final String name, final boolean resolve) throws ClassNotFoundException {
+			if (name.startsWith("net.sf.ehcache.") || name.startsWith("javax.cache.")) {
+				throw new ClassNotFoundException(name);
+			}
+			if (!name.startsWith("ac.simons.oembed.")) {
+				return super.loadClass(name, resolve);
+			}
+			synchronized (getClassLoadingLock(name)) {
+				Class<?> rv = findLoadedClass(name);
+				if (rv == null) {
+					try (InputStream in = getParent().getResourceAsStream(name.replace('.', '/') + ".class")) {
+						if (in == null) {
+							throw new ClassNotFoundException(name);
+						}
+						byte[] bytes = in.readAllBytes();
+						rv = defineClass(name, bytes, 0, bytes.length);
+					}
+					catch (IOException ex) {
+						throw new ClassNotFoundException(name, ex);
+					}
+				}
+				if (resolve) {
+					resolveClass(rv);
+				}
+				return rv;
+			}
+		}
+
+	}
+
+	/**
+	 * Embeds a document twice with an in-memory response cache, loaded by a
+	 * {@link WithoutEhcacheClassLoader}.
+	 */
+	public static final class EmbeddingWithoutEhcache implements Callable<String> {
+
+		@Override
+		public String call() {
+			OembedEndpoint endpoint = bikingEndpoint();
+			InMemoryHttpTransport transport = new InMemoryHttpTransport().respond(BIKING_API_URL, 200,
+					"{\"type\":\"rich\",\"version\":\"1.0\",\"html\":\"<p>Track 1</p>\"}");
+			OembedService oembedService = new OembedService(transport, null, List.of(endpoint), null);
+			oembedService.setResponseCache(new InMemoryResponseCache(10));
+			String html = "<a href=\"https://biking.michael-simons.eu/tracks/1\">1</a>";
+			return oembedService.embedUrls(html, null) + oembedService.embedUrls(html, null)
+					+ transport.getRequests().size();
+		}
+
+	}
+
 }
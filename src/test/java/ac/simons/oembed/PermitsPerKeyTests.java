@@ -0,0 +1,112 @@
+/*
+ * Created by Michael Simons, michael-simons.eu
+ * and released under The BSD License
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * Copyright (c) 2010-2026, Michael Simons
+ * All rights reserved.
+ *
+ * Redistribution  and  use  in  source   and  binary  forms,  with  or   without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source   code must retain   the above copyright   notice,
+ *   this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary  form must reproduce  the above copyright  notice,
+ *   this list of conditions  and the following  disclaimer in the  documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name  of  michael-simons.eu   nor the names  of its contributors
+ *   may be used  to endorse   or promote  products derived  from  this  software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE  COPYRIGHT HOLDERS AND  CONTRIBUTORS "AS IS"
+ * AND ANY  EXPRESS OR  IMPLIED WARRANTIES,  INCLUDING, BUT  NOT LIMITED  TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL  THE COPYRIGHT HOLDER OR CONTRIBUTORS  BE LIABLE
+ * FOR ANY  DIRECT, INDIRECT,  INCIDENTAL, SPECIAL,  EXEMPLARY, OR  CONSEQUENTIAL
+ * DAMAGES (INCLUDING,  BUT NOT  LIMITED TO,  PROCUREMENT OF  SUBSTITUTE GOODS OR
+ * SERVICES; LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT  LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE  USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package ac.simons.oembed;
+
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+/**
+ * @author Michael J. Simons
+ * @since 2026-10-17
+ */
+public class PermitsPerKeyTests {
+
+	@Test
+	public void unusedKeysShouldBeRemoved() throws Exception {
+		final PermitsPerKey permits = new PermitsPerKey(2);
+		for (int i = 0; i < 1000; ++i) {
+			permits.acquire("host" + i).run();
+		}
+		assertThat(permits.size()).isZero();
+
+		final Runnable first = permits.acquire("a");
+		final Runnable second = permits.acquire("a");
+		final Runnable other = permits.acquire("b");
+		assertThat(permits.size()).isEqualTo(2);
+		first.run();
+		first.run();
+		other.run();
+		assertThat(permits.size()).isOne();
+		second.run();
+		assertThat(permits.size()).isZero();
+	}
+
+	@Test
+	public void waitersShouldKeepTheirKey() throws Exception {
+		final PermitsPerKey permits = new PermitsPerKey(1);
+		final Runnable release = permits.acquire("a");
+
+		final FutureTask<Runnable> waiter = new FutureTask<>(() -> permits.acquire("a"));
+		final Thread thread = new Thread(waiter);
+		thread.start();
+		awaitWaiting(thread);
+		release.run();
+		assertThat(permits.size()).isOne();
+		waiter.get(10, TimeUnit.SECONDS).run();
+		assertThat(permits.size()).isZero();
+	}
+
+	@Test
+	public void interruptedWaitersShouldLeave() throws Exception {
+		final PermitsPerKey permits = new PermitsPerKey(1);
+		final Runnable release = permits.acquire("a");
+
+		final FutureTask<Runnable> waiter = new FutureTask<>(() -> permits.acquire("a"));
+		final Thread thread = new Thread(waiter);
+		thread.start();
+		awaitWaiting(thread);
+		thread.interrupt();
+		assertThat(waiter).failsWithin(10, TimeUnit.SECONDS);
+		release.run();
+		assertThat(permits.size()).isZero();
+	}
+
+	@Test
+	public void permitsShouldBeValidated() {
+		assertThatIllegalArgumentException().isThrownBy(() -> new PermitsPerKey(0))
+			.withMessage("The number of permits must be at least 1");
+	}
+
+	static void awaitWaiting(final Thread thread) throws InterruptedException {
+		while (thread.getState() != Thread.State.WAITING) {
+			Thread.sleep(1);
+		}
+	}
+
+}
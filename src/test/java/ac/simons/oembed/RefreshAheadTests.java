@@ -0,0 +1,155 @@
+/*
+ * Created by Michael Simons, michael-simons.eu
+ * and released under The BSD License
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * Copyright (c) 2010-2026, Michael Simons
+ * All rights reserved.
+ *
+ * Redistribution  and  use  in  source   and  binary  forms,  with  or   without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source   code must retain   the above copyright   notice,
+ *   this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary  form must reproduce  the above copyright  notice,
+ *   this list of conditions  and the following  disclaimer in the  documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name  of  michael-simons.eu   nor the names  of its contributors
+ *   may be used  to endorse   or promote  products derived  from  this  software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE  COPYRIGHT HOLDERS AND  CONTRIBUTORS "AS IS"
+ * AND ANY  EXPRESS OR  IMPLIED WARRANTIES,  INCLUDING, BUT  NOT LIMITED  TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL  THE COPYRIGHT HOLDER OR CONTRIBUTORS  BE LIABLE
+ * FOR ANY  DIRECT, INDIRECT,  INCIDENTAL, SPECIAL,  EXEMPLARY, OR  CONSEQUENTIAL
+ * DAMAGES (INCLUDING,  BUT NOT  LIMITED TO,  PROCUREMENT OF  SUBSTITUTE GOODS OR
+ * SERVICES; LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT  LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE  USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package ac.simons.oembed;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Michael J. Simons
+ * @since 2026-10-17
+ */
+public class RefreshAheadTests {
+
+	private static final Instant NOW = Instant.parse("2026-10-17T12:00:00Z");
+
+	@Test
+	public void onlyHotResponsesCloseToExpiryShouldBeDue() {
+		final RefreshAhead refreshAhead = new RefreshAhead(100);
+		final CachedResponse cachedResponse = new CachedResponse(null, NOW, NOW.plusSeconds(100));
+
+		for (int i = 0; i < RefreshAhead.HOT_FREQUENCY; ++i) {
+			assertThat(refreshAhead.isDue("https://example.com/hot", cachedResponse, NOW.plusSeconds(50))).isFalse();
+		}
+		assertThat(refreshAhead.isDue("https://example.com/hot", cachedResponse, NOW.plusSeconds(90))).isTrue();
+		assertThat(refreshAhead.isDue("https://example.com/cold", cachedResponse, NOW.plusSeconds(90))).isFalse();
+	}
+
+	@Test
+	public void refreshesShouldBeLimitedPerEndpoint() {
+		final AtomicLong now = new AtomicLong(-42);
+		final RefreshAhead refreshAhead = new RefreshAhead(100, now::get);
+		final OembedEndpoint endpoint = new OembedEndpoint();
+		endpoint.setEndpoint("https://example.com/oembed");
+		final OembedEndpoint otherEndpoint = new OembedEndpoint();
+		otherEndpoint.setEndpoint("https://example.org/oembed");
+		otherEndpoint.setRefreshAheadRate(6);
+		otherEndpoint.setMaxConcurrentRefreshes(1);
+
+		final Optional<Runnable> release = refreshAhead.tryAcquire(endpoint);
+		assertThat(release).isPresent();
+		assertThat(refreshAhead.tryAcquire(endpoint)).isEmpty();
+		final Optional<Runnable> releaseOther = refreshAhead.tryAcquire(otherEndpoint);
+		assertThat(releaseOther).isPresent();
+		now.addAndGet(Duration.ofSeconds(1).toNanos());
+		assertThat(refreshAhead.tryAcquire(endpoint)).isPresent();
+		assertThat(refreshAhead.tryAcquire(otherEndpoint)).isEmpty();
+		now.addAndGet(Duration.ofSeconds(1).toNanos());
+		assertThat(refreshAhead.tryAcquire(endpoint)).isEmpty();
+
+		release.get().run();
+		assertThat(refreshAhead.tryAcquire(endpoint)).isPresent();
+		now.addAndGet(Duration.ofSeconds(10).toNanos());
+		assertThat(refreshAhead.tryAcquire(otherEndpoint)).isEmpty();
+		releaseOther.get().run();
+		assertThat(refreshAhead.tryAcquire(otherEndpoint)).isPresent();
+	}
+
+	@Test
+	public void limitsShouldFollowTheEndpoint() {
+		final AtomicLong now = new AtomicLong();
+		final RefreshAhead refreshAhead = new RefreshAhead(100, now::get);
+		final OembedEndpoint endpoint = new OembedEndpoint();
+		endpoint.setEndpoint("https://example.com/oembed");
+		endpoint.setRefreshAheadRate(1);
+		endpoint.setMaxConcurrentRefreshes(1);
+
+		final Optional<Runnable> release = refreshAhead.tryAcquire(endpoint);
+		assertThat(release).isPresent();
+		now.addAndGet(Duration.ofMinutes(1).toNanos());
+		assertThat(refreshAhead.tryAcquire(endpoint)).isEmpty();
+
+		endpoint.setMaxConcurrentRefreshes(2);
+		assertThat(refreshAhead.tryAcquire(endpoint)).isPresent();
+		endpoint.setRefreshAheadRate(60);
+		assertThat(refreshAhead.tryAcquire(endpoint)).isPresent();
+		assertThat(refreshAhead.tryAcquire(endpoint)).isEmpty();
+		// Permits of replaced limits are still released
+		release.get().run();
+		assertThat(refreshAhead.size()).isOne();
+	}
+
+	@Test
+	public void trackedEndpointsShouldBeBounded() {
+		final AtomicLong now = new AtomicLong();
+		final RefreshAhead refreshAhead = new RefreshAhead(100, now::get);
+		final List<Runnable> releases = new ArrayList<>();
+		for (int i = 0; i < 2 * RefreshAhead.MAX_TRACKED_ENDPOINTS; ++i) {
+			final OembedEndpoint endpoint = new OembedEndpoint();
+			endpoint.setEndpoint("https://example" + i + ".com/oembed");
+			refreshAhead.tryAcquire(endpoint).ifPresent(releases::add);
+			assertThat(refreshAhead.size()).isLessThanOrEqualTo(RefreshAhead.MAX_TRACKED_ENDPOINTS);
+		}
+		assertThat(releases).hasSize(2 * RefreshAhead.MAX_TRACKED_ENDPOINTS);
+		releases.forEach(Runnable::run);
+
+		now.addAndGet(Duration.ofMinutes(1).toNanos());
+		final OembedEndpoint endpoint = new OembedEndpoint();
+		endpoint.setEndpoint("https://example.com/oembed");
+		assertThat(refreshAhead.tryAcquire(endpoint)).isPresent();
+		assertThat(refreshAhead.size()).isOne();
+	}
+
+	@Test
+	public void refreshesShouldBeDisabledPerEndpoint() {
+		final RefreshAhead refreshAhead = new RefreshAhead(100);
+		final OembedEndpoint endpoint = new OembedEndpoint();
+		assertThat(refreshAhead.tryAcquire(endpoint)).isEmpty();
+		endpoint.setEndpoint("https://example.com/oembed");
+		endpoint.setRefreshAheadRate(0);
+		assertThat(refreshAhead.tryAcquire(endpoint)).isEmpty();
+		endpoint.setRefreshAheadRate(1);
+		endpoint.setMaxConcurrentRefreshes(0);
+		assertThat(refreshAhead.tryAcquire(endpoint)).isEmpty();
+	}
+
+}
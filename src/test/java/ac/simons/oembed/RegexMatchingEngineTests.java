@@ -0,0 +1,83 @@
+/*
+ * Created by Michael Simons, michael-simons.eu
+ * and released under The BSD License
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * Copyright (c) 2010-2026, Michael Simons
+ * All rights reserved.
+ *
+ * Redistribution  and  use  in  source   and  binary  forms,  with  or   without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source   code must retain   the above copyright   notice,
+ *   this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary  form must reproduce  the above copyright  notice,
+ *   this list of conditions  and the following  disclaimer in the  documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name  of  michael-simons.eu   nor the names  of its contributors
+ *   may be used  to endorse   or promote  products derived  from  this  software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE  COPYRIGHT HOLDERS AND  CONTRIBUTORS "AS IS"
+ * AND ANY  EXPRESS OR  IMPLIED WARRANTIES,  INCLUDING, BUT  NOT LIMITED  TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL  THE COPYRIGHT HOLDER OR CONTRIBUTORS  BE LIABLE
+ * FOR ANY  DIRECT, INDIRECT,  INCIDENTAL, SPECIAL,  EXEMPLARY, OR  CONSEQUENTIAL
+ * DAMAGES (INCLUDING,  BUT NOT  LIMITED TO,  PROCUREMENT OF  SUBSTITUTE GOODS OR
+ * SERVICES; LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT  LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE  USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package ac.simons.oembed;
+
+import java.util.List;
+
+import ac.simons.oembed.UrlMatchingEngine.UrlMatcher;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * @author Michael J. Simons
+ * @since 2026-10-17
+ */
+public class RegexMatchingEngineTests {
+
+	@Test
+	public void firstMatchingSchemeShouldWin() {
+		final UrlMatcher matcher = new RegexMatchingEngine()
+			.compile(List.of("https://vimeo\\.com/\\d+", "https://(vimeo)\\.com/(.*)", "https://.*"));
+		assertThat(matcher.indexOfFirstMatch("https://vimeo.com/1")).isZero();
+		assertThat(matcher.indexOfFirstMatch("https://vimeo.com/x")).isEqualTo(1);
+		assertThat(matcher.indexOfFirstMatch("https://example.com")).isEqualTo(2);
+		assertThat(matcher.indexOfFirstMatch("http://example.com")).isEqualTo(-1);
+	}
+
+	@Test
+	public void singleSchemesShouldWork() {
+		final UrlMatcher matcher = new RegexMatchingEngine().compile(List.of("https://vimeo\\.com/\\d+"));
+		assertThat(matcher.indexOfFirstMatch("https://vimeo.com/1")).isZero();
+		assertThat(matcher.indexOfFirstMatch("https://vimeo.com/x")).isEqualTo(-1);
+	}
+
+	@Test
+	public void backReferencesShouldWork() {
+		final UrlMatcher matcher = new RegexMatchingEngine()
+			.compile(List.of("https://(\\w+)\\.example\\.com/\\1", "https://.*"));
+		assertThat(matcher.indexOfFirstMatch("https://a.example.com/a")).isZero();
+		assertThat(matcher.indexOfFirstMatch("https://a.example.com/b")).isEqualTo(1);
+		assertThat(matcher.indexOfFirstMatch("http://a.example.com/b")).isEqualTo(-1);
+	}
+
+	@Test
+	public void invalidSchemesShouldBeRejected() {
+		assertThatExceptionOfType(OembedException.class)
+			.isThrownBy(() -> new RegexMatchingEngine().compile(List.of("https://(")))
+			.withMessageContaining("https://(");
+	}
+
+}
@@ -0,0 +1,140 @@
+/*
+ * Created by Michael Simons, michael-simons.eu
+ * and released under The BSD License
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * Copyright (c) 2010-2026, Michael Simons
+ * All rights reserved.
+ *
+ * Redistribution  and  use  in  source   and  binary  forms,  with  or   without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source   code must retain   the above copyright   notice,
+ *   this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary  form must reproduce  the above copyright  notice,
+ *   this list of conditions  and the following  disclaimer in the  documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name  of  michael-simons.eu   nor the names  of its contributors
+ *   may be used  to endorse   or promote  products derived  from  this  software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE  COPYRIGHT HOLDERS AND  CONTRIBUTORS "AS IS"
+ * AND ANY  EXPRESS OR  IMPLIED WARRANTIES,  INCLUDING, BUT  NOT LIMITED  TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL  THE COPYRIGHT HOLDER OR CONTRIBUTORS  BE LIABLE
+ * FOR ANY  DIRECT, INDIRECT,  INCIDENTAL, SPECIAL,  EXEMPLARY, OR  CONSEQUENTIAL
+ * DAMAGES (INCLUDING,  BUT NOT  LIMITED TO,  PROCUREMENT OF  SUBSTITUTE GOODS OR
+ * SERVICES; LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT  LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE  USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package ac.simons.oembed;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+/**
+ * @author Michael J. Simons
+ * @since 2026-10-17
+ */
+public class SingleFlightTests {
+
+	@Test
+	public void concurrentCallsShouldBeCoalesced() throws Exception {
+		final SingleFlight<String, Integer> singleFlight = new SingleFlight<>();
+		final AtomicInteger loads = new AtomicInteger();
+		final CountDownLatch release = new CountDownLatch(1);
+
+		final List<FutureTask<Integer>> calls = callConcurrently(8, release, () -> singleFlight.execute("a", () -> {
+			await(release);
+			return loads.incrementAndGet();
+		}));
+		assertThat(singleFlight.size()).isOne();
+		release.countDown();
+
+		for (FutureTask<Integer> call : calls) {
+			assertThat(call.get(10, TimeUnit.SECONDS)).isOne();
+		}
+		assertThat(loads).hasValue(1);
+		assertThat(singleFlight.size()).isZero();
+
+		assertThat(singleFlight.execute("a", loads::incrementAndGet)).isEqualTo(2);
+		assertThat(singleFlight.execute("b", loads::incrementAndGet)).isEqualTo(3);
+	}
+
+	@Test
+	public void exceptionsShouldBeThrownToAllCallers() throws Exception {
+		final SingleFlight<String, Integer> singleFlight = new SingleFlight<>();
+		final CountDownLatch release = new CountDownLatch(1);
+
+		final List<FutureTask<Integer>> calls = callConcurrently(4, release, () -> singleFlight.execute("a", () -> {
+			await(release);
+			throw new IllegalStateException("broken");
+		}));
+		release.countDown();
+
+		for (FutureTask<Integer> call : calls) {
+			assertThat(call).failsWithin(10, TimeUnit.SECONDS)
+				.withThrowableOfType(ExecutionException.class)
+				.withCauseInstanceOf(IllegalStateException.class)
+				.withMessageContaining("broken");
+		}
+		assertThat(singleFlight.size()).isZero();
+		assertThatIllegalStateException().isThrownBy(() -> singleFlight.execute("a", () -> {
+			throw new IllegalStateException("still broken");
+		}));
+		assertThat(singleFlight.execute("a", () -> 1)).isOne();
+	}
+
+	/**
+	 * Starts {@code n} threads calling the supplier and waits until all of them are
+	 * waiting, either for the latch or for another call.
+	 * @param <T> the type of the result
+	 * @param n the number of threads
+	 * @param release the latch the loader waits for
+	 * @param supplier the call
+	 * @return the calls
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	static <T> List<FutureTask<T>> callConcurrently(final int n, final CountDownLatch release,
+			final Supplier<T> supplier) throws InterruptedException {
+		final List<FutureTask<T>> calls = new ArrayList<>();
+		final List<Thread> threads = new ArrayList<>();
+		for (int i = 0; i < n; ++i) {
+			final FutureTask<T> call = new FutureTask<>(supplier::get);
+			final Thread thread = new Thread(call);
+			thread.start();
+			calls.add(call);
+			threads.add(thread);
+		}
+		while (release.getCount() > 0 && threads.stream().anyMatch(t -> t.getState() != Thread.State.WAITING)) {
+			Thread.sleep(1);
+		}
+		return calls;
+	}
+
+	static void await(final CountDownLatch latch) {
+		try {
+			latch.await();
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(ex);
+		}
+	}
+
+}
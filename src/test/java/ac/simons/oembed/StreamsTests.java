@@ -0,0 +1,188 @@
+/*
+ * Created by Michael Simons, michael-simons.eu
+ * and released under The BSD License
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * Copyright (c) 2010-2026, Michael Simons
+ * All rights reserved.
+ *
+ * Redistribution  and  use  in  source   and  binary  forms,  with  or   without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source   code must retain   the above copyright   notice,
+ *   this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary  form must reproduce  the above copyright  notice,
+ *   this list of conditions  and the following  disclaimer in the  documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name  of  michael-simons.eu   nor the names  of its contributors
+ *   may be used  to endorse   or promote  products derived  from  this  software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE  COPYRIGHT HOLDERS AND  CONTRIBUTORS "AS IS"
+ * AND ANY  EXPRESS OR  IMPLIED WARRANTIES,  INCLUDING, BUT  NOT LIMITED  TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL  THE COPYRIGHT HOLDER OR CONTRIBUTORS  BE LIABLE
+ * FOR ANY  DIRECT, INDIRECT,  INCIDENTAL, SPECIAL,  EXEMPLARY, OR  CONSEQUENTIAL
+ * DAMAGES (INCLUDING,  BUT NOT  LIMITED TO,  PROCUREMENT OF  SUBSTITUTE GOODS OR
+ * SERVICES; LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT  LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE  USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package ac.simons.oembed;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIOException;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * @author Michael J. Simons
+ * @since 2026-10-17
+ */
+public class StreamsTests {
+
+	@Test
+	public void drainShouldStopAtLimit() throws IOException {
+		assertThat(Streams.drain(null, 0)).isTrue();
+		assertThat(Streams.drain(new ByteArrayInputStream(new byte[10]), 10)).isTrue();
+		assertThat(Streams.drain(new ByteArrayInputStream(new byte[11]), 10)).isFalse();
+		assertThat(Streams.drain(new ByteArrayInputStream(new byte[20_000]), 20_000)).isTrue();
+	}
+
+	@Test
+	public void smallRestsShouldBeDrained() throws IOException {
+		final InputStream in = Mockito.spy(new ByteArrayInputStream(new byte[Streams.MAX_DRAIN_SIZE]));
+		final Closeable abort = Mockito.mock(Closeable.class);
+		final InputStream body = Streams.draining(in, abort);
+		assertThat(body.read()).isZero();
+		body.close();
+		body.close();
+		assertThat(in.available()).isZero();
+		verify(abort, never()).close();
+		verify(in, times(1)).close();
+	}
+
+	@Test
+	public void largeRestsShouldBeAborted() throws IOException {
+		final InputStream in = Mockito.spy(new ByteArrayInputStream(new byte[2 * Streams.MAX_DRAIN_SIZE]));
+		final Closeable abort = Mockito.mock(Closeable.class);
+		Streams.draining(in, abort).close();
+		verify(abort).close();
+		verify(in).close();
+
+		final InputStream other = Mockito.spy(new ByteArrayInputStream(new byte[2 * Streams.MAX_DRAIN_SIZE]));
+		Streams.draining(other, null).close();
+		verify(other).close();
+	}
+
+	@Test
+	public void abortShouldNotDrain() throws IOException {
+		final InputStream in = Mockito.spy(new ByteArrayInputStream(new byte[16]));
+		final Closeable abort = Mockito.mock(Closeable.class);
+		final Streams.DrainingInputStream body = Streams.draining(in, abort);
+		body.abort();
+		body.abort();
+		body.close();
+		assertThat(in.available()).isEqualTo(16);
+		verify(abort).close();
+		verify(in).close();
+
+		final InputStream other = Mockito.spy(new ByteArrayInputStream(new byte[16]));
+		Streams.draining(other, null).abort();
+		verify(other).close();
+	}
+
+	@Test
+	public void limitedInputStreamShouldFailWhenExceeded() throws IOException {
+		final Streams.LimitedInputStream exact = new Streams.LimitedInputStream(new ByteArrayInputStream(new byte[4]),
+				4);
+		assertThat(exact.read()).isZero();
+		assertThat(exact.skip(1)).isOne();
+		assertThat(exact.readAllBytes()).hasSize(2);
+		assertThat(exact.read()).isEqualTo(-1);
+		assertThat(exact.isExceeded()).isFalse();
+		assertThat(exact.markSupported()).isFalse();
+
+		final Streams.LimitedInputStream tooLarge = new Streams.LimitedInputStream(
+				new ByteArrayInputStream(new byte[1024]), 4);
+		assertThatIOException().isThrownBy(tooLarge::readAllBytes).withMessage("Maximum size of 4 bytes exceeded");
+		assertThat(tooLarge.isExceeded()).isTrue();
+		assertThatIOException().isThrownBy(tooLarge::read);
+		assertThatIOException().isThrownBy(() -> tooLarge.skip(1));
+
+		final Streams.LimitedInputStream singleBytes = new Streams.LimitedInputStream(
+				new ByteArrayInputStream(new byte[2]), 1);
+		assertThat(singleBytes.read()).isZero();
+		assertThatIOException().isThrownBy(singleBytes::read);
+
+		final Streams.LimitedInputStream skipped = new Streams.LimitedInputStream(new ByteArrayInputStream(new byte[8]),
+				1);
+		assertThatIOException().isThrownBy(() -> skipped.skip(8));
+		assertThat(skipped.isExceeded()).isTrue();
+	}
+
+	@Test
+	public void bodiesShouldBeDecoded() throws IOException {
+		final byte[] content = "Hallo, Welt".repeat(100).getBytes(StandardCharsets.UTF_8);
+		final byte[] gzipped = gzip(content);
+
+		assertThat(Streams.decoding(new ByteArrayInputStream(content), null).readAllBytes()).isEqualTo(content);
+		assertThat(Streams.decoding(new ByteArrayInputStream(content), " Identity").readAllBytes()).isEqualTo(content);
+		assertThat(Streams.decoding(new ByteArrayInputStream(gzipped), "gzip").readAllBytes()).isEqualTo(content);
+		assertThat(Streams.decoding(new ByteArrayInputStream(gzipped), "X-GZIP").readAllBytes()).isEqualTo(content);
+		assertThat(Streams.decoding(new ByteArrayInputStream(deflate(content, false)), "deflate").readAllBytes())
+			.isEqualTo(content);
+		assertThat(Streams.decoding(new ByteArrayInputStream(deflate(content, true)), "deflate").readAllBytes())
+			.isEqualTo(content);
+		assertThat(Streams.decoding(new ByteArrayInputStream(gzip(deflate(content, false))), "deflate, gzip")
+			.readAllBytes()).isEqualTo(content);
+		assertThat(Streams.decoding(new ByteArrayInputStream(new byte[0]), "deflate").readAllBytes()).isEmpty();
+
+		final InputStream in = Mockito.spy(new ByteArrayInputStream(deflate(content, true)));
+		Streams.decoding(in, "deflate").close();
+		verify(in).close();
+
+		assertThatIOException().isThrownBy(() -> Streams.decoding(new ByteArrayInputStream(content), "br"))
+			.withMessage("Unsupported content encoding 'br'");
+		assertThatIOException().isThrownBy(() -> Streams.decoding(new ByteArrayInputStream(content), "gzip"));
+	}
+
+	static byte[] gzip(final byte[] content) throws IOException {
+		final ByteArrayOutputStream rv = new ByteArrayOutputStream();
+		try (OutputStream out = new GZIPOutputStream(rv)) {
+			out.write(content);
+		}
+		return rv.toByteArray();
+	}
+
+	static byte[] deflate(final byte[] content, final boolean raw) throws IOException {
+		final ByteArrayOutputStream rv = new ByteArrayOutputStream();
+		final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, raw);
+		try (OutputStream out = new DeflaterOutputStream(rv, deflater)) {
+			out.write(content);
+		}
+		finally {
+			deflater.end();
+		}
+		return rv.toByteArray();
+	}
+
+}
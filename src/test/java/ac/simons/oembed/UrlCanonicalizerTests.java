@@ -0,0 +1,84 @@
+/*
+ * Created by Michael Simons, michael-simons.eu
+ * and released under The BSD License
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * Copyright (c) 2010-2026, Michael Simons
+ * All rights reserved.
+ *
+ * Redistribution  and  use  in  source   and  binary  forms,  with  or   without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source   code must retain   the above copyright   notice,
+ *   this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary  form must reproduce  the above copyright  notice,
+ *   this list of conditions  and the following  disclaimer in the  documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name  of  michael-simons.eu   nor the names  of its contributors
+ *   may be used  to endorse   or promote  products derived  from  this  software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE  COPYRIGHT HOLDERS AND  CONTRIBUTORS "AS IS"
+ * AND ANY  EXPRESS OR  IMPLIED WARRANTIES,  INCLUDING, BUT  NOT LIMITED  TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL  THE COPYRIGHT HOLDER OR CONTRIBUTORS  BE LIABLE
+ * FOR ANY  DIRECT, INDIRECT,  INCIDENTAL, SPECIAL,  EXEMPLARY, OR  CONSEQUENTIAL
+ * DAMAGES (INCLUDING,  BUT NOT  LIMITED TO,  PROCUREMENT OF  SUBSTITUTE GOODS OR
+ * SERVICES; LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT  LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE  USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package ac.simons.oembed;
+
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Michael J. Simons
+ * @since 2026-10-17
+ */
+public class UrlCanonicalizerTests {
+
+	@Test
+	public void urlsShouldBeCanonicalized() {
+		final UrlCanonicalizer canonicalizer = new UrlCanonicalizer();
+		assertThat(canonicalizer.canonicalize("HTTPS://WWW.YouTube.com:443/watch?v=X&utm_source=foo#t=10"))
+			.isEqualTo("https://www.youtube.com/watch?v=X");
+		assertThat(canonicalizer.canonicalize("http://Example.com:80/A%20Path?b=2&a=1&&fbclid=x&a=0&UTM_Medium"))
+			.isEqualTo("http://example.com/A%20Path?a=1&a=0&b=2");
+		assertThat(canonicalizer.canonicalize("http://user@example.com:8080?utm_campaign=x"))
+			.isEqualTo("http://user@example.com:8080");
+		assertThat(canonicalizer.canonicalize("ftp://example.com:21/file")).isEqualTo("ftp://example.com:21/file");
+	}
+
+	@Test
+	public void unsupportedUrlsShouldBeReturnedUnchanged() {
+		final UrlCanonicalizer canonicalizer = new UrlCanonicalizer();
+		assertThat(canonicalizer.canonicalize("not a url")).isEqualTo("not a url");
+		assertThat(canonicalizer.canonicalize("/relative/Path#x")).isEqualTo("/relative/Path#x");
+		assertThat(canonicalizer.canonicalize("mailto:Someone@Example.com")).isEqualTo("mailto:Someone@Example.com");
+		assertThat(canonicalizer.canonicalize("https://under_score.Example.com/"))
+			.isEqualTo("https://under_score.Example.com/");
+	}
+
+	@Test
+	public void canonicalizationShouldBeConfigurable() {
+		final UrlCanonicalizer canonicalizer = new UrlCanonicalizer();
+		assertThat(canonicalizer.getTrackingParameters()).isEqualTo(UrlCanonicalizer.DEFAULT_TRACKING_PARAMETERS);
+		assertThat(canonicalizer.isSortQueryParameters()).isTrue();
+
+		canonicalizer.setTrackingParameters(Set.of("Ref", "x_*"));
+		canonicalizer.setSortQueryParameters(false);
+		assertThat(canonicalizer.getTrackingParameters()).containsExactlyInAnyOrder("Ref", "x_*");
+		assertThat(canonicalizer.isSortQueryParameters()).isFalse();
+		assertThat(canonicalizer.canonicalize("https://example.com/?b=2&ref=1&utm_source=x&x_y=1&a=1"))
+			.isEqualTo("https://example.com/?b=2&utm_source=x&a=1");
+	}
+
+}
@@ -0,0 +1,231 @@
+/*
+ * Created by Michael Simons, michael-simons.eu
+ * and released under The BSD License
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * Copyright (c) 2010-2026, Michael Simons
+ * All rights reserved.
+ *
+ * Redistribution  and  use  in  source   and  binary  forms,  with  or   without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source   code must retain   the above copyright   notice,
+ *   this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary  form must reproduce  the above copyright  notice,
+ *   this list of conditions  and the following  disclaimer in the  documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name  of  michael-simons.eu   nor the names  of its contributors
+ *   may be used  to endorse   or promote  products derived  from  this  software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE  COPYRIGHT HOLDERS AND  CONTRIBUTORS "AS IS"
+ * AND ANY  EXPRESS OR  IMPLIED WARRANTIES,  INCLUDING, BUT  NOT LIMITED  TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL  THE COPYRIGHT HOLDER OR CONTRIBUTORS  BE LIABLE
+ * FOR ANY  DIRECT, INDIRECT,  INCIDENTAL, SPECIAL,  EXEMPLARY, OR  CONSEQUENTIAL
+ * DAMAGES (INCLUDING,  BUT NOT  LIMITED TO,  PROCUREMENT OF  SUBSTITUTE GOODS OR
+ * SERVICES; LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT  LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE  USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package ac.simons.oembed;
+
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import ac.simons.oembed.OembedEndpoint.SchemeSyntax;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * @author Michael J. Simons
+ * @since 2026-10-17
+ */
+public class UrlSchemeIndexTests {
+
+	private static UrlSchemeIndex<Map.Entry<String, List<String>>> indexOf(
+			final List<Map.Entry<String, List<String>>> entries) {
+		return indexOf(entries, new AutomatonMatchingEngine());
+	}
+
+	private static UrlSchemeIndex<Map.Entry<String, List<String>>> indexOf(
+			final List<Map.Entry<String, List<String>>> entries, final UrlMatchingEngine engine) {
+		return new UrlSchemeIndex<>(entries, Map.Entry::getValue, e -> SchemeSyntax.regex, engine);
+	}
+
+	@Test
+	public void firstMatchingEntryShouldWin() {
+		final var index = indexOf(List.of(Map.entry("a", List.of("https?://vimeo\\.com/groups/.+/videos/\\d+")),
+				Map.entry("b", List.of("https?://(www\\.)?vimeo\\.com/(\\d+)", " https?://vimeo\\.com/.* ")),
+				Map.entry("c", List.of("https?://vimeo\\.com/\\d+"))));
+
+		assertThat(index.find("https://vimeo.com/123")).map(Map.Entry::getKey).hasValue("b");
+		assertThat(index.find("https://vimeo.com/groups/x/videos/1")).map(Map.Entry::getKey).hasValue("a");
+		assertThat(index.find("https://vimeo.com/channels/x")).map(Map.Entry::getKey).hasValue("b");
+		assertThat(index.find("https://youtube.com/123")).isEmpty();
+	}
+
+	@Test
+	public void entriesWithoutSchemesShouldBeIgnored() {
+		final var index = indexOf(Arrays.asList(Map.entry("a", List.of()), new AbstractMap.SimpleEntry<>("b", null),
+				Map.entry("c", List.of("https://dailyfratze\\.de/.*"))));
+
+		assertThat(index.find("https://dailyfratze.de/michael")).map(Map.Entry::getKey).hasValue("c");
+		assertThat(index.find("https://example.com")).isEmpty();
+		assertThat(indexOf(List.of()).find("https://example.com")).isEmpty();
+	}
+
+	@Test
+	public void backReferencesShouldStillWork() {
+		final var index = indexOf(List.of(Map.entry("a", List.of("https://(\\w+)\\.example\\.com/\\1")),
+				Map.entry("b", List.of("https://(?<x>\\w+)\\.example\\.com/\\k<x>/.*")),
+				Map.entry("c", List.of("https://.*"))), new RegexMatchingEngine());
+
+		assertThat(index.find("https://foo.example.com/foo")).map(Map.Entry::getKey).hasValue("a");
+		assertThat(index.find("https://foo.example.com/foo/bar")).map(Map.Entry::getKey).hasValue("b");
+		assertThat(index.find("https://foo.example.com/bar")).map(Map.Entry::getKey).hasValue("c");
+		assertThat(index.find("http://foo.example.com/bar")).isEmpty();
+	}
+
+	@Test
+	public void duplicateGroupNamesShouldStillWork() {
+		final var index = indexOf(List.of(Map.entry("a", List.of("https://(?<id>\\d+)\\.example\\.com")),
+				Map.entry("b", List.of("https://(?<id>[a-z]+)\\.example\\.com"))), new RegexMatchingEngine());
+
+		assertThat(index.find("https://42.example.com")).map(Map.Entry::getKey).hasValue("a");
+		assertThat(index.find("https://abc.example.com")).map(Map.Entry::getKey).hasValue("b");
+		assertThat(index.find("https://ABC.example.com")).isEmpty();
+	}
+
+	@Test
+	public void hostKeysShouldBeExtracted() {
+		assertThat(UrlSchemeIndex.HostKey.of("https?://vimeo\\.com/\\d+"))
+			.hasValue(new UrlSchemeIndex.HostKey(List.of("com", "vimeo"), null, true));
+		assertThat(UrlSchemeIndex.HostKey.of("^(?:http|https)://(www|de)\\.youtube\\.com/watch\\?v=.*"))
+			.hasValue(new UrlSchemeIndex.HostKey(List.of("com", "youtube"), null, false));
+		assertThat(UrlSchemeIndex.HostKey.of("https://(www\\.)?youtube\\.com/.*"))
+			.hasValue(new UrlSchemeIndex.HostKey(List.of("com"), "youtube", false));
+		assertThat(UrlSchemeIndex.HostKey.of("https://[a-z\\-]{2,}com"))
+			.hasValue(new UrlSchemeIndex.HostKey(List.of(), "com", false));
+		assertThat(UrlSchemeIndex.HostKey.of("https://\\w+\\.example\\.com:8080"))
+			.hasValue(new UrlSchemeIndex.HostKey(List.of("com:8080", "example"), null, false));
+		assertThat(UrlSchemeIndex.HostKey.of("file:///.*"))
+			.hasValue(new UrlSchemeIndex.HostKey(List.of(""), null, true));
+
+		assertThat(UrlSchemeIndex.HostKey.of("vimeo\\.com/\\d+")).isEmpty();
+		assertThat(UrlSchemeIndex.HostKey.of(".*://vimeo\\.com/\\d+")).isEmpty();
+		assertThat(UrlSchemeIndex.HostKey.of("(?i)https://vimeo\\.com/\\d+")).isEmpty();
+		assertThat(UrlSchemeIndex.HostKey.of("https://vimeo\\.com/\\d+|https://example\\.com/.*")).isEmpty();
+		assertThat(UrlSchemeIndex.HostKey.of("https://vimeo\\.com/\\Q(\\E|https://example\\.com/.*")).isEmpty();
+		assertThat(UrlSchemeIndex.HostKey.of("https://vimeo\\.com/(?x)#(\n|https://example\\.com/.*")).isEmpty();
+		assertThat(UrlSchemeIndex.HostKey.of("https://vimeo\\.com/[|]\\(|https://example\\.com/.*")).isEmpty();
+		assertThat(UrlSchemeIndex.HostKey.of("https://.*\\.vimeo\\.com/\\d+")).isEmpty();
+		assertThat(UrlSchemeIndex.HostKey.of("https://[^/]+\\.vimeo\\.com/\\d+")).isEmpty();
+		assertThat(UrlSchemeIndex.HostKey.of("https://[a-z/]+\\.vimeo\\.com/\\d+")).isEmpty();
+		assertThat(UrlSchemeIndex.HostKey.of("https://[a-z[0-9]]+\\.vimeo\\.com/\\d+")).isEmpty();
+		assertThat(UrlSchemeIndex.HostKey.of("https://[a-z\\S]+\\.vimeo\\.com/\\d+")).isEmpty();
+		assertThat(UrlSchemeIndex.HostKey.of("https://[a-z")).isEmpty();
+		assertThat(UrlSchemeIndex.HostKey.of("https://\\S+\\.vimeo\\.com/\\d+")).isEmpty();
+		assertThat(UrlSchemeIndex.HostKey.of("https://(?i:vimeo)\\.com/\\d+")).isEmpty();
+		assertThat(UrlSchemeIndex.HostKey.of("https://(vimeo/)\\.com/\\d+")).isEmpty();
+		assertThat(UrlSchemeIndex.HostKey.of("https://(vimeo\\.com")).isEmpty();
+		assertThat(UrlSchemeIndex.HostKey.of("https://vimeo\\.com$")).isEmpty();
+		assertThat(UrlSchemeIndex.HostKey.of("https://vimeo\\.com?/.*")).isEmpty();
+		assertThat(UrlSchemeIndex.HostKey.of("https://vimeo\\.co(m|n)/.*")).isEmpty();
+		assertThat(UrlSchemeIndex.HostKey.of("https://vimeo\\")).isEmpty();
+	}
+
+	@Test
+	public void lookupShouldBeEquivalentToLinearScan() {
+		final List<String> schemes = List.of("https?://vimeo\\.com/\\d+",
+				"https?://(www\\.)?youtube\\.com/watch\\?v=.*", "https?://(www|de)\\.youtube\\.com/.*",
+				"https://youtu\\.be/.*", "https?://.*\\.flickr\\.com/photos/.*",
+				"https?://[a-z]+\\.flickr\\.com/photos/.*", "https?://\\w+\\.example\\.com:8080/.*", "https?://.*",
+				"https://[a-z]{2,3}com/.*", "file:///.*", "https://(?:www\\.)?tiktok\\.com/@.+",
+				"https://(vimeo|player\\.vimeo)\\.com/video/\\d+");
+		final List<String> urls = List.of("https://vimeo.com/123", "https://player.vimeo.com/video/42",
+				"https://vimeo.com/video/42", "https://youtube.com/watch?v=x", "https://www.youtube.com/watch?v=x",
+				"https://de.youtube.com/foo", "https://myyoutube.com/watch?v=x", "https://youtu.be/x",
+				"https://youtu.be", "https://www.flickr.com/photos/1", "https://flickr.com/photos/1",
+				"https://a.b.flickr.com/photos/1", "https://x.example.com:8080/y", "https://example.com:8080/y",
+				"https://abccom/x", "https://abcdcom/x", "file:///etc/hosts", "https://tiktok.com/@foo",
+				"https://www.tiktok.com/@foo", "ftp://vimeo.com/1", "vimeo.com/1", "https://",
+				"https://.flickr.com/photos/1", "https://evil.com/?.flickr.com/photos/1");
+
+		for (int i = 0; i < schemes.size(); ++i) {
+			for (int j = 0; j < schemes.size(); ++j) {
+				final List<Map.Entry<String, List<String>>> entries = List.of(
+						Map.entry("first", List.of(schemes.get(i))), Map.entry("second", schemes.subList(0, j)),
+						Map.entry("third", List.of(schemes.get(j))));
+				for (UrlMatchingEngine engine : List.of(new AutomatonMatchingEngine(), new RegexMatchingEngine())) {
+					final var index = indexOf(entries, engine);
+					for (String url : urls) {
+						final var expected = entries.stream()
+							.filter(entry -> entry.getValue().stream().anyMatch(url::matches))
+							.findFirst();
+						assertThat(index.find(url)).as("%s with %s", url, entries).isEqualTo(expected);
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	public void globsAndRegularExpressionsShouldBeMixable() {
+		final List<Map.Entry<String, List<String>>> entries = List.of(
+				Map.entry("regex", List.of("https://www\\.flickr\\.com/photos/\\d+")),
+				Map.entry("glob", List.of("https://*.flickr.com/photos/*", "https://flic.kr/p/*", "flickr:*")),
+				Map.entry("fallback", List.of("https://.*")));
+		final var index = new UrlSchemeIndex<>(entries, Map.Entry::getValue,
+				e -> "glob".equals(e.getKey()) ? SchemeSyntax.glob : SchemeSyntax.regex, new AutomatonMatchingEngine());
+
+		assertThat(index.find("https://www.flickr.com/photos/1")).map(Map.Entry::getKey).hasValue("regex");
+		assertThat(index.find("https://www.flickr.com/photos/x")).map(Map.Entry::getKey).hasValue("glob");
+		assertThat(index.find("https://flic.kr/p/x")).map(Map.Entry::getKey).hasValue("glob");
+		assertThat(index.find("flickr:x")).map(Map.Entry::getKey).hasValue("glob");
+		assertThat(index.find("https://flic.kr/x")).map(Map.Entry::getKey).hasValue("fallback");
+		assertThat(index.find("http://flic.kr/p/x")).isEmpty();
+	}
+
+	@Test
+	public void hostsWithoutSchemesShouldBeDetected() {
+		final var index = indexOf(List.of(Map.entry("a", List.of("https?://vimeo\\.com/\\d+")),
+				Map.entry("b", List.of("https://(www\\.)?youtube\\.com/.*", "https://[a-z]+\\.flickr\\.com/.*"))));
+
+		assertThat(index.mayMatchHostOf("https://vimeo.com/x")).isTrue();
+		assertThat(index.mayMatchHostOf("https://www.youtube.com/x")).isTrue();
+		assertThat(index.mayMatchHostOf("https://myyoutube.com")).isTrue();
+		assertThat(index.mayMatchHostOf("https://www.flickr.com/x")).isTrue();
+		assertThat(index.mayMatchHostOf("https://flickr.com/x")).isFalse();
+		assertThat(index.mayMatchHostOf("https://com/x")).isFalse();
+		assertThat(index.mayMatchHostOf("https://player.vimeo.com/x")).isFalse();
+		assertThat(index.mayMatchHostOf("https://example.com/x")).isFalse();
+		assertThat(index.mayMatchHostOf("example.com")).isFalse();
+
+		final var unkeyed = indexOf(List.of(Map.entry("a", List.of(".*"))));
+		assertThat(unkeyed.mayMatchHostOf("https://example.com/x")).isTrue();
+	}
+
+	@Test
+	public void hostsShouldBeExtracted() {
+		assertThat(UrlSchemeIndex.hostOf("https://example.com")).isEqualTo("example.com");
+		assertThat(UrlSchemeIndex.hostOf("https://example.com:8080/foo")).isEqualTo("example.com:8080");
+		assertThat(UrlSchemeIndex.hostOf("file:///foo")).isEmpty();
+		assertThat(UrlSchemeIndex.hostOf("example.com/foo")).isNull();
+	}
+
+	@Test
+	public void invalidSchemesShouldBeRejected() {
+		final List<Map.Entry<String, List<String>>> entries = List.of(Map.entry("a", List.of("https://(")));
+		assertThatExceptionOfType(OembedException.class).isThrownBy(() -> indexOf(entries));
+		assertThatExceptionOfType(OembedException.class).isThrownBy(() -> indexOf(entries, new RegexMatchingEngine()));
+	}
+
+}
@@ -0,0 +1,188 @@
+/*
+ * Created by Michael Simons, michael-simons.eu
+ * and released under The BSD License
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * Copyright (c) 2010-2026, Michael Simons
+ * All rights reserved.
+ *
+ * Redistribution  and  use  in  source   and  binary  forms,  with  or   without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source   code must retain   the above copyright   notice,
+ *   this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary  form must reproduce  the above copyright  notice,
+ *   this list of conditions  and the following  disclaimer in the  documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * * Neither the name  of  michael-simons.eu   nor the names  of its contributors
+ *   may be used  to endorse   or promote  products derived  from  this  software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS  PROVIDED BY THE  COPYRIGHT HOLDERS AND  CONTRIBUTORS "AS IS"
+ * AND ANY  EXPRESS OR  IMPLIED WARRANTIES,  INCLUDING, BUT  NOT LIMITED  TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL  THE COPYRIGHT HOLDER OR CONTRIBUTORS  BE LIABLE
+ * FOR ANY  DIRECT, INDIRECT,  INCIDENTAL, SPECIAL,  EXEMPLARY, OR  CONSEQUENTIAL
+ * DAMAGES (INCLUDING,  BUT NOT  LIMITED TO,  PROCUREMENT OF  SUBSTITUTE GOODS OR
+ * SERVICES; LOSS  OF USE,  DATA, OR  PROFITS; OR  BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT  LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE  USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package ac.simons.oembed;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assumptions.assumeThat;
+
+/**
+ * @author Michael J. Simons
+ * @since 2026-10-17
+ */
+public class VirtualThreadsTests {
+
+	private static final String RESPONSE = "{\"type\":\"video\",\"version\":\"1.0\",\"html\":\"<iframe></iframe>\"}";
+
+	@Test
+	public void supportShouldBeDetected() throws Exception {
+		assertThat(VirtualThreads.isSupported()).isEqualTo(Runtime.version().feature() >= 21);
+		assertThat(VirtualThreads.isVirtual(Thread.currentThread())).isFalse();
+
+		final Optional<ExecutorService> executor = VirtualThreads.newExecutor();
+		assertThat(executor.isPresent()).isEqualTo(VirtualThreads.isSupported());
+		if (executor.isPresent()) {
+			try {
+				assertThat(executor.get().submit(() -> VirtualThreads.isVirtual(Thread.currentThread())).get())
+					.isTrue();
+			}
+			finally {
+				executor.get().shutdown();
+			}
+		}
+	}
+
+	/**
+	 * Runs many concurrent requests against a local server on virtual threads while
+	 * recording {@code jdk.VirtualThreadPinned} events. Only runs on a JDK with virtual
+	 * threads. Apache HttpClient 4 leases pooled connections inside a synchronized future
+	 * and can pin a carrier thread there under contention, which is out of reach for this
+	 * library. Events parking in the connection pool are therefore ignored, any other
+	 * pinning, especially in this library, fails the test.
+	 * @param tempDir directory for the recording
+	 * @throws IOException if the server or the recording fails
+	 */
+	@Test
+	public void requestsShouldNotPinCarrierThreads(@TempDir final Path tempDir) throws IOException {
+		assumeThat(VirtualThreads.isSupported()).as("Virtual threads are supported").isTrue();
+
+		final AtomicInteger active = new AtomicInteger();
+		final AtomicInteger maxActive = new AtomicInteger();
+		final HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.setExecutor(Executors.newCachedThreadPool());
+		server.createContext("/oembed", exchange -> {
+			maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+			try {
+				Thread.sleep(20);
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+			finally {
+				// Before responding, the client may release its permit as soon as the
+				// body is read
+				active.decrementAndGet();
+			}
+			respond(exchange, RESPONSE);
+		});
+		server.start();
+
+		final String baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+		final OembedEndpoint endpoint = new OembedEndpoint();
+		endpoint.setName("local");
+		endpoint.setEndpoint(baseUrl + "/oembed");
+		endpoint.setUrlSchemes(List.of("http://127\\.0\\.0\\.1:\\d+/video/\\d+"));
+
+		final Path recordingFile = tempDir.resolve("pinning.jfr");
+		try (CloseableHttpClient httpClient = HttpClients.custom().setMaxConnTotal(64).setMaxConnPerRoute(64).build();
+				Recording recording = new Recording()) {
+			final OembedService oembedService = new OembedService(httpClient, (ResponseCache) null, List.of(endpoint),
+					null);
+			oembedService.setVirtualThreads(true);
+			oembedService.setMaxConcurrentRequestsPerProvider(8);
+			recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ofMillis(1)).withStackTrace();
+			recording.start();
+
+			final List<CompletableFuture<Optional<OembedResponse>>> responses = new ArrayList<>();
+			for (int i = 0; i < 200; ++i) {
+				responses.add(oembedService.getOembedResponseForAsync(baseUrl + "/video/" + i));
+			}
+			assertThat(responses).allSatisfy(response -> assertThat(response.join()).isPresent());
+
+			recording.stop();
+			recording.dump(recordingFile);
+			oembedService.setVirtualThreads(false);
+		}
+		finally {
+			server.stop(0);
+		}
+
+		final List<RecordedEvent> pinned = RecordingFile.readAllEvents(recordingFile)
+			.stream()
+			.filter(event -> !isParkedInConnectionPool(event))
+			.toList();
+		assertThat(pinned).as("Pinned virtual threads").isEmpty();
+		assertThat(maxActive.get()).isBetween(1, 8);
+	}
+
+	/**
+	 * Checks whether the first frame outside the JDK belongs to the connection pool of
+	 * Apache HttpClient.
+	 * @param event the pinning event
+	 * @return true if the virtual thread parked in the connection pool
+	 */
+	private static boolean isParkedInConnectionPool(final RecordedEvent event) {
+		return event.getStackTrace()
+			.getFrames()
+			.stream()
+			.map(frame -> frame.getMethod().getType().getName())
+			.filter(type -> !(type.startsWith("java.") || type.startsWith("jdk.")))
+			.findFirst()
+			.filter(type -> type.startsWith("org.apache.http.pool."))
+			.isPresent();
+	}
+
+	private static void respond(final HttpExchange exchange, final String body) throws IOException {
+		final byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().add("Content-Type", "application/json");
+		exchange.sendResponseHeaders(200, bytes.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(bytes);
+		}
+	}
+
+}